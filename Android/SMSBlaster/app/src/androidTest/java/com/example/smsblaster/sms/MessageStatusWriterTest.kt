@@ -0,0 +1,87 @@
+package com.example.smsblaster.sms
+
+import androidx.room.Room
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import com.example.smsblaster.data.AppDatabase
+import com.example.smsblaster.data.model.Campaign
+import com.example.smsblaster.data.model.CampaignMessage
+import com.example.smsblaster.data.model.Contact
+import com.example.smsblaster.data.model.MessageStatus
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.cancelAndJoin
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.joinAll
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.yield
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+class MessageStatusWriterTest {
+
+    private lateinit var database: AppDatabase
+    private var campaignId = 0L
+    private lateinit var messageIds: List<Long>
+
+    @Before
+    fun setUp() = runBlocking {
+        val context = InstrumentationRegistry.getInstrumentation().targetContext
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase::class.java).build()
+        val contactId = database.contactDao().insertContact(Contact(name = "Asha", phone = "+919812345678"))
+        campaignId = database.campaignDao().insertCampaign(Campaign(name = "Test", totalCount = MESSAGES))
+        messageIds = database.campaignMessageDao().insertMessages(
+            List(MESSAGES) { CampaignMessage(campaignId = campaignId, contactId = contactId, phoneNumber = "+919812345678", message = "Hi $it") }
+        )
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    // Size-triggered flushes from the senders race the periodic flusher, as in CampaignEngine.
+    // A batch holding a message's SENDING must never commit after the batch holding its SENT.
+    @Test
+    fun interleavedFlushesKeepTheFinalStatus() = runBlocking {
+        val writer = MessageStatusWriter(database, campaignId, maxPending = 2)
+
+        coroutineScope {
+            val flusher = launch(Dispatchers.Default) {
+                while (isActive) {
+                    writer.flush()
+                    yield()
+                }
+            }
+            messageIds.map { id ->
+                launch(Dispatchers.Default) {
+                    writer.dispatched(id, at = 1L)
+                    yield()
+                    writer.record(id, MessageStatus.SENT, sentAt = 2L)
+                }
+            }.joinAll()
+            flusher.cancelAndJoin()
+        }
+        writer.flush()
+
+        val messages = database.campaignMessageDao().getMessagesByCampaignId(campaignId).first()
+        assertTrue(messages.all { it.status == MessageStatus.SENT && it.sentAt == 2L })
+        assertEquals(null, database.campaignMessageDao().getLatestOpenDispatchAt(campaignId))
+        database.query("SELECT COUNT(*) FROM message_dispatches", null).use { cursor ->
+            cursor.moveToFirst()
+            assertEquals(0, cursor.getInt(0))
+        }
+        assertEquals(MESSAGES, database.campaignDao().getCampaignById(campaignId)!!.sentCount)
+    }
+
+    private companion object {
+        const val MESSAGES = 200
+    }
+}
@@ -278,6 +278,10 @@ fun MainContent() {
     val campaigns by campaignViewModel.campaignsWithTemplates.collectAsState()
     val templates by templateViewModel.templates.collectAsState()
     val contacts by contactViewModel.contacts.collectAsState()
+    val contactImportProgress by contactViewModel.importProgress.collectAsState()
+    val contactTagCounts by contactViewModel.tagCounts.collectAsState()
+    val contactTagFilter by contactViewModel.tagFilter.collectAsState()
+    val contactTags = remember(contactTagCounts) { contactTagCounts.map { it.tag } }
     val isSending by campaignViewModel.isSending.collectAsState()
     
     val campaignSearchQuery by campaignViewModel.searchQuery.collectAsState()
@@ -303,12 +307,17 @@ fun MainContent() {
         contract = ActivityResultContracts.OpenDocument(),
         onResult = { uri ->
             uri?.let {
-                contactViewModel.importContacts(it) { count, error ->
+                contactViewModel.importContacts(it) { result, error ->
                     scope.launch {
-                        if (error != null) {
+                        if (error != null || result == null) {
                             snackbarHostState.showSnackbar("Error: $error")
                         } else {
-                            snackbarHostState.showSnackbar("Successfully imported $count contacts")
+                            snackbarHostState.showSnackbar(
+                                "Imported ${result.imported} contacts" +
+                                    if (result.duplicates + result.invalid > 0) {
+                                        " (skipped ${result.duplicates} duplicates, ${result.invalid} invalid rows)"
+                                    } else ""
+                            )
                         }
                     }
                 }
@@ -366,8 +375,8 @@ fun MainContent() {
                 selectedCampaignWithTemplate = null
                 campaignMessages = emptyList()
             },
-            onStartCampaign = { simId ->
-                campaignViewModel.startCampaign(cwt.campaign.id, simSubscriptionId = simId)
+            onStartCampaign = { simIds ->
+                campaignViewModel.startCampaign(cwt.campaign.id, simSubscriptionIds = simIds)
             },
             onPauseCampaign = {
                 campaignViewModel.pauseCampaign(cwt.campaign.id)
@@ -402,13 +411,19 @@ fun MainContent() {
             }
         )
         
-        // Edit campaign dialog
-        if (showEditCampaignDialog) {
+        // Edit campaign dialog, shown once the current recipients are loaded
+        val editRecipientIds by produceState<Set<Long>?>(null, showEditCampaignDialog, cwt.campaign.id) {
+            value = if (showEditCampaignDialog) campaignViewModel.getRecipientIds(cwt.campaign.id) else null
+        }
+        val initialRecipientIds = editRecipientIds
+        if (showEditCampaignDialog && initialRecipientIds != null) {
             EditCampaignDialog(
                 campaign = cwt.campaign,
                 currentTemplate = cwt.template,
                 templates = templates,
-                contacts = contacts,
+                allTags = contactTags,
+                contactsMatching = contactViewModel::contactsMatching,
+                initialRecipientIds = initialRecipientIds,
                 editMode = editMode,
                 onDismiss = { 
                     showEditCampaignDialog = false
@@ -503,7 +518,12 @@ fun MainContent() {
                         onAddContact = { showAddContactDialog = true },
                         onImportCsv = { filePickerLauncher.launch(arrayOf("text/comma-separated-values", "text/csv")) },
                         onContactClick = { editingContact = it },
-                        onDeleteContact = { contactViewModel.deleteContact(it) }
+                        onDeleteContact = { contactViewModel.deleteContact(it) },
+                        importProgress = contactImportProgress,
+                        tagCounts = contactTagCounts,
+                        selectedTagFilters = contactTagFilter,
+                        onToggleTagFilter = { contactViewModel.toggleTagFilter(it) },
+                        onClearTagFilters = { contactViewModel.clearTagFilter() }
                     )
                 }
             }
@@ -528,7 +548,9 @@ fun MainContent() {
                                 tags = tags,
                                 updatedAt = System.currentTimeMillis()
                             )
-                        )
+                        ) { error ->
+                            scope.launch { snackbarHostState.showSnackbar("Contact not saved: $error") }
+                        }
                     } else {
                         contactViewModel.addContact(name, phone, customKeys, tags)
                     }
@@ -566,7 +588,8 @@ fun MainContent() {
         if (showCreateCampaignDialog) {
             CreateCampaignDialog(
                 templates = templates,
-                contacts = contacts,
+                allTags = contactTags,
+                contactsMatching = contactViewModel::contactsMatching,
                 onDismiss = { showCreateCampaignDialog = false },
                 onCreate = { name, templateId, recipientIds ->
                     campaignViewModel.createCampaign(name, templateId, recipientIds) { campaignId ->
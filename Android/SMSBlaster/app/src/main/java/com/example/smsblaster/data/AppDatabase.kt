@@ -5,13 +5,18 @@ import androidx.room.Database
 import androidx.room.Room
 import androidx.room.RoomDatabase
 import androidx.room.TypeConverters
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
 import com.example.smsblaster.data.dao.CampaignDao
 import com.example.smsblaster.data.dao.CampaignMessageDao
 import com.example.smsblaster.data.dao.ContactDao
 import com.example.smsblaster.data.dao.TemplateDao
 import com.example.smsblaster.data.model.Campaign
 import com.example.smsblaster.data.model.CampaignMessage
+import com.example.smsblaster.data.model.CampaignRecipient
 import com.example.smsblaster.data.model.Contact
+import com.example.smsblaster.data.model.ContactTag
+import com.example.smsblaster.data.model.MessageDispatch
 import com.example.smsblaster.data.model.Template
 
 @Database(
@@ -19,9 +24,12 @@ import com.example.smsblaster.data.model.Template
         Contact::class,
         Template::class,
         Campaign::class,
-        CampaignMessage::class
+        CampaignMessage::class,
+        ContactTag::class,
+        CampaignRecipient::class,
+        MessageDispatch::class
     ],
-    version = 1,
+    version = 5,
     exportSchema = false
 )
 @TypeConverters(Converters::class)
@@ -35,13 +43,164 @@ abstract class AppDatabase : RoomDatabase() {
         @Volatile
         private var INSTANCE: AppDatabase? = null
         
+        // Composite (campaignId, status, id) index replaces the single campaignId index
+        val MIGRATION_1_2 = object : Migration(1, 2) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("DROP INDEX IF EXISTS `index_campaign_messages_campaignId`")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_campaign_messages_campaignId_status_id` ON `campaign_messages` (`campaignId`, `status`, `id`)")
+            }
+        }
+        
+        // Unique contacts.phone: strip the formatting PhoneNormalizer drops, fold duplicates into
+        // the oldest contact (merging their tags and custom keys into it and moving their campaign
+        // messages and recipient ids to it), then add the index
+        val MIGRATION_2_3 = object : Migration(2, 3) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("""
+                    UPDATE contacts SET phone =
+                        REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(TRIM(phone),
+                            ' ', ''), '-', ''), '.', ''), '/', ''), '(', ''), ')', ''), char(9), ''), char(160), '')
+                """)
+                db.execSQL("UPDATE contacts SET phone = '+' || SUBSTR(phone, 3) WHERE phone LIKE '00%'")
+                
+                val converters = Converters()
+                val survivors = HashMap<Long, Long>()
+                val updateSurvivor = db.compileStatement("UPDATE contacts SET tags = ?, customKeys = ? WHERE id = ?")
+                db.query("""
+                    SELECT id, phone, tags, customKeys FROM contacts
+                    WHERE phone IN (SELECT phone FROM contacts GROUP BY phone HAVING COUNT(*) > 1)
+                    ORDER BY phone, id
+                """).use { cursor ->
+                    var phone: String? = null
+                    var survivorId = 0L
+                    val tags = LinkedHashSet<String>()
+                    val customKeys = LinkedHashMap<String, String>()
+                    
+                    fun saveSurvivor() {
+                        if (phone == null) return
+                        updateSurvivor.bindString(1, converters.fromStringList(tags.toList()))
+                        updateSurvivor.bindString(2, converters.fromStringMap(customKeys))
+                        updateSurvivor.bindLong(3, survivorId)
+                        updateSurvivor.executeUpdateDelete()
+                    }
+                    
+                    while (cursor.moveToNext()) {
+                        val id = cursor.getLong(0)
+                        if (cursor.getString(1) != phone) {
+                            saveSurvivor()
+                            phone = cursor.getString(1)
+                            survivorId = id
+                            tags.clear()
+                            customKeys.clear()
+                        } else {
+                            survivors[id] = survivorId
+                        }
+                        runCatching { converters.toStringList(cursor.getString(2)) }.getOrDefault(emptyList())
+                            .forEach { tags.add(it) }
+                        // The oldest contact's value wins; keys it lacks (in any case) come from the others
+                        runCatching { converters.toStringMap(cursor.getString(3)) }.getOrDefault(emptyMap())
+                            .forEach { (key, value) ->
+                                if (customKeys.keys.none { it.equals(key, ignoreCase = true) }) customKeys[key] = value
+                            }
+                    }
+                    saveSurvivor()
+                }
+                
+                if (survivors.isNotEmpty()) {
+                    val updateRecipients = db.compileStatement("UPDATE campaigns SET recipientIds = ? WHERE id = ?")
+                    db.query("SELECT id, recipientIds FROM campaigns").use { cursor ->
+                        while (cursor.moveToNext()) {
+                            val ids = runCatching { converters.toLongList(cursor.getString(1)) }.getOrNull() ?: continue
+                            if (ids.none { it in survivors }) continue
+                            updateRecipients.bindString(1, converters.fromLongList(ids.map { survivors[it] ?: it }.distinct()))
+                            updateRecipients.bindLong(2, cursor.getLong(0))
+                            updateRecipients.executeUpdateDelete()
+                        }
+                    }
+                }
+                
+                db.execSQL("""
+                    UPDATE campaign_messages SET contactId = (
+                        SELECT MIN(k.id) FROM contacts k
+                        WHERE k.phone = (SELECT c.phone FROM contacts c WHERE c.id = campaign_messages.contactId)
+                    )
+                """)
+                db.execSQL("DELETE FROM contacts WHERE id NOT IN (SELECT MIN(id) FROM contacts GROUP BY phone)")
+                db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_contacts_phone` ON `contacts` (`phone`)")
+            }
+        }
+        
+        // contacts.tags and campaigns.recipientIds (JSON) move to the contact_tags and
+        // campaign_recipients junction tables; both tables are rebuilt without the JSON column.
+        // Foreign keys are not enforced until Room opens the database, so the rebuild cascades nothing.
+        val MIGRATION_3_4 = object : Migration(3, 4) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("CREATE TABLE IF NOT EXISTS `contact_tags` (`contactId` INTEGER NOT NULL, `tag` TEXT NOT NULL, PRIMARY KEY(`contactId`, `tag`), FOREIGN KEY(`contactId`) REFERENCES `contacts`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_contact_tags_tag_contactId` ON `contact_tags` (`tag`, `contactId`)")
+                db.execSQL("CREATE TABLE IF NOT EXISTS `campaign_recipients` (`campaignId` INTEGER NOT NULL, `contactId` INTEGER NOT NULL, PRIMARY KEY(`campaignId`, `contactId`), FOREIGN KEY(`campaignId`) REFERENCES `campaigns`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , FOREIGN KEY(`contactId`) REFERENCES `contacts`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_campaign_recipients_contactId` ON `campaign_recipients` (`contactId`)")
+                
+                val converters = Converters()
+                
+                val insertTag = db.compileStatement("INSERT OR IGNORE INTO contact_tags (contactId, tag) VALUES (?, ?)")
+                db.query("SELECT id, tags FROM contacts").use { cursor ->
+                    while (cursor.moveToNext()) {
+                        val tags = runCatching { converters.toStringList(cursor.getString(1)) }.getOrDefault(emptyList())
+                        for (tag in tags) {
+                            if (tag.isBlank()) continue
+                            insertTag.bindLong(1, cursor.getLong(0))
+                            insertTag.bindString(2, tag.trim())
+                            insertTag.executeInsert()
+                        }
+                    }
+                }
+                
+                // Ids of contacts deleted since the campaign was created are dropped
+                val insertRecipient = db.compileStatement(
+                    "INSERT OR IGNORE INTO campaign_recipients (campaignId, contactId) SELECT ?, id FROM contacts WHERE id = ?"
+                )
+                db.query("SELECT id, recipientIds FROM campaigns").use { cursor ->
+                    while (cursor.moveToNext()) {
+                        val ids = runCatching { converters.toLongList(cursor.getString(1)) }.getOrDefault(emptyList())
+                        for (contactId in ids) {
+                            insertRecipient.bindLong(1, cursor.getLong(0))
+                            insertRecipient.bindLong(2, contactId)
+                            insertRecipient.executeInsert()
+                        }
+                    }
+                }
+                
+                db.execSQL("CREATE TABLE IF NOT EXISTS `_new_contacts` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `name` TEXT NOT NULL, `phone` TEXT NOT NULL, `customKeys` TEXT NOT NULL, `createdAt` INTEGER NOT NULL, `updatedAt` INTEGER NOT NULL)")
+                db.execSQL("INSERT INTO `_new_contacts` (`id`, `name`, `phone`, `customKeys`, `createdAt`, `updatedAt`) SELECT `id`, `name`, `phone`, `customKeys`, `createdAt`, `updatedAt` FROM `contacts`")
+                db.execSQL("DROP TABLE `contacts`")
+                db.execSQL("ALTER TABLE `_new_contacts` RENAME TO `contacts`")
+                db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_contacts_phone` ON `contacts` (`phone`)")
+                
+                db.execSQL("CREATE TABLE IF NOT EXISTS `_new_campaigns` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `name` TEXT NOT NULL, `status` TEXT NOT NULL, `templateId` INTEGER, `sentCount` INTEGER NOT NULL, `failedCount` INTEGER NOT NULL, `totalCount` INTEGER NOT NULL, `scheduledAt` INTEGER, `startedAt` INTEGER, `completedAt` INTEGER, `createdAt` INTEGER NOT NULL, `updatedAt` INTEGER NOT NULL, FOREIGN KEY(`templateId`) REFERENCES `templates`(`id`) ON UPDATE NO ACTION ON DELETE SET NULL )")
+                db.execSQL("INSERT INTO `_new_campaigns` (`id`, `name`, `status`, `templateId`, `sentCount`, `failedCount`, `totalCount`, `scheduledAt`, `startedAt`, `completedAt`, `createdAt`, `updatedAt`) SELECT `id`, `name`, `status`, `templateId`, `sentCount`, `failedCount`, `totalCount`, `scheduledAt`, `startedAt`, `completedAt`, `createdAt`, `updatedAt` FROM `campaigns`")
+                db.execSQL("DROP TABLE `campaigns`")
+                db.execSQL("ALTER TABLE `_new_campaigns` RENAME TO `campaigns`")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_campaigns_templateId` ON `campaigns` (`templateId`)")
+            }
+        }
+        
+        // Journal of sends whose status is still buffered by the campaign engine
+        val MIGRATION_4_5 = object : Migration(4, 5) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("CREATE TABLE IF NOT EXISTS `message_dispatches` (`messageId` INTEGER NOT NULL, `campaignId` INTEGER NOT NULL, `dispatchedAt` INTEGER NOT NULL, `status` TEXT NOT NULL, `sentAt` INTEGER, `errorMessage` TEXT, PRIMARY KEY(`messageId`), FOREIGN KEY(`messageId`) REFERENCES `campaign_messages`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_message_dispatches_campaignId` ON `message_dispatches` (`campaignId`)")
+            }
+        }
+        
         fun getDatabase(context: Context): AppDatabase {
             return INSTANCE ?: synchronized(this) {
                 val instance = Room.databaseBuilder(
                     context.applicationContext,
                     AppDatabase::class.java,
                     "sms_blaster_database"
-                ).build()
+                )
+                    .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5)
+                    .build()
                 INSTANCE = instance
                 instance
             }
@@ -0,0 +1,116 @@
+package com.example.smsblaster.data
+
+import com.example.smsblaster.data.csv.CsvReader
+import com.example.smsblaster.data.model.Contact
+import java.io.FilterInputStream
+import java.io.InputStream
+
+data class ContactImportProgress(
+    val rowsRead: Int,
+    val imported: Int,
+    val duplicates: Int,
+    val invalid: Int,
+    val fraction: Float?     // Share of the file read, null when its size is unknown
+)
+
+data class ContactImportResult(
+    val imported: Int,
+    val duplicates: Int,
+    val invalid: Int
+)
+
+/**
+ * Streams a CSV of contacts into the database.
+ *
+ * - Rows are parsed one at a time and inserted in batches of [batchSize], one transaction
+ *   each, so memory stays flat however long the file is
+ * - Phones go through [PhoneNormalizer]; numbers already in the database or earlier in the
+ *   file are skipped by the unique index on contacts.phone (INSERT OR IGNORE), so importing
+ *   the same file again adds nothing
+ * - Columns come from a header row naming "name" and "phone"; without one, the first two
+ *   columns are name and phone
+ */
+class ContactImporter(
+    database: AppDatabase,
+    private val batchSize: Int = 500
+) {
+    private val contactDao = database.contactDao()
+
+    suspend fun import(
+        input: InputStream,
+        totalBytes: Long = -1L,
+        onProgress: suspend (ContactImportProgress) -> Unit = {}
+    ): ContactImportResult {
+        val counting = CountingInputStream(input)
+        var rowsRead = 0
+        var imported = 0
+        var duplicates = 0
+        var invalid = 0
+        val batch = ArrayList<Contact>(batchSize)
+
+        suspend fun flush() {
+            if (batch.isEmpty()) return
+            val ids = contactDao.insertContactsIgnoringDuplicates(batch)
+            val inserted = ids.count { it != -1L }
+            imported += inserted
+            duplicates += batch.size - inserted
+            batch.clear()
+            onProgress(
+                ContactImportProgress(
+                    rowsRead, imported, duplicates, invalid,
+                    if (totalBytes > 0) (counting.bytesRead.toFloat() / totalBytes).coerceAtMost(1f) else null
+                )
+            )
+        }
+
+        CsvReader(counting.bufferedReader()).use { csv ->
+            var nameColumn = 0
+            var phoneColumn = 1
+            var first = true
+
+            while (true) {
+                val record = csv.readRecord() ?: break
+                if (record.all { it.isBlank() }) continue
+
+                if (first) {
+                    first = false
+                    val header = record.map { it.trim() }
+                    val nameIndex = header.indexOfFirst { it.equals("name", ignoreCase = true) }
+                    val phoneIndex = header.indexOfFirst { it.equals("phone", ignoreCase = true) }
+                    if (nameIndex >= 0 || phoneIndex >= 0) {
+                        if (nameIndex >= 0) nameColumn = nameIndex
+                        if (phoneIndex >= 0) phoneColumn = phoneIndex
+                        continue
+                    }
+                }
+
+                rowsRead++
+                val name = record.getOrNull(nameColumn)?.trim().orEmpty()
+                val phone = record.getOrNull(phoneColumn)?.let { PhoneNormalizer.normalize(it) }
+                if (name.isEmpty() || phone == null) {
+                    invalid++
+                    continue
+                }
+
+                batch.add(Contact(name = name, phone = phone))
+                if (batch.size >= batchSize) flush()
+            }
+        }
+        flush()
+
+        return ContactImportResult(imported, duplicates, invalid)
+    }
+
+    private class CountingInputStream(input: InputStream) : FilterInputStream(input) {
+        @Volatile
+        var bytesRead = 0L
+            private set
+
+        override fun read(): Int = super.read().also { if (it >= 0) bytesRead++ }
+
+        override fun read(b: ByteArray, off: Int, len: Int): Int =
+            super.read(b, off, len).also { if (it > 0) bytesRead += it }
+
+        override fun skip(n: Long): Long = super.skip(n).also { bytesRead += it }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.smsblaster.data
+
+/**
+ * Canonical form for contacts.phone, which carries a unique index.
+ *
+ * - Formatting characters (spaces, dashes, dots, slashes, parentheses) are dropped
+ * - A leading + is kept and a leading 00 becomes +
+ * - No country code is inferred: "+91 98..." and "98..." stay different numbers
+ * - Anything else (letters, extensions) or a digit count outside 5..15 is not a phone number
+ *
+ * MIGRATION_2_3 applies the same formatting rules in SQL to rows stored before the index.
+ */
+object PhoneNormalizer {
+    private const val MIN_DIGITS = 5   // Short codes
+    private const val MAX_DIGITS = 15  // E.164
+
+    fun normalize(raw: String): String? {
+        val digits = StringBuilder(raw.length)
+        var international = false
+
+        for (c in raw) {
+            when (c) {
+                in '0'..'9' -> digits.append(c)
+                '+' -> {
+                    if (digits.isEmpty() && !international) international = true else return null
+                }
+                ' ', '\t', '\u00A0', '-', '.', '/', '(', ')' -> Unit
+                else -> return null
+            }
+        }
+
+        if (!international && digits.startsWith("00")) {
+            international = true
+            digits.delete(0, 2)
+        }
+        if (digits.length !in MIN_DIGITS..MAX_DIGITS) return null
+
+        return if (international) "+$digits" else digits.toString()
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.smsblaster.data.csv
+
+import java.io.Closeable
+import java.io.Reader
+
+/**
+ * Streaming RFC 4180 reader: quoted fields, "" escapes, delimiters and line breaks inside
+ * quotes, CRLF / LF / CR record ends and a leading UTF-8 BOM. Only the current record is
+ * held in memory.
+ *
+ * Lenient where spreadsheets are sloppy: a quote in the middle of an unquoted field is kept
+ * as text, and an unterminated quoted field runs to the end of input.
+ */
+class CsvReader(
+    private val reader: Reader,
+    private val delimiter: Char = ','
+) : Closeable {
+    private companion object {
+        const val EOF = -1
+        const val NONE = -2
+    }
+
+    private val buffer = CharArray(8192)
+    private var position = 0
+    private var limit = 0
+    private var pushedBack = NONE
+    private var atStart = true
+    private val field = StringBuilder()
+
+    /** Next record, or null at end of input. A blank line is a record with one empty field. */
+    fun readRecord(): List<String>? {
+        var c = read()
+        if (atStart) {
+            atStart = false
+            if (c == '\uFEFF'.code) c = read()
+        }
+        if (c == EOF) return null
+
+        val record = ArrayList<String>()
+        field.setLength(0)
+        var inQuotes = false
+
+        while (true) {
+            if (inQuotes) {
+                when (c) {
+                    EOF -> {
+                        record.add(field.toString())
+                        return record
+                    }
+                    '"'.code -> {
+                        val next = read()
+                        if (next == '"'.code) {
+                            field.append('"')
+                        } else {
+                            inQuotes = false
+                            c = next
+                            continue
+                        }
+                    }
+                    else -> field.append(c.toChar())
+                }
+            } else {
+                when (c) {
+                    EOF, '\n'.code -> {
+                        record.add(field.toString())
+                        return record
+                    }
+                    '\r'.code -> {
+                        val next = read()
+                        if (next != '\n'.code) pushedBack = next
+                        record.add(field.toString())
+                        return record
+                    }
+                    delimiter.code -> {
+                        record.add(field.toString())
+                        field.setLength(0)
+                    }
+                    '"'.code -> {
+                        if (field.isEmpty()) inQuotes = true else field.append('"')
+                    }
+                    else -> field.append(c.toChar())
+                }
+            }
+            c = read()
+        }
+    }
+
+    private fun read(): Int {
+        if (pushedBack != NONE) {
+            return pushedBack.also { pushedBack = NONE }
+        }
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.size)
+            position = 0
+            if (limit <= 0) {
+                limit = 0
+                return EOF
+            }
+        }
+        return buffer[position++].code
+    }
+
+    override fun close() = reader.close()
+}
@@ -2,7 +2,9 @@ package com.example.smsblaster.data.dao
 
 import androidx.room.*
 import com.example.smsblaster.data.model.Campaign
+import com.example.smsblaster.data.model.CampaignRecipient
 import com.example.smsblaster.data.model.CampaignStatus
+import com.example.smsblaster.data.model.Contact
 import kotlinx.coroutines.flow.Flow
 
 @Dao
@@ -40,6 +42,42 @@ interface CampaignDao {
     @Query("UPDATE campaigns SET failedCount = failedCount + 1, updatedAt = :timestamp WHERE id = :id")
     suspend fun incrementFailedCount(id: Long, timestamp: Long = System.currentTimeMillis())
     
+    // Counters derived from the message rows; both counts are range reads on index_campaign_messages_campaignId_status_id
+    @Query("""
+        UPDATE campaigns SET
+            sentCount = (SELECT COUNT(*) FROM campaign_messages WHERE campaignId = :id AND status IN ('SENT', 'DELIVERED')),
+            failedCount = (SELECT COUNT(*) FROM campaign_messages WHERE campaignId = :id AND status = 'FAILED'),
+            updatedAt = :timestamp
+        WHERE id = :id
+    """)
+    suspend fun refreshCounts(id: Long, timestamp: Long = System.currentTimeMillis())
+    
+    @Query("UPDATE campaigns SET status = :status, startedAt = COALESCE(startedAt, :timestamp), updatedAt = :timestamp WHERE id = :id")
+    suspend fun markStarted(id: Long, status: CampaignStatus = CampaignStatus.RUNNING, timestamp: Long = System.currentTimeMillis())
+    
+    @Query("UPDATE campaigns SET status = :status, completedAt = :timestamp, updatedAt = :timestamp WHERE id = :id")
+    suspend fun markCompleted(id: Long, status: CampaignStatus = CampaignStatus.COMPLETED, timestamp: Long = System.currentTimeMillis())
+    
+    // RECIPIENTS (campaign_recipients)
+    
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    suspend fun insertRecipients(recipients: List<CampaignRecipient>)
+    
+    @Query("INSERT OR IGNORE INTO campaign_recipients (campaignId, contactId) SELECT :toCampaignId, contactId FROM campaign_recipients WHERE campaignId = :fromCampaignId")
+    suspend fun copyRecipients(fromCampaignId: Long, toCampaignId: Long)
+    
+    @Query("DELETE FROM campaign_recipients WHERE campaignId = :campaignId")
+    suspend fun deleteRecipients(campaignId: Long)
+    
+    @Query("SELECT contactId FROM campaign_recipients WHERE campaignId = :campaignId")
+    suspend fun getRecipientIds(campaignId: Long): List<Long>
+    
+    @Query("SELECT COUNT(*) FROM campaign_recipients WHERE campaignId = :campaignId")
+    suspend fun countRecipients(campaignId: Long): Int
+    
+    @Query("SELECT c.* FROM contacts c INNER JOIN campaign_recipients r ON r.contactId = c.id WHERE r.campaignId = :campaignId ORDER BY c.id")
+    suspend fun getRecipientContacts(campaignId: Long): List<Contact>
+    
     @Query("SELECT COUNT(*) FROM campaigns")
     fun getCampaignCount(): Flow<Int>
 }
@@ -2,6 +2,7 @@ package com.example.smsblaster.data.dao
 
 import androidx.room.*
 import com.example.smsblaster.data.model.CampaignMessage
+import com.example.smsblaster.data.model.MessageDispatch
 import com.example.smsblaster.data.model.MessageStatus
 import kotlinx.coroutines.flow.Flow
 
@@ -16,6 +17,10 @@ interface CampaignMessageDao {
     @Query("SELECT * FROM campaign_messages WHERE campaignId = :campaignId AND status = :status ORDER BY id ASC LIMIT :limit")
     suspend fun getPendingMessages(campaignId: Long, status: MessageStatus = MessageStatus.PENDING, limit: Int = 10): List<CampaignMessage>
     
+    // Keyset window for the campaign engine: pending rows after the last id it has queued
+    @Query("SELECT * FROM campaign_messages WHERE campaignId = :campaignId AND status = :status AND id > :afterId ORDER BY id ASC LIMIT :limit")
+    suspend fun getPendingMessagesAfter(campaignId: Long, afterId: Long, limit: Int, status: MessageStatus = MessageStatus.PENDING): List<CampaignMessage>
+    
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insertMessage(message: CampaignMessage): Long
     
@@ -28,6 +33,45 @@ interface CampaignMessageDao {
     @Query("UPDATE campaign_messages SET status = :status, sentAt = :sentAt, errorMessage = :errorMessage WHERE id = :id")
     suspend fun updateMessageStatus(id: Long, status: MessageStatus, sentAt: Long? = null, errorMessage: String? = null)
     
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertDispatch(dispatch: MessageDispatch)
+    
+    @Query("UPDATE message_dispatches SET status = :status, sentAt = :sentAt, errorMessage = :errorMessage WHERE messageId = :messageId")
+    suspend fun finishDispatch(messageId: Long, status: MessageStatus, sentAt: Long?, errorMessage: String?)
+    
+    @Query("DELETE FROM message_dispatches WHERE messageId IN (:messageIds)")
+    suspend fun deleteDispatches(messageIds: List<Long>)
+    
+    @Query("DELETE FROM message_dispatches WHERE campaignId = :campaignId")
+    suspend fun deleteDispatchesForCampaign(campaignId: Long)
+    
+    @Query("SELECT MAX(dispatchedAt) FROM message_dispatches WHERE campaignId = :campaignId AND status = :status")
+    suspend fun getLatestOpenDispatchAt(campaignId: Long, status: MessageStatus = MessageStatus.SENDING): Long?
+    
+    // Results a dead run had journaled but not yet written to campaign_messages
+    @Query("""
+        UPDATE campaign_messages SET
+            status = (SELECT d.status FROM message_dispatches d WHERE d.messageId = campaign_messages.id),
+            sentAt = (SELECT d.sentAt FROM message_dispatches d WHERE d.messageId = campaign_messages.id),
+            errorMessage = (SELECT d.errorMessage FROM message_dispatches d WHERE d.messageId = campaign_messages.id)
+        WHERE id IN (SELECT messageId FROM message_dispatches WHERE campaignId = :campaignId AND status != :sending)
+    """)
+    suspend fun applyJournaledResults(campaignId: Long, sending: MessageStatus = MessageStatus.SENDING): Int
+    
+    // Messages a dead run handed to the radio without a result. They may have gone out, so they
+    // are failed instead of resent. SENDING rows without a dispatch predate the journal.
+    @Query("""
+        UPDATE campaign_messages SET status = :failed, errorMessage = :errorMessage
+        WHERE campaignId = :campaignId
+          AND (status = :sending OR id IN (SELECT messageId FROM message_dispatches WHERE campaignId = :campaignId AND status = :sending))
+    """)
+    suspend fun failInterruptedMessages(
+        campaignId: Long,
+        errorMessage: String,
+        sending: MessageStatus = MessageStatus.SENDING,
+        failed: MessageStatus = MessageStatus.FAILED
+    ): Int
+    
     @Query("DELETE FROM campaign_messages WHERE campaignId = :campaignId")
     suspend fun deleteMessagesByCampaignId(campaignId: Long)
     
@@ -2,6 +2,9 @@ package com.example.smsblaster.data.dao
 
 import androidx.room.*
 import com.example.smsblaster.data.model.Contact
+import com.example.smsblaster.data.model.ContactTag
+import com.example.smsblaster.data.model.ContactWithTags
+import com.example.smsblaster.data.model.TagCount
 import kotlinx.coroutines.flow.Flow
 
 @Dao
@@ -15,18 +18,47 @@ interface ContactDao {
     @Query("SELECT * FROM contacts WHERE id IN (:ids)")
     suspend fun getContactsByIds(ids: List<Long>): List<Contact>
     
+    @Query("SELECT * FROM contacts WHERE phone = :phone")
+    suspend fun getContactByPhone(phone: String): Contact?
+    
     @Query("SELECT * FROM contacts WHERE phone LIKE :query OR name LIKE :query")
     fun searchContacts(query: String): Flow<List<Contact>>
     
-    @Query("SELECT DISTINCT tags FROM contacts")
+    // TAGS (contact_tags)
+    
+    @Query("SELECT DISTINCT tag FROM contact_tags ORDER BY tag")
     fun getAllTags(): Flow<List<String>>
     
+    @Query("SELECT tag, COUNT(*) AS contactCount FROM contact_tags GROUP BY tag ORDER BY tag")
+    fun getTagCounts(): Flow<List<TagCount>>
+    
+    // Contacts with their tags for the lists. A null pattern skips the search,
+    // filterByTags = 0 skips the tag filter (any of :tags, through the (tag, contactId) index)
+    @Query("""
+        SELECT c.*, (SELECT GROUP_CONCAT(t.tag, char(31)) FROM contact_tags t WHERE t.contactId = c.id) AS tagList
+        FROM contacts c
+        WHERE (:pattern IS NULL OR c.phone LIKE :pattern OR c.name LIKE :pattern)
+            AND (:filterByTags = 0 OR c.id IN (SELECT contactId FROM contact_tags WHERE tag IN (:tags)))
+        ORDER BY c.name ASC
+    """)
+    fun getContactsWithTags(pattern: String?, tags: List<String>, filterByTags: Boolean): Flow<List<ContactWithTags>>
+    
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    suspend fun insertContactTags(tags: List<ContactTag>)
+    
+    @Query("DELETE FROM contact_tags WHERE contactId = :contactId")
+    suspend fun deleteTagsForContact(contactId: Long)
+    
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insertContact(contact: Contact): Long
     
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insertContacts(contacts: List<Contact>): List<Long>
     
+    // Bulk import: a phone that already exists yields -1 and leaves the stored contact untouched
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    suspend fun insertContactsIgnoringDuplicates(contacts: List<Contact>): List<Long>
+    
     @Update
     suspend fun updateContact(contact: Contact)
     
@@ -16,6 +16,7 @@ enum class CampaignStatus {
     FAILED
 }
 
+// Recipients live in campaign_recipients
 @Entity(
     tableName = "campaigns",
     foreignKeys = [
@@ -35,7 +36,6 @@ data class Campaign(
     val name: String,
     val status: CampaignStatus = CampaignStatus.DRAFT,
     val templateId: Long? = null,
-    val recipientIds: List<Long> = emptyList(),
     val sentCount: Int = 0,
     val failedCount: Int = 0,
     val totalCount: Int = 0,
@@ -7,6 +7,7 @@ import androidx.room.PrimaryKey
 
 enum class MessageStatus {
     PENDING,
+    SENDING,    // Handed to the radio, sent-intent result not received yet
     SENT,
     DELIVERED,
     FAILED
@@ -28,7 +29,11 @@ enum class MessageStatus {
             onDelete = ForeignKey.CASCADE
         )
     ],
-    indices = [Index("campaignId"), Index("contactId")]
+    indices = [
+        // Serves the pending queue (status filter, id order) and per-status counts; also covers the campaignId FK
+        Index(value = ["campaignId", "status", "id"]),
+        Index("contactId")
+    ]
 )
 data class CampaignMessage(
     @PrimaryKey(autoGenerate = true)
@@ -0,0 +1,29 @@
+package com.example.smsblaster.data.model
+
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import androidx.room.Index
+
+@Entity(
+    tableName = "campaign_recipients",
+    primaryKeys = ["campaignId", "contactId"],
+    foreignKeys = [
+        ForeignKey(
+            entity = Campaign::class,
+            parentColumns = ["id"],
+            childColumns = ["campaignId"],
+            onDelete = ForeignKey.CASCADE
+        ),
+        ForeignKey(
+            entity = Contact::class,
+            parentColumns = ["id"],
+            childColumns = ["contactId"],
+            onDelete = ForeignKey.CASCADE
+        )
+    ],
+    indices = [Index("contactId")]
+)
+data class CampaignRecipient(
+    val campaignId: Long,
+    val contactId: Long
+)
@@ -0,0 +1,99 @@
+package com.example.smsblaster.data.model
+
+import com.example.smsblaster.sms.SmsEncoding
+import com.example.smsblaster.sms.SmsSegments
+
+data class RenderedMessage(
+    val text: String,
+    val segments: SmsSegments
+)
+
+/**
+ * A template body parsed once into literal and placeholder parts.
+ *
+ * - {name} and {phone} resolve to the contact fields, anything else to the first custom key
+ *   that matches ignoring case; unknown placeholders are left in the text as written
+ * - Rendering is a single StringBuilder pass; substituted values are never re-scanned for
+ *   placeholders
+ * - GSM-7 sizes of the literal parts are measured at compile time, so only the substituted
+ *   values are examined when counting segments
+ */
+class CompiledTemplate private constructor(
+    private val parts: Array<Part>,
+    private val literalLength: Int
+) {
+    private sealed class Part
+
+    private class Literal(val text: String) : Part() {
+        val septets = SmsEncoding.gsmLength(text)
+    }
+
+    private class Placeholder(val key: String, val raw: String) : Part()
+
+    val placeholders: List<String> = parts.mapNotNull { (it as? Placeholder)?.key }
+
+    fun render(contact: Contact): RenderedMessage {
+        val builder = StringBuilder(literalLength + placeholders.size * 16)
+        var septets = 0
+        var isGsm = true
+
+        for (part in parts) {
+            when (part) {
+                is Literal -> {
+                    builder.append(part.text)
+                    if (isGsm) {
+                        if (part.septets < 0) isGsm = false else septets += part.septets
+                    }
+                }
+                is Placeholder -> {
+                    val value = resolve(part.key, contact) ?: part.raw
+                    builder.append(value)
+                    if (isGsm) {
+                        val length = SmsEncoding.gsmLength(value)
+                        if (length < 0) isGsm = false else septets += length
+                    }
+                }
+            }
+        }
+
+        return RenderedMessage(builder.toString(), SmsEncoding.segments(isGsm, septets, builder.length))
+    }
+
+    private fun resolve(key: String, contact: Contact): String? {
+        if (key.equals("name", ignoreCase = true)) return contact.name
+        if (key.equals("phone", ignoreCase = true)) return contact.phone
+        for ((customKey, value) in contact.customKeys) {
+            if (customKey.equals(key, ignoreCase = true)) return value
+        }
+        return null
+    }
+
+    companion object {
+        // Placeholders are {key} with no braces inside; "{{name}}" renders as "{" + name + "}"
+        fun compile(content: String): CompiledTemplate {
+            val parts = ArrayList<Part>()
+            var literalStart = 0
+            var i = 0
+            while (i < content.length) {
+                if (content[i] != '{') {
+                    i++
+                    continue
+                }
+                var end = i + 1
+                while (end < content.length && content[end] != '}' && content[end] != '{') end++
+                if (end < content.length && content[end] == '}' && end > i + 1) {
+                    if (i > literalStart) parts.add(Literal(content.substring(literalStart, i)))
+                    parts.add(Placeholder(content.substring(i + 1, end), content.substring(i, end + 1)))
+                    literalStart = end + 1
+                    i = end + 1
+                } else {
+                    i = end
+                }
+            }
+            if (literalStart < content.length) parts.add(Literal(content.substring(literalStart)))
+
+            val literalLength = parts.sumOf { if (it is Literal) it.text.length else 0 }
+            return CompiledTemplate(parts.toTypedArray(), literalLength)
+        }
+    }
+}
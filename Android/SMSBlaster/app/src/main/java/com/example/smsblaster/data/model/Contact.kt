@@ -1,19 +1,37 @@
 package com.example.smsblaster.data.model
 
 import androidx.room.Entity
+import androidx.room.Ignore
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import androidx.room.TypeConverters
 import com.example.smsblaster.data.Converters
 
-@Entity(tableName = "contacts")
+@Entity(
+    tableName = "contacts",
+    // Phones are stored normalized (PhoneNormalizer) and are unique; imports rely on it to skip duplicates
+    indices = [Index(value = ["phone"], unique = true)]
+)
 @TypeConverters(Converters::class)
-data class Contact(
+data class Contact @Ignore constructor(
     @PrimaryKey(autoGenerate = true)
     val id: Long = 0,
     val name: String,
     val phone: String,
     val customKeys: Map<String, String> = emptyMap(),
+    // Stored in contact_tags; filled in by ContactViewModel, empty when read straight from ContactDao
+    @Ignore
     val tags: List<String> = emptyList(),
     val createdAt: Long = System.currentTimeMillis(),
     val updatedAt: Long = System.currentTimeMillis()
-)
+) {
+    // Used by Room, which has no tags column to read
+    constructor(
+        id: Long,
+        name: String,
+        phone: String,
+        customKeys: Map<String, String>,
+        createdAt: Long,
+        updatedAt: Long
+    ) : this(id, name, phone, customKeys, emptyList(), createdAt, updatedAt)
+}
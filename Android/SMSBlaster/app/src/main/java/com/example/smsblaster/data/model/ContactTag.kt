@@ -0,0 +1,42 @@
+package com.example.smsblaster.data.model
+
+import androidx.room.Embedded
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import androidx.room.Index
+
+@Entity(
+    tableName = "contact_tags",
+    primaryKeys = ["contactId", "tag"],
+    foreignKeys = [
+        ForeignKey(
+            entity = Contact::class,
+            parentColumns = ["id"],
+            childColumns = ["contactId"],
+            onDelete = ForeignKey.CASCADE
+        )
+    ],
+    // Tag filters and counts read (tag, contactId) without touching contacts
+    indices = [Index(value = ["tag", "contactId"])]
+)
+data class ContactTag(
+    val contactId: Long,
+    val tag: String
+)
+
+data class TagCount(
+    val tag: String,
+    val contactCount: Int
+)
+
+/**
+ * A contact row plus its tags, joined by [com.example.smsblaster.data.dao.ContactDao.getContactsWithTags].
+ */
+data class ContactWithTags(
+    @Embedded val contact: Contact,
+    // Tags separated by char(31), null when the contact has none
+    val tagList: String?
+) {
+    fun toContact(): Contact =
+        if (tagList.isNullOrEmpty()) contact else contact.copy(tags = tagList.split('\u001F'))
+}
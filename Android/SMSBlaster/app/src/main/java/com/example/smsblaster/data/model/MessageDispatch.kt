@@ -0,0 +1,33 @@
+package com.example.smsblaster.data.model
+
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * Write-ahead record of a campaign message handed to the radio, kept until its final status
+ * reaches campaign_messages. Written once before the send and once with the carrier's result;
+ * no screen observes this table, so these writes don't invalidate the campaign flows.
+ */
+@Entity(
+    tableName = "message_dispatches",
+    foreignKeys = [
+        ForeignKey(
+            entity = CampaignMessage::class,
+            parentColumns = ["id"],
+            childColumns = ["messageId"],
+            onDelete = ForeignKey.CASCADE
+        )
+    ],
+    indices = [Index("campaignId")]
+)
+data class MessageDispatch(
+    @PrimaryKey
+    val messageId: Long,
+    val campaignId: Long,
+    val dispatchedAt: Long,
+    val status: MessageStatus = MessageStatus.SENDING,  // SENT or FAILED once the sent intent answered
+    val sentAt: Long? = null,
+    val errorMessage: String? = null
+)
@@ -0,0 +1,230 @@
+package com.example.smsblaster.sms
+
+import android.content.Context
+import android.util.Log
+import androidx.room.withTransaction
+import com.example.smsblaster.data.AppDatabase
+import com.example.smsblaster.data.model.CampaignMessage
+import com.example.smsblaster.data.model.CampaignStatus
+import com.example.smsblaster.data.model.MessageStatus
+import kotlinx.coroutines.NonCancellable
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.withContext
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Sends the pending messages of one campaign.
+ *
+ * - A prefetcher reads pending rows in id-ordered windows into a bounded channel
+ * - One sender per SIM drains the channel, each paced on its own and with a few sends
+ *   awaiting their sent-intent result at a time
+ * - Pacing adapts to the results: successes shorten the interval, RESULT_ERROR_LIMIT_EXCEEDED
+ *   doubles it and the message is retried after the cooldown
+ * - Each dispatch and result is journaled in message_dispatches, which nothing observes;
+ *   [MessageStatusWriter] applies the statuses to campaign_messages in batches. A restarted
+ *   run first recovers a dead run's journal, then continues from the rows still PENDING
+ */
+class CampaignEngine(
+    context: Context,
+    private val smsService: SmsService = SmsService(context)
+) {
+    companion object {
+        private const val TAG = "CampaignEngine"
+        private const val WINDOW_SIZE = 50
+        private const val MAX_IN_FLIGHT_PER_SIM = 3
+        private const val MAX_RATE_LIMIT_RETRIES = 5
+        private const val FLUSH_INTERVAL_MS = 1000L
+        const val INTERRUPTED_ERROR = "Interrupted before the carrier confirmed; not resent"
+    }
+
+    private val database = AppDatabase.getDatabase(context)
+    private val campaignDao = database.campaignDao()
+    private val messageDao = database.campaignMessageDao()
+
+    /**
+     * Sends until no pending message is left, then marks the campaign COMPLETED.
+     * [subscriptionIds] empty means the default SMS subscription. [onProgress] gets the
+     * number of messages finished by this run.
+     */
+    suspend fun run(
+        campaignId: Long,
+        subscriptionIds: List<Int>,
+        onProgress: suspend (finished: Int) -> Unit = {}
+    ): CampaignStatus {
+        if (campaignDao.getCampaignById(campaignId) == null) {
+            Log.e(TAG, "Campaign $campaignId not found")
+            return CampaignStatus.FAILED
+        }
+
+        recoverInterruptedMessages(campaignId)
+        campaignDao.markStarted(campaignId)
+
+        val sims: List<Int?> = subscriptionIds.distinct().ifEmpty { listOf(null) }
+        val finished = AtomicInteger()
+        Log.d(TAG, "Starting campaign $campaignId on SIMs $sims")
+
+        val writer = MessageStatusWriter(database, campaignId)
+        try {
+            coroutineScope {
+                val flusher = launch {
+                    while (true) {
+                        delay(FLUSH_INTERVAL_MS)
+                        writer.flush()
+                    }
+                }
+                sendAll(campaignId, sims, writer) { onProgress(finished.incrementAndGet()) }
+                flusher.cancel()
+            }
+        } finally {
+            withContext(NonCancellable) { writer.flush() }
+        }
+
+        // A pause while the last messages were settling must win over completion
+        val status = campaignDao.getCampaignById(campaignId)?.status
+        if (status == CampaignStatus.RUNNING) {
+            campaignDao.markCompleted(campaignId)
+            Log.d(TAG, "Campaign $campaignId completed")
+            return CampaignStatus.COMPLETED
+        }
+        return status ?: CampaignStatus.FAILED
+    }
+
+    private suspend fun sendAll(
+        campaignId: Long,
+        sims: List<Int?>,
+        writer: MessageStatusWriter,
+        onFinished: suspend () -> Unit
+    ) {
+        coroutineScope {
+            val queue = Channel<CampaignMessage>(capacity = WINDOW_SIZE)
+
+            launch {
+                var afterId = 0L
+                while (true) {
+                    val window = messageDao.getPendingMessagesAfter(campaignId, afterId, WINDOW_SIZE)
+                    if (window.isEmpty()) break
+                    for (message in window) queue.send(message)
+                    afterId = window.last().id
+                }
+                queue.close()
+            }
+
+            for (subscriptionId in sims) {
+                launch {
+                    val pacer = SendPacer()
+                    val inFlight = Semaphore(MAX_IN_FLIGHT_PER_SIM)
+                    coroutineScope {
+                        for (message in queue) {
+                            pacer.awaitTurn()
+                            inFlight.acquire()
+                            launch {
+                                try {
+                                    deliver(message, subscriptionId, pacer, writer)
+                                    onFinished()
+                                } finally {
+                                    inFlight.release()
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private suspend fun deliver(
+        message: CampaignMessage,
+        subscriptionId: Int?,
+        pacer: SendPacer,
+        writer: MessageStatusWriter
+    ) {
+        var rateLimitRetries = 0
+        while (true) {
+            // Once handed to the radio the result is always recorded, even if the run is cancelled
+            val result = withContext(NonCancellable) {
+                writer.dispatched(message.id, at = System.currentTimeMillis())
+                smsService.sendSmsWithConfirmation(message.phoneNumber, message.message, subscriptionId)
+            }
+
+            if (result is SmsResult.Failed && result.isRateLimited && rateLimitRetries++ < MAX_RATE_LIMIT_RETRIES) {
+                Log.w(TAG, "Rate limited on SIM $subscriptionId, backing off")
+                pacer.onRateLimited()
+                withContext(NonCancellable) {
+                    writer.released(message.id)
+                }
+                pacer.awaitTurn()
+                continue
+            }
+
+            withContext(NonCancellable) {
+                when (result) {
+                    is SmsResult.Success -> {
+                        pacer.onSent()
+                        writer.record(message.id, MessageStatus.SENT, sentAt = System.currentTimeMillis())
+                    }
+                    is SmsResult.Failed -> {
+                        writer.record(message.id, MessageStatus.FAILED, errorMessage = result.errorMessage)
+                    }
+                }
+            }
+            return
+        }
+    }
+
+    // A run being cancelled still waits up to the confirmation timeout for its in-flight
+    // sends, so only dispatches older than that can belong to a dead run. Results it had
+    // journaled are kept; only sends without a result are failed.
+    private suspend fun recoverInterruptedMessages(campaignId: Long) {
+        val latest = messageDao.getLatestOpenDispatchAt(campaignId)
+        if (latest != null) {
+            val wait = latest + SmsService.SMS_TIMEOUT_MS - System.currentTimeMillis()
+            if (wait > 0) delay(wait)
+        }
+
+        val (recovered, failed) = database.withTransaction {
+            val recovered = messageDao.applyJournaledResults(campaignId)
+            val failed = messageDao.failInterruptedMessages(campaignId, INTERRUPTED_ERROR)
+            messageDao.deleteDispatchesForCampaign(campaignId)
+            if (recovered + failed > 0) campaignDao.refreshCounts(campaignId)
+            recovered to failed
+        }
+        if (recovered > 0) Log.d(TAG, "Recovered $recovered journaled results of campaign $campaignId")
+        if (failed > 0) Log.w(TAG, "Failed $failed interrupted messages of campaign $campaignId")
+    }
+}
+
+/**
+ * Additive-increase / multiplicative-decrease spacing between sends on one SIM.
+ */
+internal class SendPacer(
+    private val minIntervalMs: Long = 250L,
+    private val maxIntervalMs: Long = 60_000L,
+    initialIntervalMs: Long = 1_000L,
+    private val stepMs: Long = 50L
+) {
+    private var intervalMs = initialIntervalMs
+    private var nextSendAt = 0L
+
+    suspend fun awaitTurn() {
+        val wait = synchronized(this) {
+            val now = System.currentTimeMillis()
+            val at = maxOf(now, nextSendAt)
+            nextSendAt = at + intervalMs
+            at - now
+        }
+        if (wait > 0) delay(wait)
+    }
+
+    fun onSent() = synchronized(this) {
+        intervalMs = maxOf(minIntervalMs, intervalMs - stepMs)
+    }
+
+    fun onRateLimited() = synchronized(this) {
+        intervalMs = minOf(maxIntervalMs, intervalMs * 2)
+        nextSendAt = maxOf(nextSendAt, System.currentTimeMillis() + intervalMs)
+    }
+}
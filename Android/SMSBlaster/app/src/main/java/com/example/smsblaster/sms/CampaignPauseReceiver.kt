@@ -0,0 +1,45 @@
+package com.example.smsblaster.sms
+
+import android.app.PendingIntent
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+
+/**
+ * Pause action of the sending notification. Goes through [CampaignWorker.pause] like the
+ * screen's pause button, instead of cancelling the work and leaving the status to the worker.
+ */
+class CampaignPauseReceiver : BroadcastReceiver() {
+
+    companion object {
+        private const val EXTRA_CAMPAIGN_ID = "campaign_id"
+
+        fun pendingIntent(context: Context, campaignId: Long): PendingIntent {
+            val intent = Intent(context, CampaignPauseReceiver::class.java)
+                .putExtra(EXTRA_CAMPAIGN_ID, campaignId)
+            return PendingIntent.getBroadcast(
+                context,
+                campaignId.toInt(),
+                intent,
+                PendingIntent.FLAG_IMMUTABLE or PendingIntent.FLAG_UPDATE_CURRENT
+            )
+        }
+    }
+
+    override fun onReceive(context: Context, intent: Intent) {
+        val campaignId = intent.getLongExtra(EXTRA_CAMPAIGN_ID, -1L)
+        if (campaignId < 0) return
+
+        val result = goAsync()
+        CoroutineScope(Dispatchers.IO).launch {
+            try {
+                CampaignWorker.pause(context.applicationContext, campaignId)
+            } finally {
+                result.finish()
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.smsblaster.sms
+
+import android.app.NotificationChannel
+import android.app.NotificationManager
+import android.content.Context
+import android.content.pm.ServiceInfo
+import android.os.Build
+import android.util.Log
+import androidx.core.app.NotificationCompat
+import androidx.work.CoroutineWorker
+import androidx.work.ExistingWorkPolicy
+import androidx.work.ForegroundInfo
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.OutOfQuotaPolicy
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import androidx.work.workDataOf
+import com.example.smsblaster.data.AppDatabase
+import com.example.smsblaster.data.model.CampaignStatus
+import kotlinx.coroutines.CancellationException
+
+/**
+ * Runs [CampaignEngine] as foreground work, so a campaign keeps sending with the app in the
+ * background and WorkManager restarts it if the process dies mid-campaign.
+ */
+class CampaignWorker(
+    context: Context,
+    params: WorkerParameters
+) : CoroutineWorker(context, params) {
+
+    companion object {
+        private const val TAG = "CampaignWorker"
+        private const val KEY_CAMPAIGN_ID = "campaign_id"
+        private const val KEY_SUBSCRIPTION_IDS = "subscription_ids"
+        private const val CHANNEL_ID = "campaign_sending"
+        private const val NOTIFICATION_ID_BASE = 1000
+        private const val PROGRESS_INTERVAL_MS = 1000L
+
+        fun uniqueWorkName(campaignId: Long) = "campaign-$campaignId"
+
+        // KEEP: starting a campaign that is already sending is a no-op
+        fun enqueue(context: Context, campaignId: Long, subscriptionIds: List<Int>) {
+            val request = OneTimeWorkRequestBuilder<CampaignWorker>()
+                .setInputData(
+                    workDataOf(
+                        KEY_CAMPAIGN_ID to campaignId,
+                        KEY_SUBSCRIPTION_IDS to subscriptionIds.toIntArray()
+                    )
+                )
+                .setExpedited(OutOfQuotaPolicy.RUN_AS_NON_EXPEDITED_WORK_REQUEST)
+                .addTag(TAG)
+                .build()
+            WorkManager.getInstance(context)
+                .enqueueUniqueWork(uniqueWorkName(campaignId), ExistingWorkPolicy.KEEP, request)
+        }
+
+        fun cancel(context: Context, campaignId: Long) {
+            WorkManager.getInstance(context).cancelUniqueWork(uniqueWorkName(campaignId))
+        }
+
+        /**
+         * The only place that writes PAUSED. A cancelled worker can still be unwinding after a
+         * quick resume has started the next one, so it must not touch the status itself.
+         */
+        suspend fun pause(context: Context, campaignId: Long) {
+            cancel(context, campaignId)
+            AppDatabase.getDatabase(context).campaignDao().updateCampaignStatus(campaignId, CampaignStatus.PAUSED)
+        }
+    }
+
+    private val campaignId = inputData.getLong(KEY_CAMPAIGN_ID, -1L)
+
+    override suspend fun doWork(): Result {
+        if (campaignId < 0) return Result.failure()
+        val subscriptionIds = inputData.getIntArray(KEY_SUBSCRIPTION_IDS)?.toList().orEmpty()
+        val campaignDao = AppDatabase.getDatabase(applicationContext).campaignDao()
+
+        return try {
+            setForeground(getForegroundInfo())
+
+            val total = campaignDao.getCampaignById(campaignId)?.remainingCount ?: 0
+            var lastUpdate = 0L
+            val status = CampaignEngine(applicationContext).run(campaignId, subscriptionIds) { finished ->
+                val now = System.currentTimeMillis()
+                if (now - lastUpdate >= PROGRESS_INTERVAL_MS) {
+                    lastUpdate = now
+                    setForeground(createForegroundInfo(finished, total))
+                }
+            }
+            if (status == CampaignStatus.FAILED) Result.failure() else Result.success()
+        } catch (e: CancellationException) {
+            // Paused through pause(), which already wrote the status
+            throw e
+        } catch (e: Exception) {
+            Log.e(TAG, "Campaign $campaignId failed: ${e.message}", e)
+            campaignDao.updateCampaignStatus(campaignId, CampaignStatus.FAILED)
+            Result.failure()
+        }
+    }
+
+    override suspend fun getForegroundInfo(): ForegroundInfo = createForegroundInfo(0, 0)
+
+    private fun createForegroundInfo(finished: Int, total: Int): ForegroundInfo {
+        val notificationManager =
+            applicationContext.getSystemService(Context.NOTIFICATION_SERVICE) as NotificationManager
+        if (notificationManager.getNotificationChannel(CHANNEL_ID) == null) {
+            notificationManager.createNotificationChannel(
+                NotificationChannel(CHANNEL_ID, "Campaign sending", NotificationManager.IMPORTANCE_LOW)
+            )
+        }
+
+        val notification = NotificationCompat.Builder(applicationContext, CHANNEL_ID)
+            .setSmallIcon(android.R.drawable.stat_notify_chat)
+            .setContentTitle("Sending campaign")
+            .setContentText(if (total > 0) "$finished of $total messages" else "Preparing messages…")
+            .setProgress(total, finished, total == 0)
+            .setOngoing(true)
+            .setOnlyAlertOnce(true)
+            .addAction(
+                android.R.drawable.ic_media_pause,
+                "Pause",
+                CampaignPauseReceiver.pendingIntent(applicationContext, campaignId)
+            )
+            .build()
+
+        val notificationId = NOTIFICATION_ID_BASE + campaignId.toInt()
+        return if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            ForegroundInfo(notificationId, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_DATA_SYNC)
+        } else {
+            ForegroundInfo(notificationId, notification)
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.smsblaster.sms
+
+import androidx.room.withTransaction
+import com.example.smsblaster.data.AppDatabase
+import com.example.smsblaster.data.model.MessageDispatch
+import com.example.smsblaster.data.model.MessageStatus
+import kotlinx.coroutines.NonCancellable
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+
+/**
+ * Write-behind buffer for the status of campaign messages.
+ *
+ * Status changes are applied in one transaction together with the campaign counters, every
+ * [maxPending] updates or whenever [flush] is called, so observers of campaigns and
+ * campaign_messages are invalidated once per batch instead of several times per SMS.
+ * Dispatches and results are also journaled in message_dispatches as they happen, so a run
+ * that dies with updates still buffered can be recovered from the journal on restart.
+ */
+internal class MessageStatusWriter(
+    private val database: AppDatabase,
+    private val campaignId: Long,
+    private val maxPending: Int = 20
+) {
+    private data class StatusUpdate(
+        val id: Long,
+        val status: MessageStatus,
+        val sentAt: Long?,
+        val errorMessage: String?
+    )
+
+    private val campaignDao = database.campaignDao()
+    private val messageDao = database.campaignMessageDao()
+    private val lock = Mutex()
+    // Held from taking a batch until it commits, so batches reach the database in the order
+    // they were taken; otherwise an older SENDING could land on top of a newer SENT
+    private val flushLock = Mutex()
+    private var pending = ArrayList<StatusUpdate>()
+
+    /** Journals [id] as handed to the radio; call before sending it */
+    suspend fun dispatched(id: Long, at: Long) {
+        messageDao.insertDispatch(MessageDispatch(messageId = id, campaignId = campaignId, dispatchedAt = at))
+        buffer(StatusUpdate(id, MessageStatus.SENDING, at, null))
+    }
+
+    /** Returns a dispatched message to the queue, e.g. when the carrier refused it for rate limiting */
+    suspend fun released(id: Long) {
+        messageDao.deleteDispatches(listOf(id))
+        buffer(StatusUpdate(id, MessageStatus.PENDING, null, null))
+    }
+
+    /** Final result of a dispatched message */
+    suspend fun record(id: Long, status: MessageStatus, sentAt: Long? = null, errorMessage: String? = null) {
+        messageDao.finishDispatch(id, status, sentAt, errorMessage)
+        buffer(StatusUpdate(id, status, sentAt, errorMessage))
+    }
+
+    private suspend fun buffer(update: StatusUpdate) {
+        val full = lock.withLock {
+            pending.add(update)
+            pending.size >= maxPending
+        }
+        if (full) flush()
+    }
+
+    suspend fun flush() {
+        // A taken batch is committed even if the caller (e.g. the periodic flusher) is cancelled
+        flushLock.withLock { withContext(NonCancellable) { commit() } }
+    }
+
+    private suspend fun commit() {
+        val batch = lock.withLock {
+            if (pending.isEmpty()) return
+            pending.also { pending = ArrayList() }
+        }
+        database.withTransaction {
+            for (update in batch) {
+                messageDao.updateMessageStatus(update.id, update.status, update.sentAt, update.errorMessage)
+            }
+            // Final statuses are in campaign_messages now; their journal entries are done
+            val finished = batch.filter { it.status == MessageStatus.SENT || it.status == MessageStatus.FAILED }
+            if (finished.isNotEmpty()) messageDao.deleteDispatches(finished.map { it.id })
+            campaignDao.refreshCounts(campaignId)
+        }
+    }
+}
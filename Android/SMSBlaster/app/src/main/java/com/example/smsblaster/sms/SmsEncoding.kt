@@ -0,0 +1,66 @@
+package com.example.smsblaster.sms
+
+/**
+ * Size of a message on the air: GSM 03.38 7-bit when every character is in the default
+ * alphabet or its extension table, UCS-2 otherwise.
+ */
+data class SmsSegments(
+    val isUnicode: Boolean,
+    val length: Int,      // Septets for GSM-7, UTF-16 units for UCS-2
+    val segments: Int
+)
+
+object SmsEncoding {
+    private const val GSM_SINGLE = 160
+    private const val GSM_MULTI = 153
+    private const val UCS2_SINGLE = 70
+    private const val UCS2_MULTI = 67
+
+    // Default alphabet without ESC; the extension table below costs an extra escape septet
+    private const val GSM_BASIC = "@£\$¥èéùìòÇ\nØø\rÅåΔ_ΦΓΛΩΠΨΣΘΞÆæßÉ !\"#¤%&'()*+,-./0123456789:;<=>?" +
+        "¡ABCDEFGHIJKLMNOPQRSTUVWXYZÄÖÑÜ§¿abcdefghijklmnopqrstuvwxyzäöñüà"
+    private const val GSM_EXTENDED = "\u000C^{}\\[~]|€"
+
+    // 0 = not encodable in GSM-7, otherwise the number of septets
+    private val asciiCost = IntArray(128).also { cost ->
+        GSM_BASIC.forEach { if (it.code < 128) cost[it.code] = 1 }
+        GSM_EXTENDED.forEach { if (it.code < 128) cost[it.code] = 2 }
+    }
+    private val nonAsciiBasic = GSM_BASIC.filter { it.code >= 128 }
+
+    /** Septets [c] takes in GSM-7, or 0 when it forces UCS-2. */
+    fun gsmCost(c: Char): Int = when {
+        c.code < 128 -> asciiCost[c.code]
+        c == '€' -> 2
+        nonAsciiBasic.indexOf(c) >= 0 -> 1
+        else -> 0
+    }
+
+    /** Septets [text] takes in GSM-7, or -1 when it needs UCS-2. */
+    fun gsmLength(text: CharSequence): Int {
+        var septets = 0
+        for (c in text) {
+            val cost = gsmCost(c)
+            if (cost == 0) return -1
+            septets += cost
+        }
+        return septets
+    }
+
+    fun count(text: CharSequence): SmsSegments {
+        val septets = gsmLength(text)
+        return segments(septets >= 0, septets, text.length)
+    }
+
+    /** Segments for a message already measured as [septets] (GSM-7) or [utf16Units] (UCS-2). */
+    fun segments(isGsm: Boolean, septets: Int, utf16Units: Int): SmsSegments {
+        return if (isGsm) {
+            SmsSegments(false, septets, split(septets, GSM_SINGLE, GSM_MULTI))
+        } else {
+            SmsSegments(true, utf16Units, split(utf16Units, UCS2_SINGLE, UCS2_MULTI))
+        }
+    }
+
+    private fun split(length: Int, single: Int, multi: Int): Int =
+        if (length <= single) 1 else (length + multi - 1) / multi
+}
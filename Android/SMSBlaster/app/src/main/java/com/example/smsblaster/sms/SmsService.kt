@@ -14,11 +14,15 @@ import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.suspendCancellableCoroutine
 import kotlinx.coroutines.withContext
 import kotlinx.coroutines.withTimeoutOrNull
+import java.util.concurrent.atomic.AtomicInteger
 import kotlin.coroutines.resume
 
 sealed class SmsResult {
     data object Success : SmsResult()
-    data class Failed(val errorMessage: String) : SmsResult()
+    data class Failed(val errorMessage: String, val resultCode: Int? = null) : SmsResult() {
+        // The platform refused the send because the app exceeded its outgoing SMS quota
+        val isRateLimited: Boolean get() = resultCode == SmsManager.RESULT_ERROR_LIMIT_EXCEEDED
+    }
 }
 
 class SmsService(private val context: Context) {
@@ -26,7 +30,10 @@ class SmsService(private val context: Context) {
     companion object {
         private const val TAG = "SmsService"
         private const val SMS_SENT_ACTION = "com.example.smsblaster.SMS_SENT"
-        private const val SMS_TIMEOUT_MS = 30000L // 30 seconds timeout
+        const val SMS_TIMEOUT_MS = 30000L // 30 seconds timeout
+        
+        // Unique per send, so pipelined sends never share a broadcast action or PendingIntent
+        private val requestCodes = AtomicInteger()
     }
     
     private val subscriptionManager: SubscriptionManager by lazy {
@@ -103,7 +110,8 @@ class SmsService(private val context: Context) {
         }
     }
     
-    // Alternative method with callback confirmation
+    // Send and wait for the sent-intent result of every part. Safe to call concurrently:
+    // each call registers its own receiver on a unique action.
     suspend fun sendSmsWithConfirmation(
         phoneNumber: String,
         message: String,
@@ -113,52 +121,31 @@ class SmsService(private val context: Context) {
         
         val result = withTimeoutOrNull(SMS_TIMEOUT_MS) {
             suspendCancellableCoroutine { continuation ->
-                val requestCode = System.currentTimeMillis().toInt()
-                val intentAction = "$SMS_SENT_ACTION.$requestCode"
-                
-                val sentIntent = PendingIntent.getBroadcast(
-                    context,
-                    requestCode,
-                    Intent(intentAction),
-                    PendingIntent.FLAG_IMMUTABLE or PendingIntent.FLAG_ONE_SHOT
-                )
+                val intentAction = "$SMS_SENT_ACTION.${requestCodes.incrementAndGet()}"
+                val smsManager = try {
+                    getSmsManager(subscriptionId)
+                } catch (e: Exception) {
+                    continuation.resume(SmsResult.Failed(e.message ?: "No SMS manager"))
+                    return@suspendCancellableCoroutine
+                }
+                val parts = smsManager.divideMessage(message)
+                var pendingParts = parts.size
                 
                 val sentReceiver = object : BroadcastReceiver() {
                     override fun onReceive(ctx: Context?, intent: Intent?) {
                         Log.d(TAG, "SMS broadcast received, resultCode: $resultCode")
-                        try {
-                            context.unregisterReceiver(this)
-                        } catch (e: Exception) {
-                            Log.w(TAG, "Error unregistering receiver: ${e.message}")
-                        }
-                        
                         if (!continuation.isActive) return
                         
-                        when (resultCode) {
-                            Activity.RESULT_OK -> {
-                                Log.d(TAG, "SMS sent successfully")
-                                continuation.resume(SmsResult.Success)
-                            }
-                            SmsManager.RESULT_ERROR_GENERIC_FAILURE -> {
-                                Log.e(TAG, "Generic failure")
-                                continuation.resume(SmsResult.Failed("Generic failure"))
-                            }
-                            SmsManager.RESULT_ERROR_NO_SERVICE -> {
-                                Log.e(TAG, "No service")
-                                continuation.resume(SmsResult.Failed("No service"))
-                            }
-                            SmsManager.RESULT_ERROR_NULL_PDU -> {
-                                Log.e(TAG, "Null PDU")
-                                continuation.resume(SmsResult.Failed("Null PDU"))
-                            }
-                            SmsManager.RESULT_ERROR_RADIO_OFF -> {
-                                Log.e(TAG, "Radio off")
-                                continuation.resume(SmsResult.Failed("Radio off"))
-                            }
-                            else -> {
-                                Log.e(TAG, "Unknown error: $resultCode")
-                                continuation.resume(SmsResult.Failed("Unknown error: $resultCode"))
+                        // The message counts as sent once every part is; the first failing part decides the error
+                        val partResult = resultFor(resultCode)
+                        pendingParts--
+                        if (partResult is SmsResult.Failed || pendingParts <= 0) {
+                            try {
+                                context.unregisterReceiver(this)
+                            } catch (e: Exception) {
+                                Log.w(TAG, "Error unregistering receiver: ${e.message}")
                             }
+                            continuation.resume(partResult)
                         }
                     }
                 }
@@ -175,16 +162,21 @@ class SmsService(private val context: Context) {
                         context.registerReceiver(sentReceiver, IntentFilter(intentAction))
                     }
                     
-                    val smsManager = getSmsManager(subscriptionId)
-                    val parts = smsManager.divideMessage(message)
+                    val sentIntents = ArrayList<PendingIntent>(parts.size)
+                    repeat(parts.size) {
+                        sentIntents.add(
+                            PendingIntent.getBroadcast(
+                                context,
+                                requestCodes.incrementAndGet(),
+                                Intent(intentAction).setPackage(context.packageName),
+                                PendingIntent.FLAG_IMMUTABLE or PendingIntent.FLAG_ONE_SHOT
+                            )
+                        )
+                    }
                     
                     if (parts.size == 1) {
-                        smsManager.sendTextMessage(phoneNumber, null, message, sentIntent, null)
+                        smsManager.sendTextMessage(phoneNumber, null, message, sentIntents[0], null)
                     } else {
-                        val sentIntents = ArrayList<PendingIntent>().apply {
-                            add(sentIntent)
-                            repeat(parts.size - 1) { add(sentIntent) }
-                        }
                         smsManager.sendMultipartTextMessage(phoneNumber, null, parts, sentIntents, null)
                     }
                     
@@ -216,6 +208,16 @@ class SmsService(private val context: Context) {
             SmsResult.Success
         }
     }
+    
+    private fun resultFor(resultCode: Int): SmsResult = when (resultCode) {
+        Activity.RESULT_OK -> SmsResult.Success
+        SmsManager.RESULT_ERROR_GENERIC_FAILURE -> SmsResult.Failed("Generic failure", resultCode)
+        SmsManager.RESULT_ERROR_NO_SERVICE -> SmsResult.Failed("No service", resultCode)
+        SmsManager.RESULT_ERROR_NULL_PDU -> SmsResult.Failed("Null PDU", resultCode)
+        SmsManager.RESULT_ERROR_RADIO_OFF -> SmsResult.Failed("Radio off", resultCode)
+        SmsManager.RESULT_ERROR_LIMIT_EXCEEDED -> SmsResult.Failed("Sending limit exceeded", resultCode)
+        else -> SmsResult.Failed("Unknown error: $resultCode", resultCode)
+    }.also { if (it is SmsResult.Failed) Log.e(TAG, it.errorMessage) }
 }
 
 data class SimInfo(
@@ -35,12 +35,15 @@ import com.example.smsblaster.ui.components.GradientButton
 import com.example.smsblaster.ui.components.SMSBlasterSearchBar
 import com.example.smsblaster.ui.components.TagChip
 import com.example.smsblaster.ui.theme.SMSBlasterTheme
+import kotlinx.coroutines.flow.Flow
 
 @OptIn(ExperimentalMaterial3Api::class)
 @Composable
 fun CreateCampaignDialog(
     templates: List<Template>,
-    contacts: List<Contact>,
+    allTags: List<String>,
+    // Search and tag filtering run in SQL, see ContactViewModel.contactsMatching
+    contactsMatching: (query: String, tags: Set<String>) -> Flow<List<Contact>>,
     onDismiss: () -> Unit,
     onCreate: (name: String, templateId: Long, recipientIds: List<Long>) -> Unit
 ) {
@@ -54,29 +57,21 @@ fun CreateCampaignDialog(
     var showMessagePreview by remember { mutableStateOf<Contact?>(null) }
     var selectedTagFilters by remember { mutableStateOf<Set<String>>(emptySet()) }
     
-    // Get all unique tags
-    val allTags = remember(contacts) {
-        contacts.flatMap { it.tags }.distinct().sorted()
-    }
-    
-    // Filter contacts by search and tags
-    val filteredContacts = remember(contacts, contactSearchQuery, selectedTagFilters) {
-        contacts.filter { contact ->
-            val matchesSearch = contactSearchQuery.isBlank() ||
-                contact.name.contains(contactSearchQuery, ignoreCase = true) ||
-                contact.phone.contains(contactSearchQuery)
-            val matchesTags = selectedTagFilters.isEmpty() ||
-                contact.tags.any { it in selectedTagFilters }
-            matchesSearch && matchesTags
-        }
+    // Keeps the previous list while a new query runs, so typing doesn't flash "No contacts"
+    val filteredContacts by produceState(emptyList<Contact>(), contactSearchQuery, selectedTagFilters) {
+        contactsMatching(contactSearchQuery, selectedTagFilters).collect { value = it }
     }
     
     val selectedTemplate = remember(templates, selectedTemplateId) {
         templates.find { it.id == selectedTemplateId }
     }
     
-    val selectedContacts = remember(contacts, selectedContactIds) {
-        contacts.filter { it.id in selectedContactIds }
+    // The summary and previews need the selected contacts whatever the picker filters show
+    val allContacts by produceState(emptyList<Contact>()) {
+        contactsMatching("", emptySet()).collect { value = it }
+    }
+    val selectedContacts = remember(allContacts, selectedContactIds) {
+        allContacts.filter { it.id in selectedContactIds }
     }
     
     val isValid = campaignName.isNotBlank() && 
@@ -606,6 +601,8 @@ private fun MessagePreviewDialog(
         
         Spacer(modifier = Modifier.height(16.dp))
         
+        val rendered = remember(template, contact) { template?.compile()?.render(contact) }
+        
         Text(
             text = "Message that will be sent:",
             style = MaterialTheme.typography.labelLarge,
@@ -622,13 +619,14 @@ private fun MessagePreviewDialog(
         ) {
             Column(modifier = Modifier.padding(16.dp)) {
                 Text(
-                    text = template?.formatMessage(contact) ?: "No template selected",
+                    text = rendered?.text ?: "No template selected",
                     style = MaterialTheme.typography.bodyLarge,
                     color = Color.White
                 )
                 Spacer(modifier = Modifier.height(8.dp))
                 Text(
-                    text = "${template?.formatMessage(contact)?.length ?: 0} characters",
+                    text = rendered?.let { "${it.text.length} characters | ${it.segments.segments} SMS" + if (it.segments.isUnicode) " (Unicode)" else "" }
+                        ?: "0 characters",
                     style = MaterialTheme.typography.labelSmall,
                     color = Color.White.copy(alpha = 0.7f)
                 )
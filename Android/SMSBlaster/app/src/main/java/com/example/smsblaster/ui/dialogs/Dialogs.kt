@@ -24,8 +24,10 @@ import androidx.compose.ui.text.input.KeyboardType
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.window.Dialog
 import androidx.compose.ui.window.DialogProperties
+import com.example.smsblaster.data.model.CompiledTemplate
 import com.example.smsblaster.data.model.Contact
 import com.example.smsblaster.data.model.Template
+import com.example.smsblaster.sms.SmsEncoding
 import com.example.smsblaster.ui.components.GradientButton
 import com.example.smsblaster.ui.components.TagChip
 import com.example.smsblaster.ui.theme.SMSBlasterTheme
@@ -333,9 +335,8 @@ fun AddEditTemplateDialog(
     var content by remember { mutableStateOf(template?.content ?: "") }
     
     val isValid = name.isNotBlank() && content.isNotBlank()
-    val placeholders = remember(content) {
-        Regex("\\{([^}]+)\\}").findAll(content).map { it.groupValues[1] }.toList()
-    }
+    val placeholders = remember(content) { CompiledTemplate.compile(content).placeholders }
+    val segments = remember(content) { SmsEncoding.count(content) }
     
     Dialog(
         onDismissRequest = onDismiss,
@@ -489,7 +490,7 @@ fun AddEditTemplateDialog(
                     
                     // Character count
                     Text(
-                        text = "${content.length} characters | ~${(content.length / 160) + 1} SMS",
+                        text = "${content.length} characters | ~${segments.segments} SMS" + if (segments.isUnicode) " (Unicode)" else "",
                         style = MaterialTheme.typography.labelSmall,
                         color = colors.textTertiary
                     )
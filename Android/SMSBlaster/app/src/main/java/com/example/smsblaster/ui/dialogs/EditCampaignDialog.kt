@@ -32,6 +32,7 @@ import com.example.smsblaster.data.model.Template
 import com.example.smsblaster.ui.components.GradientButton
 import com.example.smsblaster.ui.components.SMSBlasterSearchBar
 import com.example.smsblaster.ui.theme.SMSBlasterTheme
+import kotlinx.coroutines.flow.Flow
 
 @OptIn(ExperimentalMaterial3Api::class)
 @Composable
@@ -39,32 +40,23 @@ fun EditCampaignDialog(
     campaign: Campaign,
     currentTemplate: Template?,
     templates: List<Template>,
-    contacts: List<Contact>,
+    allTags: List<String>,
+    // Search and tag filtering run in SQL, see ContactViewModel.contactsMatching
+    contactsMatching: (query: String, tags: Set<String>) -> Flow<List<Contact>>,
+    initialRecipientIds: Set<Long>,
     editMode: CampaignEditMode,
     onDismiss: () -> Unit,
     onSave: (templateId: Long, recipientIds: List<Long>) -> Unit
 ) {
     val colors = SMSBlasterTheme.colors
     var selectedTemplateId by remember { mutableStateOf(campaign.templateId ?: 0L) }
-    var selectedContactIds by remember { mutableStateOf(campaign.recipientIds.toSet()) }
+    var selectedContactIds by remember { mutableStateOf(initialRecipientIds) }
     var searchQuery by remember { mutableStateOf("") }
     var selectedTagFilters by remember { mutableStateOf<Set<String>>(emptySet()) }
     
-    // Get all unique tags
-    val allTags = remember(contacts) {
-        contacts.flatMap { it.tags }.distinct().sorted()
-    }
-    
-    // Filter contacts
-    val filteredContacts = remember(contacts, searchQuery, selectedTagFilters) {
-        contacts.filter { contact ->
-            val matchesSearch = searchQuery.isBlank() ||
-                contact.name.contains(searchQuery, ignoreCase = true) ||
-                contact.phone.contains(searchQuery)
-            val matchesTags = selectedTagFilters.isEmpty() ||
-                contact.tags.any { it in selectedTagFilters }
-            matchesSearch && matchesTags
-        }
+    // Keeps the previous list while a new query runs, so typing doesn't flash "No contacts"
+    val filteredContacts by produceState(emptyList<Contact>(), searchQuery, selectedTagFilters) {
+        contactsMatching(searchQuery, selectedTagFilters).collect { value = it }
     }
     
     BackHandler { onDismiss() }
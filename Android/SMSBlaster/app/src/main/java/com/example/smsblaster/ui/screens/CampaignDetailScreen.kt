@@ -44,7 +44,7 @@ fun CampaignDetailScreen(
     isSending: Boolean,
     availableSimCards: List<SimInfo>,
     onBack: () -> Unit,
-    onStartCampaign: (simSubscriptionId: Int?) -> Unit,
+    onStartCampaign: (simSubscriptionIds: List<Int>) -> Unit,
     onPauseCampaign: () -> Unit,
     onResumeCampaign: () -> Unit,
     onDeleteCampaign: () -> Unit,
@@ -312,7 +312,7 @@ fun CampaignDetailScreen(
                                 if (availableSimCards.size > 1) {
                                     showSimSelector = true
                                 } else {
-                                    onStartCampaign(availableSimCards.firstOrNull()?.subscriptionId)
+                                    onStartCampaign(availableSimCards.take(1).map { it.subscriptionId })
                                 }
                             },
                             enabled = !isSending && campaign.totalCount > 0,
@@ -350,7 +350,7 @@ fun CampaignDetailScreen(
                                     if (availableSimCards.size > 1) {
                                         showSimSelector = true
                                     } else {
-                                        onStartCampaign(availableSimCards.firstOrNull()?.subscriptionId)
+                                        onStartCampaign(availableSimCards.take(1).map { it.subscriptionId })
                                     }
                                 },
                                 modifier = Modifier.weight(1f),
@@ -435,13 +435,48 @@ fun CampaignDetailScreen(
             title = { Text("Select SIM Card") },
             text = {
                 Column {
+                    Surface(
+                        modifier = Modifier
+                            .fillMaxWidth()
+                            .clickable {
+                                showSimSelector = false
+                                onStartCampaign(availableSimCards.map { it.subscriptionId })
+                            }
+                            .padding(vertical = 8.dp),
+                        shape = RoundedCornerShape(12.dp),
+                        color = colors.chipBackground
+                    ) {
+                        Row(
+                            modifier = Modifier.padding(16.dp),
+                            verticalAlignment = Alignment.CenterVertically
+                        ) {
+                            Icon(
+                                imageVector = Icons.Default.SimCard,
+                                contentDescription = null,
+                                tint = MaterialTheme.colorScheme.primary
+                            )
+                            Spacer(modifier = Modifier.width(12.dp))
+                            Column {
+                                Text(
+                                    text = "All SIMs",
+                                    style = MaterialTheme.typography.bodyLarge,
+                                    fontWeight = FontWeight.Medium
+                                )
+                                Text(
+                                    text = "Send in parallel on ${availableSimCards.size} SIM cards",
+                                    style = MaterialTheme.typography.bodySmall,
+                                    color = colors.textSecondary
+                                )
+                            }
+                        }
+                    }
                     availableSimCards.forEach { sim ->
                         Surface(
                             modifier = Modifier
                                 .fillMaxWidth()
                                 .clickable {
                                     showSimSelector = false
-                                    onStartCampaign(sim.subscriptionId)
+                                    onStartCampaign(listOf(sim.subscriptionId))
                                 }
                                 .padding(vertical = 8.dp),
                             shape = RoundedCornerShape(12.dp),
@@ -538,6 +573,7 @@ fun CampaignDetailScreen(
                                     MessageStatus.SENT, MessageStatus.DELIVERED -> colors.success
                                     MessageStatus.FAILED -> colors.error
                                     MessageStatus.PENDING -> colors.textSecondary
+                                    MessageStatus.SENDING -> colors.warning
                                 }
                             )
                         }
@@ -668,6 +704,7 @@ private fun MessageItem(
     val colors = SMSBlasterTheme.colors
     val (statusColor, statusIcon) = when (message.status) {
         MessageStatus.PENDING -> colors.textTertiary to Icons.Outlined.Schedule
+        MessageStatus.SENDING -> colors.warning to Icons.Outlined.Sync
         MessageStatus.SENT -> colors.success to Icons.Outlined.CheckCircle
         MessageStatus.DELIVERED -> colors.success to Icons.Filled.CheckCircle
         MessageStatus.FAILED -> colors.error to Icons.Outlined.Error
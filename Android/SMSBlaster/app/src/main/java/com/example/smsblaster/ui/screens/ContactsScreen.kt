@@ -18,7 +18,9 @@ import androidx.compose.ui.Modifier
 import androidx.compose.ui.graphics.Brush
 import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.unit.dp
+import com.example.smsblaster.data.ContactImportProgress
 import com.example.smsblaster.data.model.Contact
+import com.example.smsblaster.data.model.TagCount
 import com.example.smsblaster.ui.components.*
 import com.example.smsblaster.ui.theme.SMSBlasterTheme
 
@@ -35,25 +37,22 @@ fun ContactsScreen(
     modifier: Modifier = Modifier,
     selectionMode: Boolean = false,
     selectedContactIds: Set<Long> = emptySet(),
-    onToggleSelection: ((Long) -> Unit)? = null
+    onToggleSelection: ((Long) -> Unit)? = null,
+    importProgress: ContactImportProgress? = null,
+    tagCounts: List<TagCount>? = null,
+    // Tag filtering runs in SQL; contacts already holds only the matching ones
+    selectedTagFilters: Set<String> = emptySet(),
+    onToggleTagFilter: (String) -> Unit = {},
+    onClearTagFilters: () -> Unit = {}
 ) {
     val colors = SMSBlasterTheme.colors
-    var selectedTagFilters by remember { mutableStateOf<Set<String>>(emptySet()) }
     
     // Get all unique tags
-    val allTags = remember(contacts) {
-        contacts.flatMap { it.tags }.distinct().sorted()
+    val allTags = remember(contacts, tagCounts) {
+        tagCounts?.map { it.tag } ?: contacts.flatMap { it.tags }.distinct().sorted()
     }
-    
-    // Filter contacts by tags
-    val filteredContacts = remember(contacts, selectedTagFilters) {
-        if (selectedTagFilters.isEmpty()) {
-            contacts
-        } else {
-            contacts.filter { contact ->
-                contact.tags.any { it in selectedTagFilters }
-            }
-        }
+    val tagCountByName = remember(tagCounts) {
+        tagCounts?.associate { it.tag to it.contactCount }.orEmpty()
     }
     
     Column(
@@ -90,7 +89,7 @@ fun ContactsScreen(
                             color = colors.textPrimary
                         )
                         Text(
-                            text = "${filteredContacts.size} contacts" + 
+                            text = "${contacts.size} contacts" + 
                                    if (selectedTagFilters.isNotEmpty()) " (filtered)" else "",
                             style = MaterialTheme.typography.bodyMedium,
                             color = colors.textSecondary
@@ -102,6 +101,7 @@ fun ContactsScreen(
                     ) {
                         IconButton(
                             onClick = onImportCsv,
+                            enabled = importProgress == null,
                             colors = IconButtonDefaults.iconButtonColors(
                                 containerColor = colors.cardBackground,
                                 contentColor = MaterialTheme.colorScheme.primary
@@ -122,6 +122,25 @@ fun ContactsScreen(
                     }
                 }
                 
+                importProgress?.let { progress ->
+                    Spacer(modifier = Modifier.height(12.dp))
+                    val fraction = progress.fraction
+                    if (fraction != null) {
+                        LinearProgressIndicator(
+                            progress = { fraction },
+                            modifier = Modifier.fillMaxWidth()
+                        )
+                    } else {
+                        LinearProgressIndicator(modifier = Modifier.fillMaxWidth())
+                    }
+                    Spacer(modifier = Modifier.height(4.dp))
+                    Text(
+                        text = "Importing… ${progress.rowsRead} rows, ${progress.imported} new, ${progress.duplicates} duplicates",
+                        style = MaterialTheme.typography.bodySmall,
+                        color = colors.textSecondary
+                    )
+                }
+                
                 Spacer(modifier = Modifier.height(16.dp))
                 
                 SMSBlasterSearchBar(
@@ -143,7 +162,7 @@ fun ContactsScreen(
                         if (selectedTagFilters.isNotEmpty()) {
                             FilterChip(
                                 selected = false,
-                                onClick = { selectedTagFilters = emptySet() },
+                                onClick = onClearTagFilters,
                                 label = { Text("Clear") },
                                 leadingIcon = {
                                     Icon(
@@ -159,14 +178,8 @@ fun ContactsScreen(
                         allTags.forEach { tag ->
                             FilterChip(
                                 selected = tag in selectedTagFilters,
-                                onClick = {
-                                    selectedTagFilters = if (tag in selectedTagFilters) {
-                                        selectedTagFilters - tag
-                                    } else {
-                                        selectedTagFilters + tag
-                                    }
-                                },
-                                label = { Text(tag) },
+                                onClick = { onToggleTagFilter(tag) },
+                                label = { Text(tagCountByName[tag]?.let { "$tag ($it)" } ?: tag) },
                                 leadingIcon = if (tag in selectedTagFilters) {
                                     {
                                         Icon(
@@ -189,7 +202,7 @@ fun ContactsScreen(
         }
         
         // Contacts list
-        if (filteredContacts.isEmpty()) {
+        if (contacts.isEmpty()) {
             Box(
                 modifier = Modifier
                     .fillMaxSize()
@@ -216,7 +229,7 @@ fun ContactsScreen(
                 verticalArrangement = Arrangement.spacedBy(12.dp)
             ) {
                 items(
-                    items = filteredContacts,
+                    items = contacts,
                     key = { it.id }
                 ) { contact ->
                     ContactCard(
@@ -6,11 +6,11 @@ import androidx.lifecycle.AndroidViewModel
 import androidx.lifecycle.viewModelScope
 import com.example.smsblaster.data.AppDatabase
 import com.example.smsblaster.data.model.*
-import com.example.smsblaster.sms.SmsResult
-import com.example.smsblaster.sms.SmsService
-import kotlinx.coroutines.delay
+import com.example.smsblaster.sms.CampaignWorker
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 
 data class CampaignWithTemplate(
     val campaign: Campaign,
@@ -26,8 +26,6 @@ class CampaignViewModel(application: Application) : AndroidViewModel(application
     private val campaignDao = db.campaignDao()
     private val campaignMessageDao = db.campaignMessageDao()
     private val templateDao = db.templateDao()
-    private val contactDao = db.contactDao()
-    private val smsService = SmsService(application)
     
     private val _searchQuery = MutableStateFlow("")
     val searchQuery: StateFlow<String> = _searchQuery.asStateFlow()
@@ -57,10 +55,12 @@ class CampaignViewModel(application: Application) : AndroidViewModel(application
     private val _currentCampaign = MutableStateFlow<Campaign?>(null)
     val currentCampaign: StateFlow<Campaign?> = _currentCampaign.asStateFlow()
     
-    private val _isSending = MutableStateFlow(false)
-    val isSending: StateFlow<Boolean> = _isSending.asStateFlow()
+    // Sending runs in CampaignWorker; the RUNNING status is the source of truth
+    val isSending: StateFlow<Boolean> = allCampaigns
+        .map { campaigns -> campaigns.any { it.status == CampaignStatus.RUNNING } }
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), false)
     
-    private var currentSimSubscriptionId: Int? = null
+    private var currentSimSubscriptionIds: List<Int> = emptyList()
     
     fun setSearchQuery(query: String) {
         _searchQuery.value = query
@@ -75,33 +75,25 @@ class CampaignViewModel(application: Application) : AndroidViewModel(application
         viewModelScope.launch {
             Log.d(TAG, "Creating campaign: $name with ${recipientIds.size} recipients")
             
+            val distinctIds = recipientIds.distinct()
             val campaign = Campaign(
                 name = name,
                 templateId = templateId,
-                recipientIds = recipientIds,
-                totalCount = recipientIds.size,
+                totalCount = distinctIds.size,
                 status = CampaignStatus.DRAFT
             )
             val campaignId = campaignDao.insertCampaign(campaign)
+            campaignDao.insertRecipients(distinctIds.map { CampaignRecipient(campaignId, it) })
             Log.d(TAG, "Campaign created with ID: $campaignId")
             
             // Create campaign messages
             val template = templateDao.getTemplateById(templateId)
-            val contacts = contactDao.getContactsByIds(recipientIds)
+            val contacts = campaignDao.getRecipientContacts(campaignId)
             
             Log.d(TAG, "Template: ${template?.name}, Contacts: ${contacts.size}")
             
             if (template != null) {
-                val messages = contacts.map { contact ->
-                    val formattedMessage = template.formatMessage(contact)
-                    Log.d(TAG, "Message for ${contact.name} (${contact.phone}): $formattedMessage")
-                    CampaignMessage(
-                        campaignId = campaignId,
-                        contactId = contact.id,
-                        phoneNumber = contact.phone,
-                        message = formattedMessage
-                    )
-                }
+                val messages = buildMessages(campaignId, template, contacts)
                 campaignMessageDao.insertMessages(messages)
                 Log.d(TAG, "Inserted ${messages.size} campaign messages")
             }
@@ -133,21 +125,14 @@ class CampaignViewModel(application: Application) : AndroidViewModel(application
             )
             
             val newCampaignId = campaignDao.insertCampaign(newCampaign)
+            campaignDao.copyRecipients(campaignId, newCampaignId)
             
             // Duplicate messages
             val template = originalCampaign.templateId?.let { templateDao.getTemplateById(it) }
-            val contacts = contactDao.getContactsByIds(originalCampaign.recipientIds)
+            val contacts = campaignDao.getRecipientContacts(newCampaignId)
             
             if (template != null) {
-                val messages = contacts.map { contact ->
-                    CampaignMessage(
-                        campaignId = newCampaignId,
-                        contactId = contact.id,
-                        phoneNumber = contact.phone,
-                        message = template.formatMessage(contact)
-                    )
-                }
-                campaignMessageDao.insertMessages(messages)
+                campaignMessageDao.insertMessages(buildMessages(newCampaignId, template, contacts))
             }
             
             Log.d(TAG, "Campaign duplicated with ID: $newCampaignId")
@@ -163,6 +148,7 @@ class CampaignViewModel(application: Application) : AndroidViewModel(application
     
     fun deleteCampaign(campaign: Campaign) {
         viewModelScope.launch {
+            CampaignWorker.cancel(getApplication(), campaign.id)
             campaignDao.deleteCampaign(campaign)
         }
     }
@@ -180,11 +166,15 @@ class CampaignViewModel(application: Application) : AndroidViewModel(application
             // Delete old messages
             campaignMessageDao.deleteMessagesByCampaignId(campaignId)
             
+            // Replace recipients
+            val distinctIds = recipientIds.distinct()
+            campaignDao.deleteRecipients(campaignId)
+            campaignDao.insertRecipients(distinctIds.map { CampaignRecipient(campaignId, it) })
+            
             // Update campaign
             val updatedCampaign = campaign.copy(
                 templateId = templateId,
-                recipientIds = recipientIds,
-                totalCount = recipientIds.size,
+                totalCount = distinctIds.size,
                 sentCount = 0,
                 failedCount = 0,
                 status = CampaignStatus.DRAFT,
@@ -194,33 +184,45 @@ class CampaignViewModel(application: Application) : AndroidViewModel(application
             
             // Create new messages
             val template = templateDao.getTemplateById(templateId)
-            val contacts = contactDao.getContactsByIds(recipientIds)
+            val contacts = campaignDao.getRecipientContacts(campaignId)
             
             if (template != null) {
-                val messages = contacts.map { contact ->
-                    Log.d(TAG, "Creating message for ${contact.name}: customKeys=${contact.customKeys}")
-                    val formattedMessage = template.formatMessage(contact)
-                    Log.d(TAG, "Formatted message: $formattedMessage")
-                    CampaignMessage(
-                        campaignId = campaignId,
-                        contactId = contact.id,
-                        phoneNumber = contact.phone,
-                        message = formattedMessage
-                    )
-                }
+                val messages = buildMessages(campaignId, template, contacts)
                 campaignMessageDao.insertMessages(messages)
                 Log.d(TAG, "Created ${messages.size} new messages")
             }
         }
     }
     
+    // One compile per campaign, rendered off the main thread
+    private suspend fun buildMessages(
+        campaignId: Long,
+        template: Template,
+        contacts: List<Contact>
+    ): List<CampaignMessage> = withContext(Dispatchers.Default) {
+        val compiled = template.compile()
+        contacts.map { contact ->
+            CampaignMessage(
+                campaignId = campaignId,
+                contactId = contact.id,
+                phoneNumber = contact.phone,
+                message = compiled.render(contact).text
+            )
+        }
+    }
+    
+    suspend fun getRecipientIds(campaignId: Long): Set<Long> {
+        return campaignDao.getRecipientIds(campaignId).toSet()
+    }
+    
     suspend fun getCampaignById(id: Long): Campaign? {
         return campaignDao.getCampaignById(id)
     }
     
-    fun startCampaign(campaignId: Long, simSubscriptionId: Int? = null, delayBetweenSms: Long = 2000L) {
-        Log.d(TAG, "Starting campaign: $campaignId with SIM: $simSubscriptionId")
-        currentSimSubscriptionId = simSubscriptionId
+    // Empty simSubscriptionIds sends through the default SMS subscription
+    fun startCampaign(campaignId: Long, simSubscriptionIds: List<Int> = emptyList()) {
+        Log.d(TAG, "Starting campaign: $campaignId with SIMs: $simSubscriptionIds")
+        currentSimSubscriptionIds = simSubscriptionIds
         
         viewModelScope.launch {
             val campaign = campaignDao.getCampaignById(campaignId) 
@@ -231,102 +233,24 @@ class CampaignViewModel(application: Application) : AndroidViewModel(application
             
             Log.d(TAG, "Campaign found: ${campaign.name}, total: ${campaign.totalCount}")
             
-            // Update status to RUNNING
-            campaignDao.updateCampaignStatus(campaignId, CampaignStatus.RUNNING)
-            if (campaign.startedAt == null) {
-                campaignDao.updateCampaign(campaign.copy(
-                    status = CampaignStatus.RUNNING,
-                    startedAt = System.currentTimeMillis()
-                ))
-            }
-            _currentCampaign.value = campaign.copy(status = CampaignStatus.RUNNING)
-            _isSending.value = true
-            
-            Log.d(TAG, "Campaign status set to RUNNING")
+            // Flip the status right away so the screen doesn't wait for the worker to start
+            campaignDao.markStarted(campaignId)
+            _currentCampaign.value = campaignDao.getCampaignById(campaignId)
             
-            try {
-                var messagesSent = 0
-                
-                while (_isSending.value) {
-                    Log.d(TAG, "Fetching pending messages...")
-                    val pendingMessages = campaignMessageDao.getPendingMessages(campaignId, limit = 1)
-                    
-                    Log.d(TAG, "Pending messages: ${pendingMessages.size}")
-                    
-                    if (pendingMessages.isEmpty()) {
-                        Log.d(TAG, "No more pending messages, campaign completed")
-                        campaignDao.updateCampaignStatus(campaignId, CampaignStatus.COMPLETED)
-                        campaignDao.updateCampaign(
-                            campaignDao.getCampaignById(campaignId)!!.copy(
-                                completedAt = System.currentTimeMillis()
-                            )
-                        )
-                        _isSending.value = false
-                        break
-                    }
-                    
-                    val message = pendingMessages.first()
-                    Log.d(TAG, "Sending SMS to: ${message.phoneNumber}")
-                    Log.d(TAG, "Message content: ${message.message}")
-                    
-                    val result = smsService.sendSms(
-                        phoneNumber = message.phoneNumber, 
-                        message = message.message,
-                        subscriptionId = currentSimSubscriptionId
-                    )
-                    
-                    when (result) {
-                        is SmsResult.Success -> {
-                            Log.d(TAG, "SMS sent successfully to: ${message.phoneNumber}")
-                            campaignMessageDao.updateMessageStatus(
-                                id = message.id,
-                                status = MessageStatus.SENT,
-                                sentAt = System.currentTimeMillis()
-                            )
-                            campaignDao.incrementSentCount(campaignId)
-                            messagesSent++
-                        }
-                        is SmsResult.Failed -> {
-                            Log.e(TAG, "SMS failed to: ${message.phoneNumber}, error: ${result.errorMessage}")
-                            campaignMessageDao.updateMessageStatus(
-                                id = message.id,
-                                status = MessageStatus.FAILED,
-                                errorMessage = result.errorMessage
-                            )
-                            campaignDao.incrementFailedCount(campaignId)
-                        }
-                    }
-                    
-                    // Update current campaign state
-                    _currentCampaign.value = campaignDao.getCampaignById(campaignId)
-                    
-                    Log.d(TAG, "Messages sent so far: $messagesSent")
-                    
-                    // Delay before next message
-                    delay(delayBetweenSms)
-                }
-                
-                Log.d(TAG, "Campaign sending loop ended. Total sent: $messagesSent")
-                
-            } catch (e: Exception) {
-                Log.e(TAG, "Error during campaign execution: ${e.message}", e)
-                campaignDao.updateCampaignStatus(campaignId, CampaignStatus.FAILED)
-                _isSending.value = false
-            }
+            CampaignWorker.enqueue(getApplication(), campaignId, simSubscriptionIds)
         }
     }
     
     fun pauseCampaign(campaignId: Long) {
         Log.d(TAG, "Pausing campaign: $campaignId")
         viewModelScope.launch {
-            _isSending.value = false
-            campaignDao.updateCampaignStatus(campaignId, CampaignStatus.PAUSED)
+            CampaignWorker.pause(getApplication(), campaignId)
             _currentCampaign.value = campaignDao.getCampaignById(campaignId)
         }
     }
     
     fun resumeCampaign(campaignId: Long) {
         Log.d(TAG, "Resuming campaign: $campaignId")
-        startCampaign(campaignId, currentSimSubscriptionId)
+        startCampaign(campaignId, currentSimSubscriptionIds)
     }
 }
@@ -1,10 +1,19 @@
 package com.example.smsblaster.viewmodel
 
 import android.app.Application
+import android.database.sqlite.SQLiteConstraintException
+import android.util.Log
 import androidx.lifecycle.AndroidViewModel
 import androidx.lifecycle.viewModelScope
+import androidx.room.withTransaction
 import com.example.smsblaster.data.AppDatabase
+import com.example.smsblaster.data.ContactImportProgress
+import com.example.smsblaster.data.ContactImportResult
+import com.example.smsblaster.data.ContactImporter
+import com.example.smsblaster.data.PhoneNormalizer
 import com.example.smsblaster.data.model.Contact
+import com.example.smsblaster.data.model.ContactTag
+import com.example.smsblaster.data.model.TagCount
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
@@ -14,24 +23,34 @@ import android.net.Uri
 
 @OptIn(ExperimentalCoroutinesApi::class)
 class ContactViewModel(application: Application) : AndroidViewModel(application) {
-    private val contactDao = AppDatabase.getDatabase(application).contactDao()
+    companion object {
+        private const val TAG = "ContactViewModel"
+    }
+    
+    private val db = AppDatabase.getDatabase(application)
+    private val contactDao = db.contactDao()
     
     private val _searchQuery = MutableStateFlow("")
     val searchQuery: StateFlow<String> = _searchQuery.asStateFlow()
     
-    val contacts: StateFlow<List<Contact>> = _searchQuery
-        .flatMapLatest { query ->
-            if (query.isBlank()) {
-                contactDao.getAllContacts()
-            } else {
-                contactDao.searchContacts("%$query%")
-            }
-        }
+    // Tag chips on the contacts screen; a contact matches if it has any of them
+    private val _tagFilter = MutableStateFlow<Set<String>>(emptySet())
+    val tagFilter: StateFlow<Set<String>> = _tagFilter.asStateFlow()
+    
+    val contacts: StateFlow<List<Contact>> = combine(_searchQuery, _tagFilter) { query, tags -> query to tags }
+        .flatMapLatest { (query, tags) -> contactsMatching(query, tags) }
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), emptyList())
+    
+    val tagCounts: StateFlow<List<TagCount>> = contactDao.getTagCounts()
         .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), emptyList())
     
     val contactCount: StateFlow<Int> = contactDao.getContactCount()
         .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), 0)
     
+    // Non-null while a CSV import is running
+    private val _importProgress = MutableStateFlow<ContactImportProgress?>(null)
+    val importProgress: StateFlow<ContactImportProgress?> = _importProgress.asStateFlow()
+    
     private val _selectedContactIds = MutableStateFlow<Set<Long>>(emptySet())
     val selectedContactIds: StateFlow<Set<Long>> = _selectedContactIds.asStateFlow()
     
@@ -39,6 +58,25 @@ class ContactViewModel(application: Application) : AndroidViewModel(application)
         _searchQuery.value = query
     }
     
+    fun toggleTagFilter(tag: String) {
+        _tagFilter.update { if (tag in it) it - tag else it + tag }
+    }
+    
+    fun clearTagFilter() {
+        _tagFilter.value = emptySet()
+    }
+    
+    /**
+     * Search and tag filtering done by SQLite, with each contact's tags attached.
+     * Also backs the recipient pickers, which keep their own query and tags.
+     */
+    fun contactsMatching(query: String, tags: Set<String>): Flow<List<Contact>> =
+        contactDao.getContactsWithTags(
+            pattern = query.takeIf { it.isNotBlank() }?.let { "%$it%" },
+            tags = tags.toList(),
+            filterByTags = tags.isNotEmpty()
+        ).map { rows -> rows.map { it.toContact() } }
+    
     fun addContact(
         name: String,
         phone: String,
@@ -46,22 +84,64 @@ class ContactViewModel(application: Application) : AndroidViewModel(application)
         tags: List<String> = emptyList()
     ) {
         viewModelScope.launch {
-            val contact = Contact(
-                name = name,
-                phone = phone,
-                customKeys = customKeys,
-                tags = tags
-            )
-            contactDao.insertContact(contact)
+            val normalizedPhone = PhoneNormalizer.normalize(phone) ?: phone.trim()
+            
+            // Phones are unique; adding a known number updates that contact instead of replacing it
+            db.withTransaction {
+                val existing = contactDao.getContactByPhone(normalizedPhone)
+                val contactId = if (existing != null) {
+                    contactDao.updateContact(
+                        existing.copy(
+                            name = name,
+                            customKeys = existing.customKeys + customKeys,
+                            updatedAt = System.currentTimeMillis()
+                        )
+                    )
+                    existing.id
+                } else {
+                    contactDao.insertContact(
+                        Contact(
+                            name = name,
+                            phone = normalizedPhone,
+                            customKeys = customKeys
+                        )
+                    )
+                }
+                // Existing tags are kept; duplicates are ignored by the (contactId, tag) key
+                contactDao.insertContactTags(tagRows(contactId, tags))
+            }
         }
     }
     
-    fun updateContact(contact: Contact) {
+    // [onError] gets a message for the user when the change was not saved
+    fun updateContact(contact: Contact, onError: (String) -> Unit) {
         viewModelScope.launch {
-            contactDao.updateContact(contact.copy(updatedAt = System.currentTimeMillis()))
+            val normalizedPhone = PhoneNormalizer.normalize(contact.phone) ?: contact.phone.trim()
+            try {
+                db.withTransaction {
+                    contactDao.updateContact(
+                        contact.copy(
+                            phone = normalizedPhone,
+                            updatedAt = System.currentTimeMillis()
+                        )
+                    )
+                    contactDao.deleteTagsForContact(contact.id)
+                    contactDao.insertContactTags(tagRows(contact.id, contact.tags))
+                }
+            } catch (e: SQLiteConstraintException) {
+                Log.w(TAG, "Phone $normalizedPhone already belongs to another contact", e)
+                val owner = contactDao.getContactByPhone(normalizedPhone)?.name
+                onError(
+                    if (owner != null) "$normalizedPhone already belongs to $owner"
+                    else "$normalizedPhone already belongs to another contact"
+                )
+            }
         }
     }
     
+    private fun tagRows(contactId: Long, tags: List<String>): List<ContactTag> =
+        tags.map { it.trim() }.filter { it.isNotEmpty() }.distinct().map { ContactTag(contactId, it) }
+    
     fun deleteContact(contact: Contact) {
         viewModelScope.launch {
             contactDao.deleteContact(contact)
@@ -97,52 +177,34 @@ class ContactViewModel(application: Application) : AndroidViewModel(application)
         return contactDao.getContactsByIds(ids)
     }
 
-    fun importContacts(uri: Uri, onResult: (Int, String?) -> Unit) {
+    fun importContacts(uri: Uri, onResult: (ContactImportResult?, String?) -> Unit) {
+        if (_importProgress.value != null) return
+        _importProgress.value = ContactImportProgress(0, 0, 0, 0, null)
+        
         viewModelScope.launch(Dispatchers.IO) {
             try {
-                val inputStream = getApplication<Application>().contentResolver.openInputStream(uri)
-                val reader = inputStream?.bufferedReader()
-                val contactsToImport = mutableListOf<Contact>()
+                val resolver = getApplication<Application>().contentResolver
+                val totalBytes = resolver.openAssetFileDescriptor(uri, "r")?.use { it.length } ?: -1L
+                val input = resolver.openInputStream(uri)
+                    ?: throw IllegalStateException("Cannot open $uri")
                 
-                reader?.useLines { lines ->
-                    lines.forEachIndexed { index, line ->
-                        if (line.isBlank()) return@forEachIndexed
-                        
-                        // Try to handle simple comma-separated values
-                        val parts = line.split(",").map { it.trim().removeSurrounding("\"") }
-                        
-                        if (index == 0 && parts.any { it.equals("name", ignoreCase = true) || it.equals("phone", ignoreCase = true) }) {
-                            // This looks like a header line, skip it
-                            return@forEachIndexed
-                        }
-                        
-                        if (parts.size >= 2) {
-                            val name = parts[0]
-                            val phone = parts[1]
-                            
-                            if (name.isNotEmpty() && phone.isNotEmpty()) {
-                                contactsToImport.add(
-                                    Contact(
-                                        name = name,
-                                        phone = phone
-                                    )
-                                )
-                            }
-                        }
+                val result = input.use {
+                    ContactImporter(db).import(it, totalBytes) { progress ->
+                        _importProgress.value = progress
                     }
                 }
-                
-                if (contactsToImport.isNotEmpty()) {
-                    contactDao.insertContacts(contactsToImport)
-                }
+                Log.d(TAG, "Import finished: $result")
                 
                 withContext(Dispatchers.Main) {
-                    onResult(contactsToImport.size, null)
+                    onResult(result, null)
                 }
             } catch (e: Exception) {
+                Log.e(TAG, "Import failed", e)
                 withContext(Dispatchers.Main) {
-                    onResult(0, e.message ?: "Unknown error during import")
+                    onResult(null, e.message ?: "Unknown error during import")
                 }
+            } finally {
+                _importProgress.value = null
             }
         }
     }
@@ -0,0 +1,53 @@
+package com.example.smsblaster.data
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class PhoneNormalizerTest {
+
+    @Test
+    fun dropsFormattingCharacters() {
+        assertEquals("+919812345678", PhoneNormalizer.normalize("+91 98123-45678"))
+        assertEquals("02012345678", PhoneNormalizer.normalize("(020) 1234.5678"))
+        assertEquals("5551234567", PhoneNormalizer.normalize(" 555/123\t4567 "))
+        assertEquals("+919812345678", PhoneNormalizer.normalize("+91\u00A098123\u00A045678"))
+    }
+
+    @Test
+    fun leadingDoubleZeroBecomesPlus() {
+        assertEquals("+919812345678", PhoneNormalizer.normalize("0091 98123 45678"))
+        assertEquals("+4930123456", PhoneNormalizer.normalize("00 49 30 123456"))
+        // Only at the start, and not after an explicit +
+        assertEquals("9100812345", PhoneNormalizer.normalize("9100812345"))
+        assertEquals("+0091234567", PhoneNormalizer.normalize("+0091234567"))
+    }
+
+    @Test
+    fun noCountryCodeIsInferred() {
+        assertNotEquals(PhoneNormalizer.normalize("9812345678"), PhoneNormalizer.normalize("+91 9812345678"))
+    }
+
+    @Test
+    fun digitCountMustBeFiveToFifteen() {
+        assertEquals("12345", PhoneNormalizer.normalize("12345"))
+        assertNull(PhoneNormalizer.normalize("1234"))
+        assertEquals("123456789012345", PhoneNormalizer.normalize("123456789012345"))
+        assertNull(PhoneNormalizer.normalize("1234567890123456"))
+        assertEquals("+123456789012345", PhoneNormalizer.normalize("+123456789012345"))
+        assertNull(PhoneNormalizer.normalize("+1234567890123456"))
+        // The 00 prefix is not counted
+        assertEquals("+123456789012345", PhoneNormalizer.normalize("00123456789012345"))
+        assertNull(PhoneNormalizer.normalize("001234"))
+    }
+
+    @Test
+    fun rejectsAnythingThatIsNotAPhoneNumber() {
+        assertNull(PhoneNormalizer.normalize(""))
+        assertNull(PhoneNormalizer.normalize("   "))
+        assertNull(PhoneNormalizer.normalize("555-CALL-NOW"))
+        assertNull(PhoneNormalizer.normalize("5551234567 ext 12"))
+        assertNull(PhoneNormalizer.normalize("5551234567#12"))
+        assertNull(PhoneNormalizer.normalize("91+9812345678"))
+        assertNull(PhoneNormalizer.normalize("++919812345678"))
+    }
+}
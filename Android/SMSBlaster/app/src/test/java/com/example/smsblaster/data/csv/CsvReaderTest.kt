@@ -0,0 +1,84 @@
+package com.example.smsblaster.data.csv
+
+import org.junit.Assert.*
+import org.junit.Test
+import java.io.Reader
+import java.io.StringReader
+
+class CsvReaderTest {
+
+    private fun records(text: String, delimiter: Char = ','): List<List<String>> =
+        CsvReader(StringReader(text), delimiter).use { reader -> generateSequence { reader.readRecord() }.toList() }
+
+    @Test
+    fun splitsFieldsAndRecords() {
+        assertEquals(
+            listOf(listOf("name", "phone"), listOf("Asha", "+919812345678"), listOf("", "")),
+            records("name,phone\nAsha,+919812345678\n,\n")
+        )
+        assertEquals(listOf(listOf("a", "b")), records("a,b"))
+        assertEquals(emptyList<List<String>>(), records(""))
+    }
+
+    @Test
+    fun quotedFieldsKeepDelimitersAndLineBreaks() {
+        assertEquals(
+            listOf(listOf("Rao, Asha", "line one\nline two\r\nline three", "x")),
+            records("\"Rao, Asha\",\"line one\nline two\r\nline three\",x\n")
+        )
+    }
+
+    @Test
+    fun doubledQuotesAreEscapes() {
+        assertEquals(
+            listOf(listOf("say \"hi\"", "\"", "")),
+            records("\"say \"\"hi\"\"\",\"\"\"\",\"\"")
+        )
+    }
+
+    @Test
+    fun quoteInsideUnquotedFieldIsText() {
+        assertEquals(listOf(listOf("5'11\"", "ab\"c\"")), records("5'11\",ab\"c\""))
+    }
+
+    @Test
+    fun unterminatedQuoteRunsToEndOfInput() {
+        assertEquals(listOf(listOf("a", "b,c\nd")), records("a,\"b,c\nd"))
+    }
+
+    @Test
+    fun acceptsCrLfLfAndCrRecordEnds() {
+        val expected = listOf(listOf("a", "1"), listOf("b", "2"), listOf("c", "3"), listOf("d", "4"))
+
+        assertEquals(expected, records("a,1\r\nb,2\nc,3\rd,4\r\n"))
+        assertEquals(expected, records("a,1\rb,2\rc,3\rd,4"))
+        // A blank line is one empty field
+        assertEquals(listOf(listOf("a"), listOf(""), listOf("b")), records("a\r\n\r\nb\r\n"))
+    }
+
+    @Test
+    fun dropsLeadingBomOnly() {
+        assertEquals(listOf(listOf("name", "x\uFEFF")), records("\uFEFFname,x\uFEFF"))
+        assertEquals(emptyList<List<String>>(), records("\uFEFF"))
+    }
+
+    @Test
+    fun usesTheGivenDelimiter() {
+        assertEquals(listOf(listOf("a,b", "c"), listOf("d", "e;f")), records("a,b;c\nd;\"e;f\"", delimiter = ';'))
+    }
+
+    @Test
+    fun recordsSpanningBufferRefillsAreIntact() {
+        val long = "x".repeat(20_000)
+        // One char per read() call, so every quote and CRLF decision crosses a refill
+        val trickle = object : Reader() {
+            private val source = StringReader("\"$long\"\"\",b\r\nc,d")
+            override fun read(cbuf: CharArray, off: Int, len: Int) = source.read(cbuf, off, minOf(len, 1))
+            override fun close() = source.close()
+        }
+
+        val parsed = CsvReader(trickle).use { reader -> generateSequence { reader.readRecord() }.toList() }
+
+        assertEquals(listOf(listOf("$long\"", "b"), listOf("c", "d")), parsed)
+    }
+}
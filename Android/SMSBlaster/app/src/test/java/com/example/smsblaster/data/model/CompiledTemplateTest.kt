@@ -0,0 +1,101 @@
+package com.example.smsblaster.data.model
+
+import com.example.smsblaster.sms.SmsEncoding
+import org.junit.Assert.*
+import org.junit.Test
+
+class CompiledTemplateTest {
+
+    private val asha = Contact(
+        id = 1,
+        name = "Asha",
+        phone = "+919812345678",
+        customKeys = mapOf("City" to "Pune", "plan" to "Premium [annual]")
+    )
+
+    private fun render(template: String, contact: Contact = asha) = CompiledTemplate.compile(template).render(contact)
+
+    @Test
+    fun resolvesContactFieldsAndCustomKeysIgnoringCase() {
+        assertEquals(
+            "Hi Asha (+919812345678), welcome to Pune",
+            render("Hi {NAME} ({Phone}), welcome to {city}").text
+        )
+        assertEquals(listOf("NAME", "Phone", "city"), CompiledTemplate.compile("Hi {NAME} ({Phone}), welcome to {city}").placeholders)
+    }
+
+    @Test
+    fun unknownAndMalformedPlaceholdersStayAsWritten() {
+        assertEquals("{unknown} {} { name} {name", render("{unknown} {} { name} {name").text)
+        assertEquals("no placeholders", render("no placeholders").text)
+        assertEquals("", render("").text)
+    }
+
+    @Test
+    fun doubleBracesWrapTheValue() {
+        assertEquals("{Asha}", render("{{name}}").text)
+        assertEquals("{aAsha", render("{a{name}").text)
+    }
+
+    @Test
+    fun valuesAreInsertedLiterally() {
+        // The former regex replace read these as group references and escapes
+        val contact = asha.copy(name = "C\$1 \\o/ \$0", customKeys = mapOf("price" to "\$5\\month"))
+
+        assertEquals("Dear C\$1 \\o/ \$0, pay \$5\\month", render("Dear {name}, pay {price}", contact).text)
+    }
+
+    @Test
+    fun valuesAreNotScannedForPlaceholders() {
+        val contact = asha.copy(name = "{phone}", customKeys = mapOf("note" to "{name}"))
+
+        assertEquals("{phone} / {name}", render("{name} / {note}", contact).text)
+    }
+
+    @Test
+    fun firstMatchingCustomKeyWins() {
+        val contact = asha.copy(customKeys = linkedMapOf("Code" to "A1", "code" to "B2"))
+
+        assertEquals("A1", render("{CODE}", contact).text)
+    }
+
+    @Test
+    fun segmentsMatchCountingTheRenderedText() {
+        val templates = listOf(
+            "Hi {name}, your {plan} plan for {phone} renews soon. Visit our {city} store.",
+            "{{name}} ~ {city} | € {plan} ^ \\ {missing}",
+            "Ciao {name}! " + "x".repeat(150),
+            "Привет, {name}",
+            "{name}"
+        )
+        val values = listOf("Asha", "Zoë", "María", "Chen Wei", "Jürgen", "São Paulo", "Москва", "[x]{y}", "€€", "😀", "ç", "Ç", "")
+        for (template in templates) {
+            val compiled = CompiledTemplate.compile(template)
+            for (name in values) {
+                for (city in values) {
+                    val contact = asha.copy(name = name, customKeys = mapOf("city" to city, "plan" to "Premium [annual]"))
+                    val rendered = compiled.render(contact)
+                    assertEquals("$template / $name / $city", SmsEncoding.count(rendered.text), rendered.segments)
+                }
+            }
+        }
+    }
+
+    @Test
+    fun extensionCharactersInValuesCostTwoSeptets() {
+        val rendered = render("Plan: {plan}")
+
+        assertEquals("Plan: Premium [annual]", rendered.text)
+        assertFalse(rendered.segments.isUnicode)
+        assertEquals(rendered.text.length + 2, rendered.segments.length)
+    }
+
+    @Test
+    fun nonGsmValueSwitchesTheWholeMessageToUcs2() {
+        val rendered = render("Hello {name}, " + "x".repeat(60), asha.copy(name = "Zoë ç"))
+
+        assertTrue(rendered.segments.isUnicode)
+        assertEquals(rendered.text.length, rendered.segments.length)
+        assertEquals(2, rendered.segments.segments)
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.smsblaster.sms
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class SmsEncodingTest {
+
+    @Test
+    fun gsmMessagesSplitAt160Then153Septets() {
+        assertEquals(SmsSegments(isUnicode = false, length = 160, segments = 1), SmsEncoding.count("a".repeat(160)))
+        assertEquals(2, SmsEncoding.count("a".repeat(161)).segments)
+        assertEquals(2, SmsEncoding.count("a".repeat(306)).segments)
+        assertEquals(3, SmsEncoding.count("a".repeat(307)).segments)
+        assertEquals(SmsSegments(isUnicode = false, length = 0, segments = 1), SmsEncoding.count(""))
+    }
+
+    @Test
+    fun ucs2MessagesSplitAt70Then67Units() {
+        assertEquals(SmsSegments(isUnicode = true, length = 70, segments = 1), SmsEncoding.count("ж".repeat(70)))
+        assertEquals(2, SmsEncoding.count("ж".repeat(71)).segments)
+        assertEquals(2, SmsEncoding.count("ж".repeat(134)).segments)
+        assertEquals(3, SmsEncoding.count("ж".repeat(135)).segments)
+    }
+
+    @Test
+    fun extensionTableCharactersTakeTwoSeptets() {
+        for (c in "\u000C^{}\\[~]|€") {
+            assertEquals("$c", 2, SmsEncoding.gsmCost(c))
+        }
+        assertEquals(SmsSegments(isUnicode = false, length = 160, segments = 1), SmsEncoding.count("[".repeat(80)))
+        assertEquals(SmsSegments(isUnicode = false, length = 162, segments = 2), SmsEncoding.count("€".repeat(81)))
+    }
+
+    @Test
+    fun defaultAlphabetOutsideAsciiTakesOneSeptet() {
+        assertEquals(12, SmsEncoding.gsmLength("£¥èéÇØÅΔΣÆß¿"))
+        assertEquals(3, SmsEncoding.gsmLength("a\nb"))
+        assertEquals(1, SmsEncoding.gsmCost('\r'))
+        assertEquals(1, SmsEncoding.gsmCost('$'))
+        assertEquals(1, SmsEncoding.gsmCost('@'))
+    }
+
+    @Test
+    fun oneCharacterOutsideGsmMakesTheMessageUcs2() {
+        // Upper-case Ç is in the default alphabet, lower-case ç is not
+        assertEquals(0, SmsEncoding.gsmCost('ç'))
+        assertEquals(-1, SmsEncoding.gsmLength("Français"))
+        assertEquals(0, SmsEncoding.gsmCost('`'))
+
+        val text = "a".repeat(69) + "ç"
+        assertEquals(SmsSegments(isUnicode = true, length = 70, segments = 1), SmsEncoding.count(text))
+        assertEquals(2, SmsEncoding.count(text + "a").segments)
+    }
+
+    @Test
+    fun surrogatePairsCountAsTwoUnits() {
+        val count = SmsEncoding.count("😀".repeat(35))
+
+        assertTrue(count.isUnicode)
+        assertEquals(70, count.length)
+        assertEquals(1, count.segments)
+        assertEquals(2, SmsEncoding.count("😀".repeat(36)).segments)
+    }
+}
@@ -786,6 +786,124 @@ if ($action === "fetch_updates") {
     ], 200, "Updates retrieved");
 }
 
+/* =====================================================
+   6️⃣b FETCH UPDATES PAGE (Paginated delta sync)
+   Same window as fetch_updates, served in pages of at most
+   `limit` rows: calls first, then persons. The opaque cursor
+   carries the window and the last (updated_at, id) returned,
+   so the app can resume after an interruption.
+===================================================== */
+if ($action === "fetch_updates_page") {
+    $org_id = trim($_POST['org_id'] ?? '');
+    $user_id = trim($_POST['user_id'] ?? '');
+    $last_sync = max(0, intval($_POST['last_sync_time'] ?? 0));
+    $cursor_raw = trim($_POST['cursor'] ?? '');
+    $limit = intval($_POST['limit'] ?? 500);
+    if ($limit < 1 || $limit > 1000) $limit = 500;
+
+    if ($org_id === '') errorOut("org_id required");
+
+    if ($cursor_raw === '') {
+        // First page: fix the window. The current second is left out so rows written
+        // while we page are picked up by the next window instead of being skipped.
+        $since = intdiv($last_sync, 1000);
+        $cursor = ["o" => $org_id, "p" => "calls", "s" => $since, "u" => time() - 1, "t" => $since, "i" => PHP_INT_MAX];
+
+        if ($user_id !== '') {
+            $updSync = $conn->prepare("UPDATE employees SET last_sync = NOW() WHERE id = ? AND org_id = ?");
+            if (!$updSync) errorOut("DB Error (Fetch Updates Sync): " . $conn->error, 500);
+            $updSync->bind_param("is", $user_id, $org_id);
+            $updSync->execute();
+        }
+    } else {
+        $cursor = json_decode(base64_decode($cursor_raw, true) ?: '', true);
+        if (!is_array($cursor) || ($cursor['o'] ?? null) !== $org_id
+            || !in_array($cursor['p'] ?? null, ["calls", "persons"], true)
+            || !isset($cursor['s'], $cursor['u'], $cursor['t'], $cursor['i'])) {
+            errorOut("Invalid cursor");
+        }
+    }
+    $upper = (int)$cursor['u'];
+
+    // Keyset on (updated_at, id); served by the (org_id, updated_at, id) index
+    $keyset = "org_id = ? AND updated_at <= FROM_UNIXTIME(?)
+               AND (updated_at > FROM_UNIXTIME(?) OR (updated_at = FROM_UNIXTIME(?) AND id > ?))
+               ORDER BY updated_at, id LIMIT ?";
+
+    $call_updates = [];
+    $person_updates = [];
+    $last = null;
+
+    if ($cursor['p'] === "calls") {
+        $stmt = $conn->prepare("
+            SELECT id, unique_id, note, reviewed, caller_name,
+                   UNIX_TIMESTAMP(updated_at) as updated_sec
+            FROM call_log
+            WHERE $keyset
+        ");
+        if (!$stmt) errorOut("DB Error (Fetch Updates Page): " . $conn->error, 500);
+        $stmt->bind_param("siiiii", $org_id, $upper, $cursor['t'], $cursor['t'], $cursor['i'], $limit);
+        $stmt->execute();
+        $res = $stmt->get_result();
+        while ($row = $res->fetch_assoc()) {
+            $call_updates[] = [
+                "unique_id" => $row['unique_id'],
+                "note" => $row['note'],
+                "reviewed" => (int)$row['reviewed'],
+                "caller_name" => $row['caller_name'],
+                "updated_at" => (int)$row['updated_sec'] * 1000
+            ];
+            $last = $row;
+        }
+        $count = count($call_updates);
+    } else {
+        $stmt = $conn->prepare("
+            SELECT id, phone, name, notes as person_note, label,
+                   UNIX_TIMESTAMP(updated_at) as updated_sec
+            FROM call_log_phones
+            WHERE $keyset
+        ");
+        if (!$stmt) errorOut("DB Error (Fetch Updates Page): " . $conn->error, 500);
+        $stmt->bind_param("siiiii", $org_id, $upper, $cursor['t'], $cursor['t'], $cursor['i'], $limit);
+        $stmt->execute();
+        $res = $stmt->get_result();
+        while ($row = $res->fetch_assoc()) {
+            $person_updates[] = [
+                "phone" => $row['phone'],
+                "name" => $row['name'],
+                "person_note" => $row['person_note'],
+                "label" => $row['label'],
+                "updated_at" => (int)$row['updated_sec'] * 1000
+            ];
+            $last = $row;
+        }
+        $count = count($person_updates);
+    }
+
+    if ($count === $limit) {
+        // Full page: continue after the last row in this phase
+        $cursor['t'] = (int)$last['updated_sec'];
+        $cursor['i'] = (int)$last['id'];
+    } elseif ($cursor['p'] === "calls") {
+        // Calls exhausted: start persons from the beginning of the window
+        $cursor['p'] = "persons";
+        $cursor['t'] = (int)$cursor['s'];
+        $cursor['i'] = PHP_INT_MAX;
+    } else {
+        $cursor = null;
+    }
+    $next_cursor = $cursor === null ? null : base64_encode(json_encode($cursor));
+
+    // Compress the page when the client accepts it (OkHttp always does)
+    if (!ini_get('zlib.output_compression')) ob_start('ob_gzhandler');
+    out([
+        "call_updates" => $call_updates,
+        "person_updates" => $person_updates,
+        "next_cursor" => $next_cursor,
+        "server_time" => $upper * 1000
+    ], 200, "Updates retrieved");
+}
+
 /* =====================================================
    7️⃣ UPDATE CALL (App pushes call metadata changes)
    Updates reviewed, note, caller_name with conflict resolution
@@ -852,6 +970,53 @@ if ($action === "update_call") {
     }
 }
 
+/* =====================================================
+   7️⃣b UPDATE CALLS (Batched form of update_call)
+   calls_json: [{unique_id, reviewed, note, caller_name, updated_at}, ...]
+   Null fields are left unchanged
+===================================================== */
+if ($action === "update_calls") {
+    $calls = json_decode($_POST['calls_json'] ?? '[]', true);
+    if (!is_array($calls)) errorOut("Invalid calls_json");
+    if (count($calls) > 500) errorOut("Too many calls in one request (max 500)");
+
+    $stmt = $conn->prepare("
+        UPDATE call_log SET
+            reviewed = COALESCE(?, reviewed),
+            note = COALESCE(?, note),
+            caller_name = COALESCE(?, caller_name),
+            updated_at = NOW()
+        WHERE unique_id = ?
+    ");
+
+    $updated_ids = [];
+    $failed = [];
+
+    $conn->begin_transaction();
+    foreach ($calls as $call) {
+        $unique_id = trim($call['unique_id'] ?? '');
+        if ($unique_id === '') continue;
+
+        $reviewed = isset($call['reviewed']) ? ($call['reviewed'] ? 1 : 0) : null;
+        $note = $call['note'] ?? null;
+        $caller_name = $call['caller_name'] ?? null;
+
+        $stmt->bind_param("isss", $reviewed, $note, $caller_name, $unique_id);
+        if ($stmt->execute()) {
+            $updated_ids[] = $unique_id;
+        } else {
+            $failed[$unique_id] = $stmt->error;
+        }
+    }
+    $conn->commit();
+
+    out([
+        "updated_ids" => $updated_ids,
+        "failed" => (object)$failed,
+        "server_time" => time() * 1000
+    ], 200, "Calls updated");
+}
+
 /* =====================================================
    8️⃣ UPDATE PERSON (App pushes person metadata changes)
    Updates person_note, label, name in contacts table
@@ -0,0 +1,9 @@
+-- =====================================================
+-- MIGRATION: Index for paginated delta sync (fetch_updates_page)
+-- =====================================================
+
+-- fetch_updates_page walks call_log per org in (updated_at, id) order.
+-- idx_sync has employee_id between org_id and updated_at, so it cannot serve
+-- that range; InnoDB appends the primary key (id) to this index, which covers
+-- the tie-break. call_log_phones already has idx_sync_pull.
+CREATE INDEX IF NOT EXISTS idx_sync_pull ON call_log(org_id, updated_at);
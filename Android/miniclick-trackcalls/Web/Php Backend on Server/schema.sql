@@ -53,7 +53,8 @@ CREATE TABLE IF NOT EXISTS call_log (
     ),
     INDEX idx_lookup (caller_phone, call_time),
     INDEX idx_org_time (org_id, call_time),
-    INDEX idx_reviewed (org_id, reviewed)
+    INDEX idx_reviewed (org_id, reviewed),
+    INDEX idx_sync_pull (org_id, updated_at)
 ) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci;
 
 -- ============================================================
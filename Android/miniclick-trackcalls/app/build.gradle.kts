@@ -20,6 +20,9 @@ android {
         versionName = "Fixes"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+        // Microbenchmarks in androidTest run in the debuggable test APK; numbers are only
+        // compared against baselines taken the same way (see docs/PERFORMANCE_BENCHMARKS.md)
+        testInstrumentationRunnerArguments["androidx.benchmark.suppressErrors"] = "DEBUGGABLE,EMULATOR"
     }
 
     buildTypes {
@@ -31,6 +34,13 @@ android {
                 "proguard-rules.pro"
             )
         }
+        // Release-like build the :macrobenchmark module installs and measures
+        create("benchmark") {
+            initWith(getByName("release"))
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+            isDebuggable = false
+        }
     }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
@@ -39,6 +49,13 @@ android {
     kotlinOptions {
         jvmTarget = "11"
     }
+    sourceSets {
+        // Reference implementations used by both the JVM tests and the androidTest benchmarks
+        getByName("test").java.srcDir("src/sharedTest/java")
+        getByName("androidTest").java.srcDir("src/sharedTest/java")
+        // Exported Room schemas, read by MigrationTestHelper
+        getByName("androidTest").assets.srcDir("$projectDir/schemas")
+    }
     buildFeatures {
         compose = true
         buildConfig = true  // Enable BuildConfig generation for DEBUG flag access
@@ -55,6 +72,11 @@ hilt {
     enableAggregatingTask = false
 }
 
+ksp {
+    // Room writes app/schemas/<version>.json on every build
+    arg("room.schemaLocation", "$projectDir/schemas")
+}
+
 dependencies {
     implementation(libs.androidx.core.splashscreen)
     implementation(libs.androidx.core.ktx)
@@ -66,10 +88,13 @@ dependencies {
     implementation(libs.androidx.ui.tooling.preview)
     implementation(libs.androidx.material3)
     testImplementation(libs.junit)
+    testImplementation(libs.okhttp.mockwebserver)
     androidTestImplementation(libs.androidx.junit)
     androidTestImplementation(libs.androidx.espresso.core)
     androidTestImplementation(platform(libs.androidx.compose.bom))
     androidTestImplementation(libs.androidx.ui.test.junit4)
+    androidTestImplementation(libs.androidx.benchmark.junit4)
+    androidTestImplementation(libs.room.testing)
     debugImplementation(libs.androidx.ui.tooling)
     debugImplementation(libs.androidx.ui.test.manifest)
     implementation(libs.androidx.material.icons.extended)
@@ -86,8 +111,13 @@ dependencies {
     // Room Database
     implementation(libs.room.runtime)
     implementation(libs.room.ktx)
+    implementation(libs.room.paging)
     ksp(libs.room.compiler)
 
+    // Paging
+    implementation(libs.androidx.paging.runtime)
+    implementation(libs.androidx.paging.compose)
+
     // Audio Compression - Using MediaCodec (FFmpeg-Kit has been retired)
     // implementation(libs.ffmpeg.kit)
 
@@ -101,4 +131,7 @@ dependencies {
     ksp(libs.hilt.compiler)
     implementation(libs.hilt.navigation.compose)
     implementation(libs.androidx.datastore.preferences)
+
+    // Lets macrobenchmark compile the benchmark build with baseline profiles
+    implementation(libs.androidx.profileinstaller)
 }
\ No newline at end of file
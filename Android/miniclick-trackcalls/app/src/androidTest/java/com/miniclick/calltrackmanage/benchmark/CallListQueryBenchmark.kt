@@ -0,0 +1,91 @@
+package com.miniclick.calltrackmanage.benchmark
+
+import android.content.Context
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.paging.PagingSource
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import com.miniclick.calltrackmanage.data.CallDataRepository
+import com.miniclick.calltrackmanage.data.db.AppDatabase
+import com.miniclick.calltrackmanage.data.db.SearchIndex
+import com.miniclick.calltrackmanage.ui.home.viewmodel.CallListQueryBuilder
+import com.miniclick.calltrackmanage.ui.home.viewmodel.CallTabFilter
+import com.miniclick.calltrackmanage.ui.home.viewmodel.DateRange
+import com.miniclick.calltrackmanage.ui.home.viewmodel.HomeUiState
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * First page of a Calls tab on a year of data (20k calls over 3k numbers):
+ * CallListQueryBuilder.build plus the initial load of the Room PagingSource,
+ * which is what the screen waits for after a filter or tab change.
+ */
+@RunWith(AndroidJUnit4::class)
+class CallListQueryBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+    private val normalize = CallDataRepository.getInstance(context)::normalizePhoneNumber
+    private lateinit var database: AppDatabase
+
+    @Before
+    fun setUp() = runBlocking {
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase::class.java)
+            .addCallback(object : RoomDatabase.Callback() {
+                override fun onOpen(db: SupportSQLiteDatabase) {
+                    SearchIndex.onOpen(db)
+                }
+            })
+            .build()
+
+        // Stored calls carry the normalized number, as after an import
+        val numbers = SyntheticData.phoneNumbers(3_000)
+        val calls = SyntheticData.calls(20_000, numbers).map { it.copy(phoneNumber = normalize(it.phoneNumber)) }
+        database.callDataDao().insertAll(calls)
+        database.personDataDao().insertAll(SyntheticData.persons(numbers, normalize))
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    @Test
+    fun allCallsFirstPage20k() = measureFirstPage(HomeUiState(dateRange = DateRange.ALL), CallTabFilter.ALL)
+
+    @Test
+    fun notAnsweredLast30DaysFirstPage20k() =
+        measureFirstPage(HomeUiState(dateRange = DateRange.LAST_30_DAYS), CallTabFilter.NOT_ANSWERED)
+
+    @Test
+    fun searchFirstPage20k() =
+        measureFirstPage(HomeUiState(dateRange = DateRange.ALL, searchQuery = "follow"), CallTabFilter.ALL)
+
+    private fun measureFirstPage(state: HomeUiState, tab: CallTabFilter) {
+        val dao = database.callDataDao()
+        val params = PagingSource.LoadParams.Refresh<Int>(key = null, loadSize = PAGE_SIZE * 3, placeholdersEnabled = false)
+        benchmarkRule.measureRepeated {
+            val query = CallListQueryBuilder.build(state, tab, targetSubId = null)
+            val result = runBlocking { dao.getCallsPagingSource(query.toPagedQuery()).load(params) }
+            runWithTimingDisabled {
+                assertTrue(result is PagingSource.LoadResult.Page && result.data.isNotEmpty())
+            }
+        }
+    }
+
+    companion object {
+        // CallDataRepository pages by 50 rows; Paging's first load is three pages
+        private const val PAGE_SIZE = 50
+    }
+}
@@ -0,0 +1,93 @@
+package com.miniclick.calltrackmanage.benchmark
+
+import android.Manifest
+import android.content.ContentValues
+import android.content.Context
+import android.provider.CallLog
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import com.miniclick.calltrackmanage.data.CallDataRepository
+import com.miniclick.calltrackmanage.data.SettingsRepository
+import com.miniclick.calltrackmanage.data.db.AppDatabase
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Full import of the system call log into Room.
+ *
+ * Seeds [SEED_ROWS] synthetic rows into the device call log (all under
+ * SyntheticData.NUMBER_PREFIX, removed again afterwards) and measures
+ * syncFromSystemCallLog from an empty database.
+ * Only run on a dedicated benchmark device: the app's local call data is cleared.
+ */
+@RunWith(AndroidJUnit4::class)
+class CallLogSyncBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val instrumentation = InstrumentationRegistry.getInstrumentation()
+    private val context: Context = instrumentation.targetContext
+    private val repository = CallDataRepository.getInstance(context)
+    private val settings = SettingsRepository.getInstance(context)
+    private val database = AppDatabase.getInstance(context)
+
+    @Before
+    fun setUp() {
+        listOf(Manifest.permission.READ_CALL_LOG, Manifest.permission.WRITE_CALL_LOG).forEach {
+            instrumentation.uiAutomation.grantRuntimePermission(context.packageName, it)
+        }
+        removeSeededRows()
+
+        val calls = SyntheticData.calls(SEED_ROWS, SyntheticData.phoneNumbers(2_000))
+        val rows = calls.map { call ->
+            ContentValues().apply {
+                put(CallLog.Calls.NUMBER, call.phoneNumber)
+                put(CallLog.Calls.TYPE, call.callType)
+                put(CallLog.Calls.DATE, call.callDate)
+                put(CallLog.Calls.DURATION, call.duration)
+                put(CallLog.Calls.NEW, 0)
+            }
+        }
+        rows.chunked(500).forEach { context.contentResolver.bulkInsert(CallLog.Calls.CONTENT_URI, it.toTypedArray()) }
+    }
+
+    @After
+    fun tearDown() {
+        removeSeededRows()
+        resetLocalData()
+    }
+
+    @Test
+    fun syncFromSystemCallLogFullImport() {
+        settings.setTrackStartDate(System.currentTimeMillis() - 400L * 24 * 60 * 60 * 1000)
+        benchmarkRule.measureRepeated {
+            runWithTimingDisabled { resetLocalData() }
+            runBlocking { repository.syncFromSystemCallLog() }
+        }
+    }
+
+    private fun resetLocalData() = runBlocking {
+        database.callDataDao().deleteAll()
+        database.personDataDao().deleteAll()
+        settings.setCallLogMaxId(0L)
+    }
+
+    private fun removeSeededRows() {
+        context.contentResolver.delete(
+            CallLog.Calls.CONTENT_URI,
+            "${CallLog.Calls.NUMBER} LIKE ? OR ${CallLog.Calls.NUMBER} LIKE ? OR ${CallLog.Calls.NUMBER} LIKE ? OR ${CallLog.Calls.NUMBER} LIKE ?",
+            arrayOf("${SyntheticData.NUMBER_PREFIX}%", "+1 555-010-%", "(555) 010-%", "1555010%")
+        )
+    }
+
+    companion object {
+        private const val SEED_ROWS = 10_000
+    }
+}
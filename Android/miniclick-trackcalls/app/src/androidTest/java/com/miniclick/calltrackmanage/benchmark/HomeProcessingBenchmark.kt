@@ -0,0 +1,46 @@
+package com.miniclick.calltrackmanage.benchmark
+
+import android.content.Context
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import com.miniclick.calltrackmanage.data.CallDataRepository
+import com.miniclick.calltrackmanage.ui.home.viewmodel.StatsManager
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * In-memory processing behind the Reports tab on a year of data
+ * (20k calls over 3k numbers). The report stats are also measured against the
+ * pre-ReportAggregator StatsManager ([LegacyStatsManager]). The legacy run also scans the
+ * logs for the last-7-days line, which now comes from the daily rollup query.
+ */
+@RunWith(AndroidJUnit4::class)
+class HomeProcessingBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+    private val callDataRepository = CallDataRepository.getInstance(context)
+
+    private val numbers = SyntheticData.phoneNumbers(3_000)
+    private val calls = SyntheticData.calls(20_000, numbers)
+    private val persons = SyntheticData.persons(numbers, callDataRepository::normalizePhoneNumber)
+
+    @Test
+    fun statsManagerReportStats20k() {
+        benchmarkRule.measureRepeated {
+            StatsManager.calculateReportStats(calls, persons, comparisonAverages = emptyMap())
+        }
+    }
+
+    @Test
+    fun statsManagerReportStats20kLegacy() {
+        benchmarkRule.measureRepeated {
+            LegacyStatsManager.calculateReportStats(calls, persons, calls)
+        }
+    }
+}
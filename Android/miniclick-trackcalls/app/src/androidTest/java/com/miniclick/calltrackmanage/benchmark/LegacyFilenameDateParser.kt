@@ -0,0 +1,118 @@
+package com.miniclick.calltrackmanage.benchmark
+
+/**
+ * RecordingRepository.extractDateFromFilename as it was before RecordingFilenameParser, kept as
+ * the comparison point for RecordingFilenameParserBenchmark.
+ */
+object LegacyFilenameDateParser {
+    private val PATTERN_ONEPLUS = java.util.regex.Pattern.compile("(\\d{10})")
+    private val PATTERN_STANDARD = java.util.regex.Pattern.compile("(\\d{8}[_\\-]\\d{6})")
+    // Samsung: "Call recording John_9876543210_2026-01-09" or "Record_9876543210_20260109"
+    private val PATTERN_SAMSUNG = java.util.regex.Pattern.compile("(\\d{4})[_\\-](\\d{2})[_\\-](\\d{2})[_\\-]?(\\d{2})[:\\-]?(\\d{2})[:\\-]?(\\d{2})?")
+    // Xiaomi: "Rec_9876543210_20260109_100500.mp3" or "{Number}({Name})_{Date}_{Time}.mp3"
+    private val PATTERN_XIAOMI = java.util.regex.Pattern.compile("(\\d{4})(\\d{2})(\\d{2})[_\\-](\\d{2})(\\d{2})(\\d{2})")
+    // Huawei: "{Number}_{Date}_{Time}.amr" format with dashes
+    private val PATTERN_HUAWEI = java.util.regex.Pattern.compile("(\\d{2})[\\-/](\\d{2})[\\-/](\\d{4})[_\\-](\\d{2})[:\\-](\\d{2})")
+    // Generic timestamp at start: 1736380200123.mp3 (Unix timestamp in ms)
+    private val PATTERN_UNIX_MS = java.util.regex.Pattern.compile("^(1[5-9]\\d{11})")
+    // Generic timestamp: 1736380200.mp3 (Unix timestamp in seconds)
+    private val PATTERN_UNIX_SEC = java.util.regex.Pattern.compile("^(1[5-9]\\d{8})")
+
+    fun parse(fileName: String): Long? {
+        try {
+            // Pattern 1: Unix timestamp in milliseconds (e.g., 1736380200123.mp3)
+            val matcherUnixMs = PATTERN_UNIX_MS.matcher(fileName)
+            if (matcherUnixMs.find()) {
+                val timestamp = matcherUnixMs.group(1)?.toLongOrNull()
+                if (timestamp != null && timestamp > 1500000000000L && timestamp < 2000000000000L) {
+                    return timestamp
+                }
+            }
+            
+            // Pattern 2: Unix timestamp in seconds (e.g., 1736380200.mp3)
+            val matcherUnixSec = PATTERN_UNIX_SEC.matcher(fileName)
+            if (matcherUnixSec.find()) {
+                val timestamp = matcherUnixSec.group(1)?.toLongOrNull()
+                if (timestamp != null && timestamp > 1500000000L && timestamp < 2000000000L) {
+                    return timestamp * 1000L
+                }
+            }
+            
+            // Pattern 3: Xiaomi format: yyyyMMdd_HHmmss (e.g., 20260109_100500)
+            val matcherXiaomi = PATTERN_XIAOMI.matcher(fileName)
+            if (matcherXiaomi.find()) {
+                val year = matcherXiaomi.group(1)
+                val month = matcherXiaomi.group(2)
+                val day = matcherXiaomi.group(3)
+                val hour = matcherXiaomi.group(4)
+                val minute = matcherXiaomi.group(5)
+                val second = matcherXiaomi.group(6)
+                if (year != null && month != null && day != null) {
+                    val dateStr = "$year$month$day${hour ?: "00"}${minute ?: "00"}${second ?: "00"}"
+                    val sdf = java.text.SimpleDateFormat("yyyyMMddHHmmss", java.util.Locale.getDefault())
+                    return sdf.parse(dateStr)?.time
+                }
+            }
+            
+            // Pattern 4: Samsung format: yyyy-MM-dd_HH-mm-ss or yyyy-MM-dd-HH-mm-ss
+            val matcherSamsung = PATTERN_SAMSUNG.matcher(fileName)
+            if (matcherSamsung.find()) {
+                val year = matcherSamsung.group(1)
+                val month = matcherSamsung.group(2)
+                val day = matcherSamsung.group(3)
+                val hour = matcherSamsung.group(4) ?: "00"
+                val minute = matcherSamsung.group(5) ?: "00"
+                val second = matcherSamsung.group(6) ?: "00"
+                if (year != null && month != null && day != null) {
+                    val yearInt = year.toIntOrNull() ?: return null
+                    if (yearInt in 2020..2040) {
+                        val dateStr = "$year$month$day$hour$minute$second"
+                        val sdf = java.text.SimpleDateFormat("yyyyMMddHHmmss", java.util.Locale.getDefault())
+                        return sdf.parse(dateStr)?.time
+                    }
+                }
+            }
+            
+            // Pattern 5: Huawei format: dd-MM-yyyy_HH-mm (e.g., 09-01-2026_10-05)
+            val matcherHuawei = PATTERN_HUAWEI.matcher(fileName)
+            if (matcherHuawei.find()) {
+                val day = matcherHuawei.group(1)
+                val month = matcherHuawei.group(2)
+                val year = matcherHuawei.group(3)
+                val hour = matcherHuawei.group(4) ?: "00"
+                val minute = matcherHuawei.group(5) ?: "00"
+                if (year != null && month != null && day != null) {
+                    val dateStr = "$year$month$day${hour}${minute}00"
+                    val sdf = java.text.SimpleDateFormat("yyyyMMddHHmmss", java.util.Locale.getDefault())
+                    return sdf.parse(dateStr)?.time
+                }
+            }
+            
+            // Pattern 6: Standard yyyyMMdd_HHmmss or yyyyMMdd-HHmmss
+            val matcherStandard = PATTERN_STANDARD.matcher(fileName)
+            if (matcherStandard.find()) {
+                val dateStr = matcherStandard.group(1)?.replace("-", "")?.replace("_", "") ?: return null
+                val sdf = java.text.SimpleDateFormat("yyyyMMddHHmmss", java.util.Locale.getDefault())
+                return sdf.parse(dateStr)?.time
+            }
+            
+            // Pattern 7: OnePlus / ODialer: yyMMddHHmm (e.g., 2601090249)
+            val matcherOnePlus = PATTERN_ONEPLUS.matcher(fileName)
+            if (matcherOnePlus.find()) {
+                val dateStr = matcherOnePlus.group(1) ?: return null
+                // Validate if it looks like yyMMddHHmm
+                val year = dateStr.substring(0, 2).toIntOrNull() ?: return null
+                val month = dateStr.substring(2, 4).toIntOrNull() ?: return null
+                val day = dateStr.substring(4, 6).toIntOrNull() ?: return null
+                
+                if (year in 20..40 && month in 1..12 && day in 1..31) {
+                    val sdf = java.text.SimpleDateFormat("yyMMddHHmm", java.util.Locale.getDefault())
+                    return sdf.parse(dateStr)?.time
+                }
+            }
+        } catch (e: Exception) {
+            // Matches the old behaviour: unparseable names yield null
+        }
+        return null
+    }
+}
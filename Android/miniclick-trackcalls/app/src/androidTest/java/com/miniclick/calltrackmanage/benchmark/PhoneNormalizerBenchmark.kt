@@ -0,0 +1,71 @@
+package com.miniclick.calltrackmanage.benchmark
+
+import android.content.Context
+import android.telephony.PhoneNumberUtils
+import android.telephony.TelephonyManager
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import com.miniclick.calltrackmanage.util.call.PhoneNormalizer
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.util.Locale
+import kotlin.random.Random
+
+/**
+ * Normalizing the numbers of a 50k-row call log (2k distinct numbers),
+ * PhoneNormalizer against the previous per-row implementation.
+ */
+@RunWith(AndroidJUnit4::class)
+class PhoneNormalizerBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+    private val distinct = SyntheticData.phoneNumbers(2_000)
+    private val rows = Random(7).let { random -> List(50_000) { distinct[random.nextInt(distinct.size)] } }
+
+    @Test
+    fun normalize50kRows() {
+        val normalizer = PhoneNormalizer.getInstance(context)
+        benchmarkRule.measureRepeated {
+            for (number in rows) normalizer.normalize(number)
+        }
+    }
+
+    @Test
+    fun normalize50kRowsLegacy() {
+        benchmarkRule.measureRepeated {
+            for (number in rows) legacyNormalize(number)
+        }
+    }
+
+    @Test
+    fun digitsOnly50kRows() {
+        benchmarkRule.measureRepeated {
+            for (number in rows) PhoneNormalizer.digitsOnly(number)
+        }
+    }
+
+    @Test
+    fun digitsOnly50kRowsRegex() {
+        benchmarkRule.measureRepeated {
+            for (number in rows) number.replace(Regex("[^0-9]"), "")
+        }
+    }
+
+    // Former CallDataRepository.normalizePhoneNumber, kept here as the comparison point
+    private fun legacyNormalize(number: String): String {
+        val strip = number.filter { it.isDigit() || it == '+' }
+        val tm = context.getSystemService(Context.TELEPHONY_SERVICE) as? TelephonyManager
+        var countryIso = tm?.networkCountryIso
+        if (countryIso.isNullOrEmpty()) countryIso = Locale.getDefault().country
+        if (!countryIso.isNullOrEmpty()) {
+            PhoneNumberUtils.formatNumberToE164(strip, countryIso.uppercase())?.let { return it }
+        }
+        return strip
+    }
+}
@@ -0,0 +1,52 @@
+package com.miniclick.calltrackmanage.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.miniclick.calltrackmanage.util.audio.RecordingFilenameParser
+import org.junit.Assert.assertEquals
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Reading timestamps from 10k vendor-style recording file names,
+ * RecordingFilenameParser against the previous per-call SimpleDateFormat implementation.
+ */
+@RunWith(AndroidJUnit4::class)
+class RecordingFilenameParserBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val names = SyntheticData.recordingFileNames(
+        SyntheticData.calls(15_000, SyntheticData.phoneNumbers(500), days = 90),
+        10_000
+    ).map { it.first } + NON_MATCHING
+
+    @Test
+    fun parse10kNames() {
+        benchmarkRule.measureRepeated {
+            for (name in names) RecordingFilenameParser.parse(name)
+        }
+    }
+
+    @Test
+    fun parse10kNamesLegacy() {
+        benchmarkRule.measureRepeated {
+            for (name in names) LegacyFilenameDateParser.parse(name)
+        }
+    }
+
+    @Test
+    fun parserMatchesLegacy() {
+        for (name in names) {
+            assertEquals(name, LegacyFilenameDateParser.parse(name), RecordingFilenameParser.parse(name))
+        }
+    }
+
+    private companion object {
+        // Names seen in shared folders that carry no usable timestamp
+        val NON_MATCHING = listOf("Voice 001.m4a", "recording.amr", "John Smith.mp3", "Call_12345.wav")
+    }
+}
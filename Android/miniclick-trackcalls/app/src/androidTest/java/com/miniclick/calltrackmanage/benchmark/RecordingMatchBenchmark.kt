@@ -0,0 +1,75 @@
+package com.miniclick.calltrackmanage.benchmark
+
+import android.content.Context
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import com.miniclick.calltrackmanage.data.RecordingRepository
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.File
+
+/**
+ * Recording matching: the in-memory list matcher and the indexed batch finder
+ * over K vendor-named files.
+ */
+@RunWith(AndroidJUnit4::class)
+class RecordingMatchBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+    private val repository = RecordingRepository.getInstance(context)
+    private val numbers = SyntheticData.phoneNumbers(500)
+    private val calls = SyntheticData.calls(5_000, numbers, days = 90)
+
+    private lateinit var folder: File
+    private var previousPath: String? = null
+
+    @Before
+    fun setUp() {
+        folder = File(context.getExternalFilesDir(null), "bench_recordings").apply { mkdirs() }
+        previousPath = repository.getCustomPath()
+    }
+
+    @After
+    fun tearDown() {
+        folder.deleteRecursively()
+        previousPath?.let { repository.setCustomPath(it) } ?: repository.clearCustomPath()
+    }
+
+    @Test
+    fun findRecordingInList2kFiles() {
+        val files = SyntheticData.recordingSourceFiles(calls, 2_000)
+        val sample = calls.filter { it.duration > 0 }.take(200)
+        benchmarkRule.measureRepeated {
+            for (call in sample) {
+                repository.findRecordingInList(files, call.callDate, call.duration, call.phoneNumber, call.contactName)
+            }
+        }
+    }
+
+    @Test
+    fun findRecordingsBatch2kFiles() {
+        SyntheticData.recordingFileNames(calls, 2_000).forEach { (name, lastModified) ->
+            File(folder, name).apply { writeBytes(ByteArray(0)) }.setLastModified(lastModified)
+        }
+        repository.setCustomPath(folder.absolutePath)
+
+        val infos = calls.filter { it.duration > 0 }.take(500).map {
+            RecordingRepository.CallInfo(it.compositeId, it.callDate, it.duration, it.phoneNumber, it.contactName)
+        }
+        // First pass builds the index; measured passes see an unchanged folder
+        runBlocking { repository.findRecordingsBatch(infos) }
+
+        benchmarkRule.measureRepeated {
+            runBlocking { repository.findRecordingsBatch(infos) }
+        }
+    }
+}
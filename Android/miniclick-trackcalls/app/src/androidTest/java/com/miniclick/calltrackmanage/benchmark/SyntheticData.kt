@@ -0,0 +1,111 @@
+package com.miniclick.calltrackmanage.benchmark
+
+import android.provider.CallLog
+import com.miniclick.calltrackmanage.data.RecordingRepository
+import com.miniclick.calltrackmanage.data.db.CallDataEntity
+import com.miniclick.calltrackmanage.data.db.PersonDataEntity
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
+import kotlin.random.Random
+
+/**
+ * Deterministic synthetic data for benchmarks: N calls over M distinct numbers,
+ * persons for those numbers and K recording files named like real dialers name them.
+ * Every number uses the reserved [NUMBER_PREFIX] so seeded system rows can be removed again.
+ */
+object SyntheticData {
+
+    const val NUMBER_PREFIX = "+1555010"
+    private const val DAY_MS = 24 * 60 * 60 * 1000L
+
+    /**
+     * [distinct] numbers, each written in one of the formats seen in real call logs.
+     */
+    fun phoneNumbers(distinct: Int, seed: Int = 1): List<String> {
+        val random = Random(seed)
+        return List(distinct) { i ->
+            val local = (i % 10_000).toString().padStart(4, '0')
+            when (random.nextInt(4)) {
+                0 -> "$NUMBER_PREFIX$local"
+                1 -> "+1 555-010-$local"
+                2 -> "(555) 010-$local"
+                else -> "1555010$local"
+            }
+        }
+    }
+
+    fun calls(count: Int, numbers: List<String>, days: Int = 365, seed: Int = 2): List<CallDataEntity> {
+        val random = Random(seed)
+        val now = System.currentTimeMillis()
+        return List(count) { i ->
+            val type = when (random.nextInt(10)) {
+                in 0..3 -> CallLog.Calls.INCOMING_TYPE
+                in 4..7 -> CallLog.Calls.OUTGOING_TYPE
+                8 -> CallLog.Calls.MISSED_TYPE
+                else -> 5 // Rejected
+            }
+            val duration = if (type == CallLog.Calls.MISSED_TYPE || type == 5) 0L else random.nextLong(0, 1800)
+            val callDate = now - random.nextLong(0, days * DAY_MS)
+            val number = numbers[random.nextInt(numbers.size)]
+            CallDataEntity(
+                compositeId = "bench-$i",
+                systemId = i.toString(),
+                phoneNumber = number,
+                contactName = if (random.nextInt(3) == 0) "Contact ${number.takeLast(4)}" else null,
+                callType = type,
+                callDate = callDate,
+                duration = duration,
+                subscriptionId = random.nextInt(2),
+                callNote = if (random.nextInt(8) == 0) "Follow up $i" else null,
+                reviewed = random.nextInt(5) == 0
+            )
+        }
+    }
+
+    fun persons(numbers: List<String>, normalize: (String) -> String, seed: Int = 3): List<PersonDataEntity> {
+        val random = Random(seed)
+        val labels = listOf("Lead", "Customer", "Vendor", "VIP", null)
+        return numbers.map { normalize(it) }.distinct().map { normalized ->
+            PersonDataEntity(
+                phoneNumber = normalized,
+                contactName = if (random.nextBoolean()) "Person ${normalized.takeLast(4)}" else null,
+                personNote = if (random.nextInt(6) == 0) "Note for $normalized" else null,
+                label = labels[random.nextInt(labels.size)]
+            )
+        }
+    }
+
+    /**
+     * Recording file names for [count] of the connected [calls], rotating through vendor formats.
+     */
+    fun recordingFileNames(calls: List<CallDataEntity>, count: Int): List<Pair<String, Long>> {
+        val xiaomi = SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US)
+        val samsung = SimpleDateFormat("yyyy-MM-dd_HH-mm-ss", Locale.US)
+        val huawei = SimpleDateFormat("dd-MM-yyyy_HH-mm", Locale.US)
+        val connected = calls.filter { it.duration > 0 }.take(count)
+        return connected.mapIndexed { i, call ->
+            val date = Date(call.callDate)
+            val digits = call.phoneNumber.filter { it.isDigit() }
+            val name = when (i % 5) {
+                0 -> "${digits}_${xiaomi.format(date)}.mp3"                                  // Xiaomi / MIUI
+                1 -> "Call recording ${call.contactName ?: digits}_${samsung.format(date)}.m4a" // Samsung
+                2 -> "${call.contactName ?: digits}_${huawei.format(date)}.amr"              // Huawei
+                3 -> "Call@$digits(00${digits.takeLast(10)})_${xiaomi.format(date).replace("_", "")}.wav" // Oppo / Realme
+                else -> "${call.callDate}.mp3"                                               // Unix ms (third-party recorders)
+            }
+            name to call.callDate + call.duration * 1000 + 2_000
+        }
+    }
+
+    fun recordingSourceFiles(calls: List<CallDataEntity>, count: Int): List<RecordingRepository.RecordingSourceFile> {
+        return recordingFileNames(calls, count).map { (name, lastModified) ->
+            RecordingRepository.RecordingSourceFile(
+                name = name,
+                lastModified = lastModified,
+                absolutePath = "/storage/emulated/0/Recordings/Call/$name",
+                isLocal = true
+            )
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.miniclick.calltrackmanage.data.db
+
+import androidx.room.testing.MigrationTestHelper
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Each AppDatabase migration from 10 up, run with MigrationTestHelper against the exported
+ * schemas in app/schemas, plus the data each step is expected to backfill.
+ * Triggers are not part of the schema; they are installed by the onOpen callback, so the
+ * trigger checks call SearchIndex.onOpen / CallRollup.onOpen the same way.
+ */
+@RunWith(AndroidJUnit4::class)
+class MigrationTest {
+
+    @get:Rule
+    val helper = MigrationTestHelper(
+        InstrumentationRegistry.getInstrumentation(),
+        AppDatabase::class.java
+    )
+
+    @Test
+    fun migrate10To11FillsTheSearchIndexes() {
+        helper.createDatabase(TEST_DB, 10).apply {
+            insertCall("c1", "+91 98765-43210", callDate = DAY_1, duration = 40, callNote = "Quote sent")
+            insertPerson("+919876543210", contactName = "Asha Rao", label = "Lead")
+            close()
+        }
+
+        val db = helper.runMigrationsAndValidate(TEST_DB, 11, true, AppDatabase.MIGRATION_10_11)
+
+        assertEquals(listOf("c1"), db.callIdsMatching("quote*"))
+        assertEquals(listOf("c1"), db.callIdsMatching("43210*"))
+        assertEquals(1, db.count("SELECT COUNT(*) FROM person_search_fts WHERE person_search_fts MATCH 'asha*'"))
+        assertEquals(1, db.count("SELECT COUNT(*) FROM person_search_fts WHERE person_search_fts MATCH 'lead*'"))
+
+        // Rows written after the upgrade reach the index through the triggers
+        SearchIndex.onOpen(db)
+        db.insertCall("c2", "+15550100001", callDate = DAY_1, duration = 0, contactName = "Chen Wei")
+        assertEquals(listOf("c2"), db.callIdsMatching("chen*"))
+        db.execSQL("UPDATE call_data SET callNote = 'Invoice' WHERE compositeId = 'c1'")
+        assertEquals(listOf("c1"), db.callIdsMatching("invoice*"))
+        assertEquals(emptyList<String>(), db.callIdsMatching("quote*"))
+        db.execSQL("DELETE FROM call_data WHERE compositeId = 'c2'")
+        assertEquals(0, db.count("SELECT COUNT(*) FROM call_search_fts WHERE call_search_fts MATCH 'chen*'"))
+        db.close()
+    }
+
+    @Test
+    fun migrate11To12AddsTheRecordingFileIndex() {
+        helper.createDatabase(TEST_DB, 11).close()
+
+        val db = helper.runMigrationsAndValidate(TEST_DB, 12, true, AppDatabase.MIGRATION_11_12)
+
+        assertEquals(0, db.count("SELECT COUNT(*) FROM recording_files"))
+        assertTrue(db.indexNames("recording_files").containsAll(listOf(
+            "index_recording_files_folder",
+            "index_recording_files_lastModified",
+            "index_recording_files_filenameDate",
+            "index_recording_files_phoneKey"
+        )))
+        db.close()
+    }
+
+    @Test
+    fun migrate12To13AddsUploadChunks() {
+        helper.createDatabase(TEST_DB, 12).close()
+
+        val db = helper.runMigrationsAndValidate(TEST_DB, 13, true, AppDatabase.MIGRATION_12_13)
+
+        db.execSQL("INSERT INTO upload_chunks(compositeId, chunkIndex, fileSize, chunkSize, uploadedAt) VALUES ('c1', 0, 2048, 1024, 1)")
+        db.execSQL("INSERT OR REPLACE INTO upload_chunks(compositeId, chunkIndex, fileSize, chunkSize, uploadedAt) VALUES ('c1', 0, 2048, 1024, 2)")
+        db.execSQL("INSERT INTO upload_chunks(compositeId, chunkIndex, fileSize, chunkSize, uploadedAt) VALUES ('c1', 1, 2048, 1024, 2)")
+        // (compositeId, chunkIndex) is the key: an ack is recorded once per chunk
+        assertEquals(2, db.count("SELECT COUNT(*) FROM upload_chunks WHERE compositeId = 'c1'"))
+        db.close()
+    }
+
+    @Test
+    fun migrate13To14BuildsTheRollupFromExistingCalls() {
+        helper.createDatabase(TEST_DB, 13).apply {
+            insertCall("c1", "+15550100001", callDate = DAY_1, duration = 120, subscriptionId = 1)
+            insertCall("c2", "+15550100001", callDate = DAY_1 + 60_000, duration = 2, subscriptionId = 1)
+            insertCall("c3", "+15550100002", callDate = DAY_1 + 120_000, duration = 0, subscriptionId = 1)
+            insertCall("c4", "+15550100003", callDate = DAY_1, duration = 30, subscriptionId = null)
+            close()
+        }
+
+        val db = helper.runMigrationsAndValidate(TEST_DB, 14, true, AppDatabase.MIGRATION_13_14)
+
+        db.query("SELECT callCount, totalDuration, maxDuration, connectedCount, notConnectedCount, mayFailedCount, distinctNumbers, dirty FROM call_daily_rollup WHERE simSlot = 1").use { cursor ->
+            assertTrue(cursor.moveToFirst())
+            assertEquals(listOf(3L, 122L, 120L, 1L, 2L, 1L, 2L, 0L), (0 until cursor.columnCount).map { cursor.getLong(it) })
+            assertFalse(cursor.moveToNext())
+        }
+        // Unknown SIM is kept as its own slot
+        assertEquals(1, db.count("SELECT callCount FROM call_daily_rollup WHERE simSlot = -1"))
+
+        // New calls are added in place by the insert trigger
+        CallRollup.onOpen(db)
+        db.insertCall("c5", "+15550100004", callDate = DAY_1 + 180_000, duration = 10, subscriptionId = 1)
+        assertEquals(4, db.count("SELECT callCount FROM call_daily_rollup WHERE simSlot = 1"))
+        assertEquals(3, db.count("SELECT distinctNumbers FROM call_daily_rollup WHERE simSlot = 1"))
+        db.close()
+    }
+
+    @Test
+    fun migrate14To15AddsPerfMetrics() {
+        helper.createDatabase(TEST_DB, 14).close()
+
+        val db = helper.runMigrationsAndValidate(TEST_DB, 15, true, AppDatabase.MIGRATION_14_15)
+
+        assertEquals(0, db.count("SELECT COUNT(*) FROM perf_metrics"))
+        db.close()
+    }
+
+    @Test
+    fun migrate15To16ReplacesTheCallIndexes() {
+        helper.createDatabase(TEST_DB, 15).apply {
+            insertCall("c1", "+15550100001", callDate = DAY_1, duration = 40)
+            close()
+        }
+
+        val db = helper.runMigrationsAndValidate(TEST_DB, 16, true, AppDatabase.MIGRATION_15_16)
+
+        val indexes = db.indexNames("call_data")
+        assertFalse("index_call_data_phoneNumber" in indexes)
+        assertTrue(indexes.containsAll(listOf(
+            "index_call_data_phoneNumber_callDate",
+            "index_call_data_callDate",
+            "index_call_data_metadataSyncStatus_callDate",
+            "index_call_data_recordingSyncStatus_metadataSyncStatus_callDate",
+            "index_call_data_processingStatus"
+        )))
+        assertEquals(1, db.count("SELECT COUNT(*) FROM call_data"))
+        db.close()
+    }
+
+    @Test
+    fun migrate10To16InOneGo() {
+        helper.createDatabase(TEST_DB, 10).apply {
+            insertCall("c1", "+15550100001", callDate = DAY_1, duration = 40, contactName = "Asha Rao")
+            close()
+        }
+
+        val db = helper.runMigrationsAndValidate(
+            TEST_DB, 16, true,
+            AppDatabase.MIGRATION_10_11, AppDatabase.MIGRATION_11_12, AppDatabase.MIGRATION_12_13,
+            AppDatabase.MIGRATION_13_14, AppDatabase.MIGRATION_14_15, AppDatabase.MIGRATION_15_16
+        )
+
+        assertEquals(listOf("c1"), db.callIdsMatching("asha*"))
+        assertEquals(1, db.count("SELECT SUM(callCount) FROM call_daily_rollup"))
+        db.close()
+    }
+
+    private fun SupportSQLiteDatabase.insertCall(
+        id: String,
+        number: String,
+        callDate: Long,
+        duration: Long,
+        contactName: String? = null,
+        callNote: String? = null,
+        subscriptionId: Int? = 0
+    ) {
+        execSQL(
+            """
+            INSERT INTO call_data(compositeId, systemId, phoneNumber, contactName, callType, callDate, duration,
+                subscriptionId, callNote, reviewed, syncStatus, metadataSyncStatus, recordingSyncStatus,
+                metadataReceived, createdAt, updatedAt)
+            VALUES (?, ?, ?, ?, 1, ?, ?, ?, ?, 0, 'PENDING', 'PENDING', 'NOT_APPLICABLE', 0, 0, 0)
+            """.trimIndent(),
+            arrayOf(id, id, number, contactName, callDate, duration, subscriptionId, callNote)
+        )
+    }
+
+    private fun SupportSQLiteDatabase.insertPerson(number: String, contactName: String?, label: String?) {
+        execSQL(
+            """
+            INSERT INTO person_data(phoneNumber, contactName, label, totalCalls, totalIncoming, totalOutgoing,
+                totalMissed, totalDuration, isExcluded, excludeFromSync, excludeFromList, createdAt, updatedAt, needsSync)
+            VALUES (?, ?, ?, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0)
+            """.trimIndent(),
+            arrayOf(number, contactName, label)
+        )
+    }
+
+    private fun SupportSQLiteDatabase.callIdsMatching(match: String): List<String> =
+        query("SELECT c.compositeId FROM call_data c JOIN call_search_fts f ON c.rowid = f.rowid WHERE f MATCH ? ORDER BY c.compositeId", arrayOf(match)).use { cursor ->
+            List(cursor.count) { cursor.moveToNext(); cursor.getString(0) }
+        }
+
+    private fun SupportSQLiteDatabase.indexNames(table: String): List<String> =
+        query("SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = ?", arrayOf(table)).use { cursor ->
+            List(cursor.count) { cursor.moveToNext(); cursor.getString(0) }
+        }
+
+    private fun SupportSQLiteDatabase.count(sql: String): Int =
+        query(sql).use { cursor ->
+            cursor.moveToFirst()
+            cursor.getInt(0)
+        }
+
+    private companion object {
+        const val TEST_DB = "migration-test"
+        // Midday UTC, so the four calls below share a local day in any zone
+        const val DAY_1 = 1_767_268_800_000L // 2026-01-01T12:00Z
+    }
+}
@@ -0,0 +1,159 @@
+package com.miniclick.calltrackmanage.data.db
+
+import androidx.room.Room
+import androidx.room.withTransaction
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * The set-based PersonDataDao statements behind CallDataRepository.updatePersonsData.
+ * Expected values are what the former per-number update produced: totals from
+ * getCallStatsForNumbers, last call only moved by a newer call, and a new person
+ * inheriting from its robust-lookup variant.
+ */
+@RunWith(AndroidJUnit4::class)
+class PersonAggregatesTest {
+
+    private lateinit var database: AppDatabase
+    private lateinit var callDao: CallDataDao
+    private lateinit var personDao: PersonDataDao
+
+    @Before
+    fun setUp() {
+        val context = InstrumentationRegistry.getInstrumentation().targetContext
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase::class.java).build()
+        callDao = database.callDataDao()
+        personDao = database.personDataDao()
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    @Test
+    fun totalsCountEveryStoredCallOnce() = runBlocking {
+        val number = "+15550100001"
+        callDao.insertAll(listOf(
+            call("a1", number, type = 1, date = 1_000, duration = 30),
+            call("a2", number, type = 2, date = 2_000, duration = 0),
+            call("a3", number, type = 3, date = 3_000, duration = 0),
+            call("a4", number, type = 5, date = 4_000, duration = 0),
+            call("a5", number, type = 6, date = 5_000, duration = 0),
+            call("b1", "+15550100009", type = 1, date = 6_000, duration = 99)
+        ))
+
+        refresh(number)
+        // A second import of the same numbers must not add to the totals
+        refresh(number)
+
+        val person = personDao.getByPhoneNumber(number)
+        assertNotNull(person)
+        assertEquals(5, person!!.totalCalls)
+        assertEquals(1, person.totalIncoming)
+        assertEquals(1, person.totalOutgoing)
+        assertEquals(3, person.totalMissed) // 3, 5 and 6, as getCallStatsForNumbers counted them
+        assertEquals(30L, person.totalDuration)
+        assertEquals(5_000L, person.lastCallDate)
+        assertEquals("a5", person.lastCallCompositeId)
+        assertTrue(person.needsSync)
+    }
+
+    @Test
+    fun reimportOnlyMovesLastCallForward() = runBlocking {
+        val number = "+15550100003"
+        callDao.insert(call("c5", number, type = 1, date = 5_000, duration = 20, name = "Bob"))
+        refresh(number)
+
+        // Re-import of an older call: last call and name stay
+        callDao.insert(call("c1", number, type = 1, date = 1_000, duration = 5, name = "Old name"))
+        refresh(number)
+        var person = personDao.getByPhoneNumber(number)!!
+        assertEquals(5_000L, person.lastCallDate)
+        assertEquals("c5", person.lastCallCompositeId)
+        assertEquals("Bob", person.contactName)
+        assertEquals(2, person.totalCalls)
+
+        // A newer call without a name moves the last call and keeps the stored name
+        callDao.insert(call("c9", number, type = 2, date = 9_000, duration = 60, name = ""))
+        refresh(number)
+        person = personDao.getByPhoneNumber(number)!!
+        assertEquals(9_000L, person.lastCallDate)
+        assertEquals(2, person.lastCallType)
+        assertEquals(60L, person.lastCallDuration)
+        assertEquals("c9", person.lastCallCompositeId)
+        assertEquals("Bob", person.contactName)
+        assertEquals(3, person.totalCalls)
+        assertEquals(85L, person.totalDuration)
+    }
+
+    @Test
+    fun newPersonInheritsFromPlusVariant() = runBlocking {
+        personDao.insert(PersonDataEntity(
+            phoneNumber = "+15550100002",
+            contactName = "Alice",
+            personNote = "VIP",
+            label = "Hot",
+            excludeFromList = true,
+            needsSync = false
+        ))
+        callDao.insert(call("d1", "15550100002", type = 1, date = 1_000, duration = 10))
+
+        refresh("15550100002")
+
+        val person = personDao.getByPhoneNumber("15550100002")!!
+        assertEquals("Alice", person.contactName)
+        assertEquals("VIP", person.personNote)
+        assertEquals("Hot", person.label)
+        assertTrue(person.excludeFromList)
+        assertFalse(person.excludeFromSync)
+        assertFalse(person.needsSync)
+        assertEquals(1, person.totalCalls)
+        assertEquals(10L, person.totalDuration)
+        // The variant itself is left alone
+        assertEquals(0, personDao.getByPhoneNumber("+15550100002")!!.totalCalls)
+    }
+
+    @Test
+    fun newPersonInheritsFromSuffixVariant() = runBlocking {
+        personDao.insert(PersonDataEntity(phoneNumber = "+919876543210", personNote = "Suffix"))
+        callDao.insert(call("e1", "09876543210", type = 2, date = 1_000, duration = 40, name = "Carol"))
+
+        refresh("09876543210")
+
+        val person = personDao.getByPhoneNumber("09876543210")!!
+        assertEquals("Suffix", person.personNote)
+        assertEquals("Carol", person.contactName)
+        assertEquals(1, person.totalOutgoing)
+    }
+
+    // Same statements, order and transaction as CallDataRepository.updatePersonsData
+    private suspend fun refresh(vararg numbers: String) {
+        val now = System.currentTimeMillis()
+        database.withTransaction {
+            personDao.insertMissingFromCalls(numbers.toList(), now)
+            personDao.refreshLastCallFromCalls(numbers.toList())
+            personDao.refreshTotalsFromCalls(numbers.toList(), now)
+        }
+    }
+
+    private fun call(id: String, number: String, type: Int, date: Long, duration: Long, name: String? = null) =
+        CallDataEntity(
+            compositeId = id,
+            systemId = id,
+            phoneNumber = number,
+            contactName = name,
+            callType = type,
+            callDate = date,
+            duration = duration
+        )
+}
@@ -0,0 +1,113 @@
+package com.miniclick.calltrackmanage.data.db
+
+import androidx.room.Room
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.After
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * EXPLAIN QUERY PLAN checks for the hot call_data queries, so an entity or query change
+ * that falls back to a full table scan fails here instead of slowing down large call logs.
+ * The SQL mirrors the CallDataDao / PersonDataDao queries named on each test.
+ */
+@RunWith(AndroidJUnit4::class)
+class QueryPlanTest {
+
+    private lateinit var database: AppDatabase
+
+    @Before
+    fun setUp() {
+        val context = InstrumentationRegistry.getInstrumentation().targetContext
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase::class.java).build()
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    // CallDataDao.getCallsNeedingMetadataSync
+    @Test
+    fun metadataSyncQueueUsesStatusIndex() {
+        val plan = plan("""
+            SELECT c.* FROM call_data c
+            LEFT JOIN person_data p ON c.phoneNumber = p.phoneNumber
+            WHERE c.metadataSyncStatus IN ('PENDING', 'UPDATE_PENDING', 'FAILED')
+            AND c.callDate >= ?
+            AND (p.excludeFromSync IS NULL OR p.excludeFromSync = 0)
+            AND (p.isExcluded IS NULL OR p.isExcluded = 0)
+            ORDER BY c.callDate DESC
+        """, 0L)
+        assertUsesIndex(plan, "index_call_data_metadataSyncStatus_callDate")
+        assertNoTableScan(plan)
+    }
+
+    // CallDataDao.getCallsNeedingRecordingSync / getPendingRecordingSyncCountFlow
+    @Test
+    fun recordingSyncQueueUsesStatusIndex() {
+        val plan = plan("""
+            SELECT c.* FROM call_data c
+            LEFT JOIN person_data p ON c.phoneNumber = p.phoneNumber
+            WHERE c.recordingSyncStatus IN ('PENDING', 'FAILED', 'UPLOADING')
+            AND c.metadataSyncStatus = 'SYNCED'
+            AND c.callDate >= ?
+            AND (p.excludeFromSync IS NULL OR p.excludeFromSync = 0)
+            AND (p.isExcluded IS NULL OR p.isExcluded = 0)
+            ORDER BY c.callDate ASC
+        """, 0L)
+        assertUsesIndex(plan, "index_call_data_recordingSyncStatus_metadataSyncStatus_callDate")
+        assertNoTableScan(plan)
+    }
+
+    // CallDataDao.getPendingNewCallsCountFlow
+    @Test
+    fun pendingCountFlowUsesStatusIndex() {
+        val plan = plan("""
+            SELECT COUNT(*) FROM call_data c
+            LEFT JOIN person_data p ON c.phoneNumber = p.phoneNumber
+            WHERE c.metadataSyncStatus = 'PENDING'
+            AND c.callDate >= ?
+            AND (p.excludeFromSync IS NULL OR p.excludeFromSync = 0)
+            AND (p.excludeFromList IS NULL OR p.excludeFromList = 0)
+            AND (p.isExcluded IS NULL OR p.isExcluded = 0)
+        """, 0L)
+        assertUsesIndex(plan, "index_call_data_metadataSyncStatus_callDate")
+        assertNoTableScan(plan)
+    }
+
+    // PersonDataDao.refreshLastCallFromCalls, newest call per number
+    @Test
+    fun newestCallPerNumberIsAnIndexSeek() {
+        val plan = plan("""
+            SELECT c.callDate FROM call_data c
+            WHERE c.phoneNumber = ?
+            ORDER BY c.callDate DESC LIMIT 1
+        """, "+15550100001")
+        assertUsesIndex(plan, "index_call_data_phoneNumber_callDate")
+        assertFalse("Unexpected sort:\n$plan", plan.contains("TEMP B-TREE"))
+    }
+
+    private fun plan(sql: String, vararg args: Any): String {
+        val lines = mutableListOf<String>()
+        database.openHelper.readableDatabase.query("EXPLAIN QUERY PLAN ${sql.trimIndent()}", args).use { cursor ->
+            val detail = cursor.getColumnIndexOrThrow("detail")
+            while (cursor.moveToNext()) lines.add(cursor.getString(detail))
+        }
+        return lines.joinToString("\n")
+    }
+
+    private fun assertUsesIndex(plan: String, index: String) {
+        assertTrue("Expected $index in:\n$plan", plan.contains(index))
+    }
+
+    // "SCAN c" / "SCAN TABLE call_data" without USING is a full pass over the table
+    private fun assertNoTableScan(plan: String) {
+        val scans = plan.lines().filter { it.startsWith("SCAN") && !it.contains("USING") }
+        assertTrue("Table scan in:\n$plan", scans.isEmpty())
+    }
+}
@@ -13,6 +13,7 @@ class CallTrackerApplication : Application() {
 
     override fun onCreate() {
         super.onCreate()
+        com.miniclick.calltrackmanage.data.PerfTelemetry.init(this)
         
         // STARTUP OPTIMIZATION: Move background work off the main thread and defer it 
         // to allow the first activity frame to render immediately.
@@ -479,6 +479,24 @@ fun MainScreen(audioPlayer: AudioPlayer, viewModel: MainViewModel = androidx.hil
         }
     }
 
+    // Performance Diagnostics (opened from Extras, drawn above it)
+    androidx.compose.animation.AnimatedVisibility(
+        visible = settingsState.showPerfDiagnostics,
+        enter = androidx.compose.animation.slideInHorizontally(initialOffsetX = { it }) + androidx.compose.animation.fadeIn(),
+        exit = androidx.compose.animation.slideOutHorizontally(targetOffsetX = { it }) + androidx.compose.animation.fadeOut()
+    ) {
+        Surface(
+            modifier = Modifier.fillMaxSize(),
+            color = MaterialTheme.colorScheme.surface
+        ) {
+            PerformanceDiagnosticsScreen(
+                uiState = settingsState,
+                viewModel = settingsViewModel,
+                onBack = { settingsViewModel.togglePerfDiagnostics(false) }
+            )
+        }
+    }
+
     // Data Management Bottom Sheet (Modal)
     if (settingsState.showDataManagementScreen) {
         DataManagementBottomSheet(
@@ -720,8 +738,9 @@ fun MainScreen(audioPlayer: AudioPlayer, viewModel: MainViewModel = androidx.hil
 
     // 1. If any full-screen overlay is open, close it (HIGHEST PRIORITY)
     // NOTE: DataManagementBottomSheet handles its own dismiss via ModalBottomSheet
-    androidx.activity.compose.BackHandler(enabled = settingsState.showTrackingSettings || settingsState.showExtrasScreen) {
+    androidx.activity.compose.BackHandler(enabled = settingsState.showTrackingSettings || settingsState.showExtrasScreen || settingsState.showPerfDiagnostics) {
         when {
+            settingsState.showPerfDiagnostics -> settingsViewModel.togglePerfDiagnostics(false)
             settingsState.showTrackingSettings -> settingsViewModel.toggleTrackingSettings(false)
             settingsState.showExtrasScreen -> settingsViewModel.toggleExtrasScreen(false)
         }
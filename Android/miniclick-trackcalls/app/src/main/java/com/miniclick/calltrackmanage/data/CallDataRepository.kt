@@ -9,11 +9,19 @@ import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.flatMapLatest
 import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.filterNotNull
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.withContext
 import com.miniclick.calltrackmanage.network.PersonUpdateDto
 import com.miniclick.calltrackmanage.network.CallUpdateDto
 import androidx.room.withTransaction
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
+import androidx.sqlite.db.SupportSQLiteQuery
 import com.miniclick.calltrackmanage.worker.CallSyncWorker
+import com.miniclick.calltrackmanage.util.call.PhoneNormalizer
 import kotlinx.coroutines.isActive
 import kotlinx.coroutines.sync.Mutex
 import kotlinx.coroutines.sync.withLock
@@ -27,7 +35,7 @@ import kotlinx.coroutines.sync.withLock
  */
 data class CallRemoteUpdate(
     val compositeId: String,
-    val reviewed: Boolean,
+    val reviewed: Boolean?,
     val note: String?,
     val callerName: String?,
     val serverUpdatedAt: Long
@@ -50,11 +58,16 @@ class CallDataRepository private constructor(private val context: Context) {
     private val personDataDao = database.personDataDao()
     private val recordingRepository = RecordingRepository.getInstance(context)
     private val settingsRepository = SettingsRepository.getInstance(context)
+    private val phoneNormalizer = PhoneNormalizer.getInstance(context)
+    private val rollupDao = database.callDailyRollupDao()
     
     private val syncMutex = Mutex()
     
     companion object {
         private const val TAG = "CallDataRepository"
+        private const val CALL_PAGE_SIZE = 50
+        // Ids per IN (...) statement; older SQLite builds allow at most 999 bound variables
+        private const val IN_LIST_CHUNK = 500
         
         @Volatile
         private var INSTANCE: CallDataRepository? = null
@@ -76,6 +89,85 @@ class CallDataRepository private constructor(private val context: Context) {
     fun getCallsSinceFlow(minDate: Long): Flow<List<CallDataEntity>> = callDataDao.getCallsSinceFlow(minDate)
     suspend fun getCallsSince(minDate: Long): List<CallDataEntity> = callDataDao.getCallsSince(minDate)
 
+    /**
+     * Paged call list for one tab. Only the visible window is loaded from Room,
+     * and an insert/update reloads the current page instead of the whole history.
+     */
+    fun getCallsPagingFlow(query: SupportSQLiteQuery, initialRow: Int? = null): Flow<PagingData<CallDataEntity>> =
+        Pager(
+            config = PagingConfig(
+                pageSize = CALL_PAGE_SIZE,
+                prefetchDistance = CALL_PAGE_SIZE / 2,
+                enablePlaceholders = false
+            ),
+            // Room pages by row offset, so a date jump starts the list at that day's first row
+            initialKey = initialRow,
+            pagingSourceFactory = { callDataDao.getCallsPagingSource(query) }
+        ).flow
+
+    /**
+     * All rows of a call list query, for Reports. Bounded by the selected date range.
+     */
+    fun getCallsFlow(query: SupportSQLiteQuery): Flow<List<CallDataEntity>> = callDataDao.getCallsFlow(query)
+
+    /**
+     * Calls of one person (stored and normalized form of the number), for the interaction sheet.
+     */
+    fun getCallsForNumbersFlow(phoneNumbers: List<String>): Flow<List<CallDataEntity>> =
+        callDataDao.getCallsForNumbersFlow(phoneNumbers)
+
+    /**
+     * Per-day totals for the same query, used by the date section headers.
+     */
+    fun getCallDaySummariesFlow(query: SupportSQLiteQuery): Flow<List<CallDataDao.CallDaySummary>> =
+        callDataDao.getCallDaySummariesFlow(query)
+
+    /**
+     * Full-text search over persons (number, name, note, label). Returns null when the query
+     * has nothing searchable, in which case callers fall back to plain matching.
+     */
+    suspend fun searchPersonPhones(query: String): Set<String>? = withContext(Dispatchers.IO) {
+        val match = SearchIndex.toMatchExpression(query) ?: return@withContext null
+        personDataDao.searchPhoneNumbers(match).toHashSet()
+    }
+
+    /**
+     * Tab badge counts for the call list. Room re-runs the single aggregate when
+     * call_data or person_data change, so the badges never re-scan rows in Kotlin.
+     */
+    fun getCallTabCountsFlow(query: SupportSQLiteQuery): Flow<CallDataDao.CallTabCounts> =
+        callDataDao.getCallTabCountsFlow(query)
+
+    /**
+     * Inputs of the tab badges for [startMillis, endMillis) when only the date range and SIM
+     * filter apply. Both bounds must be local midnights (0 and null mean unbounded).
+     * The per-day totals are kept by triggers, so an insert costs O(1) and the badges only
+     * read a few rollup rows plus the calls of flagged persons.
+     */
+    fun getCallTabTotalsFlow(startMillis: Long, endMillis: Long?, subscriptionId: Int?): Flow<CallDataDao.CallTabTotals> {
+        val dayFormat = java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.US)
+        val startDay = if (startMillis > 0) dayFormat.format(java.util.Date(startMillis)) else ""
+        val endDay = endMillis?.let { dayFormat.format(java.util.Date(it - 1)) } ?: "9999-12-31"
+        val end = endMillis ?: Long.MAX_VALUE
+
+        val days = rollupDao.getRangeFlow(startDay, endDay, subscriptionId)
+            .map { rows ->
+                ensureRollupTimeZone()
+                if (rows.none { it.dirty }) return@map rows
+                // The refresh writes call_daily_rollup, which re-emits clean rows
+                rollupDao.refreshDirtyDays()
+                null
+            }
+            .filterNotNull()
+        return combine(
+            days,
+            callDataDao.getHiddenCallTotalsFlow(startMillis, end, subscriptionId),
+            callDataDao.getNeverConnectedCallCountFlow(startMillis, end, subscriptionId)
+        ) { rows, hidden, neverConnected ->
+            CallDataDao.CallTabTotals(rows, hidden, neverConnected)
+        }.flowOn(Dispatchers.IO)
+    }
+
     /**
      * Get all calls as Flow for real-time updates (UI observes this)
      */
@@ -88,6 +180,20 @@ class CallDataRepository private constructor(private val context: Context) {
         callDataDao.getAllCalls()
     }
     
+    /**
+     * Walks the same rows as [getAllCalls] in pages of [pageSize], newest first,
+     * so an export never holds the whole table in memory.
+     */
+    suspend fun forEachCallPage(pageSize: Int, block: suspend (List<CallDataEntity>) -> Unit) = withContext(Dispatchers.IO) {
+        var page = callDataDao.getCallsPage(Long.MAX_VALUE, "", pageSize)
+        while (page.isNotEmpty()) {
+            block(page)
+            if (page.size < pageSize) break
+            val last = page.last()
+            page = callDataDao.getCallsPage(last.callDate, last.compositeId, pageSize)
+        }
+    }
+
     /**
      * Get a specific call by composite ID
      */
@@ -232,7 +338,9 @@ class CallDataRepository private constructor(private val context: Context) {
 
     suspend fun updateRecordingSyncStatusBatch(compositeIds: List<String>, status: RecordingSyncStatus) = withContext(Dispatchers.IO) {
         if (compositeIds.isEmpty()) return@withContext
-        callDataDao.updateRecordingSyncStatusBatch(compositeIds, status)
+        database.withTransaction {
+            compositeIds.chunked(IN_LIST_CHUNK).forEach { callDataDao.updateRecordingSyncStatusBatch(it, status) }
+        }
         
         // If recording is NOT_FOUND, we want to push this status update to the server metadata
         if (status == RecordingSyncStatus.NOT_FOUND) {
@@ -261,7 +369,9 @@ class CallDataRepository private constructor(private val context: Context) {
 
     suspend fun markMetadataSyncedBatch(compositeIds: List<String>, serverTime: Long) = withContext(Dispatchers.IO) {
         if (compositeIds.isEmpty()) return@withContext
-        callDataDao.markMetadataSyncedBatch(compositeIds, serverTime)
+        database.withTransaction {
+            compositeIds.chunked(IN_LIST_CHUNK).forEach { callDataDao.markMetadataSyncedBatch(it, serverTime) }
+        }
     }
 
     /**
@@ -313,7 +423,9 @@ class CallDataRepository private constructor(private val context: Context) {
 
     suspend fun updateSyncErrorBatch(compositeIds: List<String>, error: String?) = withContext(Dispatchers.IO) {
         if (compositeIds.isEmpty()) return@withContext
-        callDataDao.updateSyncErrorBatch(compositeIds, error)
+        database.withTransaction {
+            compositeIds.chunked(IN_LIST_CHUNK).forEach { callDataDao.updateSyncErrorBatch(it, error) }
+        }
     }
 
     /**
@@ -322,18 +434,38 @@ class CallDataRepository private constructor(private val context: Context) {
     suspend fun updateCallsFromServerBatch(updates: List<CallRemoteUpdate>) = withContext(Dispatchers.IO) {
         if (updates.isEmpty()) return@withContext
         database.withTransaction {
-            updates.forEach { update ->
-                callDataDao.updateFromServer(
-                    update.compositeId, 
-                    update.reviewed, 
-                    update.note, 
-                    update.callerName, 
-                    update.serverUpdatedAt
-                )
-            }
+            applyCallUpdates(updates)
         }
         Log.d(TAG, "Batch updated ${updates.size} calls from server")
     }
+
+    /**
+     * Apply one page of the delta pull atomically, so a persisted pull cursor never
+     * points past a page that was only half written.
+     */
+    suspend fun applyServerUpdatesPage(
+        calls: List<CallRemoteUpdate>,
+        persons: List<PersonRemoteUpdate>
+    ) = withContext(Dispatchers.IO) {
+        if (calls.isEmpty() && persons.isEmpty()) return@withContext
+        database.withTransaction {
+            applyCallUpdates(calls)
+            applyPersonUpdates(persons)
+        }
+        Log.d(TAG, "Applied server page: ${calls.size} calls, ${persons.size} persons")
+    }
+
+    private suspend fun applyCallUpdates(updates: List<CallRemoteUpdate>) {
+        updates.forEach { update ->
+            callDataDao.updateFromServer(
+                update.compositeId, 
+                update.reviewed, 
+                update.note, 
+                update.callerName, 
+                update.serverUpdatedAt
+            )
+        }
+    }
     
     /**
      * Update person from server (bidirectional sync - pull changes)
@@ -370,37 +502,47 @@ class CallDataRepository private constructor(private val context: Context) {
     suspend fun updatePersonsFromServerBatch(updates: List<PersonRemoteUpdate>) = withContext(Dispatchers.IO) {
         if (updates.isEmpty()) return@withContext
         database.withTransaction {
-            updates.forEach { update ->
-                val normalized = normalizePhoneNumber(update.phone)
-                // Check if person exists (sync call inside transaction)
-                val existing = personDataDao.getByPhoneNumber(normalized)
-                if (existing != null) {
-                    personDataDao.updateFromServer(normalized, update.personNote, update.label, update.name, update.serverUpdatedAt)
-                    
-                    // Update exclusion if provided
-                    if (update.excludeFromSync != null && update.excludeFromList != null) {
-                        personDataDao.updateExclusionType(normalized, update.excludeFromSync, update.excludeFromList)
-                        @Suppress("DEPRECATION")
-                        personDataDao.updateExclusion(normalized, update.excludeFromSync && update.excludeFromList)
-                    }
-                } else {
-                    val excludeSync = update.excludeFromSync ?: false
-                    val excludeList = update.excludeFromList ?: false
-                    
-                    personDataDao.insert(PersonDataEntity(
-                        phoneNumber = normalized,
-                        contactName = update.name,
-                        personNote = update.personNote,
-                        label = update.label,
-                        excludeFromSync = excludeSync,
-                        excludeFromList = excludeList,
-                        isExcluded = excludeSync && excludeList,
-                        serverUpdatedAt = update.serverUpdatedAt
-                    ))
+            applyPersonUpdates(updates)
+        }
+        Log.d(TAG, "Batch updated ${updates.size} persons from server")
+    }
+
+    private suspend fun applyPersonUpdates(updates: List<PersonRemoteUpdate>) {
+        if (updates.isEmpty()) return
+        val normalizedUpdates = updates.map { normalizePhoneNumber(it.phone) to it }
+        // One IN lookup per chunk instead of a query per row (chunked for SQLite's variable limit)
+        val existing = HashSet<String>()
+        normalizedUpdates.map { it.first }.distinct().chunked(500).forEach { chunk ->
+            personDataDao.getByPhoneNumbers(chunk).mapTo(existing) { it.phoneNumber }
+        }
+
+        normalizedUpdates.forEach { (normalized, update) ->
+            if (normalized in existing) {
+                personDataDao.updateFromServer(normalized, update.personNote, update.label, update.name, update.serverUpdatedAt)
+                
+                // Update exclusion if provided
+                if (update.excludeFromSync != null && update.excludeFromList != null) {
+                    personDataDao.updateExclusionType(normalized, update.excludeFromSync, update.excludeFromList)
+                    @Suppress("DEPRECATION")
+                    personDataDao.updateExclusion(normalized, update.excludeFromSync && update.excludeFromList)
                 }
+            } else {
+                val excludeSync = update.excludeFromSync ?: false
+                val excludeList = update.excludeFromList ?: false
+                
+                personDataDao.insert(PersonDataEntity(
+                    phoneNumber = normalized,
+                    contactName = update.name,
+                    personNote = update.personNote,
+                    label = update.label,
+                    excludeFromSync = excludeSync,
+                    excludeFromList = excludeList,
+                    isExcluded = excludeSync && excludeList,
+                    serverUpdatedAt = update.serverUpdatedAt
+                ))
+                existing.add(normalized)
             }
         }
-        Log.d(TAG, "Batch updated ${updates.size} persons from server")
     }
     
     /**
@@ -516,6 +658,31 @@ class CallDataRepository private constructor(private val context: Context) {
             }
         }
     
+    // ============================================
+    // REPORT ROLLUPS
+    // ============================================
+
+    /**
+     * Per-day totals for the local days from [startMillis] to [endMillis], inclusive.
+     * Days left dirty by deletes or edits are recomputed first.
+     */
+    suspend fun getDailyRollup(startMillis: Long, endMillis: Long): List<CallDailyRollupEntity> = withContext(Dispatchers.IO) {
+        ensureRollupTimeZone()
+        val refreshed = rollupDao.refreshDirtyDays()
+        if (refreshed > 0) Log.d(TAG, "Recomputed $refreshed dirty rollup days")
+        val dayFormat = java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.US)
+        rollupDao.getRange(dayFormat.format(java.util.Date(startMillis)), dayFormat.format(java.util.Date(endMillis)))
+    }
+
+    // Day keys are local dates; after a time zone change they no longer line up with callDate
+    private fun ensureRollupTimeZone() {
+        val zone = java.util.TimeZone.getDefault().id
+        if (settingsRepository.getRollupTimeZone() == zone) return
+        database.runInTransaction { CallRollup.rebuild(database.openHelper.writableDatabase) }
+        settingsRepository.setRollupTimeZone(zone)
+        Log.d(TAG, "Rebuilt daily rollup for time zone $zone")
+    }
+
     // ============================================
     // PERSON DATA - READ OPERATIONS
     // ============================================
@@ -558,6 +725,13 @@ class CallDataRepository private constructor(private val context: Context) {
         val normalized = normalizePhoneNumber(phoneNumber)
         personDataDao.isExcludedFromSync(normalized) ?: false
     }
+
+    /**
+     * Normalized numbers excluded from sync, loaded once per sync pass
+     */
+    suspend fun getSyncExcludedPhones(): Set<String> = withContext(Dispatchers.IO) {
+        personDataDao.getSyncExcludedPhones().toHashSet()
+    }
     
     /**
      * Get all persons (one-time fetch)
@@ -566,6 +740,18 @@ class CallDataRepository private constructor(private val context: Context) {
         personDataDao.getAllPersons()
     }
 
+    /**
+     * Walks the same rows as [getAllPersons] in pages of [pageSize], ordered by number.
+     */
+    suspend fun forEachPersonPage(pageSize: Int, block: suspend (List<PersonDataEntity>) -> Unit) = withContext(Dispatchers.IO) {
+        var page = personDataDao.getPersonsPage("", pageSize)
+        while (page.isNotEmpty()) {
+            block(page)
+            if (page.size < pageSize) break
+            page = personDataDao.getPersonsPage(page.last().phoneNumber, pageSize)
+        }
+    }
+
     suspend fun getDistinctLabels(): List<String> = withContext(Dispatchers.IO) {
         personDataDao.getDistinctLabels()
     }
@@ -851,6 +1037,88 @@ class CallDataRepository private constructor(private val context: Context) {
         return Long.MAX_VALUE
     }
 
+    private fun getMaxSystemCallId(): Long {
+        try {
+            context.contentResolver.query(
+                CallLog.Calls.CONTENT_URI,
+                arrayOf(CallLog.Calls._ID),
+                null, null,
+                "${CallLog.Calls._ID} DESC LIMIT 1"
+            )?.use {
+                if (it.moveToFirst()) return it.getLong(0)
+            }
+        } catch (e: Exception) {
+            Log.w(TAG, "Failed to query max system call id", e)
+        }
+        return 0L
+    }
+
+    /**
+     * Incremental import used by CallLogImporter: reads only call log rows with an _ID above
+     * the persisted high-water mark, with the cached column layout. Falls back to the full
+     * sync while there is no mark yet (fresh install, cleared data).
+     *
+     * Returns true only when the call log was read and every new row is in Room. The full
+     * sync fallback can skip silently (already running, smart sync), so it reports false.
+     */
+    suspend fun importNewSystemCalls(): Boolean = withContext(Dispatchers.IO) {
+        if (settingsRepository.getCallLogMaxId() <= 0L || callDataDao.getMaxCallDate() == null) {
+            syncFromSystemCallLog()
+            return@withContext false
+        }
+
+        syncMutex.withLock {
+            if (androidx.core.content.ContextCompat.checkSelfPermission(context, android.Manifest.permission.READ_CALL_LOG) != android.content.pm.PackageManager.PERMISSION_GRANTED) {
+                return@withContext false
+            }
+
+            val simSelection = settingsRepository.getSimSelection()
+            if (simSelection == "Off") return@withContext false
+
+            try {
+                val maxId = settingsRepository.getCallLogMaxId()
+                val deviceId = android.provider.Settings.Secure.getString(context.contentResolver, android.provider.Settings.Secure.ANDROID_ID)
+                val batch = fetchSystemCallLog("${CallLog.Calls._ID} > ?", arrayOf(maxId.toString()), deviceId, simSelection)
+
+                val filterDate = settingsRepository.getTrackStartDate()
+                val candidates = batch.calls.filter { it.callDate >= filterDate }
+                var imported = 0
+                if (candidates.isNotEmpty()) {
+                    val existing = candidates.map { it.compositeId }
+                        .chunked(500)
+                        .flatMap { callDataDao.getExistingCompositeIds(it) }
+                        .toSet()
+                    val newCalls = candidates.filter { it.compositeId !in existing }
+
+                    if (newCalls.isNotEmpty()) {
+                        callDataDao.insertAll(newCalls)
+                        updatePersonsData(newCalls.mapTo(HashSet()) { normalizePhoneNumber(it.phoneNumber) })
+                    }
+                    Log.d(TAG, "Incremental import: ${newCalls.size} new calls above _ID $maxId")
+                    imported = newCalls.size
+                }
+
+                if (batch.maxSystemId > maxId) {
+                    settingsRepository.setCallLogMaxId(batch.maxSystemId)
+                }
+
+                // The periodic sync skips the call log while this path is up to date,
+                // so new calls get their recordings matched here
+                if (imported > 0) {
+                    try {
+                        syncRecordingsOnly()
+                    } catch (e: Exception) {
+                        Log.e(TAG, "Recording matching after import failed", e)
+                    }
+                }
+                true
+            } catch (e: Exception) {
+                Log.e(TAG, "Incremental import failed", e)
+                false
+            }
+        }
+    }
+
     /**
      * Sync new calls from system call log to Room database.
      * This runs in background and updates Room with any new calls.
@@ -894,6 +1162,15 @@ class CallDataRepository private constructor(private val context: Context) {
                 filterDate >= minCallDate // Cutoff is within or after our current range
             }
 
+            // The call log observer has imported every change since it started watching, and the
+            // last full scan used the same window, so no call log query is needed at all
+            val scanFilter = "$filterDate|$simSelection"
+            if (settingsRepository.getScannedCallLogFilter() == scanFilter && CallLogImporter.getInstance(context).isUpToDate()) {
+                Log.d(TAG, "Smart Sync: Call log observer is up to date. Skipping scan.")
+                syncRecordingsOnly()
+                return@withContext
+            }
+
             if (isAtOldestEnd) {
                  val systemLatest = getLatestSystemCallDate()
                  // Allow tiny buffer (1s) for timestamp differences
@@ -922,6 +1199,9 @@ class CallDataRepository private constructor(private val context: Context) {
                 maxOf(filterDate, latestCallDate - (2 * 24 * 60 * 60 * 1000L))
             }
             
+            // Read before the fetch, so rows added meanwhile stay above the mark
+            val systemMaxId = getMaxSystemCallId()
+
             // Get existing IDs once (only need those since fetchStartDate)
             val existingIds = callDataDao.getCompositeIdsSince(fetchStartDate).toSet()
             val existingSystemIds = callDataDao.getSystemIdsSince(fetchStartDate).toSet()
@@ -934,7 +1214,7 @@ class CallDataRepository private constructor(private val context: Context) {
             val newCalls = mutableListOf<CallDataEntity>()
             
             // Track persons to update
-            val personCallsMap = mutableMapOf<String, MutableList<CallDataEntity>>()
+            val personNumbers = HashSet<String>()
             
             for (call in systemCalls) {
                 val normalized = normalizePhoneNumber(call.phoneNumber)
@@ -945,13 +1225,14 @@ class CallDataRepository private constructor(private val context: Context) {
                 }
                 
                 // Track for person update (all calls from system log should be considered)
-                personCallsMap.getOrPut(normalized) { mutableListOf() }.add(call)
+                personNumbers.add(normalized)
             }
             
             // Batch insert new calls
             if (newCalls.isNotEmpty()) {
                 ProcessMonitor.updateProgress(ProcessMonitor.ProcessIds.IMPORT_CALL_LOG, 0.6f, "Found ${newCalls.size} new call${if (newCalls.size == 1) "" else "s"}")
                 callDataDao.insertAll(newCalls)
+                PerfTelemetry.increment(PerfTelemetry.Metrics.IMPORT_NEW_CALLS, newCalls.size.toLong())
                 Log.d(TAG, "Inserted ${newCalls.size} new calls")
             } else {
                 ProcessMonitor.updateProgress(ProcessMonitor.ProcessIds.IMPORT_CALL_LOG, 0.6f, "All calls up to date")
@@ -961,12 +1242,17 @@ class CallDataRepository private constructor(private val context: Context) {
             // CRITICAL UI PERFORMANCE: Update person data immediately after calls are inserted
             // This ensures the "Grouped by Phone" view appears quickly, without waiting 
             // for the potentially slow recording matching process below.
-            updatePersonsData(personCallsMap)
+            updatePersonsData(personNumbers)
             
+            if (systemMaxId > settingsRepository.getCallLogMaxId()) {
+                settingsRepository.setCallLogMaxId(systemMaxId)
+            }
+
             // CRITICAL: Delete any calls from Room that are now before the filter date
             // This handles cases where user changed the start date to a later date
             Log.d(TAG, "Cleaning up calls before $filterDate...")
             callDataDao.deleteBefore(filterDate)
+            settingsRepository.setScannedCallLogFilter(scanFilter)
 
             // 4. Update recordings for calls that don't have them yet (ONLY if feature enabled & permitted)
             syncRecordingsOnly()
@@ -1020,15 +1306,12 @@ class CallDataRepository private constructor(private val context: Context) {
             // Give a small delay for UI to show completion before hiding
             kotlinx.coroutines.delay(800)
             ProcessMonitor.endProcess(ProcessMonitor.ProcessIds.FIND_RECORDINGS)
-            
-            // Clear batch cache to free memory
-            recordingRepository.clearBatchCache()
         }
     }
     
     /**
      * Batch processing mode for recording sync (optimized for 10+ calls)
-     * Uses parallel processing, phone index, and duration caching.
+     * Uses parallel processing over the persistent recording file index.
      */
     private suspend fun syncRecordingsBatch(calls: List<CallDataEntity>) {
         val total = calls.size
@@ -1152,75 +1435,89 @@ class CallDataRepository private constructor(private val context: Context) {
         
     
     /**
-     * Update person data based on their calls
+     * Refresh person rows for [phoneNumbers] from what is stored in call_data.
+     * Set-based: three statements per 500 numbers instead of a lookup and upsert per number.
+     * Missing persons are created, the last-call summary moves only to a newer call, and the
+     * totals are recomputed from the stored calls (no double counting on re-import).
      */
-    private suspend fun updatePersonsData(personCalls: Map<String, List<CallDataEntity>>) {
-        if (personCalls.isEmpty()) return
-        
-        // Fetch all existing persons for these numbers once
-        val phoneNumbers = personCalls.keys.toList()
-        val existingPersons = personDataDao.getByPhoneNumbers(phoneNumbers).associateBy { it.phoneNumber }
-        
-        // NEW: Fetch accurate stats from the DB for all these numbers to avoid double-counting bug
-        val accurateStats = callDataDao.getCallStatsForNumbers(phoneNumbers).associateBy { it.phoneNumber }
-        
-        val personsToUpdate = mutableListOf<PersonDataEntity>()
-        
-        for ((phoneNumber, calls) in personCalls) {
-            val sortedCalls = calls.sortedByDescending { it.callDate }
-            val incomingLatest = sortedCalls.firstOrNull() ?: continue
-            
-            // Robust lookup to match existing person data
-            val existing = existingPersons[phoneNumber] ?: getPersonRobust(phoneNumber)
-            val stats = accurateStats[phoneNumber]
-            
-            // Only update "Last Call" info if the latest call in this batch is newer than existing
-            val isNewer = incomingLatest.callDate > (existing?.lastCallDate ?: 0L)
-            
-            val personEntity = PersonDataEntity(
-                phoneNumber = phoneNumber,
-                contactName = if (isNewer) {
-                    incomingLatest.contactName?.takeIf { it.isNotBlank() } ?: existing?.contactName?.takeIf { it.isNotBlank() }
-                } else {
-                    existing?.contactName?.takeIf { it.isNotBlank() } ?: incomingLatest.contactName?.takeIf { it.isNotBlank() }
-                },
-                photoUri = if (isNewer) (incomingLatest.photoUri ?: existing?.photoUri) else existing?.photoUri,
-                personNote = existing?.personNote,  // Preserve existing note
-                label = existing?.label, // Preserve existing label
-                lastCallType = if (isNewer) incomingLatest.callType else (existing?.lastCallType ?: incomingLatest.callType),
-                lastCallDuration = if (isNewer) incomingLatest.duration else (existing?.lastCallDuration ?: incomingLatest.duration),
-                lastCallDate = if (isNewer) incomingLatest.callDate else (existing?.lastCallDate ?: incomingLatest.callDate),
-                lastRecordingPath = if (isNewer) incomingLatest.localRecordingPath else (existing?.lastRecordingPath ?: incomingLatest.localRecordingPath),
-                lastCallCompositeId = if (isNewer) incomingLatest.compositeId else (existing?.lastCallCompositeId ?: incomingLatest.compositeId),
-                
-                // Use accurate stats from DB
-                totalCalls = stats?.totalCalls ?: (existing?.totalCalls ?: 0),
-                totalIncoming = stats?.totalIncoming ?: (existing?.totalIncoming ?: 0),
-                totalOutgoing = stats?.totalOutgoing ?: (existing?.totalOutgoing ?: 0),
-                totalMissed = stats?.totalMissed ?: (existing?.totalMissed ?: 0),
-                totalDuration = stats?.totalDuration ?: (existing?.totalDuration ?: 0L),
-                
-                createdAt = existing?.createdAt ?: System.currentTimeMillis(),
-                updatedAt = System.currentTimeMillis(),
-                isExcluded = existing?.isExcluded ?: false,
-                excludeFromSync = existing?.excludeFromSync ?: false,
-                excludeFromList = existing?.excludeFromList ?: false,
-                needsSync = existing?.needsSync ?: (existing == null) // If new person, mark for first sync
-            )
-            personsToUpdate.add(personEntity)
-        }
-        
-        if (personsToUpdate.isNotEmpty()) {
-            personDataDao.insertAll(personsToUpdate)
-            Log.d(TAG, "Updated ${personsToUpdate.size} persons with fresh stats")
+    private suspend fun updatePersonsData(phoneNumbers: Collection<String>) {
+        if (phoneNumbers.isEmpty()) return
+        val now = System.currentTimeMillis()
+        PerfTelemetry.time(PerfTelemetry.Metrics.IMPORT_PERSON_AGGREGATES) {
+            database.withTransaction {
+                phoneNumbers.chunked(500).forEach { chunk ->
+                    personDataDao.insertMissingFromCalls(chunk, now)
+                    personDataDao.refreshLastCallFromCalls(chunk)
+                    personDataDao.refreshTotalsFromCalls(chunk, now)
+                }
+            }
         }
+        Log.d(TAG, "Refreshed ${phoneNumbers.size} persons from call_data")
     }
     
     /**
      * Fetch calls from Android system call log, filtered by SIM selection
      */
-    private fun fetchSystemCallLog(startDate: Long, deviceId: String, simSelection: String): List<CallDataEntity> {
+    /**
+     * Rows read from the system call log. [maxSystemId] covers every row returned by the
+     * provider, including the ones dropped by the SIM filter.
+     */
+    private data class SystemCallLogBatch(
+        val calls: List<CallDataEntity>,
+        val maxSystemId: Long
+    )
+
+    // Potential SIM identity columns across different manufacturers
+    private val potentialSimColumns = listOf("subscription_id", "sim_id", "sim_slot", "phone_id", "sub_id")
+
+    @Volatile
+    private var cachedSimColumns: List<String>? = null
+
+    /**
+     * DYNAMIC DETECTION: Find which SIM columns are actually supported by this device.
+     * The result is persisted per OS build, so the discovery query runs once per device/update.
+     */
+    private fun getSupportedSimColumns(): List<String> {
+        cachedSimColumns?.let { return it }
+
+        val build = android.os.Build.FINGERPRINT ?: ""
+        settingsRepository.getCallLogSimColumns(build)?.let {
+            cachedSimColumns = it
+            return it
+        }
+
+        // We query for 0 rows with null projection to get the column list safely
+        val supportedSimColumns = mutableListOf<String>()
+        try {
+            context.contentResolver.query(CallLog.Calls.CONTENT_URI, null, "${CallLog.Calls._ID} = -1", null, null)?.use {
+                val allColumnNames = it.columnNames.toSet()
+                potentialSimColumns.forEach { col ->
+                    if (allColumnNames.contains(col)) {
+                        supportedSimColumns.add(col)
+                    }
+                }
+            }
+        } catch (e: Exception) {
+            Log.e("CallDataRepository", "Error detecting SIM columns", e)
+            return supportedSimColumns // Don't persist a failed discovery
+        }
+
+        settingsRepository.setCallLogSimColumns(build, supportedSimColumns)
+        cachedSimColumns = supportedSimColumns
+        return supportedSimColumns
+    }
+
+    private fun fetchSystemCallLog(startDate: Long, deviceId: String, simSelection: String): List<CallDataEntity> =
+        fetchSystemCallLog("${CallLog.Calls.DATE} >= ?", arrayOf(startDate.toString()), deviceId, simSelection).calls
+
+    private fun fetchSystemCallLog(
+        selection: String,
+        selectionArgs: Array<String>,
+        deviceId: String,
+        simSelection: String
+    ): SystemCallLogBatch {
         val calls = mutableListOf<CallDataEntity>()
+        var maxSystemId = 0L
         
         // Get SIM IDs from settings to match subscription IDs
         val sim1SubId = settingsRepository.getSim1SubscriptionId()
@@ -1236,29 +1533,10 @@ class CallDataRepository private constructor(private val context: Context) {
             CallLog.Calls.CACHED_PHOTO_URI
         )
         
-        // Potential SIM identity columns across different manufacturers
-        val potentialSimColumns = listOf("subscription_id", "sim_id", "sim_slot", "phone_id", "sub_id")
-        
-        // DYNAMIC DETECTION: Find which SIM columns are actually supported by this device
-        // We query for 0 rows with null projection to get the column list safely
-        val supportedSimColumns = mutableListOf<String>()
-        try {
-            context.contentResolver.query(CallLog.Calls.CONTENT_URI, null, "${CallLog.Calls._ID} = -1", null, null)?.use {
-                val allColumnNames = it.columnNames.toSet()
-                potentialSimColumns.forEach { col ->
-                    if (allColumnNames.contains(col)) {
-                        supportedSimColumns.add(col)
-                    }
-                }
-            }
-        } catch (e: Exception) {
-            Log.e("CallDataRepository", "Error detecting SIM columns", e)
-        }
+        val supportedSimColumns = getSupportedSimColumns()
 
         val projection = (baseProjection + supportedSimColumns).toTypedArray()
         
-        val selection = "${CallLog.Calls.DATE} >= ?"
-        val selectionArgs = arrayOf(startDate.toString())
         val sortOrder = "${CallLog.Calls.DATE} DESC"
         
         try {
@@ -1284,6 +1562,7 @@ class CallDataRepository private constructor(private val context: Context) {
                 
                 while (it.moveToNext()) {
                     val systemId = it.getString(idIdx) ?: continue
+                    maxSystemId = maxOf(maxSystemId, it.getLong(idIdx))
                     val rawNumber = it.getString(numberIdx) ?: "Unknown"
                     val number = normalizePhoneNumber(rawNumber)
                     val name = it.getString(nameIdx)
@@ -1328,7 +1607,7 @@ class CallDataRepository private constructor(private val context: Context) {
             Log.e(TAG, "Error fetching system call log", e)
         }
         
-        return calls
+        return SystemCallLogBatch(calls, maxSystemId)
     }
     
     /**
@@ -1353,29 +1632,7 @@ class CallDataRepository private constructor(private val context: Context) {
     /**
      * Normalize phone number for consistent person lookup
      */
-    fun normalizePhoneNumber(number: String): String {
-        val strip = number.filter { it.isDigit() || it == '+' }
-        
-        try {
-            val tm = context.getSystemService(Context.TELEPHONY_SERVICE) as? android.telephony.TelephonyManager
-            var countryIso = tm?.networkCountryIso
-            
-            if (countryIso.isNullOrEmpty()) {
-                countryIso = java.util.Locale.getDefault().country
-            }
-            
-            if (!countryIso.isNullOrEmpty()) {
-                val formatted = android.telephony.PhoneNumberUtils.formatNumberToE164(strip, countryIso.uppercase())
-                if (formatted != null) {
-                    return formatted
-                }
-            }
-        } catch (e: Exception) {
-            Log.w(TAG, "Failed to normalize number $number: ${e.message}")
-        }
-        
-        return strip
-    }
+    fun normalizePhoneNumber(number: String): String = phoneNormalizer.normalize(number)
     
     // ============================================
     // CLEAR DATA
@@ -0,0 +1,112 @@
+package com.miniclick.calltrackmanage.data
+
+import android.content.Context
+import android.database.ContentObserver
+import android.provider.CallLog
+import android.util.Log
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.debounce
+import kotlinx.coroutines.launch
+
+/**
+ * Watches the system call log and imports new rows as soon as they appear.
+ *
+ * Change notifications arrive in bursts (insert, cached name, cached number type...), so
+ * they are debounced into a single CallDataRepository.importNewSystemCalls() run, which
+ * only reads rows above the persisted _ID high-water mark.
+ *
+ * While the observer is registered and nothing changed since the last import,
+ * [isUpToDate] lets the periodic sync skip the call log entirely.
+ */
+class CallLogImporter private constructor(private val context: Context) {
+
+    private val scope = CoroutineScope(Dispatchers.IO + SupervisorJob())
+    private val changes = MutableSharedFlow<Unit>(extraBufferCapacity = 1, onBufferOverflow = BufferOverflow.DROP_OLDEST)
+
+    @Volatile
+    private var observer: ContentObserver? = null
+    private var importJob: Job? = null
+
+    // True when the call log may contain rows that are not in Room yet
+    @Volatile
+    private var dirty = true
+
+    @OptIn(FlowPreview::class)
+    @Synchronized
+    fun start() {
+        if (observer != null) return
+        if (androidx.core.content.ContextCompat.checkSelfPermission(context, android.Manifest.permission.READ_CALL_LOG) != android.content.pm.PackageManager.PERMISSION_GRANTED) {
+            Log.d(TAG, "READ_CALL_LOG not granted, not watching call log")
+            return
+        }
+
+        val callLogObserver = object : ContentObserver(null) {
+            override fun onChange(selfChange: Boolean) {
+                dirty = true
+                changes.tryEmit(Unit)
+            }
+        }
+
+        try {
+            context.contentResolver.registerContentObserver(CallLog.Calls.CONTENT_URI, true, callLogObserver)
+        } catch (e: SecurityException) {
+            Log.e(TAG, "Failed to register call log observer", e)
+            return
+        }
+        observer = callLogObserver
+
+        importJob = scope.launch {
+            changes.debounce(DEBOUNCE_MS).collect { importNow() }
+        }
+
+        // Catch up on anything added while we were not watching
+        dirty = true
+        changes.tryEmit(Unit)
+        Log.d(TAG, "Watching call log")
+    }
+
+    @Synchronized
+    fun stop() {
+        observer?.let { context.contentResolver.unregisterContentObserver(it) }
+        observer = null
+        importJob?.cancel()
+        importJob = null
+        dirty = true
+        Log.d(TAG, "Stopped watching call log")
+    }
+
+    fun isUpToDate(): Boolean = observer != null && !dirty
+
+    private suspend fun importNow() {
+        // Cleared before reading, so a change that lands during the import marks it dirty again
+        dirty = false
+        val imported = try {
+            CallDataRepository.getInstance(context).importNewSystemCalls()
+        } catch (e: Exception) {
+            Log.e(TAG, "Call log import failed", e)
+            false
+        }
+        // Skipped or failed: leave it to the periodic sync to read the call log
+        if (!imported) dirty = true
+    }
+
+    companion object {
+        private const val TAG = "CallLogImporter"
+        private const val DEBOUNCE_MS = 500L
+
+        @Volatile
+        private var INSTANCE: CallLogImporter? = null
+
+        fun getInstance(context: Context): CallLogImporter {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: CallLogImporter(context.applicationContext).also { INSTANCE = it }
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.miniclick.calltrackmanage.data
+
+import android.content.Context
+import android.os.SystemClock
+import android.util.Log
+import androidx.room.withTransaction
+import com.miniclick.calltrackmanage.data.db.AppDatabase
+import com.miniclick.calltrackmanage.data.db.PerfMetricEntity
+import kotlinx.coroutines.*
+import java.text.SimpleDateFormat
+import java.util.*
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Lightweight timers and counters for sync phases, persisted per day to perf_metrics.
+ *
+ * Recording only touches an in-memory map; a flush a few seconds later merges the deltas
+ * into today's rows in one transaction and drops days older than [RETENTION_DAYS].
+ * ProcessMonitor reports every process duration here, so each phase is timed without
+ * call sites doing anything. Metrics are best-effort: a failed flush is logged and dropped.
+ */
+object PerfTelemetry {
+    private const val TAG = "PerfTelemetry"
+    private const val FLUSH_DELAY_MS = 5_000L
+
+    const val KIND_TIMER = "timer"
+    const val KIND_COUNTER = "counter"
+    const val RETENTION_DAYS = 14
+    const val DEFAULT_WINDOW_DAYS = 7
+
+    /** Inclusive upper bounds (ms) of the timer histogram buckets; one more bucket holds the rest */
+    val BUCKET_BOUNDS_MS = longArrayOf(10, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000, 300_000)
+
+    object Metrics {
+        const val UPLOAD_BYTES = "upload.bytes"
+        const val UPLOAD_RECORDING = "upload.recording"
+        const val UPLOAD_WALL = "upload.wall"
+        const val SYNC_PULL = "sync.pull"
+        const val SYNC_PULL_ROWS = "sync.pull_rows"
+        const val SYNC_PUSH_BATCH = "sync.push_batch"
+        const val IMPORT_NEW_CALLS = "import.new_calls"
+        const val IMPORT_PERSON_AGGREGATES = "import.person_aggregates"
+        const val RECORDING_INDEX_REFRESH = "recordings.index_refresh"
+        const val RECORDING_BATCH_SEARCH = "recordings.batch_search"
+        const val CALLER_ID_OVERLAY = "callerid.overlay"
+
+        fun process(id: String) = "process.$id"
+        fun processFailed(id: String) = "process.$id.failed"
+    }
+
+    data class MetricSummary(
+        val name: String,
+        val kind: String,
+        val count: Long,
+        val total: Long,
+        val min: Long,
+        val max: Long,
+        val p50: Long,
+        val p90: Long
+    ) {
+        val average: Long get() = if (count == 0L) 0L else total / count
+    }
+
+    internal class Delta(val kind: String) {
+        var count = 0L
+        var total = 0L
+        var min = Long.MAX_VALUE
+        var max = Long.MIN_VALUE
+        val buckets = if (kind == KIND_TIMER) LongArray(BUCKET_BOUNDS_MS.size + 1) else null
+
+        fun add(value: Long) {
+            count++
+            total += value
+            if (value < min) min = value
+            if (value > max) max = value
+            buckets?.let { it[bucketIndex(value)]++ }
+        }
+    }
+
+    private val pending = HashMap<String, Delta>()
+    private val flushScheduled = AtomicBoolean(false)
+    private val scope = CoroutineScope(Dispatchers.IO + SupervisorJob())
+
+    @Volatile
+    private var appContext: Context? = null
+
+    fun init(context: Context) {
+        appContext = context.applicationContext
+    }
+
+    fun recordDuration(name: String, millis: Long) {
+        val value = millis.coerceAtLeast(0L)
+        synchronized(pending) {
+            pending.getOrPut(name) { Delta(KIND_TIMER) }.add(value)
+        }
+        scheduleFlush()
+    }
+
+    fun increment(name: String, amount: Long = 1L) {
+        synchronized(pending) {
+            pending.getOrPut(name) { Delta(KIND_COUNTER) }.add(amount)
+        }
+        scheduleFlush()
+    }
+
+    inline fun <T> time(name: String, block: () -> T): T {
+        val start = SystemClock.elapsedRealtime()
+        try {
+            return block()
+        } finally {
+            recordDuration(name, SystemClock.elapsedRealtime() - start)
+        }
+    }
+
+    /**
+     * Merge pending deltas into today's rows. Called by the scheduled flush; readers call it
+     * first so they see the latest numbers.
+     */
+    suspend fun flush() = withContext(Dispatchers.IO) {
+        val context = appContext ?: return@withContext
+        val drained = synchronized(pending) {
+            if (pending.isEmpty()) return@withContext
+            HashMap(pending).also { pending.clear() }
+        }
+
+        val day = dayString(0)
+        val database = AppDatabase.getInstance(context)
+        val dao = database.perfMetricDao()
+        try {
+            database.withTransaction {
+                drained.forEach { (name, delta) ->
+                    dao.upsert(merge(dao.get(name, day), name, day, delta))
+                }
+                dao.deleteBefore(dayString(-RETENTION_DAYS))
+            }
+        } catch (e: Exception) {
+            Log.w(TAG, "Failed to flush ${drained.size} metrics", e)
+        }
+    }
+
+    /**
+     * Totals per metric over the last [days] days (today included), sorted by name.
+     */
+    suspend fun summarize(days: Int = DEFAULT_WINDOW_DAYS): List<MetricSummary> = withContext(Dispatchers.IO) {
+        val context = appContext ?: return@withContext emptyList()
+        flush()
+        summarizeRows(AppDatabase.getInstance(context).perfMetricDao().getSince(dayString(-(days - 1))))
+    }
+
+    internal fun summarizeRows(rows: List<PerfMetricEntity>): List<MetricSummary> =
+        rows.groupBy { it.name }.map { (name, metricRows) ->
+            val kind = metricRows.first().kind
+            val buckets = LongArray(BUCKET_BOUNDS_MS.size + 1)
+            metricRows.forEach { row -> addBuckets(buckets, row.buckets) }
+            val max = metricRows.maxOf { it.max }
+            MetricSummary(
+                name = name,
+                kind = kind,
+                count = metricRows.sumOf { it.count },
+                total = metricRows.sumOf { it.total },
+                min = metricRows.minOf { it.min },
+                max = max,
+                p50 = if (kind == KIND_TIMER) percentile(buckets, 0.5, max) else 0L,
+                p90 = if (kind == KIND_TIMER) percentile(buckets, 0.9, max) else 0L
+            )
+        }.sortedBy { it.name }
+
+    /**
+     * Upload throughput in bytes per second over the summarized window, or null without uploads.
+     * [Metrics.UPLOAD_BYTES] only counts recordings that finished uploading, and [Metrics.UPLOAD_WALL]
+     * is the wall time of the upload runs that sent them, so parallel uploads are not double-timed.
+     */
+    fun uploadBytesPerSecond(summaries: List<MetricSummary>): Long? {
+        val bytes = summaries.find { it.name == Metrics.UPLOAD_BYTES }?.total ?: return null
+        val millis = summaries.find { it.name == Metrics.UPLOAD_WALL }?.total ?: return null
+        return if (millis <= 0L) null else bytes * 1000L / millis
+    }
+
+    /** Plain-text table for LogExporter */
+    fun formatReport(summaries: List<MetricSummary>, days: Int): String = buildString {
+        append("Window: last $days days\n")
+        if (summaries.isEmpty()) {
+            append("No metrics recorded\n")
+            return@buildString
+        }
+        summaries.forEach { m ->
+            if (m.kind == KIND_TIMER) {
+                append("${m.name}: n=${m.count} avg=${m.average}ms p50<=${m.p50}ms p90<=${m.p90}ms min=${m.min}ms max=${m.max}ms\n")
+            } else {
+                append("${m.name}: total=${m.total} (${m.count} increments)\n")
+            }
+        }
+        uploadBytesPerSecond(summaries)?.let { append("Upload throughput: ${it / 1024} KB/s\n") }
+    }
+
+    suspend fun clear() = withContext(Dispatchers.IO) {
+        synchronized(pending) { pending.clear() }
+        appContext?.let { AppDatabase.getInstance(it).perfMetricDao().deleteAll() }
+    }
+
+    private fun scheduleFlush() {
+        if (appContext == null || !flushScheduled.compareAndSet(false, true)) return
+        scope.launch {
+            delay(FLUSH_DELAY_MS)
+            flushScheduled.set(false)
+            flush()
+        }
+    }
+
+    internal fun merge(existing: PerfMetricEntity?, name: String, day: String, delta: Delta): PerfMetricEntity {
+        val buckets = LongArray(BUCKET_BOUNDS_MS.size + 1)
+        existing?.let { addBuckets(buckets, it.buckets) }
+        delta.buckets?.forEachIndexed { i, c -> buckets[i] += c }
+        return PerfMetricEntity(
+            name = name,
+            day = day,
+            kind = delta.kind,
+            count = (existing?.count ?: 0L) + delta.count,
+            total = (existing?.total ?: 0L) + delta.total,
+            min = if (existing == null) delta.min else minOf(existing.min, delta.min),
+            max = if (existing == null) delta.max else maxOf(existing.max, delta.max),
+            buckets = if (delta.kind == KIND_TIMER) buckets.joinToString(",") else ""
+        )
+    }
+
+    private fun addBuckets(target: LongArray, encoded: String) {
+        if (encoded.isEmpty()) return
+        encoded.split(',').forEachIndexed { i, part ->
+            if (i < target.size) target[i] += part.toLongOrNull() ?: 0L
+        }
+    }
+
+    private fun bucketIndex(millis: Long): Int {
+        for (i in BUCKET_BOUNDS_MS.indices) {
+            if (millis <= BUCKET_BOUNDS_MS[i]) return i
+        }
+        return BUCKET_BOUNDS_MS.size
+    }
+
+    // Upper bound of the bucket holding the q-th sample; the overflow bucket reports the max
+    internal fun percentile(buckets: LongArray, q: Double, max: Long): Long {
+        val total = buckets.sum()
+        if (total == 0L) return 0L
+        val rank = Math.ceil(total * q).toLong().coerceAtLeast(1L)
+        var seen = 0L
+        for (i in buckets.indices) {
+            seen += buckets[i]
+            if (seen >= rank) return if (i < BUCKET_BOUNDS_MS.size) minOf(BUCKET_BOUNDS_MS[i], max) else max
+        }
+        return max
+    }
+
+    private fun dayString(offsetDays: Int): String {
+        val calendar = Calendar.getInstance()
+        calendar.add(Calendar.DAY_OF_YEAR, offsetDays)
+        return SimpleDateFormat("yyyy-MM-dd", Locale.US).format(calendar.time)
+    }
+}
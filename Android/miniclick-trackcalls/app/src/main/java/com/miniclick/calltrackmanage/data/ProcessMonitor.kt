@@ -8,6 +8,7 @@ import kotlinx.coroutines.flow.update
 /**
  * Singleton to track global background processes for UI feedback.
  * Now supports multiple concurrent processes.
+ * Each running process's duration is also reported to [PerfTelemetry] when it ends.
  */
 object ProcessMonitor {
     
@@ -116,6 +117,7 @@ object ProcessMonitor {
      */
     fun completeProcess(id: String, message: String? = null) {
         android.util.Log.d("ProcessMonitor", "Completing process: $id")
+        recordDuration(id, failed = false)
         _allProcesses.update { processes ->
             val current = processes[id]
             if (current != null) {
@@ -143,6 +145,7 @@ object ProcessMonitor {
      */
     fun failProcess(id: String, error: String? = null) {
         android.util.Log.d("ProcessMonitor", "Process failed: $id - $error")
+        recordDuration(id, failed = true)
         _allProcesses.update { processes ->
             val current = processes[id]
             if (current != null) {
@@ -164,6 +167,7 @@ object ProcessMonitor {
      */
     fun endProcess(id: String) {
         android.util.Log.d("ProcessMonitor", "Ending process: $id")
+        recordDuration(id, failed = false)
         _allProcesses.update { it - id }
         if (_activeProcess.value?.id == id) {
             val otherProcess = _allProcesses.value.values.find { it.id != id && it.status == ProcessStatus.RUNNING }
@@ -178,6 +182,7 @@ object ProcessMonitor {
         val currentId = _activeProcess.value?.id
         android.util.Log.d("ProcessMonitor", "Ending active process: $currentId")
         if (currentId != null) {
+            recordDuration(currentId, failed = false)
             _allProcesses.update { it - currentId }
             // Pick next running process
             val nextProcess = _allProcesses.value.values.find { it.status == ProcessStatus.RUNNING }
@@ -220,6 +225,14 @@ object ProcessMonitor {
         }
     }
     
+    // Only RUNNING entries have a meaningful startTime; PENDING ones are just queue counts
+    private fun recordDuration(id: String, failed: Boolean) {
+        val process = _allProcesses.value[id] ?: return
+        if (process.status != ProcessStatus.RUNNING) return
+        PerfTelemetry.recordDuration(PerfTelemetry.Metrics.process(id), System.currentTimeMillis() - process.startTime)
+        if (failed) PerfTelemetry.increment(PerfTelemetry.Metrics.processFailed(id))
+    }
+
     /**
      * Clear all processes (for reset)
      */
@@ -7,14 +7,20 @@ import android.os.Build
 import android.os.Environment
 import android.provider.MediaStore
 import android.util.Log
+import android.util.LruCache
 import androidx.documentfile.provider.DocumentFile
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.async
 import kotlinx.coroutines.awaitAll
 import kotlinx.coroutines.isActive
 import kotlinx.coroutines.supervisorScope
-import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
 import kotlinx.coroutines.withContext
+import com.miniclick.calltrackmanage.data.db.AppDatabase
+import com.miniclick.calltrackmanage.data.db.RecordingFileEntity
+import com.miniclick.calltrackmanage.util.audio.RecordingFilenameParser
+import com.miniclick.calltrackmanage.util.call.PhoneNormalizer
 import java.io.File
 
 class RecordingRepository private constructor(private val context: Context) {
@@ -35,38 +41,28 @@ class RecordingRepository private constructor(private val context: Context) {
     private val CACHE_EXPIRY_MS = 30_000 // 30 seconds is enough for one sync pass
     
     // --- Optimization 1: Duration Cache ---
-    // Caches audio file durations to avoid expensive MediaMetadataRetriever calls
-    private val durationCache = mutableMapOf<String, Long>()
-    private var durationCacheTime: Long = 0
-    private val DURATION_CACHE_EXPIRY_MS = 60_000 // 1 minute
-    
-    // --- Optimization 2: Phone Number Index ---
-    // Maps phone number suffixes to files for O(1) lookups
-    private var phoneIndex = mutableMapOf<String, MutableList<RecordingSourceFile>>()
-    private var phoneIndexTime: Long = 0
-    
-    // --- Optimization 3: Batch File Cache ---
-    // Pre-loaded files for batch processing
-    private var batchFileCache: List<RecordingSourceFile> = emptyList()
-    private var batchFileCacheTime: Long = 0
-    private val BATCH_CACHE_EXPIRY_MS = 120_000 // 2 minutes for batch operations
+    // Bounded memo in front of recording_files.durationMs, mostly for files that are not in
+    // the index (shared imports, single lookups). Keyed by path + size + mtime, so a rewritten
+    // file misses instead of going stale. LruCache is synchronized: findRecordingsBatch probes
+    // durations from several coroutines at once.
+    private val durationCache = LruCache<String, Long>(DURATION_CACHE_SIZE)
+
+    // --- Optimization 2: Persistent Recording File Index ---
+    // recording_files replaces the per-sync file list and phone index. It is refreshed
+    // incrementally, so a sync neither re-walks unchanged folders nor re-probes unchanged files.
+    private val recordingFileDao by lazy { AppDatabase.getInstance(context).recordingFileDao() }
+    private val indexMutex = Mutex()
+    private val KEY_INDEX_FOLDER_MTIME = "recording_index_folder_mtime:"
+    private val KEY_INDEX_MS_VERSION = "recording_index_mediastore_version"
+    private val KEY_INDEX_MS_GENERATION = "recording_index_mediastore_generation"
+    private val KEY_INDEX_MS_FULL_SCAN = "recording_index_mediastore_full_scan"
+    private val FOLDER_SETTLE_MS = 10 * 60 * 1000L // Folders touched recently are always re-listed
+    private val MEDIASTORE_WINDOW_MS = 30L * 24 * 60 * 60 * 1000 // Same 30 days the batch scan used
+    private val MEDIASTORE_FULL_SCAN_INTERVAL_MS = 24 * 60 * 60 * 1000L // Picks up deletions
 
     companion object {
         private const val TAG = "RecordingRepository"
-        
-        // Compiled Patterns for Performance using Regex class since they are reused
-        private val PATTERN_ONEPLUS = java.util.regex.Pattern.compile("(\\d{10})")
-        private val PATTERN_STANDARD = java.util.regex.Pattern.compile("(\\d{8}[_\\-]\\d{6})")
-        // Samsung: "Call recording John_9876543210_2026-01-09" or "Record_9876543210_20260109"
-        private val PATTERN_SAMSUNG = java.util.regex.Pattern.compile("(\\d{4})[_\\-](\\d{2})[_\\-](\\d{2})[_\\-]?(\\d{2})[:\\-]?(\\d{2})[:\\-]?(\\d{2})?")
-        // Xiaomi: "Rec_9876543210_20260109_100500.mp3" or "{Number}({Name})_{Date}_{Time}.mp3"
-        private val PATTERN_XIAOMI = java.util.regex.Pattern.compile("(\\d{4})(\\d{2})(\\d{2})[_\\-](\\d{2})(\\d{2})(\\d{2})")
-        // Huawei: "{Number}_{Date}_{Time}.amr" format with dashes
-        private val PATTERN_HUAWEI = java.util.regex.Pattern.compile("(\\d{2})[\\-/](\\d{2})[\\-/](\\d{4})[_\\-](\\d{2})[:\\-](\\d{2})")
-        // Generic timestamp at start: 1736380200123.mp3 (Unix timestamp in ms)
-        private val PATTERN_UNIX_MS = java.util.regex.Pattern.compile("^(1[5-9]\\d{11})")
-        // Generic timestamp: 1736380200.mp3 (Unix timestamp in seconds)
-        private val PATTERN_UNIX_SEC = java.util.regex.Pattern.compile("^(1[5-9]\\d{8})")
+        private const val DURATION_CACHE_SIZE = 1024
 
         @Volatile
         private var INSTANCE: RecordingRepository? = null
@@ -453,7 +449,8 @@ class RecordingRepository private constructor(private val context: Context) {
         val name: String,
         val lastModified: Long,
         val absolutePath: String, // Can be local path or content URI
-        val isLocal: Boolean
+        val isLocal: Boolean,
+        val size: Long = -1L // -1 when the source did not report it
     )
 
     /**
@@ -627,111 +624,7 @@ class RecordingRepository private constructor(private val context: Context) {
     /**
      * Normalize phone number
      */
-    private fun normalizePhoneNumber(phone: String): String {
-        return phone.replace(Regex("[^0-9]"), "")
-    }
-
-    /**
-     * Try to extract a timestamp from the filename using common recording patterns.
-     * Supports: OnePlus, Samsung, Xiaomi, Huawei, Unix timestamps, and standard formats.
-     */
-    private fun extractDateFromFilename(fileName: String): Long? {
-        try {
-            // Pattern 1: Unix timestamp in milliseconds (e.g., 1736380200123.mp3)
-            val matcherUnixMs = PATTERN_UNIX_MS.matcher(fileName)
-            if (matcherUnixMs.find()) {
-                val timestamp = matcherUnixMs.group(1)?.toLongOrNull()
-                if (timestamp != null && timestamp > 1500000000000L && timestamp < 2000000000000L) {
-                    return timestamp
-                }
-            }
-            
-            // Pattern 2: Unix timestamp in seconds (e.g., 1736380200.mp3)
-            val matcherUnixSec = PATTERN_UNIX_SEC.matcher(fileName)
-            if (matcherUnixSec.find()) {
-                val timestamp = matcherUnixSec.group(1)?.toLongOrNull()
-                if (timestamp != null && timestamp > 1500000000L && timestamp < 2000000000L) {
-                    return timestamp * 1000L
-                }
-            }
-            
-            // Pattern 3: Xiaomi format: yyyyMMdd_HHmmss (e.g., 20260109_100500)
-            val matcherXiaomi = PATTERN_XIAOMI.matcher(fileName)
-            if (matcherXiaomi.find()) {
-                val year = matcherXiaomi.group(1)
-                val month = matcherXiaomi.group(2)
-                val day = matcherXiaomi.group(3)
-                val hour = matcherXiaomi.group(4)
-                val minute = matcherXiaomi.group(5)
-                val second = matcherXiaomi.group(6)
-                if (year != null && month != null && day != null) {
-                    val dateStr = "$year$month$day${hour ?: "00"}${minute ?: "00"}${second ?: "00"}"
-                    val sdf = java.text.SimpleDateFormat("yyyyMMddHHmmss", java.util.Locale.getDefault())
-                    return sdf.parse(dateStr)?.time
-                }
-            }
-            
-            // Pattern 4: Samsung format: yyyy-MM-dd_HH-mm-ss or yyyy-MM-dd-HH-mm-ss
-            val matcherSamsung = PATTERN_SAMSUNG.matcher(fileName)
-            if (matcherSamsung.find()) {
-                val year = matcherSamsung.group(1)
-                val month = matcherSamsung.group(2)
-                val day = matcherSamsung.group(3)
-                val hour = matcherSamsung.group(4) ?: "00"
-                val minute = matcherSamsung.group(5) ?: "00"
-                val second = matcherSamsung.group(6) ?: "00"
-                if (year != null && month != null && day != null) {
-                    val yearInt = year.toIntOrNull() ?: return null
-                    if (yearInt in 2020..2040) {
-                        val dateStr = "$year$month$day$hour$minute$second"
-                        val sdf = java.text.SimpleDateFormat("yyyyMMddHHmmss", java.util.Locale.getDefault())
-                        return sdf.parse(dateStr)?.time
-                    }
-                }
-            }
-            
-            // Pattern 5: Huawei format: dd-MM-yyyy_HH-mm (e.g., 09-01-2026_10-05)
-            val matcherHuawei = PATTERN_HUAWEI.matcher(fileName)
-            if (matcherHuawei.find()) {
-                val day = matcherHuawei.group(1)
-                val month = matcherHuawei.group(2)
-                val year = matcherHuawei.group(3)
-                val hour = matcherHuawei.group(4) ?: "00"
-                val minute = matcherHuawei.group(5) ?: "00"
-                if (year != null && month != null && day != null) {
-                    val dateStr = "$year$month$day${hour}${minute}00"
-                    val sdf = java.text.SimpleDateFormat("yyyyMMddHHmmss", java.util.Locale.getDefault())
-                    return sdf.parse(dateStr)?.time
-                }
-            }
-            
-            // Pattern 6: Standard yyyyMMdd_HHmmss or yyyyMMdd-HHmmss
-            val matcherStandard = PATTERN_STANDARD.matcher(fileName)
-            if (matcherStandard.find()) {
-                val dateStr = matcherStandard.group(1)?.replace("-", "")?.replace("_", "") ?: return null
-                val sdf = java.text.SimpleDateFormat("yyyyMMddHHmmss", java.util.Locale.getDefault())
-                return sdf.parse(dateStr)?.time
-            }
-            
-            // Pattern 7: OnePlus / ODialer: yyMMddHHmm (e.g., 2601090249)
-            val matcherOnePlus = PATTERN_ONEPLUS.matcher(fileName)
-            if (matcherOnePlus.find()) {
-                val dateStr = matcherOnePlus.group(1) ?: return null
-                // Validate if it looks like yyMMddHHmm
-                val year = dateStr.substring(0, 2).toIntOrNull() ?: return null
-                val month = dateStr.substring(2, 4).toIntOrNull() ?: return null
-                val day = dateStr.substring(4, 6).toIntOrNull() ?: return null
-                
-                if (year in 20..40 && month in 1..12 && day in 1..31) {
-                    val sdf = java.text.SimpleDateFormat("yyMMddHHmm", java.util.Locale.getDefault())
-                    return sdf.parse(dateStr)?.time
-                }
-            }
-        } catch (e: Exception) {
-            Log.w(TAG, "Error parsing date from filename: $fileName", e)
-        }
-        return null
-    }
+    private fun normalizePhoneNumber(phone: String): String = PhoneNormalizer.digitsOnly(phone)
 
     /**
      * Find a recording file that matches the given call details.
@@ -819,7 +712,7 @@ class RecordingRepository private constructor(private val context: Context) {
             var timeDiff = kotlin.math.abs(file.lastModified - callDate)
             
             // Try explicit Date in Filename (Highest Trust) - overrides lastModified if valid
-            val extractedDate = extractDateFromFilename(fileName)
+            val extractedDate = RecordingFilenameParser.parse(fileName)
             if (extractedDate != null) {
                 val diff = kotlin.math.abs(extractedDate - callDate)
                 if (diff <= 5 * 60 * 1000L) {
@@ -864,7 +757,7 @@ class RecordingRepository private constructor(private val context: Context) {
                 Log.d(TAG, "High confidence match (score=$totalScore), skipping duration check")
             } else if (totalScore >= 60 || candidateFiles.size <= 3) {
                 // Moderate confidence - check duration to confirm
-                val fileDurationMs = getAudioDuration(file.absolutePath)
+                val fileDurationMs = getAudioDuration(file)
                 if (fileDurationMs > 0) {
                     val callDurationMs = durationSec * 1000
                     val durDiff = kotlin.math.abs(fileDurationMs - callDurationMs)
@@ -899,16 +792,21 @@ class RecordingRepository private constructor(private val context: Context) {
             ?.file?.absolutePath
     }
 
-    private fun getAudioDuration(path: String): Long {
+    private fun getAudioDuration(file: RecordingSourceFile): Long {
+        val path = file.absolutePath
+        val size = if (file.size >= 0 || !file.isLocal) file.size else File(path).length()
+        val key = "$path|$size|${file.lastModified}"
+
         // Check cache first (Optimization 1)
-        val now = System.currentTimeMillis()
-        if (now - durationCacheTime > DURATION_CACHE_EXPIRY_MS) {
-            durationCache.clear()
-            durationCacheTime = now
+        durationCache.get(key)?.let { return it }
+
+        // Indexed files are probed once and the duration is kept in recording_files
+        val indexed = try { recordingFileDao.getDuration(path) } catch (e: Exception) { null }
+        if (indexed != null) {
+            durationCache.put(key, indexed)
+            return indexed
         }
         
-        durationCache[path]?.let { return it }
-        
         val retriever = android.media.MediaMetadataRetriever()
         val duration = try {
             if (path.startsWith("content://")) {
@@ -925,7 +823,8 @@ class RecordingRepository private constructor(private val context: Context) {
         }
         
         // Cache the result
-        durationCache[path] = duration
+        durationCache.put(key, duration)
+        try { recordingFileDao.updateDuration(path, duration) } catch (e: Exception) {}
         return duration
     }
 
@@ -1293,117 +1192,252 @@ class RecordingRepository private constructor(private val context: Context) {
         val recordingPath: String?
     )
     
+    // ==================== RECORDING FILE INDEX ====================
+
     /**
-     * Pre-load all files and build indexes for batch processing.
-     * Call this ONCE before processing multiple calls.
-     * 
-     * This is Optimization 3 & 4: Batch file cache + Phone number index
+     * Brings recording_files up to date with storage.
+     *
+     * - Folders whose mtime is unchanged (and not touched in the last few minutes) are skipped.
+     * - Files with the same size and mtime keep their row, including the probed duration.
+     * - MediaStore is read from the last seen generation on Android 11+, with a daily full
+     *   pass (or a MediaStore version change) to drop deleted entries.
      */
-    fun prepareBatchProcessing() {
-        val now = System.currentTimeMillis()
-        
-        // Skip if cache is still valid
-        if (now - batchFileCacheTime < BATCH_CACHE_EXPIRY_MS && batchFileCache.isNotEmpty()) {
-            Log.d(TAG, "Using existing batch cache (${batchFileCache.size} files)")
-            return
-        }
-        
-        Log.d(TAG, "Preparing batch processing - loading all recording files...")
-        
-        // Collect all files from all sources
-        val allFiles = mutableListOf<RecordingSourceFile>()
-        val seenPaths = mutableSetOf<String>()
-        
-        // 1. CallCloud folder
-        getCallCloudFiles().forEach { file ->
-            if (seenPaths.add(file.absolutePath)) {
-                allFiles.add(file)
+    suspend fun refreshRecordingIndex() = withContext(Dispatchers.IO) {
+        indexMutex.withLock {
+            val startTime = System.currentTimeMillis()
+            var changes = 0
+
+            for (folder in getIndexedFolders()) {
+                changes += indexFolder(folder)
             }
-        }
-        
-        // 2. Learned folder
-        getLearnedFolderFiles().forEach { file ->
-            if (seenPaths.add(file.absolutePath)) {
-                allFiles.add(file)
+
+            val path = getRecordingPath()
+            if (path.startsWith("content://")) {
+                changes += indexTreeUri(path)
             }
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                changes += indexMediaStore()
+            }
+
+            val elapsed = System.currentTimeMillis() - startTime
+            PerfTelemetry.recordDuration(PerfTelemetry.Metrics.RECORDING_INDEX_REFRESH, elapsed)
+            Log.d(TAG, "Recording index refreshed: $changes changes in ${elapsed}ms")
         }
-        
-        // 3. MediaStore (get a wide range - last 30 days)
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-            val thirtyDaysAgo = now - (30L * 24 * 60 * 60 * 1000)
-            findRecordingViaMediaStore(thirtyDaysAgo, 0, bufferSeconds = 30 * 24 * 60 * 60).forEach { file ->
-                if (seenPaths.add(file.absolutePath)) {
-                    allFiles.add(file)
-                }
+    }
+
+    /**
+     * Same locations the tiered finder looks at: recording path, CallCloud, learned folder, SD cards.
+     */
+    private fun getIndexedFolders(): List<File> {
+        val storage = Environment.getExternalStorageDirectory()
+        val folders = mutableListOf<File>()
+
+        val path = getRecordingPath()
+        if (!path.startsWith("content://")) folders.add(File(path))
+        folders.add(File(storage, "Recordings/CallCloud"))
+        prefs.getString(KEY_LEARNED_FOLDER, null)?.let { folders.add(File(it)) }
+
+        val primaryPath = storage.absolutePath
+        for (volume in getStorageVolumes()) {
+            if (volume.absolutePath == primaryPath) continue
+            (DEVICE_DEFAULT_PATHS + THIRD_PARTY_PATHS).forEach { folders.add(File(volume, it)) }
+        }
+
+        return folders.distinctBy { it.absolutePath }
+    }
+
+    private suspend fun indexFolder(dir: File): Int {
+        val folder = dir.absolutePath
+        val mtimeKey = KEY_INDEX_FOLDER_MTIME + folder
+
+        if (!dir.isDirectory || !dir.canRead()) {
+            if (prefs.contains(mtimeKey)) {
+                recordingFileDao.deleteFolder(folder)
+                prefs.edit().remove(mtimeKey).apply()
             }
+            return 0
         }
-        
-        // 4. Traditional file scan
-        getRecordingFiles().forEach { file ->
-            if (seenPaths.add(file.absolutePath)) {
-                allFiles.add(file)
+
+        // Adding, removing or renaming a file bumps the folder mtime. A recorder still
+        // writing into an old file does not, hence the settle window.
+        val folderMtime = dir.lastModified()
+        val settled = System.currentTimeMillis() - folderMtime > FOLDER_SETTLE_MS
+        if (settled && prefs.getLong(mtimeKey, -1L) == folderMtime) return 0
+
+        val existing = recordingFileDao.getByFolder(folder).associateBy { it.path }
+        val seen = HashSet<String>()
+        val upserts = mutableListOf<RecordingFileEntity>()
+
+        dir.listFiles()?.forEach { file ->
+            if (!file.isFile || file.extension.lowercase() !in AUDIO_EXTENSIONS) return@forEach
+            val filePath = file.absolutePath
+            seen.add(filePath)
+            val size = file.length()
+            val modified = file.lastModified()
+            val old = existing[filePath]
+            if (old == null || old.size != size || old.lastModified != modified) {
+                upserts.add(newIndexEntry(filePath, file.name, folder, isLocal = true, size = size, lastModified = modified))
             }
         }
-        
-        batchFileCache = allFiles
-        batchFileCacheTime = now
-        
-        Log.d(TAG, "Batch cache loaded: ${allFiles.size} unique files")
-        
-        // Build phone number index for O(1) lookups
-        buildPhoneIndex(allFiles)
+
+        val removed = existing.keys.filter { it !in seen }
+        applyIndexChanges(upserts, removed)
+        prefs.edit().putLong(mtimeKey, folderMtime).apply()
+        return upserts.size + removed.size
     }
-    
+
     /**
-     * Build a phone number suffix index for O(1) lookups.
-     * Maps last 7, 9, 10 digits to list of files containing that sequence.
+     * SAF tree URIs have no reliable folder mtime, so they are listed each time;
+     * unchanged files still keep their row.
      */
-    private fun buildPhoneIndex(files: List<RecordingSourceFile>) {
-        val now = System.currentTimeMillis()
-        phoneIndex.clear()
-        
-        for (file in files) {
-            val fileName = file.name
-            
-            // Extract all digit sequences from filename
-            val digitsInName = fileName.replace(Regex("[^0-9]"), "")
-            
-            if (digitsInName.length >= 7) {
-                // Index by last 7, 9, 10 digits
-                listOf(7, 9, 10).forEach { len ->
-                    if (digitsInName.length >= len) {
-                        val suffix = digitsInName.takeLast(len)
-                        phoneIndex.getOrPut(suffix) { mutableListOf() }.add(file)
-                    }
-                }
-                
-                // Also index by full number if it's a valid phone length
-                if (digitsInName.length in 10..15) {
-                    phoneIndex.getOrPut(digitsInName) { mutableListOf() }.add(file)
+    private suspend fun indexTreeUri(treePath: String): Int {
+        val docDir = try {
+            DocumentFile.fromTreeUri(context, Uri.parse(treePath))
+        } catch (e: Exception) {
+            Log.e(TAG, "Error opening tree URI for index: $treePath", e)
+            null
+        } ?: return 0
+
+        val existing = recordingFileDao.getByFolder(treePath).associateBy { it.path }
+        val seen = HashSet<String>()
+        val upserts = mutableListOf<RecordingFileEntity>()
+
+        try {
+            docDir.listFiles().forEach { doc ->
+                val name = doc.name ?: return@forEach
+                if (!doc.isFile || AUDIO_EXTENSIONS.none { name.lowercase().endsWith(".$it") }) return@forEach
+                val uri = doc.uri.toString()
+                seen.add(uri)
+                val size = doc.length()
+                val modified = doc.lastModified()
+                val old = existing[uri]
+                if (old == null || old.size != size || old.lastModified != modified) {
+                    upserts.add(newIndexEntry(uri, name, treePath, isLocal = false, size = size, lastModified = modified))
                 }
             }
+        } catch (e: Exception) {
+            Log.e(TAG, "Error listing DocumentFile files for index: $treePath", e)
+            return 0
         }
-        
-        phoneIndexTime = now
-        Log.d(TAG, "Phone index built: ${phoneIndex.size} entries")
+
+        val removed = existing.keys.filter { it !in seen }
+        applyIndexChanges(upserts, removed)
+        return upserts.size + removed.size
     }
-    
-    /**
-     * Find recording using phone index for O(1) lookup.
-     * Returns matching files for a given phone number.
-     */
-    private fun findByPhoneIndex(phoneNumber: String): List<RecordingSourceFile> {
-        val normalized = normalizePhoneNumber(phoneNumber)
-        if (normalized.length < 7) return emptyList()
-        
-        val results = mutableSetOf<RecordingSourceFile>()
-        
-        // Try different suffix lengths
-        listOf(normalized.takeLast(10), normalized.takeLast(9), normalized.takeLast(7), normalized).forEach { variant ->
-            phoneIndex[variant]?.let { results.addAll(it) }
+
+    @androidx.annotation.RequiresApi(Build.VERSION_CODES.Q)
+    private suspend fun indexMediaStore(): Int {
+        val folder = RecordingFileEntity.MEDIASTORE_FOLDER
+        val now = System.currentTimeMillis()
+        val hasGenerations = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+
+        val version = MediaStore.getVersion(context)
+        val lastGeneration = prefs.getLong(KEY_INDEX_MS_GENERATION, 0L)
+        val fullScan = !hasGenerations ||
+            version != prefs.getString(KEY_INDEX_MS_VERSION, null) ||
+            now - prefs.getLong(KEY_INDEX_MS_FULL_SCAN, 0L) > MEDIASTORE_FULL_SCAN_INTERVAL_MS
+
+        // Read the generation before querying so changes made during the scan are seen next time
+        val generation = if (hasGenerations) MediaStore.getGeneration(context, MediaStore.VOLUME_EXTERNAL_PRIMARY) else 0L
+        if (!fullScan && generation == lastGeneration) return 0
+
+        val collection = MediaStore.Audio.Media.getContentUri(MediaStore.VOLUME_EXTERNAL)
+        val projection = mutableListOf(
+            MediaStore.Audio.Media._ID,
+            MediaStore.Audio.Media.DISPLAY_NAME,
+            MediaStore.Audio.Media.DATE_ADDED,
+            MediaStore.Audio.Media.DURATION,
+            MediaStore.Audio.Media.SIZE
+        )
+        if (hasGenerations) projection.add(MediaStore.MediaColumns.GENERATION_MODIFIED)
+
+        val windowStartSec = (now - MEDIASTORE_WINDOW_MS) / 1000
+        var selection = "${MediaStore.Audio.Media.DATE_ADDED} >= ?"
+        val selectionArgs = mutableListOf(windowStartSec.toString())
+        if (!fullScan) {
+            selection += " AND ${MediaStore.MediaColumns.GENERATION_MODIFIED} > ?"
+            selectionArgs.add(lastGeneration.toString())
         }
-        
-        return results.toList()
+
+        val existing = recordingFileDao.getByFolder(folder).associateBy { it.path }
+        val seen = HashSet<String>()
+        val upserts = mutableListOf<RecordingFileEntity>()
+
+        try {
+            context.contentResolver.query(collection, projection.toTypedArray(), selection, selectionArgs.toTypedArray(), null)?.use { cursor ->
+                val idColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media._ID)
+                val nameColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.DISPLAY_NAME)
+                val dateColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.DATE_ADDED)
+                val durationColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.DURATION)
+                val sizeColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.SIZE)
+                val generationColumn = if (hasGenerations) cursor.getColumnIndex(MediaStore.MediaColumns.GENERATION_MODIFIED) else -1
+
+                while (cursor.moveToNext()) {
+                    val name = cursor.getString(nameColumn) ?: continue
+                    if (name.substringAfterLast('.', "").lowercase() !in AUDIO_EXTENSIONS) continue
+
+                    val uri = ContentUris.withAppendedId(collection, cursor.getLong(idColumn)).toString()
+                    seen.add(uri)
+                    val size = cursor.getLong(sizeColumn)
+                    val modified = cursor.getLong(dateColumn) * 1000 // DATE_ADDED is in seconds
+                    val old = existing[uri]
+                    if (old != null && old.size == size && old.lastModified == modified) continue
+
+                    // MediaStore already knows the duration, no need to probe the file
+                    val duration = cursor.getLong(durationColumn).takeIf { it > 0 }
+                    val rowGeneration = if (generationColumn >= 0) cursor.getLong(generationColumn) else 0L
+                    upserts.add(newIndexEntry(uri, name, folder, isLocal = false, size = size, lastModified = modified, durationMs = duration, generation = rowGeneration))
+                }
+            }
+        } catch (e: Exception) {
+            Log.e(TAG, "MediaStore index query failed", e)
+            return 0
+        }
+
+        val removed = if (fullScan) existing.keys.filter { it !in seen } else emptyList()
+        applyIndexChanges(upserts, removed)
+
+        prefs.edit().apply {
+            putLong(KEY_INDEX_MS_GENERATION, generation)
+            putString(KEY_INDEX_MS_VERSION, version)
+            if (fullScan) putLong(KEY_INDEX_MS_FULL_SCAN, now)
+        }.apply()
+
+        return upserts.size + removed.size
+    }
+
+    private fun newIndexEntry(
+        path: String,
+        name: String,
+        folder: String,
+        isLocal: Boolean,
+        size: Long,
+        lastModified: Long,
+        durationMs: Long? = null,
+        generation: Long = 0
+    ): RecordingFileEntity {
+        val digits = normalizePhoneNumber(name)
+        return RecordingFileEntity(
+            path = path,
+            name = name,
+            folder = folder,
+            isLocal = isLocal,
+            size = size,
+            lastModified = lastModified,
+            filenameDate = RecordingFilenameParser.parse(name),
+            digits = digits,
+            phoneKey = digits.takeIf { it.length >= RecordingFileEntity.PHONE_KEY_LENGTH }
+                ?.takeLast(RecordingFileEntity.PHONE_KEY_LENGTH),
+            durationMs = durationMs,
+            generation = generation
+        )
+    }
+
+    private suspend fun applyIndexChanges(upserts: List<RecordingFileEntity>, removedPaths: List<String>) {
+        // Stay below SQLite's bound variable limit
+        removedPaths.chunked(500).forEach { recordingFileDao.deleteByPaths(it) }
+        upserts.chunked(500).forEach { recordingFileDao.upsertAll(it) }
     }
     
     /**
@@ -1411,9 +1445,9 @@ class RecordingRepository private constructor(private val context: Context) {
      * This is the main entry point for batch operations.
      * 
      * Optimizations applied:
-     * 1. Pre-load all files once
-     * 2. Build phone number index for O(1) lookups
-     * 3. Use cached durations
+     * 1. Incremental refresh of the persistent recording file index
+     * 2. Indexed candidate lookup per call (phone key or time window)
+     * 3. Durations probed once and stored in the index
      * 4. Process in parallel using coroutines
      * 5. Skip duration check for high-confidence matches
      */
@@ -1427,20 +1461,14 @@ class RecordingRepository private constructor(private val context: Context) {
         Log.d(TAG, "Starting batch recording search for ${calls.size} calls (parallelism=$parallelism)")
         val startTime = System.currentTimeMillis()
         
-        // Step 1: Prepare batch cache and indexes
-        prepareBatchProcessing()
-        
-        // Step 2: Pre-cache durations for files that will likely be checked
-        // Only pre-cache if we have a reasonable number of files
-        if (batchFileCache.size <= 500) {
-            preCacheDurations(batchFileCache)
-        }
+        // Step 1: Bring the file index up to date (only changed folders/files are touched)
+        refreshRecordingIndex()
         
         val results = java.util.concurrent.ConcurrentHashMap<String, String?>()
         val foundCount = java.util.concurrent.atomic.AtomicInteger(0)
         val processedCount = java.util.concurrent.atomic.AtomicInteger(0)
         
-        // Step 3: Process calls in parallel chunks
+        // Step 2: Process calls in parallel chunks
         val chunks = calls.chunked(kotlin.math.max(1, calls.size / parallelism))
         
         supervisorScope {
@@ -1469,6 +1497,7 @@ class RecordingRepository private constructor(private val context: Context) {
         }
         
         val elapsed = System.currentTimeMillis() - startTime
+        PerfTelemetry.recordDuration(PerfTelemetry.Metrics.RECORDING_BATCH_SEARCH, elapsed)
         Log.d(TAG, "Batch search complete: ${foundCount.get()}/${calls.size} found in ${elapsed}ms (${elapsed / calls.size}ms/call)")
         
         // Return results in original order
@@ -1479,83 +1508,24 @@ class RecordingRepository private constructor(private val context: Context) {
     
     /**
      * Optimized single-call recording finder for batch mode.
-     * Uses pre-loaded cache and phone index.
+     * Candidates come from recording_files: same phone key, or within ±2 hours of the call.
      */
-    private fun findRecordingOptimized(call: CallInfo): String? {
-        // Fast path: Check phone index first for O(1) lookup
-        val phoneMatches = findByPhoneIndex(call.phoneNumber)
-        if (phoneMatches.isNotEmpty()) {
-            findRecordingInList(phoneMatches, call.callDate, call.durationSec, call.phoneNumber, call.contactName)?.let { path ->
-                Log.d(TAG, "✓ Found via phone index: $path")
-                return path
-            }
-        }
-        
-        // Fallback: Search in full cache with time window filtering
-        if (batchFileCache.isNotEmpty()) {
-            // Pre-filter by time window (±2 hours) to reduce search space
-            val timeFiltered = batchFileCache.filter { file ->
-                val timeDiff = kotlin.math.abs(file.lastModified - call.callDate)
-                timeDiff <= 2 * 60 * 60 * 1000L
-            }
-            
-            findRecordingInList(timeFiltered, call.callDate, call.durationSec, call.phoneNumber, call.contactName)?.let { path ->
-                Log.d(TAG, "✓ Found via time-filtered cache: $path")
-                return path
-            }
-        }
-        
-        return null
-    }
-    
-    /**
-     * Pre-cache durations for a list of files in parallel.
-     * This front-loads the expensive MediaMetadataRetriever calls.
-     */
-    private suspend fun preCacheDurations(files: List<RecordingSourceFile>) = withContext(Dispatchers.IO) {
-        val now = System.currentTimeMillis()
-        if (now - durationCacheTime < DURATION_CACHE_EXPIRY_MS && durationCache.size >= files.size / 2) {
-            Log.d(TAG, "Duration cache still valid (${durationCache.size} entries)")
-            return@withContext
-        }
-        
-        Log.d(TAG, "Pre-caching durations for ${files.size} files...")
-        val startTime = System.currentTimeMillis()
-        
-        // Process in parallel with limited concurrency (avoid OOM from too many MediaMetadataRetriever instances)
-        val semaphore = Semaphore(8)
+    private suspend fun findRecordingOptimized(call: CallInfo): String? {
+        val normalized = normalizePhoneNumber(call.phoneNumber)
+        val phoneKey = normalized.takeIf { it.length >= RecordingFileEntity.PHONE_KEY_LENGTH }
+            ?.takeLast(RecordingFileEntity.PHONE_KEY_LENGTH)
+        val window = 2 * 60 * 60 * 1000L
+        
+        val candidates = recordingFileDao.findCandidates(
+            phoneKey,
+            call.callDate - window,
+            call.callDate + call.durationSec * 1000 + window
+        )
+        if (candidates.isEmpty()) return null
         
-        supervisorScope {
-            files.map { file ->
-                async {
-                    semaphore.acquire()
-                    try {
-                        if (!durationCache.containsKey(file.absolutePath)) {
-                            getAudioDuration(file.absolutePath)
-                        }
-                    } finally {
-                        semaphore.release()
-                    }
-                }
-            }.awaitAll()
+        val files = candidates.map { RecordingSourceFile(it.name, it.lastModified, it.path, it.isLocal, it.size) }
+        return findRecordingInList(files, call.callDate, call.durationSec, call.phoneNumber, call.contactName)?.also { path ->
+            Log.d(TAG, "✓ Found via recording index: $path")
         }
-        
-        durationCacheTime = now
-        Log.d(TAG, "Duration pre-caching complete: ${durationCache.size} entries in ${System.currentTimeMillis() - startTime}ms")
-    }
-    
-    /**
-     * Clear all batch processing caches.
-     * Call this when batch processing is complete to free memory.
-     */
-    fun clearBatchCache() {
-        batchFileCache = emptyList()
-        batchFileCacheTime = 0
-        phoneIndex.clear()
-        phoneIndexTime = 0
-        durationCache.clear()
-        durationCacheTime = 0
-        Log.d(TAG, "Batch caches cleared")
     }
 }
-
@@ -18,6 +18,10 @@ class SettingsRepository private constructor(private val context: Context) {
     private val KEY_CALLER_PHONE_SIM2 = "caller_phone_sim2"
     private val KEY_WHATSAPP_PREFERENCE = "whatsapp_preference"
     private val KEY_LAST_SYNC_TIME = "last_sync_time"
+    private val KEY_CALL_LOG_MAX_ID = "call_log_max_id"
+    private val KEY_SCANNED_CALL_LOG_FILTER = "scanned_call_log_filter"
+    private val KEY_CALL_LOG_SIM_COLUMNS = "call_log_sim_columns"
+    private val KEY_CALL_LOG_COLUMNS_BUILD = "call_log_columns_build"
     private val KEY_ONBOARDING_COMPLETED = "onboarding_completed"
     private val KEY_SIM1_SUB_ID = "sim1_sub_id"
     private val KEY_SIM2_SUB_ID = "sim2_sub_id"
@@ -36,6 +40,10 @@ class SettingsRepository private constructor(private val context: Context) {
     private val KEY_PLAN_EXPIRY_DATE = "plan_expiry_date"
     private val KEY_ALLOWED_STORAGE_GB = "allowed_storage_gb"
     private val KEY_STORAGE_USED_BYTES = "storage_used_bytes"
+    private val KEY_UPLOAD_ORIGINAL_BYTES = "upload_original_bytes"
+    private val KEY_UPLOAD_SENT_BYTES = "upload_sent_bytes"
+    private val KEY_ROLLUP_TIME_ZONE = "rollup_time_zone"
+    private val KEY_PULL_CURSOR = "pull_cursor"
     private val KEY_ONBOARDING_OFFLINE = "onboarding_offline"
     private val KEY_UPLOAD_OVER_MOBILE = "upload_over_mobile"
     private val KEY_FORCE_UPLOAD_OVER_MOBILE = "force_upload_over_mobile"
@@ -307,6 +315,44 @@ class SettingsRepository private constructor(private val context: Context) {
         prefs.edit().putLong(KEY_LAST_SYNC_TIME, time).apply()
     }
 
+    // Cursor of the last applied delta-pull page (null = no pull in progress)
+    fun getPullCursor(): String? = prefs.getString(KEY_PULL_CURSOR, null)
+
+    fun setPullCursor(cursor: String?) {
+        prefs.edit().putString(KEY_PULL_CURSOR, cursor).apply()
+    }
+
+    // Highest CallLog.Calls._ID already imported (0 = unknown, do a full sync)
+    fun getCallLogMaxId(): Long = prefs.getLong(KEY_CALL_LOG_MAX_ID, 0L)
+
+    fun setCallLogMaxId(id: Long) {
+        prefs.edit().putLong(KEY_CALL_LOG_MAX_ID, id).apply()
+    }
+
+    // Track start date and SIM selection the last full call log scan ran with
+    fun getScannedCallLogFilter(): String? = prefs.getString(KEY_SCANNED_CALL_LOG_FILTER, null)
+
+    fun setScannedCallLogFilter(filter: String) {
+        prefs.edit().putString(KEY_SCANNED_CALL_LOG_FILTER, filter).apply()
+    }
+
+    /**
+     * SIM columns discovered in this device's call log, or null if they were discovered
+     * on a different OS build (an update can change the provider's columns).
+     */
+    fun getCallLogSimColumns(build: String): List<String>? {
+        if (prefs.getString(KEY_CALL_LOG_COLUMNS_BUILD, null) != build) return null
+        val saved = prefs.getString(KEY_CALL_LOG_SIM_COLUMNS, null) ?: return null
+        return saved.split(",").filter { it.isNotEmpty() }
+    }
+
+    fun setCallLogSimColumns(build: String, columns: List<String>) {
+        prefs.edit()
+            .putString(KEY_CALL_LOG_COLUMNS_BUILD, build)
+            .putString(KEY_CALL_LOG_SIM_COLUMNS, columns.joinToString(","))
+            .apply()
+    }
+
     fun getOnboardingCompletedFlow(): Flow<Boolean> = callbackFlow {
         val listener = android.content.SharedPreferences.OnSharedPreferenceChangeListener { p, key ->
             if (key == KEY_ONBOARDING_COMPLETED || key == KEY_ONBOARDING_OFFLINE) {
@@ -420,6 +466,23 @@ class SettingsRepository private constructor(private val context: Context) {
     fun getStorageUsedBytes(): Long = prefs.getLong(KEY_STORAGE_USED_BYTES, 0L)
     fun setStorageUsedBytes(bytes: Long) = prefs.edit().putLong(KEY_STORAGE_USED_BYTES, bytes).apply()
 
+    // Running totals of uploaded recordings: size before and after compression
+    fun getUploadOriginalBytes(): Long = prefs.getLong(KEY_UPLOAD_ORIGINAL_BYTES, 0L)
+    fun getUploadSentBytes(): Long = prefs.getLong(KEY_UPLOAD_SENT_BYTES, 0L)
+    fun getUploadBytesSaved(): Long = getUploadOriginalBytes() - getUploadSentBytes()
+
+    @Synchronized
+    fun addUploadSizes(originalBytes: Long, sentBytes: Long) {
+        prefs.edit()
+            .putLong(KEY_UPLOAD_ORIGINAL_BYTES, getUploadOriginalBytes() + originalBytes)
+            .putLong(KEY_UPLOAD_SENT_BYTES, getUploadSentBytes() + sentBytes)
+            .apply()
+    }
+
+    // Time zone the call_daily_rollup day keys were computed in
+    fun getRollupTimeZone(): String? = prefs.getString(KEY_ROLLUP_TIME_ZONE, null)
+    fun setRollupTimeZone(zoneId: String) = prefs.edit().putString(KEY_ROLLUP_TIME_ZONE, zoneId).apply()
+
     fun isUserDeclinedRecording(): Boolean = prefs.getBoolean(KEY_USER_DECLINED_RECORDING, false)
     fun setUserDeclinedRecording(declined: Boolean) = prefs.edit().putBoolean(KEY_USER_DECLINED_RECORDING, declined).apply()
 
@@ -11,16 +11,26 @@ import androidx.sqlite.db.SupportSQLiteDatabase
 @Database(
     entities = [
         CallDataEntity::class,
-        PersonDataEntity::class
+        PersonDataEntity::class,
+        CallSearchFts::class,
+        PersonSearchFts::class,
+        RecordingFileEntity::class,
+        UploadChunkEntity::class,
+        CallDailyRollupEntity::class,
+        PerfMetricEntity::class
     ],
-    version = 10,
-    exportSchema = false
+    version = 16,
+    exportSchema = true
 )
 @TypeConverters(Converters::class)
 abstract class AppDatabase : RoomDatabase() {
     
     abstract fun callDataDao(): CallDataDao
     abstract fun personDataDao(): PersonDataDao
+    abstract fun recordingFileDao(): RecordingFileDao
+    abstract fun uploadChunkDao(): UploadChunkDao
+    abstract fun callDailyRollupDao(): CallDailyRollupDao
+    abstract fun perfMetricDao(): PerfMetricDao
     
     companion object {
         @Volatile
@@ -188,6 +198,110 @@ abstract class AppDatabase : RoomDatabase() {
                 database.execSQL("ALTER TABLE call_data ADD COLUMN processingStatus TEXT")
             }
         }
+
+        // Migration from version 10 to version 11 (full-text search indexes, triggers are added in onOpen)
+        internal val MIGRATION_10_11 = object : Migration(10, 11) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `call_search_fts` USING FTS4(`phoneNumber` TEXT NOT NULL, `phoneSuffixes` TEXT NOT NULL, `contactName` TEXT, `callNote` TEXT)")
+                database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `person_search_fts` USING FTS4(`phoneNumber` TEXT NOT NULL, `phoneSuffixes` TEXT NOT NULL, `contactName` TEXT, `personNote` TEXT, `label` TEXT)")
+                SearchIndex.rebuild(database)
+            }
+        }
+
+        // Migration from version 11 to version 12 (persistent recording file index)
+        internal val MIGRATION_11_12 = object : Migration(11, 12) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL("""
+                    CREATE TABLE IF NOT EXISTS recording_files (
+                        path TEXT NOT NULL PRIMARY KEY,
+                        name TEXT NOT NULL,
+                        folder TEXT NOT NULL,
+                        isLocal INTEGER NOT NULL,
+                        size INTEGER NOT NULL,
+                        lastModified INTEGER NOT NULL,
+                        filenameDate INTEGER,
+                        digits TEXT NOT NULL,
+                        phoneKey TEXT,
+                        durationMs INTEGER,
+                        generation INTEGER NOT NULL,
+                        indexedAt INTEGER NOT NULL
+                    )
+                """.trimIndent())
+                database.execSQL("CREATE INDEX IF NOT EXISTS index_recording_files_folder ON recording_files(folder)")
+                database.execSQL("CREATE INDEX IF NOT EXISTS index_recording_files_lastModified ON recording_files(lastModified)")
+                database.execSQL("CREATE INDEX IF NOT EXISTS index_recording_files_filenameDate ON recording_files(filenameDate)")
+                database.execSQL("CREATE INDEX IF NOT EXISTS index_recording_files_phoneKey ON recording_files(phoneKey)")
+            }
+        }
+
+        // Migration from version 12 to version 13 (per-chunk upload acknowledgements for resumable uploads)
+        internal val MIGRATION_12_13 = object : Migration(12, 13) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL("""
+                    CREATE TABLE IF NOT EXISTS upload_chunks (
+                        compositeId TEXT NOT NULL,
+                        chunkIndex INTEGER NOT NULL,
+                        fileSize INTEGER NOT NULL,
+                        chunkSize INTEGER NOT NULL,
+                        uploadedAt INTEGER NOT NULL,
+                        PRIMARY KEY(compositeId, chunkIndex)
+                    )
+                """.trimIndent())
+            }
+        }
+        
+        // Migration from version 13 to version 14 (daily report rollup, triggers are added in onOpen)
+        internal val MIGRATION_13_14 = object : Migration(13, 14) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL("""
+                    CREATE TABLE IF NOT EXISTS call_daily_rollup (
+                        day TEXT NOT NULL,
+                        simSlot INTEGER NOT NULL,
+                        callType INTEGER NOT NULL,
+                        callCount INTEGER NOT NULL,
+                        totalDuration INTEGER NOT NULL,
+                        maxDuration INTEGER NOT NULL,
+                        connectedCount INTEGER NOT NULL,
+                        notConnectedCount INTEGER NOT NULL,
+                        mayFailedCount INTEGER NOT NULL,
+                        distinctNumbers INTEGER NOT NULL,
+                        dirty INTEGER NOT NULL,
+                        PRIMARY KEY(day, simSlot, callType)
+                    )
+                """.trimIndent())
+                CallRollup.rebuild(database)
+            }
+        }
+
+        // Migration from version 14 to version 15 (daily performance metrics)
+        internal val MIGRATION_14_15 = object : Migration(14, 15) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL("""
+                    CREATE TABLE IF NOT EXISTS perf_metrics (
+                        name TEXT NOT NULL,
+                        day TEXT NOT NULL,
+                        kind TEXT NOT NULL,
+                        count INTEGER NOT NULL,
+                        total INTEGER NOT NULL,
+                        min INTEGER NOT NULL,
+                        max INTEGER NOT NULL,
+                        buckets TEXT NOT NULL,
+                        PRIMARY KEY(name, day)
+                    )
+                """.trimIndent())
+            }
+        }
+        
+        // Migration from version 15 to version 16 (indexes for the sync queues, matching CallDataEntity)
+        internal val MIGRATION_15_16 = object : Migration(15, 16) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL("DROP INDEX IF EXISTS index_call_data_phoneNumber")
+                database.execSQL("CREATE INDEX IF NOT EXISTS index_call_data_phoneNumber_callDate ON call_data(phoneNumber, callDate)")
+                database.execSQL("CREATE INDEX IF NOT EXISTS index_call_data_metadataSyncStatus_callDate ON call_data(metadataSyncStatus, callDate)")
+                database.execSQL("CREATE INDEX IF NOT EXISTS index_call_data_recordingSyncStatus_metadataSyncStatus_callDate ON call_data(recordingSyncStatus, metadataSyncStatus, callDate)")
+                database.execSQL("CREATE INDEX IF NOT EXISTS index_call_data_processingStatus ON call_data(processingStatus)")
+            }
+        }
         
         fun getInstance(context: Context): AppDatabase {
             return INSTANCE ?: synchronized(this) {
@@ -196,13 +310,34 @@ abstract class AppDatabase : RoomDatabase() {
                     AppDatabase::class.java,
                     "callcloud_database"
                 )
-                .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10)
-                .fallbackToDestructiveMigration()
+                .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10, MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13, MIGRATION_13_14, MIGRATION_14_15, MIGRATION_15_16)
+                // Every version has a migration; only a downgrade may still wipe the database
+                .fallbackToDestructiveMigrationOnDowngrade()
+                .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+                .addCallback(object : RoomDatabase.Callback() {
+                    override fun onOpen(db: SupportSQLiteDatabase) {
+                        tuneConnection(db)
+                        SearchIndex.onOpen(db)
+                        CallRollup.onOpen(db)
+                    }
+                })
                 .build()
                 INSTANCE = instance
                 instance
             }
         }
+
+        /**
+         * Connection settings: temp b-trees for sorts and GROUP BY stay in memory.
+         * Durability is left to the platform's WAL defaults.
+         */
+        private fun tuneConnection(db: SupportSQLiteDatabase) {
+            try {
+                db.query("PRAGMA temp_store = MEMORY").close()
+            } catch (e: Exception) {
+                android.util.Log.w("AppDatabase", "Connection tuning skipped", e)
+            }
+        }
     }
 }
 
@@ -0,0 +1,60 @@
+package com.miniclick.calltrackmanage.data.db
+
+import androidx.room.*
+import kotlinx.coroutines.flow.Flow
+
+/**
+ * Date-range totals for the Reports tab and the call tab badges. Reads should go through
+ * CallDataRepository, which runs [refreshDirtyDays] first.
+ */
+@Dao
+interface CallDailyRollupDao {
+
+    // ============================================
+    // QUERIES
+    // ============================================
+
+    @Query("SELECT * FROM call_daily_rollup WHERE day BETWEEN :startDay AND :endDay AND callCount > 0 ORDER BY day")
+    suspend fun getRange(startDay: String, endDay: String): List<CallDailyRollupEntity>
+
+    // Keeps dirty rows so the caller can tell when a refresh is due
+    @Query("SELECT * FROM call_daily_rollup WHERE day BETWEEN :startDay AND :endDay AND (:simSlot IS NULL OR simSlot = :simSlot)")
+    fun getRangeFlow(startDay: String, endDay: String, simSlot: Int?): Flow<List<CallDailyRollupEntity>>
+
+    @Query("SELECT DISTINCT day FROM call_daily_rollup WHERE dirty = 1")
+    suspend fun getDirtyDays(): List<String>
+
+    // ============================================
+    // INSERTS & UPDATES
+    // ============================================
+
+    // Same totals as CallRollup.rebuild, restricted to one local day through the callDate index
+    @Query("""
+        INSERT INTO call_daily_rollup(day, simSlot, callType, callCount, totalDuration, maxDuration,
+            connectedCount, notConnectedCount, mayFailedCount, distinctNumbers, dirty)
+        SELECT :day, IFNULL(subscriptionId, -1), callType, COUNT(*), SUM(duration), MAX(duration),
+            SUM(duration > 3), SUM(duration <= 3), SUM(duration BETWEEN 1 AND 4), COUNT(DISTINCT phoneNumber), 0
+        FROM call_data
+        WHERE callDate >= CAST(strftime('%s', :day, 'utc') AS INTEGER) * 1000
+            AND callDate < CAST(strftime('%s', :day, '+1 day', 'utc') AS INTEGER) * 1000
+        GROUP BY 2, 3
+    """)
+    suspend fun insertDayTotals(day: String)
+
+    @Transaction
+    suspend fun refreshDirtyDays(): Int {
+        val days = getDirtyDays()
+        days.forEach { day ->
+            deleteDay(day)
+            insertDayTotals(day)
+        }
+        return days.size
+    }
+
+    // ============================================
+    // DELETE
+    // ============================================
+
+    @Query("DELETE FROM call_daily_rollup WHERE day = :day")
+    suspend fun deleteDay(day: String)
+}
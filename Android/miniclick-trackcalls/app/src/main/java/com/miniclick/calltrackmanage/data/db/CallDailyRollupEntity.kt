@@ -0,0 +1,27 @@
+package com.miniclick.calltrackmanage.data.db
+
+import androidx.room.Entity
+
+/**
+ * Per-day totals of call_data, one row per (local day, SIM, call type).
+ * Maintained by the triggers in [CallRollup]: inserts are added in place, deletes and
+ * edits of a counted column only set [dirty] and the day is recomputed on the next read.
+ * [simSlot] holds the call's subscriptionId (-1 when unknown), the id the app filters SIMs by.
+ */
+@Entity(
+    tableName = "call_daily_rollup",
+    primaryKeys = ["day", "simSlot", "callType"]
+)
+data class CallDailyRollupEntity(
+    val day: String,               // yyyy-MM-dd, device local time
+    val simSlot: Int,
+    val callType: Int,
+    val callCount: Int = 0,
+    val totalDuration: Long = 0,
+    val maxDuration: Long = 0,
+    val connectedCount: Int = 0,   // duration > 3s
+    val notConnectedCount: Int = 0,
+    val mayFailedCount: Int = 0,   // duration 1..4s
+    val distinctNumbers: Int = 0,
+    val dirty: Boolean = false
+)
@@ -1,6 +1,8 @@
 package com.miniclick.calltrackmanage.data.db
 
+import androidx.paging.PagingSource
 import androidx.room.*
+import androidx.sqlite.db.SupportSQLiteQuery
 import kotlinx.coroutines.flow.Flow
 
 @Dao
@@ -44,6 +46,62 @@ interface CallDataDao {
     """)
     suspend fun getAllCalls(): List<CallDataEntity>
     
+    // Keyset page of getAllCalls (newest first): rows after (:beforeDate, :afterId)
+    @Query("""
+        SELECT c.* FROM call_data c 
+        LEFT JOIN person_data p ON c.phoneNumber = p.phoneNumber 
+        WHERE (p.isExcluded IS NULL OR p.isExcluded = 0)
+        AND (c.callDate < :beforeDate OR (c.callDate = :beforeDate AND c.compositeId > :afterId))
+        ORDER BY c.callDate DESC, c.compositeId ASC
+        LIMIT :limit
+    """)
+    suspend fun getCallsPage(beforeDate: Long, afterId: String, limit: Int): List<CallDataEntity>
+    
+    // PERFORMANCE: Paged call list, filters are pushed down by CallListQueryBuilder
+    @RawQuery(observedEntities = [CallDataEntity::class, PersonDataEntity::class])
+    fun getCallsPagingSource(query: SupportSQLiteQuery): PagingSource<Int, CallDataEntity>
+
+    @RawQuery(observedEntities = [CallDataEntity::class, PersonDataEntity::class])
+    fun getCallDaySummariesFlow(query: SupportSQLiteQuery): Flow<List<CallDaySummary>>
+
+    // Unpaged rows for the same filters, used by Reports for the selected date range
+    @RawQuery(observedEntities = [CallDataEntity::class, PersonDataEntity::class])
+    fun getCallsFlow(query: SupportSQLiteQuery): Flow<List<CallDataEntity>>
+
+    @RawQuery(observedEntities = [CallDataEntity::class, PersonDataEntity::class])
+    fun getCallTabCountsFlow(query: SupportSQLiteQuery): Flow<CallTabCounts>
+
+    // Calls of persons whose flags hide them from the visible tabs; call_daily_rollup counts them too.
+    // Starts from the few flagged persons and reaches call_data through the phoneNumber index.
+    @Query("""
+        SELECT c.callType AS callType,
+               COUNT(*) AS callCount,
+               SUM(c.duration) AS totalDuration,
+               SUM(c.duration > 3) AS connectedCount,
+               SUM(c.duration <= 3) AS notConnectedCount,
+               SUM(c.duration BETWEEN 1 AND 4) AS mayFailedCount,
+               SUM(p.isExcluded = 0 AND NOT (p.excludeFromSync = 1 AND p.excludeFromList = 1)) AS ignoredCount
+        FROM person_data p
+        JOIN call_data c ON c.phoneNumber = p.phoneNumber
+        WHERE (p.isExcluded = 1 OR p.excludeFromSync = 1 OR p.excludeFromList = 1)
+            AND c.callDate >= :startMillis AND c.callDate < :endMillis
+            AND (:subscriptionId IS NULL OR c.subscriptionId = :subscriptionId)
+        GROUP BY c.callType
+    """)
+    fun getHiddenCallTotalsFlow(startMillis: Long, endMillis: Long, subscriptionId: Int?): Flow<List<HiddenCallTotals>>
+
+    // NEVER_CONNECTED badge: only persons with several calls and no talk time qualify
+    @Query("""
+        SELECT COUNT(*) FROM person_data p
+        JOIN call_data c ON c.phoneNumber = p.phoneNumber
+        WHERE p.totalCalls > 1 AND p.totalDuration = 0
+            AND p.isExcluded = 0 AND p.excludeFromSync = 0 AND p.excludeFromList = 0
+            AND c.callType != 6
+            AND c.callDate >= :startMillis AND c.callDate < :endMillis
+            AND (:subscriptionId IS NULL OR c.subscriptionId = :subscriptionId)
+    """)
+    fun getNeverConnectedCallCountFlow(startMillis: Long, endMillis: Long, subscriptionId: Int?): Flow<Int>
+    
     @Query("SELECT * FROM call_data WHERE compositeId = :compositeId")
     suspend fun getByCompositeId(compositeId: String): CallDataEntity?
     
@@ -180,6 +238,9 @@ interface CallDataDao {
     
     @Query("SELECT * FROM call_data WHERE phoneNumber = :phoneNumber ORDER BY callDate DESC")
     suspend fun getCallsForNumber(phoneNumber: String): List<CallDataEntity>
+
+    @Query("SELECT * FROM call_data WHERE phoneNumber IN (:phoneNumbers) ORDER BY callDate DESC")
+    fun getCallsForNumbersFlow(phoneNumbers: List<String>): Flow<List<CallDataEntity>>
     
     // PERFORMANCE: Limited query for in-call screen - only fetches recent calls
     @Query("SELECT * FROM call_data WHERE phoneNumber = :phoneNumber ORDER BY callDate DESC LIMIT :limit")
@@ -199,6 +260,9 @@ interface CallDataDao {
     
     @Query("SELECT systemId FROM call_data WHERE callDate >= :minDate")
     suspend fun getSystemIdsSince(minDate: Long): List<String>
+
+    @Query("SELECT compositeId FROM call_data WHERE compositeId IN (:ids)")
+    suspend fun getExistingCompositeIds(ids: List<String>): List<String>
     
     @Query("""
         SELECT 
@@ -212,22 +276,7 @@ interface CallDataDao {
     """)
     suspend fun getCallStatsForNumber(phoneNumber: String): CallStatsResult?
 
-    @Query("""
-        SELECT 
-            phoneNumber,
-            COUNT(*) as totalCalls,
-            SUM(CASE WHEN callType = 1 THEN 1 ELSE 0 END) as totalIncoming,
-            SUM(CASE WHEN callType = 2 THEN 1 ELSE 0 END) as totalOutgoing,
-            SUM(CASE WHEN callType IN (3, 5, 6) THEN 1 ELSE 0 END) as totalMissed,
-            SUM(duration) as totalDuration
-        FROM call_data 
-        WHERE phoneNumber IN (:phoneNumbers)
-        GROUP BY phoneNumber
-    """)
-    suspend fun getCallStatsForNumbers(phoneNumbers: List<String>): List<CallStatsBatchResult>
-
-data class CallStatsBatchResult(
-    val phoneNumber: String,
+data class CallStatsResult(
     val totalCalls: Int,
     val totalIncoming: Int,
     val totalOutgoing: Int,
@@ -235,12 +284,44 @@ data class CallStatsBatchResult(
     val totalDuration: Long
 )
 
-data class CallStatsResult(
+data class CallDaySummary(
+    val lastCallDate: Long,
     val totalCalls: Int,
-    val totalIncoming: Int,
-    val totalOutgoing: Int,
-    val totalMissed: Int,
-    val totalDuration: Long
+    val uniqueCalls: Int
+)
+
+data class CallTabCounts(
+    val allCount: Int,
+    val answeredCount: Int,
+    val notAnsweredCount: Int,
+    val outgoingCount: Int,
+    val outgoingNotConnectedCount: Int,
+    val neverConnectedCount: Int,
+    val mayFailedCount: Int,
+    val ignoredCount: Int
+)
+
+/**
+ * Per call type totals of [getHiddenCallTotalsFlow]. ignoredCount is the part that still
+ * shows in the IGNORED tab (flagged, but neither excluded nor untracked).
+ */
+data class HiddenCallTotals(
+    val callType: Int,
+    val callCount: Int,
+    val totalDuration: Long,
+    val connectedCount: Int,
+    val notConnectedCount: Int,
+    val mayFailedCount: Int,
+    val ignoredCount: Int
+)
+
+/**
+ * Inputs of the counter based tab badges and report totals, see CallDataRepository.getCallTabTotalsFlow.
+ */
+data class CallTabTotals(
+    val days: List<CallDailyRollupEntity>,
+    val hidden: List<HiddenCallTotals>,
+    val neverConnectedCount: Int
 )
     
     // ============================================
@@ -298,17 +379,17 @@ data class CallStatsResult(
     @Query("UPDATE call_data SET reviewed = 1, metadataSyncStatus = 'UPDATE_PENDING', updatedAt = :timestamp WHERE phoneNumber = :phoneNumber AND reviewed = 0")
     suspend fun markAllCallsReviewed(phoneNumber: String, timestamp: Long = System.currentTimeMillis())
     
-    // NEW: Update from server (no need to sync back)
+    // NEW: Update from server (no need to sync back); null reviewed/callerName keep the local value
     @Query("""
         UPDATE call_data SET 
-            reviewed = :reviewed, 
+            reviewed = COALESCE(:reviewed, reviewed), 
             callNote = :note, 
-            contactName = :callerName,
+            contactName = COALESCE(:callerName, contactName),
             serverUpdatedAt = :serverUpdatedAt,
             metadataSyncStatus = 'SYNCED'
         WHERE compositeId = :compositeId AND (serverUpdatedAt IS NULL OR serverUpdatedAt < :serverUpdatedAt)
     """)
-    suspend fun updateFromServer(compositeId: String, reviewed: Boolean, note: String?, callerName: String?, serverUpdatedAt: Long)
+    suspend fun updateFromServer(compositeId: String, reviewed: Boolean?, note: String?, callerName: String?, serverUpdatedAt: Long)
     
     // NEW: Mark metadata as synced
     @Query("UPDATE call_data SET metadataSyncStatus = 'SYNCED', serverUpdatedAt = :serverTime WHERE compositeId = :compositeId")
@@ -10,8 +10,14 @@ import androidx.room.PrimaryKey
 @Entity(
     tableName = "call_data",
     indices = [
-        androidx.room.Index("phoneNumber"),
-        androidx.room.Index("callDate")
+        // (phoneNumber, callDate) also serves plain phoneNumber lookups and the newest-call
+        // subqueries behind the person aggregates
+        androidx.room.Index("phoneNumber", "callDate"),
+        androidx.room.Index("callDate"),
+        // Sync queues and their COUNT flows: status IN (...) AND callDate >= :minDate
+        androidx.room.Index("metadataSyncStatus", "callDate"),
+        androidx.room.Index("recordingSyncStatus", "metadataSyncStatus", "callDate"),
+        androidx.room.Index("processingStatus")
     ]
 )
 data class CallDataEntity(
@@ -0,0 +1,91 @@
+package com.miniclick.calltrackmanage.data.db
+
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+/**
+ * Keeps call_daily_rollup in step with call_data.
+ *
+ * Like [SearchIndex], the rollup is written by triggers so every insert path (system import,
+ * server pull, import from file) is covered without touching the DAOs:
+ * - an insert adds the row to its (day, SIM, type) totals in place;
+ * - a delete, or an edit of a column the totals depend on, only marks the affected days dirty.
+ *   deleteBefore and REPLACE re-imports therefore cost one indexed UPDATE per row, and
+ *   [CallDailyRollupDao.refreshDirtyDays] recomputes each dirty day once, on the next read.
+ */
+object CallRollup {
+
+    // Local calendar day of a call_data row, same definition the rebuild uses
+    private fun dayOf(row: String) = "date($row.callDate / 1000, 'unixepoch', 'localtime')"
+    private fun slotOf(row: String) = "IFNULL($row.subscriptionId, -1)"
+
+    // Creates the empty totals row for a key. Not INSERT OR IGNORE: inside a trigger the outer
+    // statement's conflict clause wins, and Room's INSERT OR REPLACE would reset existing totals.
+    private fun ensureRow(row: String, dirty: Int) = """
+        INSERT INTO call_daily_rollup(day, simSlot, callType, callCount, totalDuration, maxDuration,
+            connectedCount, notConnectedCount, mayFailedCount, distinctNumbers, dirty)
+        SELECT ${dayOf(row)}, ${slotOf(row)}, $row.callType, 0, 0, 0, 0, 0, 0, 0, $dirty
+        WHERE NOT EXISTS (
+            SELECT 1 FROM call_daily_rollup
+            WHERE day = ${dayOf(row)} AND simSlot = ${slotOf(row)} AND callType = $row.callType
+        );
+    """.trimIndent()
+
+    private val TRIGGERS = listOf(
+        """
+        CREATE TRIGGER IF NOT EXISTS call_daily_rollup_ai AFTER INSERT ON call_data BEGIN
+            ${ensureRow("NEW", dirty = 0)}
+            UPDATE call_daily_rollup SET
+                callCount = callCount + 1,
+                totalDuration = totalDuration + NEW.duration,
+                maxDuration = MAX(maxDuration, NEW.duration),
+                connectedCount = connectedCount + (NEW.duration > 3),
+                notConnectedCount = notConnectedCount + (NEW.duration <= 3),
+                mayFailedCount = mayFailedCount + (NEW.duration BETWEEN 1 AND 4),
+                distinctNumbers = distinctNumbers + NOT EXISTS (
+                    SELECT 1 FROM call_data c
+                    WHERE c.phoneNumber = NEW.phoneNumber AND c.rowid != NEW.rowid
+                        AND c.callType = NEW.callType AND ${slotOf("c")} = ${slotOf("NEW")}
+                        AND ${dayOf("c")} = ${dayOf("NEW")}
+                )
+            WHERE day = ${dayOf("NEW")} AND simSlot = ${slotOf("NEW")} AND callType = NEW.callType;
+        END
+        """,
+        """
+        CREATE TRIGGER IF NOT EXISTS call_daily_rollup_ad AFTER DELETE ON call_data BEGIN
+            UPDATE call_daily_rollup SET dirty = 1 WHERE day = ${dayOf("OLD")};
+        END
+        """,
+        """
+        CREATE TRIGGER IF NOT EXISTS call_daily_rollup_au AFTER UPDATE OF callDate, callType, duration, subscriptionId, phoneNumber ON call_data
+        WHEN OLD.callDate IS NOT NEW.callDate OR OLD.callType IS NOT NEW.callType OR OLD.duration IS NOT NEW.duration
+            OR OLD.subscriptionId IS NOT NEW.subscriptionId OR OLD.phoneNumber IS NOT NEW.phoneNumber
+        BEGIN
+            UPDATE call_daily_rollup SET dirty = 1 WHERE day IN (${dayOf("OLD")}, ${dayOf("NEW")});
+            ${ensureRow("NEW", dirty = 1)}
+        END
+        """
+    )
+
+    /**
+     * Called on every open next to [SearchIndex.onOpen]; triggers are IF NOT EXISTS.
+     */
+    fun onOpen(db: SupportSQLiteDatabase) {
+        TRIGGERS.forEach { db.execSQL(it.trimIndent()) }
+    }
+
+    /**
+     * Recomputes every day from call_data. Used by the migration that adds the table and
+     * when the device time zone changed, since day boundaries moved.
+     */
+    fun rebuild(db: SupportSQLiteDatabase) {
+        db.execSQL("DELETE FROM call_daily_rollup")
+        db.execSQL("""
+            INSERT INTO call_daily_rollup(day, simSlot, callType, callCount, totalDuration, maxDuration,
+                connectedCount, notConnectedCount, mayFailedCount, distinctNumbers, dirty)
+            SELECT ${dayOf("call_data")}, ${slotOf("call_data")}, callType, COUNT(*), SUM(duration), MAX(duration),
+                SUM(duration > 3), SUM(duration <= 3), SUM(duration BETWEEN 1 AND 4), COUNT(DISTINCT phoneNumber), 0
+            FROM call_data
+            GROUP BY 1, 2, 3
+        """.trimIndent())
+    }
+}
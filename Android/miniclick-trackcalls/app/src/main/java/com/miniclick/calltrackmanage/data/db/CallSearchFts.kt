@@ -0,0 +1,22 @@
+package com.miniclick.calltrackmanage.data.db
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.Fts4
+import androidx.room.PrimaryKey
+
+/**
+ * Full-text index over call_data, used by the search box.
+ * rowid mirrors call_data.rowid and the rows are maintained by triggers (see SearchIndex).
+ */
+@Fts4
+@Entity(tableName = "call_search_fts")
+data class CallSearchFts(
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    val rowId: Long,
+    val phoneNumber: String,
+    val phoneSuffixes: String,     // Trailing digit runs of the number, enables "ends with" search
+    val contactName: String? = null,
+    val callNote: String? = null
+)
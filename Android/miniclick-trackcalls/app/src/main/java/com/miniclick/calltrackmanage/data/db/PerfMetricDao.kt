@@ -0,0 +1,38 @@
+package com.miniclick.calltrackmanage.data.db
+
+import androidx.room.*
+
+/**
+ * Daily metric rows for the diagnostics screen and log export.
+ * Writes go through PerfTelemetry, which merges its in-memory deltas in one transaction.
+ */
+@Dao
+interface PerfMetricDao {
+
+    // ============================================
+    // QUERIES
+    // ============================================
+
+    @Query("SELECT * FROM perf_metrics WHERE day >= :sinceDay ORDER BY name, day")
+    suspend fun getSince(sinceDay: String): List<PerfMetricEntity>
+
+    @Query("SELECT * FROM perf_metrics WHERE name = :name AND day = :day")
+    suspend fun get(name: String, day: String): PerfMetricEntity?
+
+    // ============================================
+    // INSERTS & UPDATES
+    // ============================================
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun upsert(metric: PerfMetricEntity)
+
+    // ============================================
+    // DELETE
+    // ============================================
+
+    @Query("DELETE FROM perf_metrics WHERE day < :beforeDay")
+    suspend fun deleteBefore(beforeDay: String)
+
+    @Query("DELETE FROM perf_metrics")
+    suspend fun deleteAll()
+}
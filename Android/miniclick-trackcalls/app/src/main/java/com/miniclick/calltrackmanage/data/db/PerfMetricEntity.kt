@@ -0,0 +1,24 @@
+package com.miniclick.calltrackmanage.data.db
+
+import androidx.room.Entity
+
+/**
+ * One metric's totals for one local day, written by PerfTelemetry.
+ * Timers store milliseconds in [total]/[min]/[max] and a histogram in [buckets]
+ * (comma-separated counts per PerfTelemetry.BUCKET_BOUNDS_MS, plus an overflow bucket).
+ * Counters only use [count] (times incremented) and [total] (sum of increments).
+ */
+@Entity(
+    tableName = "perf_metrics",
+    primaryKeys = ["name", "day"]
+)
+data class PerfMetricEntity(
+    val name: String,              // e.g. "process.import_call_log", "upload.bytes"
+    val day: String,               // yyyy-MM-dd, device local time
+    val kind: String,              // PerfTelemetry.KIND_TIMER or KIND_COUNTER
+    val count: Long = 0,
+    val total: Long = 0,
+    val min: Long = 0,
+    val max: Long = 0,
+    val buckets: String = ""
+)
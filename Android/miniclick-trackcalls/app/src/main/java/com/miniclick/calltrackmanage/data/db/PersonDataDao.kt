@@ -20,12 +20,20 @@ interface PersonDataDao {
     @Query("SELECT * FROM person_data WHERE lastCallDate >= :minDate ORDER BY lastCallDate DESC")
     suspend fun getAllPersonsIncludingExcluded(minDate: Long): List<PersonDataEntity>
 
+    // Full-text search, :match comes from SearchIndex.toMatchExpression
+    @Query("SELECT p.phoneNumber FROM person_data p JOIN person_search_fts ON p.rowid = person_search_fts.rowid WHERE person_search_fts MATCH :match")
+    suspend fun searchPhoneNumbers(match: String): List<String>
+
     @Query("SELECT * FROM person_data ORDER BY lastCallDate DESC")
     fun getAllPersonsIncludingExcludedFlow(): Flow<List<PersonDataEntity>>
     
     @Query("SELECT * FROM person_data WHERE excludeFromList = 0 ORDER BY lastCallDate DESC")
     suspend fun getAllPersons(): List<PersonDataEntity>
 
+    // Keyset page of getAllPersons by phone number, for streaming exports
+    @Query("SELECT * FROM person_data WHERE excludeFromList = 0 AND phoneNumber > :afterPhone ORDER BY phoneNumber LIMIT :limit")
+    suspend fun getPersonsPage(afterPhone: String, limit: Int): List<PersonDataEntity>
+
     @Query("SELECT DISTINCT label FROM person_data WHERE label IS NOT NULL AND label != '' ORDER BY label ASC")
     suspend fun getDistinctLabels(): List<String>
     
@@ -51,6 +59,13 @@ interface PersonDataDao {
     @Query("SELECT * FROM person_data WHERE phoneNumber IN (:phoneNumbers)")
     suspend fun getByPhoneNumbers(phoneNumbers: List<String>): List<PersonDataEntity>
 
+    // Compact caller-ID rows, most recent callers first (served by the lastCallDate index)
+    @Query("SELECT $CALLER_SNAPSHOT_COLUMNS FROM person_data ORDER BY lastCallDate DESC LIMIT :limit")
+    suspend fun getRecentCallerSnapshots(limit: Int): List<CallerSnapshot>
+
+    @Query("SELECT $CALLER_SNAPSHOT_COLUMNS FROM person_data WHERE phoneNumber = :phoneNumber")
+    suspend fun getCallerSnapshot(phoneNumber: String): CallerSnapshot?
+
     @Query("SELECT * FROM person_data WHERE phoneNumber LIKE '%' || :suffix")
     suspend fun getByPhoneNumberSuffix(suffix: String): List<PersonDataEntity>
     
@@ -60,6 +75,10 @@ interface PersonDataDao {
     // Check if number should be excluded from sync
     @Query("SELECT excludeFromSync FROM person_data WHERE phoneNumber = :phoneNumber")
     suspend fun isExcludedFromSync(phoneNumber: String): Boolean?
+
+    // Whole exclusion list, so a sync pass can check numbers in memory
+    @Query("SELECT phoneNumber FROM person_data WHERE excludeFromSync = 1")
+    suspend fun getSyncExcludedPhones(): List<String>
     
     // ============================================
     // INSERTS & UPDATES
@@ -131,6 +150,75 @@ interface PersonDataDao {
     """)
     suspend fun updateFromServer(phoneNumber: String, personNote: String?, label: String?, name: String?, serverUpdatedAt: Long)
     
+    // ============================================
+    // AGGREGATES FROM call_data (set-based, one pass per chunk of numbers)
+    // Plain INSERT OR IGNORE / UPDATE: upsert syntax needs SQLite 3.24 (API 30)
+    // ============================================
+
+    /**
+     * Creates rows for numbers that have calls but no person yet. Name, note, label and
+     * exclusions carry over from a stored variant of the number ('+' toggled first, then
+     * the same last 10 digits), as the per-number robust lookup did.
+     */
+    @Query("""
+        INSERT OR IGNORE INTO person_data (phoneNumber, contactName, photoUri, personNote, label,
+            isExcluded, excludeFromSync, excludeFromList,
+            totalCalls, totalIncoming, totalOutgoing, totalMissed, totalDuration,
+            createdAt, updatedAt, needsSync)
+        SELECT n.phoneNumber, v.contactName, v.photoUri, v.personNote, v.label,
+            COALESCE(v.isExcluded, 0), COALESCE(v.excludeFromSync, 0), COALESCE(v.excludeFromList, 0),
+            0, 0, 0, 0, 0,
+            COALESCE(v.createdAt, :now), :now, COALESCE(v.needsSync, 1)
+        FROM (
+            SELECT DISTINCT phoneNumber FROM call_data
+            WHERE phoneNumber IN (:phoneNumbers)
+              AND phoneNumber NOT IN (SELECT phoneNumber FROM person_data)
+        ) n
+        LEFT JOIN person_data v ON v.rowid = (
+            SELECT p.rowid FROM person_data p
+            WHERE p.phoneNumber = CASE WHEN n.phoneNumber LIKE '+%' THEN substr(n.phoneNumber, 2) ELSE '+' || n.phoneNumber END
+               OR (length(n.phoneNumber) >= 10 AND p.phoneNumber LIKE '%' || substr(n.phoneNumber, -10))
+            ORDER BY p.phoneNumber = CASE WHEN n.phoneNumber LIKE '+%' THEN substr(n.phoneNumber, 2) ELSE '+' || n.phoneNumber END DESC
+            LIMIT 1
+        )
+    """)
+    suspend fun insertMissingFromCalls(phoneNumbers: List<String>, now: Long)
+
+    /**
+     * Moves the last-call summary to the newest stored call, only where that call is newer
+     * than the one already recorded. A blank name on the newest call keeps the stored name.
+     */
+    @Query("""
+        UPDATE person_data SET
+            lastCallDate = (SELECT c.callDate FROM call_data c WHERE c.phoneNumber = person_data.phoneNumber ORDER BY c.callDate DESC LIMIT 1),
+            lastCallType = (SELECT c.callType FROM call_data c WHERE c.phoneNumber = person_data.phoneNumber ORDER BY c.callDate DESC LIMIT 1),
+            lastCallDuration = (SELECT c.duration FROM call_data c WHERE c.phoneNumber = person_data.phoneNumber ORDER BY c.callDate DESC LIMIT 1),
+            lastRecordingPath = (SELECT c.localRecordingPath FROM call_data c WHERE c.phoneNumber = person_data.phoneNumber ORDER BY c.callDate DESC LIMIT 1),
+            lastCallCompositeId = (SELECT c.compositeId FROM call_data c WHERE c.phoneNumber = person_data.phoneNumber ORDER BY c.callDate DESC LIMIT 1),
+            photoUri = COALESCE((SELECT c.photoUri FROM call_data c WHERE c.phoneNumber = person_data.phoneNumber ORDER BY c.callDate DESC LIMIT 1), photoUri),
+            contactName = COALESCE((SELECT NULLIF(c.contactName, '') FROM call_data c WHERE c.phoneNumber = person_data.phoneNumber ORDER BY c.callDate DESC LIMIT 1), NULLIF(contactName, ''))
+        WHERE phoneNumber IN (:phoneNumbers)
+          AND COALESCE(lastCallDate, 0) < (SELECT MAX(c.callDate) FROM call_data c WHERE c.phoneNumber = person_data.phoneNumber)
+    """)
+    suspend fun refreshLastCallFromCalls(phoneNumbers: List<String>)
+
+    /**
+     * Recomputes the call totals from call_data. Numbers without stored calls keep their totals.
+     */
+    @Query("""
+        UPDATE person_data SET
+            totalCalls = (SELECT COUNT(*) FROM call_data c WHERE c.phoneNumber = person_data.phoneNumber),
+            totalIncoming = (SELECT COUNT(*) FROM call_data c WHERE c.phoneNumber = person_data.phoneNumber AND c.callType = 1),
+            totalOutgoing = (SELECT COUNT(*) FROM call_data c WHERE c.phoneNumber = person_data.phoneNumber AND c.callType = 2),
+            totalMissed = (SELECT COUNT(*) FROM call_data c WHERE c.phoneNumber = person_data.phoneNumber AND c.callType IN (3, 5, 6)),
+            totalDuration = (SELECT COALESCE(SUM(c.duration), 0) FROM call_data c WHERE c.phoneNumber = person_data.phoneNumber),
+            contactName = COALESCE(NULLIF(contactName, ''), (SELECT c.contactName FROM call_data c WHERE c.phoneNumber = person_data.phoneNumber AND c.contactName <> '' ORDER BY c.callDate DESC LIMIT 1)),
+            updatedAt = :now
+        WHERE phoneNumber IN (:phoneNumbers)
+          AND EXISTS (SELECT 1 FROM call_data c WHERE c.phoneNumber = person_data.phoneNumber)
+    """)
+    suspend fun refreshTotalsFromCalls(phoneNumbers: List<String>, now: Long)
+
     // ============================================
     // DELETE
     // ============================================
@@ -141,3 +229,25 @@ interface PersonDataDao {
     @Query("DELETE FROM person_data")
     suspend fun deleteAll()
 }
+
+private const val CALLER_SNAPSHOT_COLUMNS =
+    "phoneNumber, contactName, label, personNote, lastCallDate, totalCalls, totalDuration"
+
+/**
+ * The person fields the caller-ID overlay shows, small enough to keep a few hundred in memory.
+ */
+data class CallerSnapshot(
+    val phoneNumber: String,
+    val contactName: String?,
+    val label: String?,
+    val personNote: String?,
+    val lastCallDate: Long?,
+    val totalCalls: Int,
+    val totalDuration: Long
+) {
+    val hasRelevantData: Boolean
+        get() = !personNote.isNullOrBlank() ||
+            !label.isNullOrBlank() ||
+            !contactName.isNullOrBlank() ||
+            totalCalls > 0
+}
@@ -0,0 +1,23 @@
+package com.miniclick.calltrackmanage.data.db
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.Fts4
+import androidx.room.PrimaryKey
+
+/**
+ * Full-text index over person_data, used by the search box in the persons view.
+ * rowid mirrors person_data.rowid and the rows are maintained by triggers (see SearchIndex).
+ */
+@Fts4
+@Entity(tableName = "person_search_fts")
+data class PersonSearchFts(
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    val rowId: Long,
+    val phoneNumber: String,
+    val phoneSuffixes: String,
+    val contactName: String? = null,
+    val personNote: String? = null,
+    val label: String? = null
+)
@@ -0,0 +1,53 @@
+package com.miniclick.calltrackmanage.data.db
+
+import androidx.room.*
+
+@Dao
+interface RecordingFileDao {
+
+    // ============================================
+    // QUERIES
+    // ============================================
+
+    @Query("SELECT * FROM recording_files WHERE folder = :folder")
+    suspend fun getByFolder(folder: String): List<RecordingFileEntity>
+
+    /**
+     * Candidates for one call: same phone key, or modified / named within the time window.
+     * Each branch is served by its own index.
+     */
+    @Query("""
+        SELECT * FROM recording_files
+        WHERE (:phoneKey IS NOT NULL AND phoneKey = :phoneKey)
+           OR (lastModified BETWEEN :start AND :end)
+           OR (filenameDate BETWEEN :start AND :end)
+    """)
+    suspend fun findCandidates(phoneKey: String?, start: Long, end: Long): List<RecordingFileEntity>
+
+    // Plain (non-suspend) so the synchronous matcher can use it from worker threads
+    @Query("SELECT durationMs FROM recording_files WHERE path = :path")
+    fun getDuration(path: String): Long?
+
+    @Query("SELECT COUNT(*) FROM recording_files")
+    suspend fun getCount(): Int
+
+    // ============================================
+    // INSERTS & UPDATES
+    // ============================================
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun upsertAll(files: List<RecordingFileEntity>)
+
+    @Query("UPDATE recording_files SET durationMs = :durationMs WHERE path = :path")
+    fun updateDuration(path: String, durationMs: Long)
+
+    // ============================================
+    // DELETE
+    // ============================================
+
+    @Query("DELETE FROM recording_files WHERE path IN (:paths)")
+    suspend fun deleteByPaths(paths: List<String>)
+
+    @Query("DELETE FROM recording_files WHERE folder = :folder")
+    suspend fun deleteFolder(folder: String)
+}
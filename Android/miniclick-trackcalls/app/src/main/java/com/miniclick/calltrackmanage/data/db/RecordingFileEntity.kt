@@ -0,0 +1,39 @@
+package com.miniclick.calltrackmanage.data.db
+
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+
+/**
+ * Persistent index of audio files that may be call recordings.
+ * Rows are refreshed incrementally (folder mtime, file size/mtime, MediaStore generation),
+ * so matching a call is an indexed lookup instead of a storage walk.
+ */
+@Entity(
+    tableName = "recording_files",
+    indices = [
+        androidx.room.Index("folder"),
+        androidx.room.Index("lastModified"),
+        androidx.room.Index("filenameDate"),
+        androidx.room.Index("phoneKey")
+    ]
+)
+data class RecordingFileEntity(
+    @PrimaryKey
+    val path: String,               // Local path or content URI
+    val name: String,
+    val folder: String,             // Parent folder, tree URI, or MEDIASTORE_FOLDER
+    val isLocal: Boolean,
+    val size: Long,
+    val lastModified: Long,
+    val filenameDate: Long? = null, // Timestamp parsed from the filename, if any
+    val digits: String = "",        // All digits in the filename
+    val phoneKey: String? = null,   // Last 7 digits of [digits], null when too short for a phone number
+    val durationMs: Long? = null,   // Probed duration, null until probed
+    val generation: Long = 0,       // MediaStore GENERATION_MODIFIED (0 for file system rows)
+    val indexedAt: Long = System.currentTimeMillis()
+) {
+    companion object {
+        const val MEDIASTORE_FOLDER = "mediastore"
+        const val PHONE_KEY_LENGTH = 7
+    }
+}
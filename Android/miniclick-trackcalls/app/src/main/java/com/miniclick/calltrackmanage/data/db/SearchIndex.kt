@@ -0,0 +1,119 @@
+package com.miniclick.calltrackmanage.data.db
+
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+/**
+ * Keeps call_search_fts / person_search_fts in sync with their source tables and
+ * turns a raw search box query into an FTS4 MATCH expression.
+ *
+ * The FTS rows are written by triggers so every insert path (system import, server
+ * pull, import from file) is covered without touching the DAOs.
+ */
+object SearchIndex {
+
+    // Longest suffix indexed; covers a national number without country code
+    private const val MAX_SUFFIX = 10
+    private const val MIN_SUFFIX = 3
+    // Stripped from the number before taking suffixes
+    private const val SEPARATORS = "+ -."
+
+    private val CALL_TRIGGERS = listOf(
+        """
+        CREATE TRIGGER IF NOT EXISTS call_search_fts_ai AFTER INSERT ON call_data BEGIN
+            INSERT INTO call_search_fts(rowid, phoneNumber, phoneSuffixes, contactName, callNote)
+            VALUES (NEW.rowid, NEW.phoneNumber, ${suffixesOf("NEW.phoneNumber")}, NEW.contactName, NEW.callNote);
+        END
+        """,
+        """
+        CREATE TRIGGER IF NOT EXISTS call_search_fts_ad AFTER DELETE ON call_data BEGIN
+            DELETE FROM call_search_fts WHERE rowid = OLD.rowid;
+        END
+        """,
+        """
+        CREATE TRIGGER IF NOT EXISTS call_search_fts_au AFTER UPDATE OF phoneNumber, contactName, callNote ON call_data BEGIN
+            DELETE FROM call_search_fts WHERE rowid = OLD.rowid;
+            INSERT INTO call_search_fts(rowid, phoneNumber, phoneSuffixes, contactName, callNote)
+            VALUES (NEW.rowid, NEW.phoneNumber, ${suffixesOf("NEW.phoneNumber")}, NEW.contactName, NEW.callNote);
+        END
+        """
+    )
+
+    private val PERSON_TRIGGERS = listOf(
+        """
+        CREATE TRIGGER IF NOT EXISTS person_search_fts_ai AFTER INSERT ON person_data BEGIN
+            INSERT INTO person_search_fts(rowid, phoneNumber, phoneSuffixes, contactName, personNote, label)
+            VALUES (NEW.rowid, NEW.phoneNumber, ${suffixesOf("NEW.phoneNumber")}, NEW.contactName, NEW.personNote, NEW.label);
+        END
+        """,
+        """
+        CREATE TRIGGER IF NOT EXISTS person_search_fts_ad AFTER DELETE ON person_data BEGIN
+            DELETE FROM person_search_fts WHERE rowid = OLD.rowid;
+        END
+        """,
+        """
+        CREATE TRIGGER IF NOT EXISTS person_search_fts_au AFTER UPDATE OF phoneNumber, contactName, personNote, label ON person_data BEGIN
+            DELETE FROM person_search_fts WHERE rowid = OLD.rowid;
+            INSERT INTO person_search_fts(rowid, phoneNumber, phoneSuffixes, contactName, personNote, label)
+            VALUES (NEW.rowid, NEW.phoneNumber, ${suffixesOf("NEW.phoneNumber")}, NEW.contactName, NEW.personNote, NEW.label);
+        END
+        """
+    )
+
+    /**
+     * Called on every open. Triggers are IF NOT EXISTS, so this is a no-op after the first run,
+     * and it also restores them after a destructive migration recreated the tables.
+     */
+    fun onOpen(db: SupportSQLiteDatabase) {
+        // @Insert(REPLACE) deletes the old row first; the delete triggers only fire for it
+        // when recursive triggers are on, otherwise stale FTS rows would be left behind.
+        db.execSQL("PRAGMA recursive_triggers = ON")
+        (CALL_TRIGGERS + PERSON_TRIGGERS).forEach { db.execSQL(it.trimIndent()) }
+    }
+
+    /**
+     * Fills both indexes from the current table contents. Used by the migration that adds them.
+     */
+    fun rebuild(db: SupportSQLiteDatabase) {
+        db.execSQL("DELETE FROM call_search_fts")
+        db.execSQL("""
+            INSERT INTO call_search_fts(rowid, phoneNumber, phoneSuffixes, contactName, callNote)
+            SELECT rowid, phoneNumber, ${suffixesOf("phoneNumber")}, contactName, callNote FROM call_data
+        """.trimIndent())
+        db.execSQL("DELETE FROM person_search_fts")
+        db.execSQL("""
+            INSERT INTO person_search_fts(rowid, phoneNumber, phoneSuffixes, contactName, personNote, label)
+            SELECT rowid, phoneNumber, ${suffixesOf("phoneNumber")}, contactName, personNote, label FROM person_data
+        """.trimIndent())
+    }
+
+    /**
+     * Builds a MATCH expression where every word of the query must prefix-match some column.
+     * Digit runs also match anywhere inside the last 10 digits of the number, because every
+     * trailing run is indexed in phoneSuffixes. Returns null when nothing searchable is left.
+     */
+    fun toMatchExpression(query: String): String? {
+        val terms = query.lowercase()
+            .split(Regex("\\s+"))
+            .map { word -> word.filter { it.isLetterOrDigit() } }
+            .filter { it.isNotEmpty() }
+        if (terms.isEmpty()) return null
+        return terms.joinToString(separator = " ") { "$it*" }
+    }
+
+    /**
+     * The phoneSuffixes value the triggers store for [phoneNumber], computed in Kotlin.
+     * Same rules as [suffixesOf]: separators dropped, then every trailing run of 3..10 characters.
+     */
+    internal fun phoneSuffixes(phoneNumber: String): String {
+        val digits = SEPARATORS.fold(phoneNumber) { number, separator -> number.replace(separator.toString(), "") }
+        return (MIN_SUFFIX..MAX_SUFFIX).joinToString(separator = " ") { digits.takeLast(it) }
+    }
+
+    /**
+     * SQL expression listing the trailing digit runs of [column], e.g. "3210 43210 543210 ...".
+     */
+    private fun suffixesOf(column: String): String {
+        val digits = SEPARATORS.fold(column) { expr, separator -> "REPLACE($expr, '$separator', '')" }
+        return (MIN_SUFFIX..MAX_SUFFIX).joinToString(separator = " || ' ' || ") { "substr($digits, -$it)" }
+    }
+}
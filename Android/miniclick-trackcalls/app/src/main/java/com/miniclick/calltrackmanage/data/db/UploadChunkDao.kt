@@ -0,0 +1,38 @@
+package com.miniclick.calltrackmanage.data.db
+
+import androidx.room.*
+
+@Dao
+interface UploadChunkDao {
+
+    // ============================================
+    // QUERIES
+    // ============================================
+
+    @Query("SELECT chunkIndex FROM upload_chunks WHERE compositeId = :compositeId AND fileSize = :fileSize AND chunkSize = :chunkSize")
+    suspend fun getUploadedIndices(compositeId: String, fileSize: Long, chunkSize: Int): List<Int>
+
+    @Query("SELECT DISTINCT compositeId FROM upload_chunks")
+    suspend fun getCompositeIdsWithAcks(): List<String>
+
+    // ============================================
+    // INSERTS & UPDATES
+    // ============================================
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insert(chunk: UploadChunkEntity)
+
+    // ============================================
+    // DELETE
+    // ============================================
+
+    @Query("DELETE FROM upload_chunks WHERE compositeId = :compositeId")
+    suspend fun deleteForCall(compositeId: String)
+
+    // Acks recorded for a different file layout can never be reused
+    @Query("DELETE FROM upload_chunks WHERE compositeId = :compositeId AND (fileSize != :fileSize OR chunkSize != :chunkSize)")
+    suspend fun deleteStale(compositeId: String, fileSize: Long, chunkSize: Int)
+
+    @Query("DELETE FROM upload_chunks WHERE uploadedAt < :before")
+    suspend fun deleteOlderThan(before: Long)
+}
@@ -0,0 +1,21 @@
+package com.miniclick.calltrackmanage.data.db
+
+import androidx.room.Entity
+
+/**
+ * Server acknowledgement of one recording chunk. A row exists only once the chunk
+ * has been accepted, so an interrupted upload resumes with the missing indices.
+ * [fileSize] and [chunkSize] pin the layout: if the source file changes, the rows no
+ * longer match and the upload starts over.
+ */
+@Entity(
+    tableName = "upload_chunks",
+    primaryKeys = ["compositeId", "chunkIndex"]
+)
+data class UploadChunkEntity(
+    val compositeId: String,
+    val chunkIndex: Int,
+    val fileSize: Long,
+    val chunkSize: Int,
+    val uploadedAt: Long = System.currentTimeMillis()
+)
@@ -0,0 +1,126 @@
+package com.miniclick.calltrackmanage.network
+
+import kotlinx.coroutines.delay
+import retrofit2.Response
+import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
+import kotlin.random.Random
+
+/**
+ * Retry settings for one kind of call. Attempts include the first try.
+ */
+data class RetryPolicy(
+    val maxAttempts: Int,
+    val baseDelayMs: Long,
+    val maxDelayMs: Long
+) {
+    companion object {
+        /** Background metadata sync: batches, config, person pushes */
+        val SYNC = RetryPolicy(maxAttempts = 4, baseDelayMs = 1_000L, maxDelayMs = 30_000L)
+
+        /** Recording chunks and finalize; each attempt is expensive, so fewer and slower */
+        val UPLOAD = RetryPolicy(maxAttempts = 3, baseDelayMs = 2_000L, maxDelayMs = 60_000L)
+
+        /** Single attempt, still guarded by the circuit breaker */
+        val NONE = RetryPolicy(maxAttempts = 1, baseDelayMs = 0L, maxDelayMs = 0L)
+    }
+}
+
+/** Thrown instead of calling an endpoint whose circuit breaker is open */
+class CircuitOpenException(val endpoint: String, val retryAtMillis: Long) :
+    IOException("Circuit open for $endpoint until $retryAtMillis")
+
+/**
+ * Suspend-aware retry for [CallCloudApi] calls.
+ *
+ * Waits with [delay], so a backing-off call holds no OkHttp or worker thread and is cancelled
+ * with its coroutine. Retries IOExceptions, 5xx and 429 with full-jitter exponential backoff,
+ * waits for a Retry-After the server sends, and keeps a circuit breaker per endpoint: after
+ * [failureThreshold] consecutive failed attempts, calls fail fast with [CircuitOpenException]
+ * for [openMillis] (or the server's Retry-After, if longer). A Retry-After alone also holds
+ * the endpoint until it passes. The first failure after a breaker opens re-opens it; any
+ * answered request closes it.
+ */
+class ApiRetry(
+    private val failureThreshold: Int = 5,
+    private val openMillis: Long = 60_000L,
+    private val clock: () -> Long = System::currentTimeMillis,
+    private val random: Random = Random.Default
+) {
+
+    private class Breaker {
+        var failures = 0
+        var openUntil = 0L
+    }
+
+    private val breakers = ConcurrentHashMap<String, Breaker>()
+
+    suspend fun <T> execute(
+        endpoint: String,
+        policy: RetryPolicy,
+        block: suspend () -> Response<T>
+    ): Response<T> {
+        val breaker = breakers.getOrPut(endpoint) { Breaker() }
+        var attempt = 0
+
+        while (true) {
+            attempt++
+            val openUntil = synchronized(breaker) { breaker.openUntil }
+            if (clock() < openUntil) throw CircuitOpenException(endpoint, openUntil)
+
+            val response: Response<T>? = try {
+                block()
+            } catch (e: IOException) {
+                onFailure(breaker, 0L)
+                if (attempt >= policy.maxAttempts) throw e
+                null
+            }
+
+            if (response != null) {
+                if (!isRetryable(response.code())) {
+                    onSuccess(breaker)
+                    return response
+                }
+                val retryAfter = retryAfterMillis(response)
+                onFailure(breaker, retryAfter)
+                if (attempt >= policy.maxAttempts || retryAfter > policy.maxDelayMs) return response
+                response.errorBody()?.close()
+                delay(maxOf(retryAfter, backoff(policy, attempt)))
+            } else {
+                delay(backoff(policy, attempt))
+            }
+        }
+    }
+
+    private fun isRetryable(code: Int) = code == 429 || code in 500..599
+
+    // Full jitter: uniform in [0, min(max, base * 2^(attempt-1))]
+    private fun backoff(policy: RetryPolicy, attempt: Int): Long {
+        val cap = minOf(policy.maxDelayMs, policy.baseDelayMs shl minOf(attempt - 1, 20))
+        return if (cap <= 0L) 0L else random.nextLong(cap + 1)
+    }
+
+    private fun retryAfterMillis(response: Response<*>): Long {
+        val headers = response.headers()
+        val value = headers["Retry-After"] ?: return 0L
+        value.trim().toLongOrNull()?.let { return maxOf(0L, it * 1000L) }
+        val date = headers.getDate("Retry-After") ?: return 0L
+        return maxOf(0L, date.time - clock())
+    }
+
+    private fun onSuccess(breaker: Breaker) = synchronized(breaker) {
+        breaker.failures = 0
+        breaker.openUntil = 0L
+    }
+
+    private fun onFailure(breaker: Breaker, retryAfter: Long) = synchronized(breaker) {
+        breaker.failures++
+        val now = clock()
+        if (breaker.failures >= failureThreshold) {
+            breaker.openUntil = now + maxOf(openMillis, retryAfter)
+        } else if (retryAfter > 0L) {
+            // The server asked everyone to back off, not just this call
+            breaker.openUntil = maxOf(breaker.openUntil, now + retryAfter)
+        }
+    }
+}
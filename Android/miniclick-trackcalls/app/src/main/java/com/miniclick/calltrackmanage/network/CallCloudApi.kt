@@ -95,6 +95,20 @@ interface CallCloudApi {
         @Field("last_sync_time") lastSyncTime: Long
     ): Response<ApiResponse<SyncResponse>>
     
+    // Paginated delta sync: pass the previous page's next_cursor (null for the first page).
+    // The response is gzip-compressed; OkHttp asks for it and unpacks it transparently.
+    @FormUrlEncoded
+    @POST("sync_app.php")
+    suspend fun fetchUpdatesPage(
+        @Field("action") action: String,
+        @Field("org_id") orgId: String,
+        @Field("user_id") userId: String,
+        @Field("device_id") deviceId: String,
+        @Field("last_sync_time") lastSyncTime: Long,
+        @Field("cursor") cursor: String?,
+        @Field("limit") limit: Int
+    ): Response<ApiResponse<SyncPageResponse>>
+    
     // NEW: Update call metadata (reviewed, note, caller_name, upload_status)
     @FormUrlEncoded
     @POST("sync_app.php")
@@ -108,6 +122,14 @@ interface CallCloudApi {
         @Field("updated_at") updatedAt: Long
     ): Response<ApiResponse<ServerTimeResponse>>
     
+    // Batched form of updateCall: calls_json is a list of CallMetadataUpdateDto (max 500)
+    @FormUrlEncoded
+    @POST("sync_app.php")
+    suspend fun updateCalls(
+        @Field("action") action: String,
+        @Field("calls_json") callsJson: String
+    ): Response<ApiResponse<BatchUpdateCallsResponse>>
+    
     // NEW: Update person metadata (personNote, label, name)
     @FormUrlEncoded
     @POST("sync_app.php")
@@ -37,12 +37,16 @@ data class PersonUpdateDto(
     @SerializedName("phone") val phone: String,
     @SerializedName("name") val name: String?,
     @SerializedName("person_note") val personNote: String?,
-    @SerializedName("label") val label: String?
+    @SerializedName("label") val label: String?,
+    @SerializedName("updated_at") val updatedAt: Long? = null
 )
 
 data class CallUpdateDto(
     @SerializedName("unique_id") val uniqueId: String,
-    @SerializedName("note") val note: String
+    @SerializedName("note") val note: String?,
+    @SerializedName("reviewed") val reviewed: Int? = null,
+    @SerializedName("caller_name") val callerName: String? = null,
+    @SerializedName("updated_at") val updatedAt: Long? = null
 )
 
 data class SyncResponse(
@@ -51,6 +55,14 @@ data class SyncResponse(
     @SerializedName("server_time") val serverTime: Long
 )
 
+// One page of fetch_updates_page; next_cursor is null once the window is exhausted
+data class SyncPageResponse(
+    @SerializedName("person_updates") val personUpdates: List<PersonUpdateDto>?,
+    @SerializedName("call_updates") val callUpdates: List<CallUpdateDto>?,
+    @SerializedName("next_cursor") val nextCursor: String?,
+    @SerializedName("server_time") val serverTime: Long
+)
+
 data class ConfigResponse(
     @SerializedName("excluded_contacts") val excludedContacts: List<String>?,
     @SerializedName("settings") val settings: EmployeeSettingsDto,
@@ -70,6 +82,21 @@ data class BatchSyncResponse(
     @SerializedName("server_time") val serverTime: Long
 )
 
+// One entry of an update_calls batch; null fields are left unchanged on the server
+data class CallMetadataUpdateDto(
+    @SerializedName("unique_id") val uniqueId: String,
+    @SerializedName("reviewed") val reviewed: Boolean?,
+    @SerializedName("note") val note: String?,
+    @SerializedName("caller_name") val callerName: String?,
+    @SerializedName("updated_at") val updatedAt: Long
+)
+
+data class BatchUpdateCallsResponse(
+    @SerializedName("updated_ids") val updatedIds: List<String>,
+    @SerializedName("failed") val failed: Map<String, String>?, // unique_id -> error
+    @SerializedName("server_time") val serverTime: Long
+)
+
 // Generic response for updates (call, person) that return server time
 data class ServerTimeResponse(
     @SerializedName("server_time") val serverTime: Long
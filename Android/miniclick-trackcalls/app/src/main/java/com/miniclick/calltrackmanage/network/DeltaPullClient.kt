@@ -0,0 +1,85 @@
+package com.miniclick.calltrackmanage.network
+
+import retrofit2.Response
+import java.io.IOException
+
+/**
+ * Walks the paginated delta pull (fetch_updates_page) until the server returns no next cursor.
+ *
+ * Each page is handed to [pull]'s onPage before its cursor is reported through onCursor, so a
+ * caller that applies the page and then persists the cursor resumes an interrupted pull at the
+ * first page it has not applied. Re-applying a page is harmless: server updates are
+ * last-writer-wins on updated_at.
+ *
+ * Kept free of Android types so it can be exercised against a local mock server. Without a
+ * [retry] every page gets a single attempt.
+ */
+class DeltaPullClient(
+    private val api: CallCloudApi,
+    private val pageSize: Int = DEFAULT_PAGE_SIZE,
+    private val retry: ApiRetry? = null
+) {
+
+    companion object {
+        const val DEFAULT_PAGE_SIZE = 500
+        private const val ACTION = "fetch_updates_page"
+    }
+
+    data class PullResult(
+        val pages: Int,
+        val callUpdates: Int,
+        val personUpdates: Int,
+        /** Upper bound of the pulled window; the next pull starts here */
+        val serverTime: Long
+    )
+
+    /**
+     * @param startCursor the cursor persisted by a previous, interrupted pull, or null to
+     *   start a new window at [lastSyncTime]
+     * @throws IOException on HTTP or server errors; the last applied cursor is still reported.
+     *   A rejected cursor is reported as null so the next pull starts over.
+     */
+    suspend fun pull(
+        orgId: String,
+        userId: String,
+        deviceId: String,
+        lastSyncTime: Long,
+        startCursor: String?,
+        onPage: suspend (SyncPageResponse) -> Unit,
+        onCursor: (String?) -> Unit
+    ): PullResult {
+        var cursor = startCursor
+        var pages = 0
+        var callUpdates = 0
+        var personUpdates = 0
+        var serverTime = lastSyncTime
+
+        do {
+            val pageCursor = cursor
+            val fetch: suspend () -> Response<ApiResponse<SyncPageResponse>> = {
+                api.fetchUpdatesPage(ACTION, orgId, userId, deviceId, lastSyncTime, pageCursor, pageSize)
+            }
+            val response = retry?.execute(ACTION, RetryPolicy.SYNC, fetch) ?: fetch()
+            if (!response.isSuccessful) {
+                if (response.code() == 400 && cursor != null) onCursor(null)
+                throw IOException("fetch_updates_page failed: HTTP ${response.code()}")
+            }
+            val body = response.body()
+            val page = body?.data
+            if (body?.success != true || page == null) {
+                throw IOException("fetch_updates_page failed: ${body?.error ?: body?.message ?: "empty response"}")
+            }
+
+            onPage(page)
+            pages++
+            callUpdates += page.callUpdates?.size ?: 0
+            personUpdates += page.personUpdates?.size ?: 0
+            serverTime = page.serverTime
+
+            cursor = page.nextCursor
+            onCursor(cursor)
+        } while (cursor != null)
+
+        return PullResult(pages, callUpdates, personUpdates, serverTime)
+    }
+}
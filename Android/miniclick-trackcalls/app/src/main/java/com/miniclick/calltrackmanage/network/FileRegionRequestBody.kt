@@ -0,0 +1,53 @@
+package com.miniclick.calltrackmanage.network
+
+import android.content.Context
+import android.net.Uri
+import android.os.ParcelFileDescriptor
+import okhttp3.MediaType
+import okhttp3.RequestBody
+import okio.BufferedSink
+import okio.source
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.channels.Channels
+import java.nio.channels.FileChannel
+
+/**
+ * Request body for one region of a local file or content URI.
+ *
+ * The region is streamed from a positioned FileChannel straight into the OkHttp sink,
+ * so no chunk-sized byte array is allocated. The channel is reopened on every
+ * [writeTo], which keeps the body replayable for interceptor retries.
+ */
+class FileRegionRequestBody(
+    private val context: Context,
+    private val path: String,
+    private val offset: Long,
+    private val length: Long,
+    private val contentType: MediaType?
+) : RequestBody() {
+
+    override fun contentType(): MediaType? = contentType
+
+    override fun contentLength(): Long = length
+
+    override fun writeTo(sink: BufferedSink) {
+        openChannel().use { channel ->
+            channel.position(offset)
+            Channels.newInputStream(channel).source().use { source ->
+                sink.write(source, length)
+            }
+        }
+    }
+
+    private fun openChannel(): FileChannel {
+        return if (path.startsWith("content://")) {
+            val pfd = context.contentResolver.openFileDescriptor(Uri.parse(path), "r")
+                ?: throw IOException("Cannot open $path")
+            // Closing the channel closes the stream, which closes the descriptor
+            ParcelFileDescriptor.AutoCloseInputStream(pfd).channel
+        } else {
+            RandomAccessFile(path, "r").channel
+        }
+    }
+}
@@ -1,12 +1,11 @@
 package com.miniclick.calltrackmanage.network
 
 import okhttp3.ConnectionPool
-import okhttp3.Interceptor
 import okhttp3.OkHttpClient
 import okhttp3.logging.HttpLoggingInterceptor
+import retrofit2.Response
 import retrofit2.Retrofit
 import retrofit2.converter.gson.GsonConverterFactory
-import java.io.IOException
 import java.util.concurrent.TimeUnit
 
 object NetworkClient {
@@ -21,27 +20,6 @@ object NetworkClient {
         }
     }
 
-    // Retry interceptor for transient network failures
-    private val retryInterceptor = Interceptor { chain ->
-        val request = chain.request()
-        var response = chain.proceed(request)
-        var tryCount = 0
-        val maxRetries = 3
-
-        while (!response.isSuccessful && tryCount < maxRetries) {
-            tryCount++
-            // Only retry on server errors (5xx) or timeout-like errors
-            if (response.code in 500..599) {
-                response.close()
-                Thread.sleep(1000L * tryCount) // Exponential-ish backoff
-                response = chain.proceed(request)
-            } else {
-                break
-            }
-        }
-        response
-    }
-
     // Connection pool for reusing HTTP connections
     private val connectionPool = ConnectionPool(
         maxIdleConnections = 5,
@@ -51,7 +29,6 @@ object NetworkClient {
 
     private val client = OkHttpClient.Builder()
         .addInterceptor(logging)
-        .addInterceptor(retryInterceptor)
         .connectionPool(connectionPool)
         .connectTimeout(30, TimeUnit.SECONDS)  // Reduced from 60s for faster failure detection
         .readTimeout(60, TimeUnit.SECONDS)
@@ -67,4 +44,17 @@ object NetworkClient {
             .build()
             .create(CallCloudApi::class.java)
     }
+
+    // Retries back off by suspending, never on an OkHttp thread; breakers are per endpoint
+    val retry = ApiRetry()
+
+    /**
+     * Call [api] with retry and the endpoint's circuit breaker. Interactive lookups should call
+     * [api] directly (or pass [RetryPolicy.NONE]) so the UI is not kept waiting on backoff.
+     */
+    suspend fun <T> call(
+        endpoint: String,
+        policy: RetryPolicy = RetryPolicy.SYNC,
+        block: suspend CallCloudApi.() -> Response<T>
+    ): Response<T> = retry.execute(endpoint, policy) { api.block() }
 }
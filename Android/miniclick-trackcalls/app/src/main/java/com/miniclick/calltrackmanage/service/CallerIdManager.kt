@@ -4,6 +4,7 @@ import android.annotation.SuppressLint
 import android.content.Context
 import android.graphics.PixelFormat
 import android.os.Build
+import android.os.SystemClock
 import android.util.Log
 import android.view.Gravity
 import android.view.LayoutInflater
@@ -16,7 +17,8 @@ import android.widget.TextView
 import com.miniclick.calltrackmanage.R
 import com.miniclick.calltrackmanage.data.CallDataRepository
 import com.miniclick.calltrackmanage.data.SettingsRepository
-import com.miniclick.calltrackmanage.data.db.PersonDataEntity
+import com.miniclick.calltrackmanage.data.PerfTelemetry
+import com.miniclick.calltrackmanage.data.db.CallerSnapshot
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
@@ -26,11 +28,14 @@ import kotlinx.coroutines.withContext
 /**
  * Manager that displays a floating caller ID overlay during calls.
  * Shows contact info, notes, labels, and call statistics for known contacts.
+ * Person data comes from [CallerSnapshotCache] and custom lookups from [CustomLookupCache],
+ * so repeat callers are drawn from memory without touching Room or the network.
  */
 object CallerIdManager {
 
     private const val TAG = "CallerIdManager"
-    private val scope = CoroutineScope(Dispatchers.Main + SupervisorJob())
+    // immediate: a cache hit renders without waiting for the next main-loop pass
+    private val scope = CoroutineScope(Dispatchers.Main.immediate + SupervisorJob())
     
     private var windowManager: WindowManager? = null
     private var overlayView: View? = null
@@ -71,41 +76,60 @@ object CallerIdManager {
         currentPhoneNumber = normalizedPhone
         
         // Fetch data
+        val requestedAt = SystemClock.elapsedRealtime()
         scope.launch {
-            val personData = withContext(Dispatchers.IO) {
-                callDataRepository.getPersonData(normalizedPhone)
-            }
+            val snapshot = CallerSnapshotCache.get(appContext, normalizedPhone)
             
-            var customData: String? = null
-            if (customLookupEnabled && customLookupCallerIdEnabled) {
-                customData = withContext(Dispatchers.IO) {
-                    fetchCustomLookupSnippet(appContext, normalizedPhone)
-                }
-            }
+            val lookupUrl = if (customLookupEnabled && customLookupCallerIdEnabled) {
+                buildLookupUrl(settingsRepository.getCustomLookupUrl(), normalizedPhone)
+            } else null
+            var customData = lookupUrl?.let { CustomLookupCache.get(appContext, it, normalizedPhone) }
+            
+            // The call may have ended while we were reading
+            if (currentPhoneNumber != normalizedPhone) return@launch
             
             // Only show overlay if we have meaningful data (note, label, call history, or custom lookup)
-            if ((personData != null && hasRelevantData(personData)) || !customData.isNullOrBlank()) {
-                createAndShowOverlay(appContext, phoneNumber, personData, customData)
-            } else {
+            if (snapshot?.hasRelevantData == true || !customData.isNullOrBlank()) {
+                createAndShowOverlay(appContext, phoneNumber, snapshot, customData)
+                PerfTelemetry.recordDuration(PerfTelemetry.Metrics.CALLER_ID_OVERLAY, SystemClock.elapsedRealtime() - requestedAt)
+            }
+            
+            // Cache miss: fetch in the background and fill the lookup section in when it arrives
+            if (lookupUrl != null && customData == null) {
+                customData = withContext(Dispatchers.IO) { fetchCustomLookupSnippet(lookupUrl) }
+                if (customData.isNullOrBlank()) {
+                    if (overlayView == null) Log.d(TAG, "No relevant data for $normalizedPhone, skipping overlay")
+                    return@launch
+                }
+                CustomLookupCache.put(appContext, lookupUrl, normalizedPhone, customData)
+                if (currentPhoneNumber != normalizedPhone) return@launch
+                
+                val view = overlayView
+                if (view != null) {
+                    showLookup(view, customData)
+                } else {
+                    createAndShowOverlay(appContext, phoneNumber, snapshot, customData)
+                }
+            } else if (overlayView == null) {
                 Log.d(TAG, "No relevant data for $normalizedPhone, skipping overlay")
             }
         }
     }
 
-    private suspend fun fetchCustomLookupSnippet(context: Context, phoneNumber: String): String? {
-        try {
-            val settingsRepository = SettingsRepository.getInstance(context)
-            val baseUrl = settingsRepository.getCustomLookupUrl().ifEmpty { 
-                "https://prop.digiheadway.in/api/calls/caller_id.php?phone={phone}"
-            }
-            
-            val url = if (baseUrl.contains("{phone}")) {
-                baseUrl.replace("{phone}", phoneNumber)
-            } else {
-                val separator = if (baseUrl.contains("?")) "&" else "?"
-                "${baseUrl}${separator}phone=${phoneNumber}"
-            }
+    private fun buildLookupUrl(customUrl: String, phoneNumber: String): String {
+        val baseUrl = customUrl.ifEmpty { 
+            "https://prop.digiheadway.in/api/calls/caller_id.php?phone={phone}"
+        }
+        return if (baseUrl.contains("{phone}")) {
+            baseUrl.replace("{phone}", phoneNumber)
+        } else {
+            val separator = if (baseUrl.contains("?")) "&" else "?"
+            "${baseUrl}${separator}phone=${phoneNumber}"
+        }
+    }
 
+    private suspend fun fetchCustomLookupSnippet(url: String): String? {
+        try {
             val response = com.miniclick.calltrackmanage.network.NetworkClient.api.fetchData(url)
             if (response.isSuccessful) {
                 val body = response.body() ?: return null
@@ -123,19 +147,11 @@ object CallerIdManager {
         return null
     }
 
-    private fun hasRelevantData(person: PersonDataEntity): Boolean {
-        // Show overlay if we have any of: note, label, contact name, or call history
-        return !person.personNote.isNullOrBlank() ||
-               !person.label.isNullOrBlank() ||
-               !person.contactName.isNullOrBlank() ||
-               person.totalCalls > 0
-    }
-
     @SuppressLint("ClickableViewAccessibility")
-    private fun createAndShowOverlay(context: Context, phoneNumber: String, person: PersonDataEntity?, customData: String? = null) {
+    private fun createAndShowOverlay(context: Context, phoneNumber: String, person: CallerSnapshot?, customData: String? = null) {
         try {
-            // Remove previous if exists
-            hide(context)
+            // Remove previous if exists (keeps currentPhoneNumber)
+            removeOverlay(context)
 
             windowManager = context.getSystemService(Context.WINDOW_SERVICE) as WindowManager
 
@@ -175,7 +191,7 @@ object CallerIdManager {
         }
     }
 
-    private fun populateOverlay(view: View, phoneNumber: String, person: PersonDataEntity?, customData: String? = null) {
+    private fun populateOverlay(view: View, phoneNumber: String, person: CallerSnapshot?, customData: String? = null) {
         // Name
         view.findViewById<TextView>(R.id.nameText).text = person?.contactName?.takeIf { it.isNotBlank() } ?: phoneNumber
 
@@ -211,13 +227,7 @@ object CallerIdManager {
         }
 
         // Custom Lookup
-        val lookupContainer = view.findViewById<LinearLayout>(R.id.lookupContainer)
-        if (!customData.isNullOrBlank()) {
-            lookupContainer.visibility = View.VISIBLE
-            view.findViewById<TextView>(R.id.lookupText).text = customData
-        } else {
-            lookupContainer.visibility = View.GONE
-        }
+        showLookup(view, customData)
 
         // Card click to open app
         view.findViewById<LinearLayout>(R.id.cardContainer).setOnClickListener {
@@ -231,6 +241,16 @@ object CallerIdManager {
         }
     }
 
+    private fun showLookup(view: View, customData: String?) {
+        val lookupContainer = view.findViewById<LinearLayout>(R.id.lookupContainer)
+        if (!customData.isNullOrBlank()) {
+            lookupContainer.visibility = View.VISIBLE
+            view.findViewById<TextView>(R.id.lookupText).text = customData
+        } else {
+            lookupContainer.visibility = View.GONE
+        }
+    }
+
     private fun openAppWithLookup(context: Context, phoneNumber: String) {
         try {
             val intent = context.packageManager.getLaunchIntentForPackage(context.packageName)
@@ -274,18 +294,21 @@ object CallerIdManager {
     }
 
     fun hide(context: Context) {
+        currentPhoneNumber = null
+        removeOverlay(context)
+        Log.d(TAG, "Overlay hidden")
+    }
+
+    private fun removeOverlay(context: Context) {
         try {
             overlayView?.let {
                 val wm = context.getSystemService(Context.WINDOW_SERVICE) as WindowManager
                 wm.removeView(it)
-                overlayView = null
             }
-            currentPhoneNumber = null
-            Log.d(TAG, "Overlay hidden")
         } catch (e: Exception) {
             // Ignore if view was already removed
-            overlayView = null
         }
+        overlayView = null
     }
 
     private fun formatPhoneNumber(phone: String): String {
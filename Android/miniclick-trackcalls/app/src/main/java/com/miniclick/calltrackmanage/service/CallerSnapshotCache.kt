@@ -0,0 +1,86 @@
+package com.miniclick.calltrackmanage.service
+
+import android.content.Context
+import android.util.Log
+import android.util.LruCache
+import androidx.room.InvalidationTracker
+import com.miniclick.calltrackmanage.data.db.AppDatabase
+import com.miniclick.calltrackmanage.data.db.CallerSnapshot
+import kotlinx.coroutines.*
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * In-memory LRU of [CallerSnapshot]s for the caller-ID overlay.
+ *
+ * [prewarm] loads the most recent callers. A person_data observer, registered by whichever
+ * of [prewarm] and [get] runs first, reloads the snapshot set (debounced) on any person
+ * change instead of leaving stale names or notes behind. A hit in [get] does not suspend, so the overlay can be drawn in the
+ * same main-thread pass as the incoming-call event.
+ */
+object CallerSnapshotCache {
+
+    private const val TAG = "CallerSnapshotCache"
+    private const val MAX_ENTRIES = 512
+    private const val PREWARM_COUNT = 300
+    private const val RELOAD_DEBOUNCE_MS = 1_000L
+
+    // snapshot == null caches "no person row" so unknown callers skip Room too
+    private class Entry(val snapshot: CallerSnapshot?)
+
+    private val cache = LruCache<String, Entry>(MAX_ENTRIES)
+    private val scope = CoroutineScope(Dispatchers.IO + SupervisorJob())
+    private val reloadScheduled = AtomicBoolean(false)
+
+    @Volatile
+    private var observer: InvalidationTracker.Observer? = null
+
+    fun prewarm(context: Context) {
+        val appContext = context.applicationContext
+        ensureObserver(appContext)
+        scheduleReload(appContext)
+    }
+
+    /**
+     * Snapshot for a normalized phone number, or null if there is no person row.
+     * Falls back to Room on a miss and caches the answer either way.
+     */
+    suspend fun get(context: Context, normalizedPhone: String): CallerSnapshot? {
+        cache.get(normalizedPhone)?.let { return it.snapshot }
+        val appContext = context.applicationContext
+        // prewarm() is skipped without permissions; nothing may be cached before someone evicts it
+        ensureObserver(appContext)
+        val snapshot = withContext(Dispatchers.IO) {
+            AppDatabase.getInstance(appContext).personDataDao().getCallerSnapshot(normalizedPhone)
+        }
+        cache.put(normalizedPhone, Entry(snapshot))
+        return snapshot
+    }
+
+    private fun ensureObserver(appContext: Context) {
+        if (observer != null) return
+        synchronized(this) {
+            if (observer == null) {
+                observer = object : InvalidationTracker.Observer("person_data") {
+                    override fun onInvalidated(tables: Set<String>) = scheduleReload(appContext)
+                }.also { AppDatabase.getInstance(appContext).invalidationTracker.addObserver(it) }
+            }
+        }
+    }
+
+    private fun scheduleReload(context: Context) {
+        if (!reloadScheduled.compareAndSet(false, true)) return
+        scope.launch {
+            delay(RELOAD_DEBOUNCE_MS)
+            reloadScheduled.set(false)
+            try {
+                val recent = AppDatabase.getInstance(context).personDataDao().getRecentCallerSnapshots(PREWARM_COUNT)
+                // Drop everything, including cached misses: a changed row may be one of them
+                cache.evictAll()
+                recent.forEach { cache.put(it.phoneNumber, Entry(it)) }
+                Log.d(TAG, "Loaded ${recent.size} caller snapshots")
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to load caller snapshots", e)
+            }
+        }
+    }
+}
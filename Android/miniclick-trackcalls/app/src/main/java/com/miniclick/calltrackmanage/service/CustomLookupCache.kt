@@ -0,0 +1,88 @@
+package com.miniclick.calltrackmanage.service
+
+import android.content.Context
+import android.util.Log
+import android.util.LruCache
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import java.io.File
+
+/**
+ * TTL cache of custom-lookup snippets for the caller-ID overlay: a small memory LRU in front
+ * of one file per (lookup URL, number) under cacheDir. Entries expire after [TTL_MS], and
+ * changing the lookup URL starts a fresh key space. Only successful lookups are stored, so a
+ * failed request is retried on the next call.
+ */
+object CustomLookupCache {
+
+    private const val TAG = "CustomLookupCache"
+    private const val DIR_NAME = "caller_lookup"
+    private const val TTL_MS = 24 * 60 * 60 * 1000L
+    private const val MAX_FILES = 500
+    private const val MEMORY_ENTRIES = 64
+
+    private class Entry(val snippet: String, val fetchedAt: Long)
+
+    private val memory = LruCache<String, Entry>(MEMORY_ENTRIES)
+
+    suspend fun get(context: Context, lookupUrl: String, normalizedPhone: String): String? {
+        val key = key(lookupUrl, normalizedPhone)
+        val now = System.currentTimeMillis()
+        memory.get(key)?.let { entry ->
+            if (now - entry.fetchedAt < TTL_MS) return entry.snippet
+            memory.remove(key)
+        }
+
+        return withContext(Dispatchers.IO) {
+            val file = File(dir(context), key)
+            if (!file.exists()) return@withContext null
+            if (now - file.lastModified() >= TTL_MS) {
+                file.delete()
+                return@withContext null
+            }
+            try {
+                val snippet = file.readText()
+                memory.put(key, Entry(snippet, file.lastModified()))
+                snippet
+            } catch (e: Exception) {
+                Log.w(TAG, "Failed to read cached lookup", e)
+                null
+            }
+        }
+    }
+
+    suspend fun put(context: Context, lookupUrl: String, normalizedPhone: String, snippet: String) {
+        val key = key(lookupUrl, normalizedPhone)
+        memory.put(key, Entry(snippet, System.currentTimeMillis()))
+        withContext(Dispatchers.IO) {
+            try {
+                val dir = dir(context)
+                File(dir, key).writeText(snippet)
+                trim(dir)
+            } catch (e: Exception) {
+                Log.w(TAG, "Failed to cache lookup", e)
+            }
+        }
+    }
+
+    // Expired files first, then the oldest until the directory is back under MAX_FILES
+    private fun trim(dir: File) {
+        val files = dir.listFiles() ?: return
+        if (files.size <= MAX_FILES) return
+        val now = System.currentTimeMillis()
+        val sorted = files.sortedBy { it.lastModified() }
+        var remaining = files.size
+        for (file in sorted) {
+            if (remaining <= MAX_FILES && now - file.lastModified() < TTL_MS) break
+            if (file.delete()) remaining--
+        }
+    }
+
+    private fun dir(context: Context): File =
+        File(context.applicationContext.cacheDir, DIR_NAME).apply { mkdirs() }
+
+    private fun key(lookupUrl: String, normalizedPhone: String): String {
+        val urlHash = Integer.toHexString(lookupUrl.hashCode())
+        return "${normalizedPhone.replace(Regex("[^0-9+]"), "")}_$urlHash"
+    }
+}
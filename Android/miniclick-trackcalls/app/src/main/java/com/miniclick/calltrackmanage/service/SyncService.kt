@@ -18,6 +18,7 @@ import androidx.annotation.RequiresApi
 import androidx.core.app.NotificationCompat
 import com.miniclick.calltrackmanage.MainActivity
 import com.miniclick.calltrackmanage.R
+import com.miniclick.calltrackmanage.data.CallLogImporter
 import com.miniclick.calltrackmanage.worker.CallSyncWorker
 import com.miniclick.calltrackmanage.worker.RecordingUploadWorker
 import kotlinx.coroutines.*
@@ -46,6 +47,9 @@ class SyncService : Service() {
         }
         if (checkHasPermissions()) {
             startPhoneStateMonitoring()
+            CallLogImporter.getInstance(this).start()
+            // Load recent callers now so the first incoming call's overlay comes from memory
+            CallerSnapshotCache.prewarm(this)
         } else {
             Log.d(TAG, "Permissions missing, skipping monitor start")
         }
@@ -66,6 +70,7 @@ class SyncService : Service() {
         super.onDestroy()
         Log.d(TAG, "SyncService destroyed")
         stopPhoneStateMonitoring()
+        CallLogImporter.getInstance(this).stop()
         serviceScope.cancel()
     }
 
@@ -37,10 +37,14 @@ import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.text.style.TextAlign
 import androidx.compose.ui.text.style.TextOverflow
 import androidx.compose.ui.unit.dp
+import androidx.paging.compose.LazyPagingItems
 import com.miniclick.calltrackmanage.data.db.CallDataEntity
 import com.miniclick.calltrackmanage.data.db.MetadataSyncStatus
+import com.miniclick.calltrackmanage.data.db.PersonDataEntity
 import com.miniclick.calltrackmanage.data.db.RecordingSyncStatus
 import com.miniclick.calltrackmanage.ui.common.*
+import com.miniclick.calltrackmanage.ui.home.viewmodel.CallListItem
+import com.miniclick.calltrackmanage.ui.home.viewmodel.DateSectionSummary
 import com.miniclick.calltrackmanage.util.audio.AudioPlayer
 import com.miniclick.calltrackmanage.util.audio.PlaybackMetadata
 import com.miniclick.calltrackmanage.util.formatting.cleanNumber
@@ -55,9 +59,10 @@ import java.util.*
 @OptIn(ExperimentalFoundationApi::class)
 @Composable
 fun CallLogList(
-    logs: List<CallDataEntity>,
+    logs: LazyPagingItems<CallListItem>,
+    daySummaries: List<DateSectionSummary>,
     recordings: Map<String, String>,
-    personGroupsMap: Map<String, PersonGroup>,
+    personsMap: Map<String, PersonDataEntity>,
     modifier: Modifier = Modifier,
     onSaveCallNote: (String, String) -> Unit,
     onSavePersonNote: (String, String) -> Unit,
@@ -65,7 +70,7 @@ fun CallLogList(
     audioPlayer: AudioPlayer,
     whatsappPreference: String,
     context: Context,
-    onViewMoreClick: (PersonGroup) -> Unit,
+    onViewMoreClick: (String) -> Unit,
     onAttachRecording: (CallDataEntity) -> Unit,
     canExclude: Boolean = true,
     onCustomLookup: (String) -> Unit,
@@ -75,6 +80,10 @@ fun CallLogList(
 ) {
     val uiState by viewModel.uiState.collectAsState()
     val callRecordEnabled = uiState.callRecordEnabled
+
+    // Same lookup the person grouping uses: the number as stored on the call, then normalized
+    fun personFor(number: String): PersonDataEntity? =
+        personsMap[number] ?: personsMap[viewModel.normalizePhoneNumber(number)]
     
     // Pre-compute available labels once to avoid recalculation on each recomposition
     val availableLabels = remember(uiState.persons) {
@@ -106,7 +115,7 @@ fun CallLogList(
     if (personNoteTarget != null) {
         NoteDialog(
             title = "Person Note",
-            initialNote = personGroupsMap[personNoteTarget?.phoneNumber]?.personNote ?: "",
+            initialNote = personNoteTarget?.let { personFor(it.phoneNumber) }?.personNote ?: "",
             label = "Note (linked to phone number)",
             buttonText = "Save Person Note",
             onDismiss = { personNoteTarget = null },
@@ -119,7 +128,7 @@ fun CallLogList(
 
     if (labelTarget != null) {
         LabelPickerDialog(
-            currentLabel = personGroupsMap[labelTarget?.phoneNumber]?.label,
+            currentLabel = labelTarget?.let { personFor(it.phoneNumber) }?.label,
             availableLabels = availableLabels,
             onDismiss = { labelTarget = null },
             onSave = { label ->
@@ -133,7 +142,7 @@ fun CallLogList(
     if (nameTarget != null) {
         NoteDialog(
             title = "Set Name",
-            initialNote = personGroupsMap[nameTarget?.phoneNumber]?.name ?: "",
+            initialNote = nameTarget?.let { personFor(it.phoneNumber) }?.contactName ?: "",
             label = "Name for this contact",
             buttonText = "Save Name",
             onDismiss = { nameTarget = null },
@@ -298,9 +307,9 @@ fun CallLogList(
         )
     }
 
-    // Grouping with counts
-    val groupedLogs = remember(logs) {
-        logs.groupBy { getDateHeader(it.callDate) }
+    // Section totals come from SQL, the pages only hold the loaded window
+    val summariesByLabel = remember(daySummaries) {
+        daySummaries.associateBy { it.dateLabel }
     }
 
     Box(modifier = modifier) {
@@ -309,122 +318,126 @@ fun CallLogList(
             state = lazyListState,
             contentPadding = PaddingValues(top = 8.dp, bottom = 240.dp)
         ) {
-            groupedLogs.forEach { (header, headerLogs) ->
-                stickyHeader {
-                    DateSectionHeader(
-                        dateLabel = header,
-                        totalCalls = headerLogs.size,
-                        uniqueCalls = headerLogs.distinctBy { it.phoneNumber }.size,
-                        onJumpClick = onJumpClick
-                    )
-                }
-                items(headerLogs, key = { it.compositeId }) { log ->
-                    val isExpanded = expandedLogId == log.compositeId
-                    // Trigger check on expand
-                    if (isExpanded) {
-                        LaunchedEffect(log.compositeId) {
-                            viewModel.getRecordingForLog(log)
-                        }
+            for (index in 0 until logs.itemCount) {
+                when (val entry = logs.peek(index)) {
+                    is CallListItem.Header -> stickyHeader(key = entry.key) {
+                        val day = summariesByLabel[entry.dateLabel]
+                        DateSectionHeader(
+                            dateLabel = entry.dateLabel,
+                            totalCalls = day?.totalCalls ?: 0,
+                            uniqueCalls = day?.uniqueCalls ?: 0,
+                            onJumpClick = onJumpClick
+                        )
                     }
+                    is CallListItem.Call -> item(key = entry.key) {
+                        // Indexed access tells Paging which rows are visible so it can load ahead
+                        val log = (logs[index] as? CallListItem.Call)?.call ?: entry.call
+                        val isExpanded = expandedLogId == log.compositeId
+                        // Trigger check on expand
+                        if (isExpanded) {
+                            LaunchedEffect(log.compositeId) {
+                                viewModel.getRecordingForLog(log)
+                            }
+                        }
                     
-                    // Check for recording - use localRecordingPath from entity or recordings cache
-                    val recordingPath = log.localRecordingPath ?: recordings[log.compositeId]
-                    val hasRecording = !recordingPath.isNullOrEmpty()
+                        // Check for recording - use localRecordingPath from entity or recordings cache
+                        val recordingPath = log.localRecordingPath ?: recordings[log.compositeId]
+                        val hasRecording = !recordingPath.isNullOrEmpty()
                     
-                    val clipboardManager = context.getSystemService(Context.CLIPBOARD_SERVICE) as android.content.ClipboardManager
+                        val clipboardManager = context.getSystemService(Context.CLIPBOARD_SERVICE) as android.content.ClipboardManager
                     
-                    CallLogItem(
-                        log = log,
-                        isExpanded = isExpanded,
-                        hasRecording = hasRecording,
-                        recordingPath = recordingPath,
-                        onCardClick = { 
-                            expandedLogId = if (isExpanded) null else log.compositeId
-                        },
-                        onLongClick = {
-                            longPressTarget = log
-                        },
-                        onPlayClick = { path -> 
-                            val callTypeStr = when (log.callType) {
-                                android.provider.CallLog.Calls.INCOMING_TYPE -> "Incoming"
-                                android.provider.CallLog.Calls.OUTGOING_TYPE -> "Outgoing"
-                                android.provider.CallLog.Calls.MISSED_TYPE -> "Missed"
-                                5 -> "Rejected"
-                                6 -> "Blocked"
-                                else -> "Call"
-                            }
-                            val timeStr = SimpleDateFormat("MMM dd, hh:mm a", Locale.getDefault()).format(java.util.Date(log.callDate))
-                            audioPlayer.play(
-                                path,
-                                PlaybackMetadata(
-                                    name = log.contactName,
-                                    phoneNumber = log.phoneNumber,
-                                    callTime = timeStr,
-                                    callType = callTypeStr
+                        CallLogItem(
+                            log = log,
+                            isExpanded = isExpanded,
+                            hasRecording = hasRecording,
+                            recordingPath = recordingPath,
+                            onCardClick = { 
+                                expandedLogId = if (isExpanded) null else log.compositeId
+                            },
+                            onLongClick = {
+                                longPressTarget = log
+                            },
+                            onPlayClick = { path -> 
+                                val callTypeStr = when (log.callType) {
+                                    android.provider.CallLog.Calls.INCOMING_TYPE -> "Incoming"
+                                    android.provider.CallLog.Calls.OUTGOING_TYPE -> "Outgoing"
+                                    android.provider.CallLog.Calls.MISSED_TYPE -> "Missed"
+                                    5 -> "Rejected"
+                                    6 -> "Blocked"
+                                    else -> "Call"
+                                }
+                                val timeStr = SimpleDateFormat("MMM dd, hh:mm a", Locale.getDefault()).format(java.util.Date(log.callDate))
+                                audioPlayer.play(
+                                    path,
+                                    PlaybackMetadata(
+                                        name = log.contactName,
+                                        phoneNumber = log.phoneNumber,
+                                        callTime = timeStr,
+                                        callType = callTypeStr
+                                    )
                                 )
-                            )
-                        },
-                        onCallNoteClick = { callNoteTarget = log },
-                        onPersonNoteClick = { personNoteTarget = log },
-                        onCallClick = {
-                            viewModel.initiateCall(log.phoneNumber)
-                        },
-                        onCopyClick = {
-                            val cleaned = cleanNumber(log.phoneNumber)
-                            val clip = android.content.ClipData.newPlainText("Phone Number", cleaned)
-                            clipboardManager.setPrimaryClip(clip)
-                            android.widget.Toast.makeText(context, "Copied: $cleaned", android.widget.Toast.LENGTH_SHORT).show()
-                        },
-                        onWhatsAppClick = {
-                            viewModel.onWhatsAppClick(log.phoneNumber)
-                        },
-                        onAddContactClick = {
-                            try {
+                            },
+                            onCallNoteClick = { callNoteTarget = log },
+                            onPersonNoteClick = { personNoteTarget = log },
+                            onCallClick = {
+                                viewModel.initiateCall(log.phoneNumber)
+                            },
+                            onCopyClick = {
                                 val cleaned = cleanNumber(log.phoneNumber)
-                                val intent = Intent(Intent.ACTION_INSERT_OR_EDIT).apply {
-                                    type = android.provider.ContactsContract.Contacts.CONTENT_ITEM_TYPE
-                                    putExtra(android.provider.ContactsContract.Intents.Insert.PHONE, cleaned)
+                                val clip = android.content.ClipData.newPlainText("Phone Number", cleaned)
+                                clipboardManager.setPrimaryClip(clip)
+                                android.widget.Toast.makeText(context, "Copied: $cleaned", android.widget.Toast.LENGTH_SHORT).show()
+                            },
+                            onWhatsAppClick = {
+                                viewModel.onWhatsAppClick(log.phoneNumber)
+                            },
+                            onAddContactClick = {
+                                try {
+                                    val cleaned = cleanNumber(log.phoneNumber)
+                                    val intent = Intent(Intent.ACTION_INSERT_OR_EDIT).apply {
+                                        type = android.provider.ContactsContract.Contacts.CONTENT_ITEM_TYPE
+                                        putExtra(android.provider.ContactsContract.Intents.Insert.PHONE, cleaned)
+                                    }
+                                    intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK)
+                                    context.startActivity(intent)
+                                } catch (e: Exception) {
+                                    e.printStackTrace()
                                 }
-                                intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK)
-                                context.startActivity(intent)
-                            } catch (e: Exception) {
-                                e.printStackTrace()
-                            }
-                        },
-                        onAddToCrmClick = {
-                            try {
-                                val cleaned = cleanNumber(log.phoneNumber)
-                                val intent = Intent("com.example.salescrm.ACTION_ADD_LEAD").apply {
-                                    putExtra("lead_name", log.contactName ?: "")
-                                    putExtra("lead_phone", cleaned)
+                            },
+                            onAddToCrmClick = {
+                                try {
+                                    val cleaned = cleanNumber(log.phoneNumber)
+                                    val intent = Intent("com.example.salescrm.ACTION_ADD_LEAD").apply {
+                                        putExtra("lead_name", log.contactName ?: "")
+                                        putExtra("lead_phone", cleaned)
+                                    }
+                                    intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK)
+                                    context.startActivity(intent)
+                                } catch (e: android.content.ActivityNotFoundException) {
+                                    android.widget.Toast.makeText(context, "SalesCRM app not installed", android.widget.Toast.LENGTH_SHORT).show()
+                                } catch (e: Exception) {
+                                    e.printStackTrace()
+                                    android.widget.Toast.makeText(context, "Failed to open CRM", android.widget.Toast.LENGTH_SHORT).show()
                                 }
-                                intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK)
-                                context.startActivity(intent)
-                            } catch (e: android.content.ActivityNotFoundException) {
-                                android.widget.Toast.makeText(context, "SalesCRM app not installed", android.widget.Toast.LENGTH_SHORT).show()
-                            } catch (e: Exception) {
-                                e.printStackTrace()
-                                android.widget.Toast.makeText(context, "Failed to open CRM", android.widget.Toast.LENGTH_SHORT).show()
-                            }
-                        },
-                        onViewMoreClick = {
-                            personGroupsMap[log.phoneNumber]?.let { onViewMoreClick(it) }
-                        },
-                        audioPlayer = audioPlayer,
-                        personGroup = personGroupsMap[log.phoneNumber],
-                        onLabelClick = { labelTarget = log },
-                        onAttachRecording = onAttachRecording,
-                        onReviewedToggle = { viewModel.updateReviewed(log.compositeId, !log.reviewed) },
-                        callRecordEnabled = callRecordEnabled,
-                        showDialButton = showDialButton
-                    )
+                            },
+                            onViewMoreClick = { onViewMoreClick(log.phoneNumber) },
+                            audioPlayer = audioPlayer,
+                            person = personFor(log.phoneNumber),
+                            onLabelClick = { labelTarget = log },
+                            onAttachRecording = onAttachRecording,
+                            onReviewedToggle = { viewModel.updateReviewed(log.compositeId, !log.reviewed) },
+                            callRecordEnabled = callRecordEnabled,
+                            showDialButton = showDialButton
+                        )
+                    }
+                    null -> item { logs[index] }
                 }
             }
         }
 
         VerticalScrollbar(
             lazyListState = lazyListState,
-            itemCount = logs.size + groupedLogs.size,
+            itemCount = logs.itemCount,
             modifier = Modifier.align(Alignment.CenterEnd)
         )
     }
@@ -449,7 +462,7 @@ fun CallLogItem(
     onAddToCrmClick: () -> Unit,
     onViewMoreClick: () -> Unit,
     audioPlayer: AudioPlayer,
-    personGroup: PersonGroup?,
+    person: PersonDataEntity?,
     onLabelClick: () -> Unit,
     onAttachRecording: (CallDataEntity) -> Unit,
     onReviewedToggle: () -> Unit,
@@ -532,8 +545,8 @@ fun CallLogItem(
                         verticalAlignment = Alignment.CenterVertically,
                         horizontalArrangement = Arrangement.spacedBy(4.dp)
                     ) {
-                        val displayName = remember(personGroup?.name, log.contactName, log.phoneNumber) {
-                            personGroup?.name?.takeIf { it.isNotBlank() } 
+                        val displayName = remember(person?.contactName, log.contactName, log.phoneNumber) {
+                            person?.contactName?.takeIf { it.isNotBlank() } 
                                 ?: log.contactName?.takeIf { it.isNotBlank() } 
                                 ?: cleanNumber(log.phoneNumber)
                         }
@@ -566,7 +579,7 @@ fun CallLogItem(
                             DurationInfo(log.duration)
                             
                             val hasCallNote = !log.callNote.isNullOrEmpty()
-                            val hasPersonNote = personGroup?.personNote?.isNotEmpty() == true
+                            val hasPersonNote = person?.personNote?.isNotEmpty() == true
                             
                             if (hasCallNote) {
                                 NoteChip(
@@ -579,7 +592,7 @@ fun CallLogItem(
                             
                             if (hasPersonNote) {
                                 NoteChip(
-                                    note = personGroup!!.personNote,
+                                    note = person!!.personNote,
                                     icon = Icons.Default.Person,
                                     onClick = onPersonNoteClick,
                                     color = MaterialTheme.colorScheme.primaryContainer,
@@ -587,8 +600,8 @@ fun CallLogItem(
                                 )
                             }
                             
-                            if (!personGroup?.label.isNullOrEmpty()) {
-                                val labelList = remember(personGroup!!.label) { personGroup!!.label!!.split(",").map { it.trim() }.filter { it.isNotBlank() } }
+                            if (!person?.label.isNullOrEmpty()) {
+                                val labelList = remember(person!!.label) { person!!.label!!.split(",").map { it.trim() }.filter { it.isNotBlank() } }
                                 labelList.forEach { label ->
                                     LabelChip(label = label, onClick = onLabelClick, maxLines = 10)
                                 }
@@ -603,7 +616,7 @@ fun CallLogItem(
                             DurationInfo(log.duration)
 
                             val hasCallNote = !log.callNote.isNullOrEmpty()
-                            val hasPersonNote = personGroup?.personNote?.isNotEmpty() == true
+                            val hasPersonNote = person?.personNote?.isNotEmpty() == true
                             
                             if (hasCallNote) {
                                 NoteChip(
@@ -615,15 +628,15 @@ fun CallLogItem(
                             
                             if (hasPersonNote) {
                                 NoteChip(
-                                    note = personGroup!!.personNote,
+                                    note = person!!.personNote,
                                     icon = Icons.Default.Person,
                                     onClick = onPersonNoteClick,
                                     color = MaterialTheme.colorScheme.primaryContainer
                                 )
                             }
                             
-                            if (!personGroup?.label.isNullOrEmpty()) {
-                                val labels = remember(personGroup!!.label) { personGroup!!.label!!.split(",").map { it.trim() }.filter { it.isNotBlank() } }
+                            if (!person?.label.isNullOrEmpty()) {
+                                val labels = remember(person!!.label) { person!!.label!!.split(",").map { it.trim() }.filter { it.isNotBlank() } }
                                 if (labels.isNotEmpty()) {
                                     val displayLabel = remember(labels) {
                                         if (labels.size > 1) "${labels.first()} +${labels.size - 1}" else labels.first()
@@ -643,8 +656,8 @@ fun CallLogItem(
                     horizontalAlignment = Alignment.End,
                     verticalArrangement = Arrangement.SpaceBetween
                 ) {
-                    // Always show Call Count Chip if personGroup exists
-                    if (personGroup != null) {
+                    // Always show Call Count Chip if the person row exists
+                    if (person != null) {
                         Surface(
                             shape = RoundedCornerShape(12.dp),
                             color = MaterialTheme.colorScheme.primaryContainer,
@@ -664,7 +677,7 @@ fun CallLogItem(
                                     tint = MaterialTheme.colorScheme.onPrimaryContainer
                                 )
                                 Text(
-                                    text = "${personGroup.calls.size}",
+                                    text = "${person.totalCalls}",
                                     style = MaterialTheme.typography.labelSmall,
                                     fontWeight = FontWeight.Bold,
                                     color = MaterialTheme.colorScheme.onPrimaryContainer
@@ -816,7 +829,7 @@ fun CallLogItem(
                 }
 
                 // View all interactions button
-                if (personGroup != null) {
+                if (person != null) {
                     HorizontalDivider(color = MaterialTheme.colorScheme.outlineVariant)
                     TextButton(
                         onClick = onViewMoreClick,
@@ -830,7 +843,7 @@ fun CallLogItem(
                             horizontalArrangement = Arrangement.Center
                         ) {
                             Text(
-                                text = "View all ${personGroup.calls.size} interactions",
+                                text = "View all ${person.totalCalls} interactions",
                                 style = MaterialTheme.typography.labelLarge,
                                 fontWeight = FontWeight.Bold
                             )
@@ -21,6 +21,8 @@ import androidx.compose.material.icons.Icons
 import androidx.compose.material.icons.filled.*
 import androidx.compose.material3.*
 import androidx.compose.runtime.*
+import androidx.paging.LoadState
+import androidx.paging.compose.collectAsLazyPagingItems
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.platform.LocalContext
@@ -172,27 +174,26 @@ fun CallsScreen(
     // Use pre-calculated person groups from ViewModel for better performance
     val allPersonGroupsMap = uiState.personGroups
 
-    var selectedPersonForDetails by remember { mutableStateOf<PersonGroup?>(null) }
+    // The sheet loads the person's calls on its own, so it also works from the paged calls view
+    var selectedPersonPhone by remember { mutableStateOf<String?>(null) }
+    val selectedPersonForDetails by remember(selectedPersonPhone) {
+        selectedPersonPhone?.let { viewModel.personGroupFlow(it) } ?: kotlinx.coroutines.flow.flowOf(null)
+    }.collectAsState(initial = null)
     
     // Handle opening person details from external triggers (e.g. notifications)
-    LaunchedEffect(personDetailsPhone, allPersonGroupsMap) {
-        if (personDetailsPhone != null && allPersonGroupsMap.isNotEmpty()) {
-            val group = allPersonGroupsMap[personDetailsPhone] ?: allPersonGroupsMap[viewModel.normalizePhoneNumber(personDetailsPhone)]
-            if (group != null) {
-                selectedPersonForDetails = group
-                onClearPersonDetails()
-            }
+    LaunchedEffect(personDetailsPhone) {
+        if (personDetailsPhone != null) {
+            selectedPersonPhone = personDetailsPhone
+            onClearPersonDetails()
         }
     }
     
     selectedPersonForDetails?.let { person ->
-        // Use the latest data from the map if it changed (reactive updates)
-        val latestPerson = allPersonGroupsMap[person.number] ?: person
         PersonInteractionBottomSheet(
-            person = latestPerson,
+            person = person,
             recordings = uiState.recordings,
             audioPlayer = audioPlayer,
-            onDismiss = { selectedPersonForDetails = null },
+            onDismiss = { selectedPersonPhone = null },
             onSaveCallNote = { id, note -> viewModel.saveCallNote(id, note) },
             onSavePersonName = { phone, name -> viewModel.savePersonName(phone, name) },
             onSavePersonLabel = { phone, label -> viewModel.savePersonLabel(phone, label) },
@@ -313,22 +314,21 @@ fun CallsScreen(
                             visiblePersonFilters.getOrNull(personPagerState.currentPage) ?: uiState.personTabFilter
                         }
 
-                        val targetList: List<Any> = if (uiState.viewMode == ViewMode.CALLS) {
-                             uiState.tabFilteredLogs[filter as CallTabFilter] ?: emptyList()
-                        } else {
-                             uiState.tabFilteredPersons[filter as PersonTabFilter]?.mapNotNull { uiState.personGroups[it.phoneNumber] } ?: emptyList()
+                        if (uiState.viewMode == ViewMode.CALLS) {
+                            // Paged list: restart the tab's pager at the first row of that day, since
+                            // rows before it may not be loaded and cannot be scrolled past by index
+                            if (viewModel.jumpToCallDay(filter as CallTabFilter, summary.dateLabel)) {
+                                scrollStates.getOrNull(pagerState.currentPage)?.scrollToItem(0)
+                            }
+                            return@launch
                         }
 
+                        val targetList = uiState.tabFilteredPersons[filter as PersonTabFilter]?.mapNotNull { uiState.personGroups[it.phoneNumber] } ?: emptyList()
                         if (targetList.isEmpty()) return@launch
 
                         var index = 0
-                        val grouped = if (uiState.viewMode == ViewMode.CALLS) {
-                            (targetList as List<CallDataEntity>).groupBy { getDateHeader(it.callDate) }
-                        } else {
-                            (targetList as List<PersonGroup>).groupBy { getDateHeader(it.lastCallDate) }
-                        }
-                        
                         var found = false
+                        val grouped = targetList.groupBy { getDateHeader(it.lastCallDate) }
                         for ((label, items) in grouped) {
                             if (label == summary.dateLabel) {
                                 found = true
@@ -339,13 +339,7 @@ fun CallsScreen(
                         }
 
                         if (found) {
-                            val state = if (uiState.viewMode == ViewMode.CALLS) {
-                                scrollStates.getOrNull(pagerState.currentPage)
-                            } else {
-                                personScrollStates.getOrNull(personPagerState.currentPage)
-                            }
-                            
-                            state?.let {
+                            personScrollStates.getOrNull(personPagerState.currentPage)?.let {
                                 // Always use animated scroll for smooth experience
                                 val targetIndex = index.coerceIn(0, maxOf(0, it.layoutInfo.totalItemsCount - 1))
                                 it.animateScrollToItem(targetIndex)
@@ -614,18 +608,19 @@ fun CallsScreen(
                         key = { visibleCallFilters[it] }
                     ) { page ->
                         val tab = visibleCallFilters[page]
-                        val tabLogs = uiState.tabFilteredLogs[tab] ?: emptyList()
+                        val tabLogs = remember(tab) { viewModel.callsPagingFlow(tab) }.collectAsLazyPagingItems()
+                        val tabDays by remember(tab) { viewModel.callDaySummariesFlow(tab) }.collectAsState()
+                        val isRefreshing = tabLogs.loadState.refresh is LoadState.Loading
                         
                         // Determine if we should show shimmer:
-                        // Show shimmer if loading OR if no data yet and we haven't confirmed empty
-                        val hasAnyData = uiState.callLogs.isNotEmpty() || uiState.persons.isNotEmpty()
-                        val shouldShowShimmer = uiState.isLoading || (!hasAnyData && tabLogs.isEmpty())
+                        // Show shimmer if loading OR if the first page hasn't arrived yet
+                        val shouldShowShimmer = uiState.isLoading || (isRefreshing && tabLogs.itemCount == 0)
                         
                         // Use simpler state key for faster transitions
                         val contentState = when {
                             shouldShowShimmer -> "shimmer"
                             uiState.simSelection == "Off" -> "sim_off"
-                            tabLogs.isEmpty() -> "empty"
+                            tabLogs.itemCount == 0 -> "empty"
                             else -> "content"
                         }
                         
@@ -697,8 +692,9 @@ fun CallsScreen(
                                     else -> {
                                     CallLogList(
                                         logs = tabLogs,
+                                        daySummaries = tabDays,
                                         recordings = uiState.recordings,
-                                        personGroupsMap = allPersonGroupsMap,
+                                        personsMap = personsMap,
                                         modifier = Modifier.fillMaxSize(),
                                         onSaveCallNote = { id, note -> viewModel.saveCallNote(id, note) },
                                         onSavePersonNote = { number, note -> viewModel.savePersonNote(number, note) },
@@ -706,7 +702,7 @@ fun CallsScreen(
                                         audioPlayer = audioPlayer,
                                         whatsappPreference = uiState.whatsappPreference,
                                         context = context,
-                                        onViewMoreClick = { selectedPersonForDetails = it },
+                                        onViewMoreClick = { selectedPersonPhone = it },
                                         onAttachRecording = { 
                                             attachTarget = it
                                             audioPickerLauncher.launch(arrayOf("audio/*"))
@@ -741,7 +737,7 @@ fun CallsScreen(
 
                         // Determine if we should show shimmer:
                         // Show shimmer if loading OR if no data yet and we haven't confirmed empty
-                        val hasAnyData = uiState.callLogs.isNotEmpty() || uiState.persons.isNotEmpty()
+                        val hasAnyData = uiState.persons.isNotEmpty()
                         val shouldShowShimmer = uiState.isLoading || (!hasAnyData && tabPersons.isEmpty())
                         
                         // Use simpler state key for faster transitions
@@ -807,7 +803,7 @@ fun CallsScreen(
                                             whatsappPreference = uiState.whatsappPreference,
                                             onExclude = { viewModel.ignoreNumber(it) },
                                             onNoTrack = { viewModel.noTrackNumber(it) },
-                                            onViewMoreClick = { selectedPersonForDetails = it },
+                                            onViewMoreClick = { selectedPersonPhone = it.number },
                                             onAttachRecording = { 
                                                 attachTarget = it
                                                 audioPickerLauncher.launch(arrayOf("audio/*"))
@@ -14,6 +14,11 @@ import kotlinx.coroutines.*
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.sync.withLock
 import com.miniclick.calltrackmanage.ui.home.viewmodel.*
+import com.miniclick.calltrackmanage.util.formatting.getDateHeader
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
+import androidx.paging.insertSeparators
+import androidx.paging.map
 import android.util.Log
 
 
@@ -26,8 +31,6 @@ class HomeViewModel @javax.inject.Inject constructor(
     private val recordingRepository: com.miniclick.calltrackmanage.data.RecordingRepository,
 ) : AndroidViewModel(application) {
     
-    // Performance: Cache for normalized numbers to avoid repeated heavy library calls
-    private val normalizationCache = java.util.concurrent.ConcurrentHashMap<String, String>()
     private val networkObserver = com.miniclick.calltrackmanage.util.network.NetworkConnectivityObserver(application)
 
     private val filterMutex = kotlinx.coroutines.sync.Mutex()
@@ -46,6 +49,69 @@ class HomeViewModel @javax.inject.Inject constructor(
     private val _uiState = MutableStateFlow(HomeUiState())
     val uiState: StateFlow<HomeUiState> = _uiState.asStateFlow()
 
+    // Paged call list per tab (HorizontalPager keeps neighbouring tabs composed)
+    private val callPagingFlows = java.util.EnumMap<CallTabFilter, Flow<PagingData<CallListItem>>>(CallTabFilter::class.java)
+    private val callDaySummaryFlows = java.util.EnumMap<CallTabFilter, StateFlow<List<DateSectionSummary>>>(CallTabFilter::class.java)
+
+    // Last date jump; only applies while its tab query is unchanged
+    private val callJump = MutableStateFlow<CallJump?>(null)
+
+    /**
+     * Last-7-days comparison line: the 7 complete days before today, from the daily rollup.
+     * It cannot change before midnight, so it is read once per local day.
+     */
+    private val reportComparison: Flow<Map<String, Float>> =
+        flow {
+            while (true) {
+                val today = HomeUtils.getStartOfDay(0)
+                emit(today)
+                delay(HomeUtils.getStartOfDay(-1) - System.currentTimeMillis())
+            }
+        }
+            .distinctUntilChanged()
+            .map { today ->
+                ReportAggregator.last7DaysAverages(
+                    callDataRepository.getDailyRollup(HomeUtils.getStartOfDay(7), today - 1)
+                )
+            }
+
+    /**
+     * Report stats for the current filters. Rows come from the ALL tab query of the selected
+     * date range and are only loaded while the Reports screen collects this. When the badges
+     * are counter based, the call and duration totals come from the same daily rollup.
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    val reportStats: StateFlow<ReportStats> =
+        _uiState
+            .map { state ->
+                val subId = HomeUtils.getSubIdForSim(state.simSelection, state)
+                CallListQueryBuilder.buildReport(state, subId) to
+                    (CallListQueryBuilder.buildTabCounts(state, subId) as? CallTabCounterRange)
+            }
+            .distinctUntilChanged()
+            .flatMapLatest { (query, range) ->
+                val logs = callDataRepository.getCallsFlow(query.toPagedQuery())
+                if (range == null) {
+                    logs.map { it to null }
+                } else {
+                    logs.combine(
+                        callDataRepository.getCallTabTotalsFlow(range.startMillis, range.endMillis, range.subscriptionId)
+                    ) { rows, totals -> rows to totals }
+                }
+            }
+            .combine(_uiState.map { it.persons }.distinctUntilChanged()) { (logs, totals), persons ->
+                Triple(logs, totals, persons)
+            }
+            .combine(reportComparison) { (logs, totals, persons), comparison ->
+                val stats = StatsManager.calculateReportStats(logs, persons, comparison)
+                if (totals == null || stats.totalCalls == 0) stats else ReportAggregator.withRollupTotals(stats, totals)
+            }
+            .flowOn(Dispatchers.Default)
+            .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), ReportStats())
+
+    // Full-text search lookup, restarted on every keystroke and data change
+    private var searchJob: Job? = null
+
     init {
         Log.d("HomeViewModel", "HomeViewModel init")
         _uiState.update { it.copy(isLoading = true) }
@@ -58,7 +124,8 @@ class HomeViewModel @javax.inject.Inject constructor(
         viewModelScope.launch(Dispatchers.IO) {
             try {
                 val minDate = settingsRepository.getTrackStartDate()
-                val initialLogs = callDataRepository.getCallsSince(minDate)
+                // Only the persons view groups calls in memory, the calls view pages from Room
+                val initialLogs = if (_uiState.value.viewMode == ViewMode.PERSONS) callDataRepository.getCallsSince(minDate) else emptyList()
                 val initialPersons = callDataRepository.getAllPersonsIncludingExcluded(minDate)
                 
                 if (initialLogs.isNotEmpty() || initialPersons.isNotEmpty()) {
@@ -130,13 +197,19 @@ class HomeViewModel @javax.inject.Inject constructor(
      * Critical observers needed for basic UI functionality.
      * PERFORMANCE: We now use flatMapLatest to only fetch calls/persons since the Track Start Date.
      * This drastically reduces memory usage and processing time for users with long histories.
+     * The full call list is only held for the persons view (person groups); the calls view,
+     * its badges and Reports query Room directly.
      */
+    @OptIn(ExperimentalCoroutinesApi::class)
     private fun startCriticalObservers() {
-        // Call logs - reactive to trackStartDate
+        // Call logs - reactive to trackStartDate, collected while the persons view is shown
         viewModelScope.launch {
-            settingsRepository.getTrackStartDateFlow()
-                .distinctUntilChanged()
-                .flatMapLatest { minDate ->
+            combine(
+                settingsRepository.getTrackStartDateFlow().distinctUntilChanged(),
+                _uiState.map { it.viewMode }.distinctUntilChanged()
+            ) { minDate, mode -> minDate to mode }
+                .flatMapLatest { (minDate, mode) ->
+                    if (mode != ViewMode.PERSONS) return@flatMapLatest emptyFlow()
                     Log.d("HomeViewModel", "Switching Call Flow: minDate=$minDate")
                     callDataRepository.getCallsSinceFlow(minDate)
                 }
@@ -145,7 +218,7 @@ class HomeViewModel @javax.inject.Inject constructor(
                 .collect { calls ->
                     val start = System.currentTimeMillis()
                     _uiState.update { it.copy(callLogs = calls) }
-                    triggerFilter()
+                    refreshSearchMatches(_uiState.value.searchQuery)
                     
                     if (!isFirstLoadComplete && calls.isNotEmpty()) {
                         Log.i("HomeViewModel", "FIRST DATA LOAD: Collected ${calls.size} calls in ${System.currentTimeMillis() - start}ms. Startup to first data: ${System.currentTimeMillis() - viewModelStartTime}ms")
@@ -168,7 +241,7 @@ class HomeViewModel @javax.inject.Inject constructor(
                 .collect { persons ->
                     val start = System.currentTimeMillis()
                     _uiState.update { it.copy(persons = persons) }
-                    triggerFilter()
+                    refreshSearchMatches(_uiState.value.searchQuery)
                     Log.d("HomeViewModel", "Collected ${persons.size} persons in ${System.currentTimeMillis() - start}ms")
                 }
         }
@@ -209,7 +282,42 @@ class HomeViewModel @javax.inject.Inject constructor(
     /**
      * Secondary observers for sync status, counts, etc.
      */
+    @OptIn(ExperimentalCoroutinesApi::class)
     private fun startSecondaryObservers() {
+        // Date summaries of the selected call tab come straight from SQL
+        viewModelScope.launch {
+            _uiState.map { it.callTypeFilter }
+                .distinctUntilChanged()
+                .flatMapLatest { tab -> callDaySummariesFlow(tab) }
+                .collect { summaries ->
+                    if (_uiState.value.viewMode == ViewMode.CALLS) {
+                        _uiState.update { it.copy(dateSummaries = summaries) }
+                    }
+                }
+        }
+
+        // Call tab badges: rollup counters for plain date/SIM views, one aggregate query otherwise
+        viewModelScope.launch {
+            _uiState
+                .map { state -> CallListQueryBuilder.buildTabCounts(state, HomeUtils.getSubIdForSim(state.simSelection, state)) }
+                .distinctUntilChanged()
+                .flatMapLatest { source ->
+                    when (source) {
+                        is CallTabCounterRange -> callDataRepository
+                            .getCallTabTotalsFlow(source.startMillis, source.endMillis, source.subscriptionId)
+                            .map { totals -> CallTabCounterRange.toTabMap(totals) }
+                        is CallTabCountsQuery -> callDataRepository
+                            .getCallTabCountsFlow(source.toSqlQuery())
+                            .map { counts -> CallTabCountsQuery.toTabMap(counts) }
+                    }
+                }
+                .distinctUntilChanged()
+                .flowOn(Dispatchers.Default)
+                .collect { counts ->
+                    _uiState.update { it.copy(callTypeCounts = counts) }
+                }
+        }
+
         // Observe Pending Syncs (Calls + Persons)
         viewModelScope.launch {
             callDataRepository.getPendingChangesCountFlow()
@@ -306,32 +414,6 @@ class HomeViewModel @javax.inject.Inject constructor(
         syncFromSystem() // Re-sync to find recordings in new path
     }
 
-    /**
-     * Load data directly from Room (instant - no loading spinner needed for this)
-     */
-    private fun loadDataFromRoom() {
-        viewModelScope.launch {
-            _uiState.update { it.copy(isLoading = true) }
-            
-            try {
-                val calls = callDataRepository.getAllCalls()
-                val persons = callDataRepository.getAllPersons()
-                
-                _uiState.update { 
-                    it.copy(
-                        callLogs = calls,
-                        persons = persons,
-                        isLoading = false
-                    )
-                }
-                triggerFilter()
-            } catch (e: Exception) {
-                e.printStackTrace()
-                _uiState.update { it.copy(isLoading = false) }
-            }
-        }
-    }
-
     /**
      * Sync new calls from system call log to Room (background operation)
      */
@@ -465,6 +547,85 @@ class HomeViewModel @javax.inject.Inject constructor(
         triggerFilter()
     }
 
+    // ============================================
+    // PAGED CALL LIST
+    // ============================================
+
+    private fun callListQueryFlow(tab: CallTabFilter): Flow<CallListQuery> =
+        _uiState
+            .map { state -> CallListQueryBuilder.build(state, tab, HomeUtils.getSubIdForSim(state.simSelection, state)) }
+            .distinctUntilChanged()
+
+    /**
+     * Paged rows for one call tab. Filters are pushed into SQL, so Room only loads the
+     * visible window and a new call just invalidates the loaded pages.
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    fun callsPagingFlow(tab: CallTabFilter): Flow<PagingData<CallListItem>> =
+        callPagingFlows.getOrPut(tab) {
+            callListQueryFlow(tab)
+                .combine(callJump) { query, jump -> query to jump?.takeIf { it.query == query } }
+                .distinctUntilChanged()
+                .flatMapLatest { (query, jump) ->
+                    callDataRepository.getCallsPagingFlow(query.toPagedQuery(), jump?.firstRow).map { paging ->
+                        val items = paging.map<CallDataEntity, CallListItem> { CallListItem.Call(it) }
+                        if (!query.groupByDate) {
+                            items
+                        } else {
+                            items.insertSeparators { before: CallListItem?, after: CallListItem? ->
+                                val next = (after as? CallListItem.Call)?.call ?: return@insertSeparators null
+                                val prev = (before as? CallListItem.Call)?.call
+                                val label = getDateHeader(next.callDate)
+                                if (prev == null || getDateHeader(prev.callDate) != label) {
+                                    CallListItem.Header(label, next.callDate)
+                                } else null
+                            }
+                        }
+                    }
+                }
+                .cachedIn(viewModelScope)
+        }
+
+    /**
+     * Per-day totals for one call tab, used by the section headers and the date jump sheet.
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    fun callDaySummariesFlow(tab: CallTabFilter): StateFlow<List<DateSectionSummary>> =
+        callDaySummaryFlows.getOrPut(tab) {
+            callListQueryFlow(tab)
+                .flatMapLatest { query -> callDataRepository.getCallDaySummariesFlow(query.toDaySummaryQuery()) }
+                .map { days -> HomeUtils.computeDateSummaries(_uiState.value.copy(viewMode = ViewMode.CALLS), days) }
+                .flowOn(Dispatchers.Default)
+                .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), emptyList())
+        }
+
+    /**
+     * Restarts [tab]'s paged list at the first row of the day labelled [dateLabel].
+     * The row offset is the sum of the per-day totals listed before it, so nothing has to be
+     * loaded in between. Returns false when the list is not grouped by date or the day is gone.
+     */
+    suspend fun jumpToCallDay(tab: CallTabFilter, dateLabel: String): Boolean {
+        val state = _uiState.value
+        val query = CallListQueryBuilder.build(state, tab, HomeUtils.getSubIdForSim(state.simSelection, state))
+        if (!query.groupByDate) return false
+
+        // Day summaries are newest first, the list follows the sort direction
+        val days = callDataRepository.getCallDaySummariesFlow(query.toDaySummaryQuery()).first().let {
+            if (state.callSortDirection == SortDirection.ASCENDING) it.asReversed() else it
+        }
+        var firstRow = 0
+        for (day in days) {
+            if (getDateHeader(day.lastCallDate) == dateLabel) {
+                callJump.value = CallJump(query, firstRow, (callJump.value?.sequence ?: 0) + 1)
+                return true
+            }
+            firstRow += day.totalCalls
+        }
+        return false
+    }
+
+    private data class CallJump(val query: CallListQuery, val firstRow: Int, val sequence: Int)
+
     // ============================================
     // SEARCH & FILTERS
     // ============================================
@@ -472,7 +633,27 @@ class HomeViewModel @javax.inject.Inject constructor(
     fun onSearchQueryChanged(query: String) {
         _uiState.update { it.copy(searchQuery = query) }
         settingsRepository.setSearchQuery(query)
-        triggerFilter()
+        refreshSearchMatches(query)
+    }
+
+    /**
+     * Resolves the query against the person FTS index, then re-filters with the matching numbers
+     * (or filters right away when the query is blank).
+     * The paged call list already filters in SQL and updates as soon as searchQuery changes.
+     */
+    private fun refreshSearchMatches(query: String) {
+        searchJob?.cancel()
+        if (query.isBlank()) {
+            _uiState.update { it.copy(searchMatches = null) }
+            triggerFilter()
+            return
+        }
+        searchJob = viewModelScope.launch {
+            val matches = callDataRepository.searchPersonPhones(query)?.let { SearchMatches(query, it) }
+            if (_uiState.value.searchQuery != query) return@launch
+            _uiState.update { it.copy(searchMatches = matches) }
+            triggerFilter()
+        }
     }
 
     fun submitSearch(query: String) {
@@ -693,57 +874,7 @@ class HomeViewModel @javax.inject.Inject constructor(
                     .groupBy { it.phoneNumber }
                 
                 val groups = logsForGroupsByPhone.mapValues { (number, calls) ->
-                    val sortedCalls = calls.sortedByDescending { it.callDate }
-                    val person = personsMap[number] ?: personsMap[getCachedNormalizedNumber(number)]
-                    
-                    // PERFORMANCE OPTIMIZATION: 
-                    // Use pre-computed stats from PersonDataEntity if available and no SIM filter is active.
-                    // If targetSubId is null (Both sims), we can skip the heavy loop.
-                    
-                    val totalDuration: Long
-                    val incoming: Int
-                    val outgoing: Int
-                    val missed: Int
-                    
-                    if (person != null && targetSubId == null) {
-                        totalDuration = person.totalDuration
-                        incoming = person.totalIncoming
-                        outgoing = person.totalOutgoing
-                        missed = person.totalMissed
-                    } else {
-                        // Manual fall-back (necessary for single-SIM filtering)
-                        var d = 0L
-                        var i = 0
-                        var o = 0
-                        var m = 0
-                        for (call in calls) {
-                            d += call.duration
-                            when (call.callType) {
-                                android.provider.CallLog.Calls.INCOMING_TYPE -> i++
-                                android.provider.CallLog.Calls.OUTGOING_TYPE -> o++
-                                android.provider.CallLog.Calls.MISSED_TYPE, 
-                                android.provider.CallLog.Calls.REJECTED_TYPE, 5 -> m++
-                            }
-                        }
-                        totalDuration = d
-                        incoming = i
-                        outgoing = o
-                        missed = m
-                    }
-
-                    PersonGroup(
-                        number = number,
-                        name = person?.contactName?.takeIf { it.isNotBlank() } ?: calls.firstOrNull { !it.contactName.isNullOrBlank() }?.contactName,
-                        photoUri = person?.photoUri ?: calls.firstOrNull { !it.photoUri.isNullOrEmpty() }?.photoUri,
-                        calls = sortedCalls,
-                        lastCallDate = sortedCalls.firstOrNull()?.callDate ?: 0L,
-                        totalDuration = totalDuration,
-                        incomingCount = incoming,
-                        outgoingCount = outgoing,
-                        missedCount = missed,
-                        personNote = person?.personNote,
-                        label = person?.label
-                    )
+                    buildPersonGroup(number, calls, personsMap[number] ?: personsMap[getCachedNormalizedNumber(number)], targetSubId)
                 }
                 
                 // Update cache
@@ -759,30 +890,14 @@ class HomeViewModel @javax.inject.Inject constructor(
             val groups = lastComputedGroups
             val logsForGroupsByPhone = lastLogsForGroupsByPhone
             
-            // 3. Perform Single-Pass Call Filtering Across ALL Tabs
+            // 3. Perform Single-Pass Person Filtering
+            // (call tabs, their badges and Reports are SQL queries, see callsPagingFlow and reportStats)
             val filterPhaseStart = System.currentTimeMillis()
-            val tabLogs = CallLogManager.processCallFilters(
-                currentState, 
-                personsMap, 
-                ::getCachedNormalizedNumber,
-                targetSubId
-            )
-            
-            // 4. Perform Single-Pass Person Filtering
             val tabPersons = PersonLogManager.processPersonFilters(currentState, logsForGroupsByPhone)
 
-            // 6. Calculate Report Statistics
-            val visibleLogs = tabLogs[CallTabFilter.ALL] ?: emptyList()
-            val reportStats = StatsManager.calculateReportStats(
-                visibleLogs, 
-                currentState.persons, 
-                currentState.callLogs,
-                settingsRepository
-            )
-
             val activeFilterCount = HomeUtils.calculateFilterCount(currentState)
             
-            val hasData = tabPersons.values.any { it.isNotEmpty() } || tabLogs.values.any { it.isNotEmpty() }
+            val hasData = tabPersons.values.any { it.isNotEmpty() } || (currentState.callTypeCounts[CallTabFilter.ALL] ?: 0) > 0
             val timeSinceStart = System.currentTimeMillis() - viewModelStartTime
             val dbHasData = currentState.callLogs.isNotEmpty() || currentState.persons.isNotEmpty()
             
@@ -802,15 +917,11 @@ class HomeViewModel @javax.inject.Inject constructor(
             if (hasData || dbHasData) isFirstLoadComplete = true
 
             _uiState.update { it.copy(
-                tabFilteredLogs = tabLogs,
                 tabFilteredPersons = tabPersons,
-                filteredLogs = tabLogs[currentState.callTypeFilter] ?: emptyList(),
                 filteredPersons = tabPersons[currentState.personTabFilter] ?: emptyList(),
                 activeFilterCount = activeFilterCount,
-                callTypeCounts = tabLogs.mapValues { it.value.size },
                 personTypeCounts = tabPersons.mapValues { it.value.size },
                 personGroups = groups,
-                reportStats = reportStats,
                 isLoading = stillLoading
             ) }
             updateDateSummaries()
@@ -819,8 +930,95 @@ class HomeViewModel @javax.inject.Inject constructor(
     }
     }
 
+    /**
+     * One person's calls for the interaction sheet, read on demand so the paged calls view
+     * never needs the grouped history. Same track start and SIM rules as the person groups.
+     */
+    fun personGroupFlow(phoneNumber: String): Flow<PersonGroup?> {
+        val numbers = listOf(phoneNumber, normalizePhoneNumber(phoneNumber)).distinct()
+        val visibility = _uiState
+            .map { state ->
+                Triple(
+                    state.trackStartDate,
+                    if (state.simSelection == "Both") null else HomeUtils.getSubIdForSim(state.simSelection, state),
+                    state.persons.firstOrNull { it.phoneNumber in numbers }
+                )
+            }
+            .distinctUntilChanged()
+        return callDataRepository.getCallsForNumbersFlow(numbers)
+            .combine(visibility) { calls, (trackStart, targetSubId, person) ->
+                val visible = calls.filter { it.callDate >= trackStart && (targetSubId == null || it.subscriptionId == targetSubId) }
+                if (visible.isEmpty()) null
+                else buildPersonGroup(visible.first().phoneNumber, visible, person, targetSubId)
+            }
+            .flowOn(Dispatchers.Default)
+    }
+
+    private fun buildPersonGroup(
+        number: String,
+        calls: List<CallDataEntity>,
+        person: PersonDataEntity?,
+        targetSubId: Int?
+    ): PersonGroup {
+        val sortedCalls = calls.sortedByDescending { it.callDate }
+
+        // PERFORMANCE OPTIMIZATION: 
+        // Use pre-computed stats from PersonDataEntity if available and no SIM filter is active.
+        // If targetSubId is null (Both sims), we can skip the heavy loop.
+        
+        val totalDuration: Long
+        val incoming: Int
+        val outgoing: Int
+        val missed: Int
+        
+        if (person != null && targetSubId == null) {
+            totalDuration = person.totalDuration
+            incoming = person.totalIncoming
+            outgoing = person.totalOutgoing
+            missed = person.totalMissed
+        } else {
+            // Manual fall-back (necessary for single-SIM filtering)
+            var d = 0L
+            var i = 0
+            var o = 0
+            var m = 0
+            for (call in calls) {
+                d += call.duration
+                when (call.callType) {
+                    android.provider.CallLog.Calls.INCOMING_TYPE -> i++
+                    android.provider.CallLog.Calls.OUTGOING_TYPE -> o++
+                    android.provider.CallLog.Calls.MISSED_TYPE, 
+                    android.provider.CallLog.Calls.REJECTED_TYPE, 5 -> m++
+                }
+            }
+            totalDuration = d
+            incoming = i
+            outgoing = o
+            missed = m
+        }
+
+        return PersonGroup(
+            number = number,
+            name = person?.contactName?.takeIf { it.isNotBlank() } ?: calls.firstOrNull { !it.contactName.isNullOrBlank() }?.contactName,
+            photoUri = person?.photoUri ?: calls.firstOrNull { !it.photoUri.isNullOrEmpty() }?.photoUri,
+            calls = sortedCalls,
+            lastCallDate = sortedCalls.firstOrNull()?.callDate ?: 0L,
+            totalDuration = totalDuration,
+            incomingCount = incoming,
+            outgoingCount = outgoing,
+            missedCount = missed,
+            personNote = person?.personNote,
+            label = person?.label
+        )
+    }
+
     private fun updateDateSummaries() {
-        val summaries = HomeUtils.computeDateSummaries(_uiState.value)
+        val state = _uiState.value
+        val summaries = if (state.viewMode == ViewMode.CALLS) {
+            callDaySummariesFlow(state.callTypeFilter).value
+        } else {
+            HomeUtils.computeDateSummaries(state, emptyList())
+        }
         _uiState.update { it.copy(dateSummaries = summaries) }
     }
 
@@ -828,11 +1026,8 @@ class HomeViewModel @javax.inject.Inject constructor(
 
 
 
-    private fun getCachedNormalizedNumber(number: String): String {
-        return normalizationCache.getOrPut(number) {
-            normalizePhoneNumber(number)
-        }
-    }
+    // PhoneNormalizer keeps the bounded cache for all callers
+    private fun getCachedNormalizedNumber(number: String): String = normalizePhoneNumber(number)
 
     fun normalizePhoneNumber(number: String) = callDataRepository.normalizePhoneNumber(number)
 
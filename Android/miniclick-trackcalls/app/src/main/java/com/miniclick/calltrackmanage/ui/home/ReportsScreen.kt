@@ -59,7 +59,7 @@ fun ReportsScreen(
             .sorted() 
     }
     
-    val stats = uiState.reportStats
+    val stats by viewModel.reportStats.collectAsState()
     
     Column(
         modifier = Modifier
@@ -208,7 +208,7 @@ fun ReportsScreen(
                 title = "Select Sim Card to Track",
                 description = "Capture your call logs by selecting which SIM cards to monitor."
             )
-        } else if (uiState.filteredLogs.isEmpty()) {
+        } else if (stats.totalCalls == 0) {
             val isFiltered = uiState.activeFilterCount > 0 || uiState.searchQuery.isNotEmpty()
             
             if (isFiltered) {
@@ -0,0 +1,371 @@
+package com.miniclick.calltrackmanage.ui.home.viewmodel
+
+import androidx.sqlite.db.SimpleSQLiteQuery
+import com.miniclick.calltrackmanage.data.db.CallDataDao
+import com.miniclick.calltrackmanage.data.db.SearchIndex
+
+/**
+ * SQL for a single call list tab.
+ * Kept as plain data so flows can use distinctUntilChanged() and only rebuild the
+ * PagingSource when the filters actually change.
+ */
+data class CallListQuery(
+    val where: String,
+    val args: List<Any>,
+    val orderBy: String,
+    val groupByDate: Boolean
+) {
+    fun toPagedQuery(): SimpleSQLiteQuery = SimpleSQLiteQuery(
+        """
+        SELECT c.* FROM call_data c
+        LEFT JOIN person_data p ON c.phoneNumber = p.phoneNumber
+        WHERE $where
+        ORDER BY $orderBy
+        """.trimIndent(),
+        args.toTypedArray()
+    )
+
+    /**
+     * One row per local calendar day with the totals shown in the date section headers.
+     */
+    fun toDaySummaryQuery(): SimpleSQLiteQuery = SimpleSQLiteQuery(
+        """
+        SELECT MAX(c.callDate) AS lastCallDate,
+               COUNT(*) AS totalCalls,
+               COUNT(DISTINCT c.phoneNumber) AS uniqueCalls
+        FROM call_data c
+        LEFT JOIN person_data p ON c.phoneNumber = p.phoneNumber
+        WHERE $where
+        GROUP BY strftime('%Y-%m-%d', c.callDate / 1000, 'unixepoch', 'localtime')
+        ORDER BY lastCallDate DESC
+        """.trimIndent(),
+        args.toTypedArray()
+    )
+}
+
+/**
+ * Where the call tab badges come from, see [CallListQueryBuilder.buildTabCounts].
+ */
+sealed interface CallTabCountSource
+
+/**
+ * Badges read from the trigger-maintained daily rollup. Only possible when the list is
+ * filtered by nothing but SIM and a range of whole local days.
+ */
+data class CallTabCounterRange(
+    val startMillis: Long,
+    val endMillis: Long?,
+    val subscriptionId: Int?
+) : CallTabCountSource {
+    companion object {
+        private const val BLOCKED_TYPE = 6
+
+        /**
+         * Rollup totals per call type minus the calls person flags move out of the visible
+         * tabs. Blocked calls (type 6) are included; they only show in the IGNORED tab.
+         */
+        fun visibleByType(totals: CallDataDao.CallTabTotals): Map<Int, VisibleCallTotals> {
+            val hidden = totals.hidden.associateBy { it.callType }
+            return totals.days.groupBy { it.callType }.mapValues { (type, rows) ->
+                val h = hidden[type]
+                VisibleCallTotals(
+                    calls = rows.sumOf { it.callCount } - (h?.callCount ?: 0),
+                    duration = rows.sumOf { it.totalDuration } - (h?.totalDuration ?: 0L),
+                    connected = rows.sumOf { it.connectedCount } - (h?.connectedCount ?: 0),
+                    notConnected = rows.sumOf { it.notConnectedCount } - (h?.notConnectedCount ?: 0),
+                    mayFailed = rows.sumOf { it.mayFailedCount } - (h?.mayFailedCount ?: 0)
+                )
+            }
+        }
+
+        fun toTabMap(totals: CallDataDao.CallTabTotals): Map<CallTabFilter, Int> {
+            val visible = visibleByType(totals)
+            val listed = visible.filterKeys { it != BLOCKED_TYPE }.values
+            fun of(type: Int) = visible[type] ?: VisibleCallTotals()
+
+            return mapOf(
+                CallTabFilter.ALL to listed.sumOf { it.calls },
+                CallTabFilter.ANSWERED to of(1).connected,
+                CallTabFilter.NOT_ANSWERED to of(1).notConnected + of(3).calls + of(5).calls,
+                CallTabFilter.OUTGOING to of(2).connected,
+                CallTabFilter.OUTGOING_NOT_CONNECTED to of(2).notConnected,
+                CallTabFilter.NEVER_CONNECTED to totals.neverConnectedCount,
+                CallTabFilter.MAY_FAILED to listed.sumOf { it.mayFailed },
+                CallTabFilter.IGNORED to of(BLOCKED_TYPE).calls + totals.hidden.sumOf { it.ignoredCount }
+            )
+        }
+    }
+}
+
+/**
+ * Totals of one call type over a [CallTabCounterRange], as the ALL tab counts them.
+ */
+data class VisibleCallTotals(
+    val calls: Int = 0,
+    val duration: Long = 0,
+    val connected: Int = 0,
+    val notConnected: Int = 0,
+    val mayFailed: Int = 0
+)
+
+/**
+ * Per-tab badge counts for the call list, computed by SQLite in one pass.
+ * Fallback for filters the daily rollup cannot answer.
+ */
+data class CallTabCountsQuery(
+    val where: String,
+    val args: List<Any>,
+    val ignoredOnly: Boolean
+) : CallTabCountSource {
+    fun toSqlQuery(): SimpleSQLiteQuery {
+        val columns = CallTabFilter.values().joinToString(separator = ",\n") { tab ->
+            "COALESCE(SUM(CASE WHEN ${CallListQueryBuilder.tabCondition(tab, ignoredOnly)} THEN 1 ELSE 0 END), 0) AS ${countColumn(tab)}"
+        }
+        return SimpleSQLiteQuery(
+            """
+            SELECT $columns
+            FROM call_data c
+            LEFT JOIN person_data p ON c.phoneNumber = p.phoneNumber
+            WHERE $where
+            """.trimIndent(),
+            args.toTypedArray()
+        )
+    }
+
+    companion object {
+        // Column names of CallDataDao.CallTabCounts
+        private fun countColumn(tab: CallTabFilter): String = when (tab) {
+            CallTabFilter.ALL -> "allCount"
+            CallTabFilter.ANSWERED -> "answeredCount"
+            CallTabFilter.NOT_ANSWERED -> "notAnsweredCount"
+            CallTabFilter.OUTGOING -> "outgoingCount"
+            CallTabFilter.OUTGOING_NOT_CONNECTED -> "outgoingNotConnectedCount"
+            CallTabFilter.NEVER_CONNECTED -> "neverConnectedCount"
+            CallTabFilter.MAY_FAILED -> "mayFailedCount"
+            CallTabFilter.IGNORED -> "ignoredCount"
+        }
+
+        fun toTabMap(counts: CallDataDao.CallTabCounts): Map<CallTabFilter, Int> = mapOf(
+            CallTabFilter.ALL to counts.allCount,
+            CallTabFilter.ANSWERED to counts.answeredCount,
+            CallTabFilter.NOT_ANSWERED to counts.notAnsweredCount,
+            CallTabFilter.OUTGOING to counts.outgoingCount,
+            CallTabFilter.OUTGOING_NOT_CONNECTED to counts.outgoingNotConnectedCount,
+            CallTabFilter.NEVER_CONNECTED to counts.neverConnectedCount,
+            CallTabFilter.MAY_FAILED to counts.mayFailedCount,
+            CallTabFilter.IGNORED to counts.ignoredCount
+        )
+    }
+}
+
+/**
+ * Pushes the call list filters down into SQL.
+ * Holds the bucketing rules of the call tabs so each tab's
+ * PagingSource only loads the rows that are actually on screen.
+ */
+object CallListQueryBuilder {
+
+    // Person-level flags from PersonDataEntity (p is LEFT JOINed, so may be NULL)
+    private const val IS_NO_TRACKING = "(COALESCE(p.excludeFromSync, 0) = 1 AND COALESCE(p.excludeFromList, 0) = 1)"
+    private const val IS_IGNORED = "(COALESCE(p.excludeFromSync, 0) = 1 OR COALESCE(p.excludeFromList, 0) = 1 OR c.callType = 6)"
+    private const val HAS_CALL_NOTE = "(c.callNote IS NOT NULL AND c.callNote != '')"
+    private const val HAS_PERSON_NOTE = "(p.personNote IS NOT NULL AND p.personNote != '')"
+    private const val HAS_CUSTOM_NAME = "(p.contactName IS NOT NULL AND p.contactName != '')"
+    private const val IN_CONTACTS = "(c.contactName IS NOT NULL AND c.contactName != '')"
+
+    fun build(current: HomeUiState, tab: CallTabFilter, targetSubId: Int?): CallListQuery {
+        val (clauses, args) = baseClauses(current, targetSubId)
+
+        // Ignored calls: either the only thing shown (showIgnoredOnly) or confined to the IGNORED tab
+        if (current.showIgnoredOnly || tab == CallTabFilter.IGNORED) {
+            clauses += IS_IGNORED
+        } else {
+            clauses += "NOT $IS_IGNORED"
+        }
+
+        tabClause(tab)?.let { clauses += it }
+
+        return CallListQuery(
+            where = clauses.joinToString(separator = "\nAND "),
+            args = args,
+            orderBy = orderBy(current),
+            groupByDate = current.callSortBy == CallSortBy.DATE
+        )
+    }
+
+    /**
+     * Rows Reports aggregates: the ALL tab under the current filters, in a fixed order so
+     * changing the list sort does not re-run the report query.
+     */
+    fun buildReport(current: HomeUiState, targetSubId: Int?): CallListQuery =
+        build(current, CallTabFilter.ALL, targetSubId).copy(
+            orderBy = "c.callDate DESC, c.compositeId DESC",
+            groupByDate = false
+        )
+
+    /**
+     * Badge counts for every call tab, with the same filters as [build] so a badge always
+     * equals the row count of its tab. Counter based when only SIM and whole days filter
+     * the list, otherwise a single scan.
+     */
+    fun buildTabCounts(current: HomeUiState, targetSubId: Int?): CallTabCountSource {
+        counterRange(current, targetSubId)?.let { return it }
+        val (clauses, args) = baseClauses(current, targetSubId)
+        return CallTabCountsQuery(
+            where = clauses.joinToString(separator = "\nAND "),
+            args = args,
+            ignoredOnly = current.showIgnoredOnly
+        )
+    }
+
+    private fun counterRange(current: HomeUiState, targetSubId: Int?): CallTabCounterRange? {
+        val onlyDateAndSim = !current.showIgnoredOnly &&
+            current.labelFilter.isEmpty() &&
+            current.connectedFilter == ConnectedFilter.ALL &&
+            current.notesFilter == NotesFilter.ALL &&
+            current.personNotesFilter == PersonNotesFilter.ALL &&
+            current.reviewedFilter == ReviewedFilter.ALL &&
+            current.customNameFilter == CustomNameFilter.ALL &&
+            current.contactsFilter == ContactsFilter.ALL &&
+            current.attendedFilter == AttendedFilter.ALL &&
+            SearchIndex.toMatchExpression(current.searchQuery) == null
+        if (!onlyDateAndSim) return null
+
+        val bounds = dateBounds(current)
+        val start = maxOf(current.trackStartDate, bounds?.first ?: 0L, 0L)
+        val end = bounds?.second
+        // Rollup rows are whole local days
+        if (start > 0 && !isStartOfDay(start)) return null
+        if (end != null && !isStartOfDay(end)) return null
+        return CallTabCounterRange(start, end, targetSubId)
+    }
+
+    private fun isStartOfDay(millis: Long): Boolean {
+        val calendar = java.util.Calendar.getInstance().apply { timeInMillis = millis }
+        return calendar.get(java.util.Calendar.HOUR_OF_DAY) == 0 &&
+            calendar.get(java.util.Calendar.MINUTE) == 0 &&
+            calendar.get(java.util.Calendar.SECOND) == 0 &&
+            calendar.get(java.util.Calendar.MILLISECOND) == 0
+    }
+
+    internal fun tabCondition(tab: CallTabFilter, ignoredOnly: Boolean): String {
+        if (tab == CallTabFilter.IGNORED) return IS_IGNORED
+        val visible = if (ignoredOnly) IS_IGNORED else "NOT $IS_IGNORED"
+        return tabClause(tab)?.let { "($visible AND $it)" } ?: visible
+    }
+
+    private fun baseClauses(current: HomeUiState, targetSubId: Int?): Pair<MutableList<String>, MutableList<Any>> {
+        val clauses = mutableListOf<String>()
+        val args = mutableListOf<Any>()
+
+        clauses += "(p.isExcluded IS NULL OR p.isExcluded = 0)"
+        clauses += "NOT $IS_NO_TRACKING"
+
+        if (current.trackStartDate > 0) {
+            clauses += "c.callDate >= ?"
+            args += current.trackStartDate
+        }
+        if (targetSubId != null) {
+            clauses += "c.subscriptionId = ?"
+            args += targetSubId
+        }
+
+        dateBounds(current)?.let { (start, endExclusive) ->
+            clauses += "c.callDate >= ?"
+            args += start
+            if (endExclusive != null) {
+                clauses += "c.callDate < ?"
+                args += endExclusive
+            }
+        }
+
+        if (current.labelFilter.isNotEmpty()) {
+            // Labels are stored comma separated ("Hot, Follow up"), match a whole entry
+            clauses += "instr(',' || REPLACE(REPLACE(COALESCE(p.label, ''), ', ', ','), ' ,', ',') || ',', ?) > 0"
+            args += ",${current.labelFilter},"
+        }
+
+        when (current.connectedFilter) {
+            ConnectedFilter.CONNECTED -> clauses += "c.duration > 0"
+            ConnectedFilter.NOT_CONNECTED -> clauses += "c.duration = 0"
+            ConnectedFilter.ALL -> {}
+        }
+        when (current.notesFilter) {
+            NotesFilter.WITH_NOTE -> clauses += HAS_CALL_NOTE
+            NotesFilter.WITHOUT_NOTE -> clauses += "NOT $HAS_CALL_NOTE"
+            NotesFilter.ALL -> {}
+        }
+        when (current.personNotesFilter) {
+            PersonNotesFilter.WITH_NOTE -> clauses += HAS_PERSON_NOTE
+            PersonNotesFilter.WITHOUT_NOTE -> clauses += "NOT $HAS_PERSON_NOTE"
+            PersonNotesFilter.ALL -> {}
+        }
+        when (current.reviewedFilter) {
+            ReviewedFilter.REVIEWED -> clauses += "c.reviewed = 1"
+            ReviewedFilter.NOT_REVIEWED -> clauses += "c.reviewed = 0"
+            ReviewedFilter.ALL -> {}
+        }
+        when (current.customNameFilter) {
+            CustomNameFilter.WITH_NAME -> clauses += HAS_CUSTOM_NAME
+            CustomNameFilter.WITHOUT_NAME -> clauses += "NOT $HAS_CUSTOM_NAME"
+            CustomNameFilter.ALL -> {}
+        }
+        when (current.contactsFilter) {
+            ContactsFilter.IN_CONTACTS -> clauses += IN_CONTACTS
+            ContactsFilter.NOT_IN_CONTACTS -> clauses += "NOT $IN_CONTACTS"
+            ContactsFilter.ALL -> {}
+        }
+        when (current.attendedFilter) {
+            AttendedFilter.ATTENDED -> clauses += "c.duration > 0"
+            AttendedFilter.NEVER_ATTENDED -> clauses += "c.duration = 0"
+            AttendedFilter.ALL -> {}
+        }
+
+        SearchIndex.toMatchExpression(current.searchQuery)?.let { match ->
+            clauses += "c.rowid IN (SELECT rowid FROM call_search_fts WHERE call_search_fts MATCH ?)"
+            args += match
+        }
+
+        return clauses to args
+    }
+
+    private fun tabClause(tab: CallTabFilter): String? = when (tab) {
+        CallTabFilter.ALL, CallTabFilter.IGNORED -> null
+        CallTabFilter.NEVER_CONNECTED -> "(COALESCE(p.totalCalls, 0) > 1 AND COALESCE(p.totalDuration, 0) = 0)"
+        CallTabFilter.MAY_FAILED -> "(c.duration > 0 AND c.duration <= 4)"
+        CallTabFilter.ANSWERED -> "(c.callType = 1 AND c.duration > 3)"
+        CallTabFilter.NOT_ANSWERED -> "((c.callType = 1 AND c.duration <= 3) OR c.callType IN (3, 5))"
+        CallTabFilter.OUTGOING -> "(c.callType = 2 AND c.duration > 3)"
+        CallTabFilter.OUTGOING_NOT_CONNECTED -> "(c.callType = 2 AND c.duration <= 3)"
+    }
+
+    /**
+     * Returns start (inclusive) and optional end (exclusive) for the selected date range,
+     * or null when the range does not restrict the list.
+     */
+    private fun dateBounds(current: HomeUiState): Pair<Long, Long?>? = when (current.dateRange) {
+        DateRange.TODAY -> HomeUtils.getStartOfDay(0) to null
+        DateRange.LAST_3_DAYS -> HomeUtils.getStartOfDay(2) to null
+        DateRange.LAST_7_DAYS -> HomeUtils.getStartOfDay(6) to null
+        DateRange.LAST_14_DAYS -> HomeUtils.getStartOfDay(13) to null
+        DateRange.LAST_30_DAYS -> HomeUtils.getStartOfDay(29) to null
+        DateRange.THIS_MONTH -> HomeUtils.getStartOfThisMonth() to null
+        DateRange.PREVIOUS_MONTH -> HomeUtils.getStartOfPreviousMonth() to HomeUtils.getStartOfThisMonth()
+        DateRange.CUSTOM -> {
+            val start = current.customStartDate
+            val end = current.customEndDate
+            if (start != null && end != null) start to (end + 1) else null
+        }
+        DateRange.ALL -> null
+    }
+
+    private fun orderBy(current: HomeUiState): String {
+        val dir = if (current.callSortDirection == SortDirection.DESCENDING) "DESC" else "ASC"
+        // compositeId as tie-breaker keeps page boundaries stable
+        return when (current.callSortBy) {
+            CallSortBy.DATE -> "c.callDate $dir, c.compositeId $dir"
+            CallSortBy.DURATION -> "c.duration $dir, c.callDate DESC, c.compositeId DESC"
+            CallSortBy.NUMBER -> "c.phoneNumber $dir, c.callDate DESC, c.compositeId DESC"
+        }
+    }
+}
@@ -20,7 +20,6 @@ import kotlinx.coroutines.launch
  * This reduces HomeViewModel size and isolates filter-related concerns.
  * 
  * Responsibilities:
- * - Process call filters across all tabs
  * - Process person filters across all tabs  
  * - Calculate filter counts
  * - Date range calculations
@@ -29,203 +28,6 @@ import kotlinx.coroutines.launch
 class FilterProcessor(
     private val settingsRepository: SettingsRepository
 ) {
-    // Cache for normalized numbers to avoid repeated heavy library calls
-    private val normalizationCache = java.util.concurrent.ConcurrentHashMap<String, String>()
-    
-    /**
-     * Process call filters across ALL tabs in a single pass.
-     * Returns a map of CallTabFilter -> List of matching calls.
-     */
-    fun processCallFilters(
-        currentState: HomeUiState,
-        personsMap: Map<String, PersonDataEntity>,
-        normalizePhone: (String) -> String
-    ): Map<CallTabFilter, List<CallDataEntity>> {
-        if (currentState.callLogs.isEmpty()) return emptyMap()
-
-        val query = currentState.searchQuery.trim().lowercase()
-        val hasQuery = query.isNotEmpty()
-        val labelFilter = currentState.labelFilter
-        val hasLabelFilter = labelFilter.isNotEmpty()
-        
-        val connFilter = currentState.connectedFilter
-        val nFilter = currentState.notesFilter
-        val pnFilter = currentState.personNotesFilter
-        val cFilter = currentState.contactsFilter
-        val aFilter = currentState.attendedFilter
-        val rFilter = currentState.reviewedFilter
-        val cnFilter = currentState.customNameFilter
-        val dRange = currentState.dateRange
-        
-        val todayStart = getStartOfDay(0)
-        val threeDaysStart = getStartOfDay(2)
-        val sevenDaysStart = getStartOfDay(6)
-        val fourteenDaysStart = getStartOfDay(13)
-        val thirtyDaysStart = getStartOfDay(29)
-        val thisMonthStart = getStartOfThisMonth()
-        val prevMonthStart = getStartOfPreviousMonth()
-        
-        val cStart = currentState.customStartDate ?: 0L
-        val cEnd = currentState.customEndDate ?: Long.MAX_VALUE
-        val tStartDate = currentState.trackStartDate
-        val simSel = currentState.simSelection
-        val targetSubId = if (simSel == "Both") null else getSubIdForSim(simSel, currentState)
-
-        val tabMaps = java.util.EnumMap<CallTabFilter, ArrayList<CallDataEntity>>(CallTabFilter::class.java)
-        CallTabFilter.entries.forEach { tabMaps[it] = ArrayList() }
-
-        for (call in currentState.callLogs) {
-            if (tStartDate > 0 && call.callDate < tStartDate) continue
-            if (targetSubId != null && call.subscriptionId != targetSubId) continue
-
-            val matchesDate = when (dRange) {
-                DateRange.TODAY -> call.callDate >= todayStart
-                DateRange.LAST_3_DAYS -> call.callDate >= threeDaysStart
-                DateRange.LAST_7_DAYS -> call.callDate >= sevenDaysStart
-                DateRange.LAST_14_DAYS -> call.callDate >= fourteenDaysStart
-                DateRange.LAST_30_DAYS -> call.callDate >= thirtyDaysStart
-                DateRange.THIS_MONTH -> call.callDate >= thisMonthStart
-                DateRange.PREVIOUS_MONTH -> call.callDate in prevMonthStart until thisMonthStart
-                DateRange.CUSTOM -> call.callDate in cStart..cEnd
-                DateRange.ALL -> true
-            }
-            if (!matchesDate) continue
-
-            var person = personsMap[call.phoneNumber]
-            if (person == null) {
-                val norm = getCachedNormalizedNumber(call.phoneNumber, normalizePhone)
-                person = personsMap[norm]
-            }
-
-            if (person?.isNoTracking == true) continue
-            
-            if (hasLabelFilter) {
-                val personLabels = person?.label?.split(",")?.map { it.trim() } ?: emptyList()
-                if (!personLabels.contains(labelFilter)) continue
-            }
-
-            val isConnected = call.duration > 0
-            if (connFilter == ConnectedFilter.CONNECTED && !isConnected) continue
-            if (connFilter == ConnectedFilter.NOT_CONNECTED && isConnected) continue
-            
-            if (nFilter == NotesFilter.WITH_NOTE && call.callNote.isNullOrEmpty()) continue
-            if (nFilter == NotesFilter.WITHOUT_NOTE && !call.callNote.isNullOrEmpty()) continue
-            
-            if (pnFilter == PersonNotesFilter.WITH_NOTE && person?.personNote.isNullOrEmpty()) continue
-            if (pnFilter == PersonNotesFilter.WITHOUT_NOTE && !person?.personNote.isNullOrEmpty()) continue
-
-            if (rFilter == ReviewedFilter.REVIEWED && !call.reviewed) continue
-            if (rFilter == ReviewedFilter.NOT_REVIEWED && call.reviewed) continue
-
-            if (cnFilter == CustomNameFilter.WITH_NAME && person?.contactName.isNullOrEmpty()) continue
-            if (cnFilter == CustomNameFilter.WITHOUT_NAME && !person?.contactName.isNullOrEmpty()) continue
-
-            if (cFilter == ContactsFilter.IN_CONTACTS && call.contactName.isNullOrEmpty()) continue
-            if (cFilter == ContactsFilter.NOT_IN_CONTACTS && !call.contactName.isNullOrEmpty()) continue
-            
-            if (aFilter == AttendedFilter.ATTENDED && !isConnected) continue
-            if (aFilter == AttendedFilter.NEVER_ATTENDED && isConnected) continue
-
-            if (hasQuery) {
-                val matches = call.phoneNumber.contains(query) || 
-                              (call.contactName?.lowercase()?.contains(query) == true) ||
-                              (call.callNote?.lowercase()?.contains(query) == true)
-                if (!matches) continue
-            }
-
-            val isIgnored = person?.hasAnyExclusion == true || call.callType == 6
-
-            if (currentState.showIgnoredOnly) {
-                if (!isIgnored) continue
-                
-                tabMaps[CallTabFilter.ALL]?.add(call)
-                tabMaps[CallTabFilter.IGNORED]?.add(call)
-                
-                if ((person?.totalCalls ?: 0) > 1 && (person?.totalDuration ?: 0L) == 0L) {
-                    tabMaps[CallTabFilter.NEVER_CONNECTED]?.add(call)
-                }
-                
-                if (call.duration > 0 && call.duration <= 4) {
-                    tabMaps[CallTabFilter.MAY_FAILED]?.add(call)
-                }
-
-                categorizeCallByType(call, tabMaps)
-            } else {
-                if (isIgnored) {
-                    tabMaps[CallTabFilter.IGNORED]?.add(call)
-                } else {
-                    tabMaps[CallTabFilter.ALL]?.add(call)
-                    
-                    if ((person?.totalCalls ?: 0) > 1 && (person?.totalDuration ?: 0L) == 0L) {
-                        tabMaps[CallTabFilter.NEVER_CONNECTED]?.add(call)
-                    }
-                    
-                    if (call.duration > 0 && call.duration <= 4) {
-                        tabMaps[CallTabFilter.MAY_FAILED]?.add(call)
-                    }
-
-                    categorizeCallByType(call, tabMaps)
-                }
-            }
-        }
-        
-        // Final Sorting
-        sortCallTabs(tabMaps, currentState)
-        
-        return tabMaps
-    }
-
-    private fun categorizeCallByType(call: CallDataEntity, tabMaps: java.util.EnumMap<CallTabFilter, ArrayList<CallDataEntity>>) {
-        when (call.callType) {
-            android.provider.CallLog.Calls.INCOMING_TYPE -> {
-                if (call.duration > 3) {
-                    tabMaps[CallTabFilter.ANSWERED]?.add(call)
-                } else {
-                    tabMaps[CallTabFilter.NOT_ANSWERED]?.add(call)
-                }
-            }
-            android.provider.CallLog.Calls.OUTGOING_TYPE -> {
-                if (call.duration > 3) {
-                    tabMaps[CallTabFilter.OUTGOING]?.add(call)
-                } else {
-                    tabMaps[CallTabFilter.OUTGOING_NOT_CONNECTED]?.add(call)
-                }
-            }
-            android.provider.CallLog.Calls.MISSED_TYPE, 
-            android.provider.CallLog.Calls.REJECTED_TYPE, 
-            5 -> { 
-                tabMaps[CallTabFilter.NOT_ANSWERED]?.add(call)
-            }
-        }
-    }
-
-    private fun sortCallTabs(
-        tabMaps: java.util.EnumMap<CallTabFilter, ArrayList<CallDataEntity>>,
-        state: HomeUiState
-    ) {
-        val isDesc = state.callSortDirection == SortDirection.DESCENDING
-        val sortBy = state.callSortBy
-        
-        tabMaps.values.forEach { list ->
-            if (list.isNotEmpty()) {
-                when (sortBy) {
-                    CallSortBy.DATE -> {
-                        if (isDesc) list.sortByDescending { it.callDate }
-                        else list.sortBy { it.callDate }
-                    }
-                    CallSortBy.DURATION -> {
-                        if (isDesc) list.sortByDescending { it.duration }
-                        else list.sortBy { it.duration }
-                    }
-                    CallSortBy.NUMBER -> {
-                        if (isDesc) list.sortByDescending { it.phoneNumber }
-                        else list.sortBy { it.phoneNumber }
-                    }
-                }
-            }
-        }
-    }
-
     /**
      * Process person filters across ALL tabs in a single pass.
      */
@@ -470,16 +272,8 @@ class FilterProcessor(
         return calendar.timeInMillis
     }
 
-    private fun getSubIdForSim(simName: String, state: HomeUiState): Int? {
-        if (simName == "Both") return null
-        return when (simName) {
-            "Sim1" -> state.sim1SubId
-            "Sim2" -> state.sim2SubId
-            else -> null
-        }
-    }
-
+    // normalizePhone is PhoneNormalizer-backed and already cached
     private fun getCachedNormalizedNumber(number: String, normalizePhone: (String) -> String): String {
-        return normalizationCache.getOrPut(number) { normalizePhone(number) }
+        return normalizePhone(number)
     }
 }
@@ -25,12 +25,12 @@ enum class ReportCategory { OVERVIEW, DAILY_AVERAGE, DATA_ANALYSIS, FREQUENCY }
 
 data class HomeUiState(
     val callLogs: List<CallDataEntity> = emptyList(),
-    val filteredLogs: List<CallDataEntity> = emptyList(),
     val persons: List<PersonDataEntity> = emptyList(),
     val filteredPersons: List<PersonDataEntity> = emptyList(),
     val isLoading: Boolean = true,
     val isSyncing: Boolean = false,
     val searchQuery: String = "",
+    val searchMatches: SearchMatches? = null,
     val selectedTab: Int = 0,
     val recordings: Map<String, String> = emptyMap(), // compositeId -> Path cache
     val currentRecordingPath: String = "",
@@ -86,7 +86,6 @@ data class HomeUiState(
     val personTypeCounts: Map<PersonTabFilter, Int> = emptyMap(),
     
     // Performance: Pre-computed filtered lists for each tab
-    val tabFilteredLogs: Map<CallTabFilter, List<CallDataEntity>> = emptyMap(),
     val tabFilteredPersons: Map<PersonTabFilter, List<PersonDataEntity>> = emptyMap(),
     val personGroups: Map<String, PersonGroup> = emptyMap(),
 
@@ -99,9 +98,6 @@ data class HomeUiState(
     val showWhatsappSelectionDialog: Boolean = false,
     val whatsappTargetNumber: String? = null,
 
-    // Reports Stats
-    val reportStats: ReportStats = ReportStats(),
-
     // Search History
     val searchHistory: List<String> = emptyList(),
     
@@ -204,6 +200,16 @@ data class DayStat(
     val duration: Long
 )
 
+/**
+ * Result of the full-text search for [query]: matching person numbers.
+ * The call list matches in SQL through CallListQueryBuilder.
+ * Only valid while it matches the current search query.
+ */
+data class SearchMatches(
+    val query: String,
+    val personPhones: Set<String>
+)
+
 data class DateSectionSummary(
     val dateLabel: String,
     val dayOfWeek: String,
@@ -213,3 +219,17 @@ data class DateSectionSummary(
     val month: String,
     val year: Int
 )
+
+/**
+ * Row of the paged call list: either a date section header or a call.
+ */
+sealed class CallListItem {
+    data class Header(val dateLabel: String, val dateMillis: Long) : CallListItem()
+    data class Call(val call: CallDataEntity) : CallListItem()
+
+    val key: String
+        get() = when (this) {
+            is Header -> "header_$dateLabel"
+            is Call -> call.compositeId
+        }
+}
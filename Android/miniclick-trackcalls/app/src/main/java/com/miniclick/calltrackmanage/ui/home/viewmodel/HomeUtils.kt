@@ -1,7 +1,7 @@
 package com.miniclick.calltrackmanage.ui.home.viewmodel
 
 import com.miniclick.calltrackmanage.ui.settings.SimInfo
-import com.miniclick.calltrackmanage.data.db.CallDataEntity
+import com.miniclick.calltrackmanage.data.db.CallDataDao
 import com.miniclick.calltrackmanage.ui.home.PersonGroup
 import com.miniclick.calltrackmanage.util.formatting.getDateHeader
 import com.miniclick.calltrackmanage.ui.settings.AppInfo
@@ -69,48 +69,42 @@ object HomeUtils {
         return count
     }
 
-    fun computeDateSummaries(currentState: HomeUiState): List<DateSectionSummary> {
-        val items: List<Any> = if (currentState.viewMode == ViewMode.CALLS) {
-            val filter = currentState.callTypeFilter
-            currentState.tabFilteredLogs[filter] ?: emptyList()
-        } else {
-            val filter = currentState.personTabFilter
-            currentState.tabFilteredPersons[filter]?.mapNotNull { currentState.personGroups[it.phoneNumber] } ?: emptyList()
+    /**
+     * Date summaries for the jump sheet. The calls view reads per-day totals straight from SQL
+     * (see CallListQuery.toDaySummaryQuery), the persons view still groups the filtered persons.
+     */
+    fun computeDateSummaries(
+        currentState: HomeUiState,
+        callDays: List<CallDataDao.CallDaySummary>
+    ): List<DateSectionSummary> {
+        if (currentState.viewMode == ViewMode.CALLS) {
+            return callDays.map { day ->
+                toDateSummary(getDateHeader(day.lastCallDate), day.lastCallDate, day.totalCalls, day.uniqueCalls)
+            }
         }
 
+        val filter = currentState.personTabFilter
+        val items = currentState.tabFilteredPersons[filter]?.mapNotNull { currentState.personGroups[it.phoneNumber] } ?: emptyList()
         if (items.isEmpty()) return emptyList()
 
-        return if (currentState.viewMode == ViewMode.CALLS) {
-            (items as List<CallDataEntity>).groupBy { getDateHeader(it.callDate) }
-                .map { (label, logs) ->
-                    val firstCall = logs.first()
-                    val calendar = Calendar.getInstance().apply { timeInMillis = firstCall.callDate }
-                    DateSectionSummary(
-                        dateLabel = label,
-                        dayOfWeek = SimpleDateFormat("EEEE", Locale.getDefault()).format(Date(firstCall.callDate)),
-                        totalCalls = logs.size,
-                        uniqueCalls = logs.distinctBy { it.phoneNumber }.size,
-                        dateMillis = firstCall.callDate,
-                        month = SimpleDateFormat("MMM", Locale.getDefault()).format(Date(firstCall.callDate)),
-                        year = calendar.get(Calendar.YEAR)
-                    )
-                }
-        } else {
-            (items as List<PersonGroup>).groupBy { getDateHeader(it.lastCallDate) }
-                .map { (label, groups) ->
-                    val firstGroup = groups.first()
-                    val calendar = Calendar.getInstance().apply { timeInMillis = firstGroup.lastCallDate }
-                    DateSectionSummary(
-                        dateLabel = label,
-                        dayOfWeek = SimpleDateFormat("EEEE", Locale.getDefault()).format(Date(firstGroup.lastCallDate)),
-                        totalCalls = groups.sumOf { it.calls.size },
-                        uniqueCalls = groups.size,
-                        dateMillis = firstGroup.lastCallDate,
-                        month = SimpleDateFormat("MMM", Locale.getDefault()).format(Date(firstGroup.lastCallDate)),
-                        year = calendar.get(Calendar.YEAR)
-                    )
-                }
-        }
+        return items.groupBy { getDateHeader(it.lastCallDate) }
+            .map { (label, groups) ->
+                val firstGroup = groups.first()
+                toDateSummary(label, firstGroup.lastCallDate, groups.sumOf { it.calls.size }, groups.size)
+            }
+    }
+
+    private fun toDateSummary(label: String, dateMillis: Long, totalCalls: Int, uniqueCalls: Int): DateSectionSummary {
+        val calendar = Calendar.getInstance().apply { timeInMillis = dateMillis }
+        return DateSectionSummary(
+            dateLabel = label,
+            dayOfWeek = SimpleDateFormat("EEEE", Locale.getDefault()).format(Date(dateMillis)),
+            totalCalls = totalCalls,
+            uniqueCalls = uniqueCalls,
+            dateMillis = dateMillis,
+            month = SimpleDateFormat("MMM", Locale.getDefault()).format(Date(dateMillis)),
+            year = calendar.get(Calendar.YEAR)
+        )
     }
 
     fun detectActiveSims(context: Context): List<SimInfo> {
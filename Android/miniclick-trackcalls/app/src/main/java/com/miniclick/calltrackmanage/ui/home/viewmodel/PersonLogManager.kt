@@ -12,6 +12,8 @@ object PersonLogManager {
 
         val query = current.searchQuery.trim().lowercase()
         val hasQuery = query.isNotEmpty()
+        // FTS results, if they were computed for this exact query
+        val searchMatches = current.searchMatches?.takeIf { it.query == current.searchQuery }
         val labelFilter = current.labelFilter
         val hasLabelFilter = labelFilter.isNotEmpty()
         
@@ -79,9 +81,13 @@ object PersonLogManager {
             if (rFilter == ReviewedFilter.NOT_REVIEWED && pCalls.any { it.reviewed }) continue
 
             if (hasQuery) {
-                val matches = person.phoneNumber.contains(query) || 
-                             (person.contactName?.lowercase()?.contains(query) == true) ||
-                             (person.personNote?.lowercase()?.contains(query) == true)
+                val matches = if (searchMatches != null) {
+                    person.phoneNumber in searchMatches.personPhones
+                } else {
+                    person.phoneNumber.contains(query) ||
+                        (person.contactName?.lowercase()?.contains(query) == true) ||
+                        (person.personNote?.lowercase()?.contains(query) == true)
+                }
                 if (!matches) continue
             }
 
@@ -0,0 +1,404 @@
+package com.miniclick.calltrackmanage.ui.home.viewmodel
+
+import android.provider.CallLog
+import com.miniclick.calltrackmanage.data.db.CallDailyRollupEntity
+import com.miniclick.calltrackmanage.data.db.CallDataDao
+import com.miniclick.calltrackmanage.data.db.CallDataEntity
+import com.miniclick.calltrackmanage.data.db.PersonDataEntity
+import java.text.DateFormatSymbols
+import java.util.Locale
+import java.util.TimeZone
+
+/**
+ * Builds the whole ReportStats in one pass over the logs.
+ *
+ * Everything is accumulated in primitives: per-number totals live in parallel arrays indexed
+ * through a single number -> slot map, unique counts come from per-number flag bits,
+ * weekday/hour come from epoch arithmetic with the zone offset (no Calendar or
+ * SimpleDateFormat per row) and the duration histogram is three IntArrays.
+ * The only per-row allocation left is the map entry for a number seen for the first time.
+ */
+object ReportAggregator {
+
+    private const val HOUR_MS = 60 * 60 * 1000L
+    private const val DAY_MS = 24 * HOUR_MS
+
+    // Per-number flags, one bit per "unique" metric
+    private const val F_CONNECTED = 1
+    private const val F_CONNECTED_IN = 1 shl 1
+    private const val F_CONNECTED_OUT = 1 shl 2
+    private const val F_NOT_ANSWERED_IN = 1 shl 3
+    private const val F_OUT_NOT_CONNECTED = 1 shl 4
+    private const val F_MAY_FAILED = 1 shl 5
+    private const val F_SAVED = 1 shl 6
+    private const val F_UNSAVED = 1 shl 7
+
+    private val BUCKET_LABELS = listOf("Over 5 min", "3 to 5 min", "1 to 3 min", "30s to 1 min", "10s to 30s", "5s to 10s", "0s to 5s")
+
+    fun aggregate(logs: List<CallDataEntity>, persons: List<PersonDataEntity>): ReportStats {
+        if (logs.isEmpty()) return ReportStats()
+
+        var incomingCalls = 0
+        var outgoingCalls = 0
+        var missedCalls = 0
+        var rejectedCalls = 0
+        var connectedCalls = 0
+        var connectedIncoming = 0
+        var connectedOutgoing = 0
+        var totalDuration = 0L
+        var maxDuration = 0L
+        var incomingDuration = 0L
+        var outgoingDuration = 0L
+        var callsWithNotes = 0
+        var reviewedCalls = 0
+        var callsWithRecordings = 0
+        var mayFailedCount = 0
+
+        // Per-number accumulators
+        val slots = HashMap<String, Int>()
+        var numbers = arrayOfNulls<String>(64)
+        var nameRow = IntArray(64)
+        var callCount = IntArray(64)
+        var durationSum = LongArray(64)
+        var inCount = IntArray(64)
+        var outCount = IntArray(64)
+        var missedCount = IntArray(64)
+        var flags = IntArray(64)
+
+        // Calendar.SUNDAY (1) .. Calendar.SATURDAY (7), and 0..23
+        val dayCount = IntArray(8)
+        val dayDuration = LongArray(8)
+        val dayOrder = IntArray(7)
+        var daysSeen = 0
+        val hourCount = IntArray(24)
+        val hourOrder = IntArray(24)
+        var hoursSeen = 0
+
+        val bucketTotal = IntArray(7)
+        val bucketOut = IntArray(7)
+        val bucketIn = IntArray(7)
+
+        val zone = TimeZone.getDefault()
+
+        for (row in logs.indices) {
+            val call = logs[row]
+            val duration = call.duration
+            val isIncoming = call.callType == CallLog.Calls.INCOMING_TYPE
+            val isOutgoing = call.callType == CallLog.Calls.OUTGOING_TYPE
+            val isMissed = call.callType == CallLog.Calls.MISSED_TYPE
+            val isRejected = call.callType == CallLog.Calls.REJECTED_TYPE || call.callType == 5 || call.callType == 6
+            val isConnected = duration > 3
+
+            var slot = slots[call.phoneNumber]
+            if (slot == null) {
+                slot = slots.size
+                slots[call.phoneNumber] = slot
+                if (slot == numbers.size) {
+                    val size = slot * 2
+                    numbers = numbers.copyOf(size)
+                    nameRow = nameRow.copyOf(size)
+                    callCount = callCount.copyOf(size)
+                    durationSum = durationSum.copyOf(size)
+                    inCount = inCount.copyOf(size)
+                    outCount = outCount.copyOf(size)
+                    missedCount = missedCount.copyOf(size)
+                    flags = flags.copyOf(size)
+                }
+                numbers[slot] = call.phoneNumber
+                nameRow[slot] = -1
+            }
+            var f = flags[slot]
+
+            if (isIncoming) {
+                incomingCalls++
+                incomingDuration += duration
+                inCount[slot]++
+                if (isConnected) {
+                    connectedIncoming++
+                    f = f or F_CONNECTED_IN
+                } else {
+                    f = f or F_NOT_ANSWERED_IN
+                }
+            } else if (isOutgoing) {
+                outgoingCalls++
+                outgoingDuration += duration
+                outCount[slot]++
+                if (isConnected) {
+                    connectedOutgoing++
+                    f = f or F_CONNECTED_OUT
+                } else {
+                    f = f or F_OUT_NOT_CONNECTED
+                }
+            } else if (isMissed) {
+                missedCalls++
+                missedCount[slot]++
+            } else if (isRejected) {
+                rejectedCalls++
+            }
+
+            if (isConnected) {
+                connectedCalls++
+                f = f or F_CONNECTED
+            }
+
+            totalDuration += duration
+            if (duration > maxDuration) maxDuration = duration
+            if (duration in 1..4) {
+                mayFailedCount++
+                f = f or F_MAY_FAILED
+            }
+
+            if (!call.callNote.isNullOrEmpty()) callsWithNotes++
+            if (call.reviewed) reviewedCalls++
+            if (!call.localRecordingPath.isNullOrEmpty()) callsWithRecordings++
+
+            if (call.contactName.isNullOrEmpty()) {
+                f = f or F_UNSAVED
+            } else {
+                f = f or F_SAVED
+                if (nameRow[slot] < 0) nameRow[slot] = row
+            }
+            flags[slot] = f
+            callCount[slot]++
+            durationSum[slot] += duration
+
+            // Local wall-clock time from the zone offset; 1970-01-01 was a Thursday (Calendar.THURSDAY = 5)
+            val local = call.callDate + zone.getOffset(call.callDate)
+            val epochDay = local.floorDiv(DAY_MS)
+            val weekday = (epochDay + 4).mod(7L).toInt() + 1
+            if (dayCount[weekday] == 0) dayOrder[daysSeen++] = weekday
+            dayCount[weekday]++
+            dayDuration[weekday] += duration
+
+            val hour = (local.mod(DAY_MS) / HOUR_MS).toInt()
+            if (hourCount[hour] == 0) hourOrder[hoursSeen++] = hour
+            hourCount[hour]++
+
+            val d = duration.toInt()
+            val bucket = when {
+                d > 300 -> 0 // Over 5 min
+                d > 180 -> 1 // 3 to 5 min
+                d > 60 -> 2  // 1 to 3 min
+                d > 30 -> 3  // 30s to 1 min
+                d > 10 -> 4  // 10s to 30s
+                d > 5 -> 5   // 5s to 10s
+                else -> 6    // 0s to 5s
+            }
+            bucketTotal[bucket]++
+            if (isOutgoing) bucketOut[bucket]++ else if (isIncoming) bucketIn[bucket]++
+        }
+
+        // Unique counts from the flag bits
+        val distinct = slots.size
+        var connectedUnique = 0
+        var connectedIncomingUnique = 0
+        var connectedOutgoingUnique = 0
+        var notAnsweredIncomingUnique = 0
+        var outgoingNotConnectedUnique = 0
+        var notConnectedUnique = 0
+        var mayFailedUnique = 0
+        var savedContacts = 0
+        var unsavedContacts = 0
+        for (slot in 0 until distinct) {
+            val f = flags[slot]
+            if (f and F_CONNECTED != 0) connectedUnique++
+            if (f and F_CONNECTED_IN != 0) connectedIncomingUnique++
+            if (f and F_CONNECTED_OUT != 0) connectedOutgoingUnique++
+            if (f and F_NOT_ANSWERED_IN != 0) notAnsweredIncomingUnique++
+            if (f and F_OUT_NOT_CONNECTED != 0) outgoingNotConnectedUnique++
+            if (f and (F_NOT_ANSWERED_IN or F_OUT_NOT_CONNECTED) != 0) notConnectedUnique++
+            if (f and F_MAY_FAILED != 0) mayFailedUnique++
+            if (f and F_SAVED != 0) savedContacts++
+            if (f and F_UNSAVED != 0) unsavedContacts++
+        }
+
+        fun topCaller(slot: Int): TopCaller {
+            val number = numbers[slot]!!
+            val row = nameRow[slot]
+            return TopCaller(
+                phoneNumber = number,
+                displayName = if (row >= 0) logs[row].contactName!! else number,
+                callCount = callCount[slot],
+                totalDuration = durationSum[slot],
+                incomingCount = inCount[slot],
+                outgoingCount = outCount[slot],
+                missedCount = missedCount[slot]
+            )
+        }
+        val topCallers = topSlots(distinct, 5) { callCount[it].toLong() }.map(::topCaller)
+        val mostTalked = topSlots(distinct, 5) { durationSum[it] }.filter { durationSum[it] > 0 }.map(::topCaller)
+
+        // Person-based stats
+        var personsWithNotes = 0
+        var personsWithLabels = 0
+        var neverConnectedUnique = 0
+        val labelCounts = HashMap<String, Int>()
+        for (person in persons) {
+            if (!person.personNote.isNullOrEmpty()) personsWithNotes++
+            val label = person.label
+            if (!label.isNullOrEmpty()) {
+                personsWithLabels++
+                for (part in label.split(',')) {
+                    val trimmed = part.trim()
+                    if (trimmed.isNotEmpty()) labelCounts[trimmed] = (labelCounts[trimmed] ?: 0) + 1
+                }
+            }
+            if (person.totalCalls > 0 && person.totalDuration == 0L && slots.containsKey(person.phoneNumber)) {
+                neverConnectedUnique++
+            }
+        }
+
+        val weekdayNames = DateFormatSymbols.getInstance(Locale.getDefault()).shortWeekdays
+        val dailyStats = LinkedHashMap<String, DayStat>(daysSeen * 2)
+        for (i in 0 until daysSeen) {
+            val weekday = dayOrder[i]
+            dailyStats[weekdayNames[weekday]] = DayStat(dayCount[weekday], dayDuration[weekday])
+        }
+        val hourlyStats = LinkedHashMap<Int, Int>(hoursSeen * 2)
+        for (i in 0 until hoursSeen) {
+            val hour = hourOrder[i]
+            hourlyStats[hour] = hourCount[hour]
+        }
+
+        return ReportStats(
+            totalCalls = logs.size,
+            incomingCalls = incomingCalls,
+            outgoingCalls = outgoingCalls,
+            missedCalls = missedCalls,
+            rejectedCalls = rejectedCalls,
+            connectedCalls = connectedCalls,
+            connectedUnique = connectedUnique,
+            notConnectedCalls = incomingCalls + outgoingCalls - connectedCalls,
+            notConnectedUnique = notConnectedUnique,
+            connectedIncoming = connectedIncoming,
+            connectedIncomingUnique = connectedIncomingUnique,
+            connectedOutgoing = connectedOutgoing,
+            connectedOutgoingUnique = connectedOutgoingUnique,
+            notAnsweredIncoming = incomingCalls - connectedIncoming,
+            notAnsweredIncomingUnique = notAnsweredIncomingUnique,
+            outgoingNotConnected = outgoingCalls - connectedOutgoing,
+            outgoingNotConnectedUnique = outgoingNotConnectedUnique,
+            totalDuration = totalDuration,
+            avgDuration = if (connectedCalls > 0) totalDuration / connectedCalls else 0L,
+            maxDuration = maxDuration,
+            incomingDuration = incomingDuration,
+            outgoingDuration = outgoingDuration,
+            uniqueContacts = distinct,
+            savedContacts = savedContacts,
+            unsavedContacts = unsavedContacts,
+            callsWithNotes = callsWithNotes,
+            reviewedCalls = reviewedCalls,
+            callsWithRecordings = callsWithRecordings,
+            personsWithNotes = personsWithNotes,
+            personsWithLabels = personsWithLabels,
+            totalPersons = persons.size,
+            neverConnectedCount = neverConnectedUnique,
+            neverConnectedUnique = neverConnectedUnique,
+            mayFailedCount = mayFailedCount,
+            mayFailedUnique = mayFailedUnique,
+            durationBuckets = BUCKET_LABELS.mapIndexed { index, label ->
+                DurationBucketStat(
+                    label = label,
+                    total = bucketTotal[index],
+                    outCount = bucketOut[index],
+                    inCount = bucketIn[index],
+                    sortOrder = index
+                )
+            },
+            comparisonAverages = emptyMap(), // Filled by the caller from the unfiltered logs
+            topCallers = topCallers,
+            mostTalked = mostTalked,
+            dailyStats = dailyStats,
+            hourlyStats = hourlyStats,
+            labelDistribution = labelCounts.toList().sortedByDescending { it.second }
+        )
+    }
+
+    /**
+     * Replaces the call and duration totals of [stats] with the trigger-maintained daily rollup
+     * for the same range, the numbers the tab badges show. Unique counts, top callers,
+     * weekday/hour activity and the duration histogram still come from the rows.
+     */
+    fun withRollupTotals(stats: ReportStats, totals: CallDataDao.CallTabTotals): ReportStats {
+        val visible = CallTabCounterRange.visibleByType(totals)
+            .filterKeys { it != CallLog.Calls.BLOCKED_TYPE }
+        fun of(type: Int) = visible[type] ?: VisibleCallTotals()
+
+        val incoming = of(CallLog.Calls.INCOMING_TYPE)
+        val outgoing = of(CallLog.Calls.OUTGOING_TYPE)
+        val connectedCalls = visible.values.sumOf { it.connected }
+        val totalDuration = visible.values.sumOf { it.duration }
+        return stats.copy(
+            totalCalls = visible.values.sumOf { it.calls },
+            incomingCalls = incoming.calls,
+            outgoingCalls = outgoing.calls,
+            missedCalls = of(CallLog.Calls.MISSED_TYPE).calls,
+            rejectedCalls = of(CallLog.Calls.REJECTED_TYPE).calls,
+            connectedCalls = connectedCalls,
+            notConnectedCalls = incoming.calls + outgoing.calls - connectedCalls,
+            connectedIncoming = incoming.connected,
+            connectedOutgoing = outgoing.connected,
+            notAnsweredIncoming = incoming.notConnected,
+            outgoingNotConnected = outgoing.notConnected,
+            totalDuration = totalDuration,
+            avgDuration = if (connectedCalls > 0) totalDuration / connectedCalls else 0L,
+            incomingDuration = incoming.duration,
+            outgoingDuration = outgoing.duration,
+            mayFailedCount = visible.values.sumOf { it.mayFailed }
+        )
+    }
+
+    /**
+     * Last 7 days, per-day averages used as the comparison line on report cards. Computed from
+     * the daily rollup rows, so it reads a few dozen rows instead of the whole call history.
+     */
+    fun last7DaysAverages(rollup: List<CallDailyRollupEntity>): Map<String, Float> {
+        var connected = 0
+        var outgoing = 0
+        var answered = 0
+        var outgoingNotConn = 0
+        var notAnswered = 0
+        var mayFailed = 0
+
+        for (row in rollup) {
+            connected += row.connectedCount
+            mayFailed += row.mayFailedCount
+            if (row.callType == CallLog.Calls.OUTGOING_TYPE) {
+                outgoing += row.callCount
+                outgoingNotConn += row.notConnectedCount
+            } else if (row.callType == CallLog.Calls.INCOMING_TYPE) {
+                answered += row.connectedCount
+                notAnswered += row.notConnectedCount
+            }
+        }
+
+        val days = 7f
+        return mapOf(
+            "connected" to (connected / days),
+            "outgoing" to (outgoing / days),
+            "answered" to (answered / days),
+            "outgoingNotConnected" to (outgoingNotConn / days),
+            "notAnswered" to (notAnswered / days),
+            "mayFailed" to (mayFailed / days)
+        )
+    }
+
+    /**
+     * Indices of the [k] largest values, largest first, by insertion into a k-sized array (O(n * k)).
+     */
+    private inline fun topSlots(count: Int, k: Int, value: (Int) -> Long): List<Int> {
+        val top = IntArray(k)
+        var size = 0
+        for (slot in 0 until count) {
+            val v = value(slot)
+            if (size == k && v <= value(top[k - 1])) continue
+            var pos = if (size < k) size++ else k - 1
+            while (pos > 0 && value(top[pos - 1]) < v) {
+                top[pos] = top[pos - 1]
+                pos--
+            }
+            top[pos] = slot
+        }
+        return List(size) { top[it] }
+    }
+}
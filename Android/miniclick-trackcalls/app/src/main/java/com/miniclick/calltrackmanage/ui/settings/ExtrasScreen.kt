@@ -290,6 +290,24 @@ fun ExtrasScreen(
 
                 HorizontalDivider(modifier = Modifier.padding(horizontal = 16.dp))
 
+                ListItem(
+                    headlineContent = { Text("Performance") },
+                    supportingContent = { 
+                        Text("Import, sync and upload timings on this device")
+                    },
+                    leadingContent = { 
+                        SettingsIcon(Icons.Default.Speed, MaterialTheme.colorScheme.tertiary) 
+                    },
+                    trailingContent = {
+                        Icon(Icons.Default.ChevronRight, contentDescription = null)
+                    },
+                    modifier = Modifier.clickable { 
+                        viewModel.togglePerfDiagnostics(true)
+                    }
+                )
+
+                HorizontalDivider(modifier = Modifier.padding(horizontal = 16.dp))
+
                 ListItem(
                     headlineContent = { Text("Export Session Logs") },
                     supportingContent = { 
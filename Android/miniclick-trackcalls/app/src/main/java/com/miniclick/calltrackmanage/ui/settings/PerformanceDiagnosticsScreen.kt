@@ -0,0 +1,196 @@
+package com.miniclick.calltrackmanage.ui.settings
+
+import androidx.compose.foundation.layout.*
+import androidx.compose.foundation.rememberScrollState
+import androidx.compose.foundation.verticalScroll
+import androidx.compose.material.icons.Icons
+import androidx.compose.material.icons.automirrored.filled.*
+import androidx.compose.material.icons.filled.*
+import androidx.compose.material3.*
+import androidx.compose.runtime.*
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.text.font.FontWeight
+import androidx.compose.ui.unit.dp
+import com.miniclick.calltrackmanage.data.PerfTelemetry
+
+/**
+ * Full Screen for performance diagnostics.
+ * Shows the per-phase timers and counters collected by PerfTelemetry.
+ */
+@OptIn(ExperimentalMaterial3Api::class)
+@Composable
+fun PerformanceDiagnosticsScreen(
+    uiState: SettingsUiState,
+    viewModel: SettingsViewModel,
+    onBack: () -> Unit
+) {
+    var showResetConfirm by remember { mutableStateOf(false) }
+
+    // Handle back button
+    androidx.activity.compose.BackHandler {
+        onBack()
+    }
+
+    val metrics = uiState.perfMetrics
+    val timers = metrics.filter { it.kind == PerfTelemetry.KIND_TIMER }
+    val counters = metrics.filter { it.kind == PerfTelemetry.KIND_COUNTER }
+
+    Scaffold(
+        topBar = {
+            TopAppBar(
+                title = { 
+                    Text(
+                        "Performance",
+                        fontWeight = FontWeight.Bold
+                    ) 
+                },
+                navigationIcon = {
+                    IconButton(onClick = onBack) {
+                        Icon(Icons.AutoMirrored.Filled.ArrowBack, contentDescription = "Back")
+                    }
+                },
+                actions = {
+                    IconButton(onClick = { viewModel.refreshPerfMetrics() }) {
+                        Icon(Icons.Default.Refresh, contentDescription = "Refresh")
+                    }
+                    IconButton(onClick = { showResetConfirm = true }) {
+                        Icon(Icons.Default.DeleteSweep, contentDescription = "Reset metrics")
+                    }
+                }
+            )
+        }
+    ) { padding ->
+        Column(
+            modifier = Modifier
+                .fillMaxSize()
+                .padding(padding)
+                .verticalScroll(rememberScrollState())
+        ) {
+            Spacer(Modifier.height(16.dp))
+
+            Text(
+                "Last ${PerfTelemetry.DEFAULT_WINDOW_DAYS} days on this device. Included in exported session logs.",
+                style = MaterialTheme.typography.bodySmall,
+                color = MaterialTheme.colorScheme.onSurfaceVariant,
+                modifier = Modifier.padding(horizontal = 16.dp)
+            )
+
+            if (metrics.isEmpty()) {
+                Spacer(Modifier.height(32.dp))
+                Text(
+                    "No metrics recorded yet",
+                    style = MaterialTheme.typography.bodyMedium,
+                    modifier = Modifier.padding(horizontal = 16.dp)
+                )
+            }
+
+            val bytesPerSecond = PerfTelemetry.uploadBytesPerSecond(metrics)
+            if (bytesPerSecond != null || uiState.uploadBytesSaved > 0) {
+                Spacer(Modifier.height(8.dp))
+                SettingsSection(title = "Uploads") {
+                    if (bytesPerSecond != null) {
+                        ListItem(
+                            headlineContent = { Text("Recording upload throughput") },
+                            supportingContent = { Text(formatBytes(bytesPerSecond) + "/s") },
+                            leadingContent = { 
+                                SettingsIcon(Icons.Default.CloudUpload, MaterialTheme.colorScheme.primary) 
+                            }
+                        )
+                    }
+                    if (uiState.uploadBytesSaved > 0) {
+                        if (bytesPerSecond != null) HorizontalDivider(modifier = Modifier.padding(horizontal = 16.dp))
+                        ListItem(
+                            headlineContent = { Text("Saved by compression") },
+                            supportingContent = { Text(formatBytes(uiState.uploadBytesSaved) + " less uploaded since install") },
+                            leadingContent = { 
+                                SettingsIcon(Icons.Default.Compress, MaterialTheme.colorScheme.primary) 
+                            }
+                        )
+                    }
+                }
+            }
+
+            if (timers.isNotEmpty()) {
+                Spacer(Modifier.height(8.dp))
+                SettingsSection(title = "Timings") {
+                    timers.forEachIndexed { index, metric ->
+                        if (index > 0) HorizontalDivider(modifier = Modifier.padding(horizontal = 16.dp))
+                        ListItem(
+                            headlineContent = { Text(metric.name) },
+                            supportingContent = {
+                                Text(
+                                    "${metric.count}× · avg ${formatMillis(metric.average)} · " +
+                                        "p50 ≤ ${formatMillis(metric.p50)} · p90 ≤ ${formatMillis(metric.p90)} · " +
+                                        "max ${formatMillis(metric.max)}"
+                                )
+                            },
+                            leadingContent = { 
+                                SettingsIcon(Icons.Default.Timer, MaterialTheme.colorScheme.secondary) 
+                            }
+                        )
+                    }
+                }
+            }
+
+            if (counters.isNotEmpty()) {
+                Spacer(Modifier.height(8.dp))
+                SettingsSection(title = "Counters") {
+                    counters.forEachIndexed { index, metric ->
+                        if (index > 0) HorizontalDivider(modifier = Modifier.padding(horizontal = 16.dp))
+                        ListItem(
+                            headlineContent = { Text(metric.name) },
+                            supportingContent = {
+                                val total = if (metric.name == PerfTelemetry.Metrics.UPLOAD_BYTES) {
+                                    formatBytes(metric.total)
+                                } else {
+                                    metric.total.toString()
+                                }
+                                Text(total)
+                            },
+                            leadingContent = { 
+                                SettingsIcon(Icons.Default.Numbers, MaterialTheme.colorScheme.tertiary) 
+                            }
+                        )
+                    }
+                }
+            }
+
+            Spacer(Modifier.height(48.dp))
+        }
+    }
+
+    if (showResetConfirm) {
+        AlertDialog(
+            onDismissRequest = { showResetConfirm = false },
+            title = { Text("Reset Metrics") },
+            text = { Text("Delete all recorded performance metrics on this device?") },
+            confirmButton = {
+                Button(
+                    onClick = {
+                        showResetConfirm = false
+                        viewModel.resetPerfMetrics()
+                    }
+                ) {
+                    Text("Reset")
+                }
+            },
+            dismissButton = {
+                TextButton(onClick = { showResetConfirm = false }) {
+                    Text("Cancel")
+                }
+            }
+        )
+    }
+}
+
+private fun formatMillis(millis: Long): String = when {
+    millis >= 60_000L -> String.format(java.util.Locale.US, "%.1fm", millis / 60_000.0)
+    millis >= 1_000L -> String.format(java.util.Locale.US, "%.1fs", millis / 1_000.0)
+    else -> "${millis}ms"
+}
+
+private fun formatBytes(bytes: Long): String = when {
+    bytes >= 1024L * 1024L -> String.format(java.util.Locale.US, "%.1f MB", bytes / (1024.0 * 1024.0))
+    bytes >= 1024L -> String.format(java.util.Locale.US, "%.1f KB", bytes / 1024.0)
+    else -> "$bytes B"
+}
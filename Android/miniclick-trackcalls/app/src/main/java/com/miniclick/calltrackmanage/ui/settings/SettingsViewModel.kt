@@ -5,6 +5,7 @@ import android.content.Context
 import androidx.lifecycle.AndroidViewModel
 import androidx.lifecycle.viewModelScope
 import com.miniclick.calltrackmanage.data.CallDataRepository
+import com.miniclick.calltrackmanage.data.PerfTelemetry
 import com.miniclick.calltrackmanage.data.SettingsRepository
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
@@ -17,10 +18,7 @@ import androidx.work.WorkManager
 import com.miniclick.calltrackmanage.worker.CallSyncWorker
 import com.miniclick.calltrackmanage.worker.RecordingUploadWorker
 import com.google.gson.Gson
-import com.google.gson.GsonBuilder
 import android.net.Uri
-import java.io.OutputStreamWriter
-import java.io.InputStreamReader
 import com.miniclick.calltrackmanage.ui.settings.viewmodel.*
 import com.miniclick.calltrackmanage.util.system.WhatsAppUtils
 import com.miniclick.calltrackmanage.util.system.LogExporter
@@ -126,6 +124,9 @@ data class SettingsUiState(
     val showTrackingSettings: Boolean = false,
     val showExtrasScreen: Boolean = false,
     val showDataManagementScreen: Boolean = false,
+    val showPerfDiagnostics: Boolean = false,
+    val perfMetrics: List<PerfTelemetry.MetricSummary> = emptyList(),
+    val uploadBytesSaved: Long = 0L,
     val showDevicePermissionGuide: Boolean = false,
     val contactSubject: String = "",
     val accountEditField: String? = null,
@@ -732,6 +733,26 @@ class SettingsViewModel @javax.inject.Inject constructor(
         _uiState.update { it.copy(showDataManagementScreen = show) }
     }
 
+    fun togglePerfDiagnostics(show: Boolean) {
+        _uiState.update { it.copy(showPerfDiagnostics = show) }
+        if (show) refreshPerfMetrics()
+    }
+
+    fun refreshPerfMetrics() {
+        viewModelScope.launch {
+            val metrics = PerfTelemetry.summarize()
+            val saved = settingsRepository.getUploadBytesSaved()
+            _uiState.update { it.copy(perfMetrics = metrics, uploadBytesSaved = saved) }
+        }
+    }
+
+    fun resetPerfMetrics() {
+        viewModelScope.launch {
+            PerfTelemetry.clear()
+            _uiState.update { it.copy(perfMetrics = emptyList()) }
+        }
+    }
+
     fun toggleDevicePermissionGuide(show: Boolean) {
         _uiState.update { it.copy(showDevicePermissionGuide = show) }
     }
@@ -1256,29 +1277,15 @@ class SettingsViewModel @javax.inject.Inject constructor(
     // DATA EXPORT & IMPORT
     // ============================================
 
-    data class BackupData(
-        val calls: List<com.miniclick.calltrackmanage.data.db.CallDataEntity>,
-        val persons: List<com.miniclick.calltrackmanage.data.db.PersonDataEntity>,
-        val exportDate: Long = System.currentTimeMillis(),
-        val appVersion: String
-    )
-
     fun exportData(uri: Uri) {
         viewModelScope.launch {
             try {
-                val calls = callDataRepository.getAllCalls()
-                val persons = callDataRepository.getAllPersons()
                 val packageInfo = getApplication<Application>().packageManager.getPackageInfo(getApplication<Application>().packageName, 0)
                 val appVersion = packageInfo.versionName ?: "Unknown"
                 
-                val backup = BackupData(calls, persons, appVersion = appVersion)
-                val json = GsonBuilder().setPrettyPrinting().create().toJson(backup)
-                
                 withContext(Dispatchers.IO) {
                     getApplication<Application>().contentResolver.openOutputStream(uri)?.use { outputStream ->
-                        OutputStreamWriter(outputStream).use { writer ->
-                            writer.write(json)
-                        }
+                        dataManager.writeJsonBackup(outputStream, appVersion)
                     }
                 }
                 Toast.makeText(getApplication(), "Data exported successfully", Toast.LENGTH_SHORT).show()
@@ -1292,37 +1299,9 @@ class SettingsViewModel @javax.inject.Inject constructor(
     fun exportDataCsv(uri: Uri) {
         viewModelScope.launch {
             try {
-                val calls = callDataRepository.getAllCalls()
-                val sb = StringBuilder()
-                // Header
-                sb.append("Date,Number,Name,Type,Duration,Note,Tag\n")
-                
-                val sdf = java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss", java.util.Locale.getDefault())
-                
-                calls.forEach { call ->
-                    val date = sdf.format(java.util.Date(call.callDate))
-                    val type = when(call.callType) {
-                        android.provider.CallLog.Calls.INCOMING_TYPE -> "Incoming"
-                        android.provider.CallLog.Calls.OUTGOING_TYPE -> "Outgoing"
-                        android.provider.CallLog.Calls.MISSED_TYPE -> "Missed"
-                        android.provider.CallLog.Calls.REJECTED_TYPE -> "Rejected"
-                        android.provider.CallLog.Calls.BLOCKED_TYPE -> "Blocked"
-                        else -> "Unknown"
-                    }
-                    
-                    // Escape CSV fields
-                    val name = (call.contactName ?: "").replace("\"", "\"\"")
-                    val note = (call.callNote ?: "").replace("\"", "\"\"")
-                    val tag = "" // Tag is not available in CallDataEntity
-                    
-                    sb.append("$date,${call.phoneNumber},\"$name\",$type,${call.duration},\"$note\",\"$tag\"\n")
-                }
-                
                 withContext(Dispatchers.IO) {
                     getApplication<Application>().contentResolver.openOutputStream(uri)?.use { outputStream ->
-                        OutputStreamWriter(outputStream).use { writer ->
-                            writer.write(sb.toString())
-                        }
+                        dataManager.writeCallsCsv(outputStream)
                     }
                 }
                 Toast.makeText(getApplication(), "CSV exported successfully", Toast.LENGTH_SHORT).show()
@@ -1336,31 +1315,18 @@ class SettingsViewModel @javax.inject.Inject constructor(
     fun importData(uri: Uri) {
         viewModelScope.launch {
             try {
-                val json = withContext(Dispatchers.IO) {
+                val result = withContext(Dispatchers.IO) {
                     getApplication<Application>().contentResolver.openInputStream(uri)?.use { inputStream ->
-                        InputStreamReader(inputStream).use { reader ->
-                            reader.readText()
-                        }
-                    } ?: ""
-                }
-                
-                if (json.isBlank()) {
-                    Toast.makeText(getApplication(), "Empty file", Toast.LENGTH_SHORT).show()
-                    return@launch
+                        dataManager.readJsonBackup(inputStream)
+                    }
                 }
                 
-                val backup = GsonBuilder().create().fromJson(json, BackupData::class.java)
-                
-                if (backup.calls.isEmpty() && backup.persons.isEmpty()) {
+                if (result == null || (result.calls == 0 && result.persons == 0)) {
                     Toast.makeText(getApplication(), "No data found in file", Toast.LENGTH_SHORT).show()
                     return@launch
                 }
                 
-                withContext(Dispatchers.IO) {
-                    callDataRepository.importData(backup.calls, backup.persons)
-                }
-                
-                Toast.makeText(getApplication(), "Data imported: ${backup.calls.size} calls, ${backup.persons.size} persons", Toast.LENGTH_LONG).show()
+                Toast.makeText(getApplication(), "Data imported: ${result.calls} calls, ${result.persons} persons", Toast.LENGTH_LONG).show()
                 loadSettings()
             } catch (e: Exception) {
                 Log.e("SettingsViewModel", "Failed to import data", e)
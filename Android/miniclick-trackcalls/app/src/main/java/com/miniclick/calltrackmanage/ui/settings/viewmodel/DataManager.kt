@@ -2,9 +2,14 @@ package com.miniclick.calltrackmanage.ui.settings.viewmodel
 
 import android.app.Application
 import android.net.Uri
+import android.provider.CallLog
+import android.util.Log
 import android.widget.Toast
 import com.google.gson.Gson
 import com.google.gson.GsonBuilder
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import com.google.gson.stream.JsonWriter
 import com.miniclick.calltrackmanage.data.CallDataRepository
 import com.miniclick.calltrackmanage.data.RecordingRepository
 import com.miniclick.calltrackmanage.data.SettingsRepository
@@ -14,15 +19,23 @@ import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
+import java.io.BufferedReader
+import java.io.BufferedWriter
+import java.io.IOException
+import java.io.InputStream
 import java.io.InputStreamReader
+import java.io.OutputStream
 import java.io.OutputStreamWriter
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
 
 /**
  * Handles all data management operations extracted from SettingsViewModel.
  * 
  * Responsibilities:
- * - Export data to various formats (JSON, CSV)
- * - Import data from backups
+ * - Export data to various formats (JSON, CSV), streamed page by page
+ * - Import data from backups, streamed in bounded batches
  * - Clear data operations
  * - Storage usage tracking
  */
@@ -33,7 +46,15 @@ class DataManager(
     private val recordingRepository: RecordingRepository,
     private val scope: CoroutineScope
 ) {
-    private val gson: Gson = GsonBuilder().setPrettyPrinting().create()
+    private val gson: Gson = GsonBuilder().create()
+
+    companion object {
+        private const val TAG = "DataManager"
+        private const val EXPORT_PAGE_SIZE = 500
+        private const val IMPORT_BATCH_SIZE = 500
+        private const val BACKUP_VERSION = 1
+        private const val CSV_HEADER = "Date,Number,Name,Type,Duration,Note,Tag"
+    }
 
     /**
      * Export all data to JSON format.
@@ -46,26 +67,12 @@ class DataManager(
         scope.launch(Dispatchers.IO) {
             withContext(Dispatchers.Main) { onProgress(true) }
             try {
-                val calls = callDataRepository.getAllCalls()
-                val persons = callDataRepository.getAllPersons()
-                
-                val exportData = ExportData(
-                    version = 1,
-                    exportDate = System.currentTimeMillis(),
-                    calls = calls,
-                    persons = persons
-                )
-                
-                val json = gson.toJson(exportData)
-                
-                application.contentResolver.openOutputStream(uri)?.use { output ->
-                    OutputStreamWriter(output).use { writer ->
-                        writer.write(json)
-                    }
-                }
+                val result = application.contentResolver.openOutputStream(uri)?.use { output ->
+                    writeJsonBackup(output, appVersion = null)
+                } ?: throw IOException("Cannot open $uri")
                 
                 withContext(Dispatchers.Main) {
-                    onComplete(true, "Exported ${calls.size} calls and ${persons.size} persons")
+                    onComplete(true, "Exported ${result.calls} calls and ${result.persons} persons")
                 }
             } catch (e: Exception) {
                 withContext(Dispatchers.Main) {
@@ -88,28 +95,12 @@ class DataManager(
         scope.launch(Dispatchers.IO) {
             withContext(Dispatchers.Main) { onProgress(true) }
             try {
-                val calls = callDataRepository.getAllCalls()
-                
-                val csvBuilder = StringBuilder()
-                // Header
-                csvBuilder.appendLine("CompositeId,PhoneNumber,ContactName,CallType,Duration,CallDate,CallNote,Reviewed")
-                
-                // Data rows
-                calls.forEach { call ->
-                    val escapedNote = call.callNote?.replace("\"", "\"\"")?.replace("\n", " ") ?: ""
-                    csvBuilder.appendLine("""
-                        "${call.compositeId}","${call.phoneNumber}","${call.contactName ?: ""}",${call.callType},${call.duration},${call.callDate},"$escapedNote",${call.reviewed}
-                    """.trimIndent())
-                }
-                
-                application.contentResolver.openOutputStream(uri)?.use { output ->
-                    OutputStreamWriter(output).use { writer ->
-                        writer.write(csvBuilder.toString())
-                    }
-                }
+                val count = application.contentResolver.openOutputStream(uri)?.use { output ->
+                    writeCallsCsv(output)
+                } ?: throw IOException("Cannot open $uri")
                 
                 withContext(Dispatchers.Main) {
-                    onComplete(true, "Exported ${calls.size} calls to CSV")
+                    onComplete(true, "Exported $count calls to CSV")
                 }
             } catch (e: Exception) {
                 withContext(Dispatchers.Main) {
@@ -132,26 +123,16 @@ class DataManager(
         scope.launch(Dispatchers.IO) {
             withContext(Dispatchers.Main) { onProgress(true) }
             try {
-                val json = application.contentResolver.openInputStream(uri)?.use { input ->
-                    InputStreamReader(input).use { reader ->
-                        reader.readText()
-                    }
-                }
-                
-                if (json.isNullOrEmpty()) {
-                    withContext(Dispatchers.Main) {
-                        onComplete(false, "File is empty")
-                    }
-                    return@launch
-                }
-                
-                val exportData = gson.fromJson(json, ExportData::class.java)
-                
-                // Import using the repository's bulk import method
-                callDataRepository.importData(exportData.calls, exportData.persons)
+                val result = application.contentResolver.openInputStream(uri)?.use { input ->
+                    readJsonBackup(input)
+                } ?: throw IOException("Cannot open $uri")
                 
                 withContext(Dispatchers.Main) {
-                    onComplete(true, "Imported ${exportData.calls.size} calls and ${exportData.persons.size} persons")
+                    if (result.calls == 0 && result.persons == 0) {
+                        onComplete(false, "No data found in file")
+                    } else {
+                        onComplete(true, "Imported ${result.calls} calls and ${result.persons} persons")
+                    }
                 }
             } catch (e: Exception) {
                 withContext(Dispatchers.Main) {
@@ -163,6 +144,135 @@ class DataManager(
         }
     }
 
+    /**
+     * Streams the backup into [output]: rows are paged out of Room [EXPORT_PAGE_SIZE] at a time
+     * and serialized straight into the stream, so memory does not grow with the account size.
+     * Layout: { version, exportDate, appVersion, calls: [...], persons: [...] }.
+     */
+    suspend fun writeJsonBackup(output: OutputStream, appVersion: String?): TransferResult {
+        var calls = 0
+        var persons = 0
+        val writer = JsonWriter(BufferedWriter(OutputStreamWriter(output, Charsets.UTF_8)))
+        writer.setIndent("  ")
+        writer.beginObject()
+        writer.name("version").value(BACKUP_VERSION.toLong())
+        writer.name("exportDate").value(System.currentTimeMillis())
+        if (appVersion != null) writer.name("appVersion").value(appVersion)
+
+        writer.name("calls").beginArray()
+        callDataRepository.forEachCallPage(EXPORT_PAGE_SIZE) { page ->
+            page.forEach { gson.toJson(it, CallDataEntity::class.java, writer) }
+            calls += page.size
+        }
+        writer.endArray()
+
+        writer.name("persons").beginArray()
+        callDataRepository.forEachPersonPage(EXPORT_PAGE_SIZE) { page ->
+            page.forEach { gson.toJson(it, PersonDataEntity::class.java, writer) }
+            persons += page.size
+        }
+        writer.endArray()
+
+        writer.endObject()
+        // Flush without closing: the caller owns the SAF stream
+        writer.flush()
+        Log.d(TAG, "Backup written: $calls calls, $persons persons")
+        return TransferResult(calls, persons)
+    }
+
+    /**
+     * Streams the call list into [output] as CSV, one Room page at a time.
+     */
+    suspend fun writeCallsCsv(output: OutputStream): Int {
+        var count = 0
+        val writer = BufferedWriter(OutputStreamWriter(output, Charsets.UTF_8))
+        val sdf = SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault())
+        writer.write(CSV_HEADER)
+        writer.newLine()
+
+        callDataRepository.forEachCallPage(EXPORT_PAGE_SIZE) { page ->
+            page.forEach { call ->
+                val type = when (call.callType) {
+                    CallLog.Calls.INCOMING_TYPE -> "Incoming"
+                    CallLog.Calls.OUTGOING_TYPE -> "Outgoing"
+                    CallLog.Calls.MISSED_TYPE -> "Missed"
+                    CallLog.Calls.REJECTED_TYPE -> "Rejected"
+                    CallLog.Calls.BLOCKED_TYPE -> "Blocked"
+                    else -> "Unknown"
+                }
+                writer.write(sdf.format(Date(call.callDate)))
+                writer.write(",")
+                writer.write(call.phoneNumber)
+                writer.write(",")
+                writer.write(csvQuoted(call.contactName))
+                writer.write(",")
+                writer.write(type)
+                writer.write(",")
+                writer.write(call.duration.toString())
+                writer.write(",")
+                writer.write(csvQuoted(call.callNote))
+                writer.write(",\"\"") // Tag is not available in CallDataEntity
+                writer.newLine()
+            }
+            count += page.size
+        }
+        writer.flush()
+        return count
+    }
+
+    private fun csvQuoted(value: String?): String = "\"" + (value ?: "").replace("\"", "\"\"") + "\""
+
+    /**
+     * Reads a backup written by [writeJsonBackup] (or the older single-document exports, which
+     * use the same "calls" / "persons" keys) token by token. Rows are inserted in transactions of
+     * [IMPORT_BATCH_SIZE], so at most one batch is held in memory.
+     */
+    suspend fun readJsonBackup(input: InputStream): TransferResult {
+        var calls = 0
+        var persons = 0
+        val reader = JsonReader(BufferedReader(InputStreamReader(input, Charsets.UTF_8)))
+        if (reader.peek() == JsonToken.END_DOCUMENT) return TransferResult(0, 0)
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "calls" -> calls += readBatches(reader, CallDataEntity::class.java) { batch ->
+                    callDataRepository.importData(batch, emptyList())
+                }
+                "persons" -> persons += readBatches(reader, PersonDataEntity::class.java) { batch ->
+                    callDataRepository.importData(emptyList(), batch)
+                }
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+        Log.d(TAG, "Backup read: $calls calls, $persons persons")
+        return TransferResult(calls, persons)
+    }
+
+    private suspend fun <T> readBatches(reader: JsonReader, type: Class<T>, insert: suspend (List<T>) -> Unit): Int {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull()
+            return 0
+        }
+        var total = 0
+        val batch = ArrayList<T>(IMPORT_BATCH_SIZE)
+        reader.beginArray()
+        while (reader.hasNext()) {
+            batch.add(gson.fromJson(reader, type))
+            if (batch.size == IMPORT_BATCH_SIZE) {
+                insert(batch)
+                total += batch.size
+                batch.clear()
+            }
+        }
+        reader.endArray()
+        if (batch.isNotEmpty()) {
+            insert(batch)
+            total += batch.size
+        }
+        return total
+    }
+
     /**
      * Clear all local data.
      */
@@ -236,12 +346,10 @@ class DataManager(
     )
 
     /**
-     * Data class for export/import.
+     * Row counts of one export or import.
      */
-    data class ExportData(
-        val version: Int,
-        val exportDate: Long,
-        val calls: List<CallDataEntity>,
-        val persons: List<PersonDataEntity>
+    data class TransferResult(
+        val calls: Int,
+        val persons: Int
     )
 }
@@ -11,6 +11,8 @@ import android.util.Log
 import java.io.File
 import java.io.FileInputStream
 import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.ShortBuffer
 
 /**
  * AudioCompressor - Compresses audio recordings to AAC format to reduce file size
@@ -29,6 +31,7 @@ object AudioCompressor {
     private const val TARGET_SAMPLE_RATE = 16000 // 16kHz
     private const val TARGET_CHANNEL_COUNT = 1 // Mono
     private const val TIMEOUT_US = 10000L
+    private const val BYTES_PER_SAMPLE = 2 // 16-bit PCM from the decoder
 
     /**
      * Compress an audio file to AAC format
@@ -69,10 +72,19 @@ object AudioCompressor {
         return estimatedCompressedSize < originalSizeBytes * 0.5
     }
 
+    /**
+     * Decode -> mono PCM -> AAC encode -> MP4 mux.
+     *
+     * The source is decoded with its own codec (AMR, AAC, MP3...), downmixed to mono and,
+     * when the source rate is an exact multiple of 16kHz, decimated to it. Other rates are
+     * encoded at their native rate; the bitrate cap is what drives the size down.
+     */
     private fun compressWithMediaCodec(context: Context, inputPath: String, outputFile: File): Boolean {
         var extractor: MediaExtractor? = null
+        var decoder: MediaCodec? = null
         var encoder: MediaCodec? = null
         var muxer: MediaMuxer? = null
+        var muxerStarted = false
         
         try {
             extractor = MediaExtractor()
@@ -104,107 +116,198 @@ object AudioCompressor {
 
             extractor.selectTrack(audioTrackIndex)
 
-            // Get input properties
-            val inputSampleRate = inputFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE)
-            val inputChannelCount = inputFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT)
-            Log.d(TAG, "Input: ${inputSampleRate}Hz, $inputChannelCount channels")
-
-            // Create encoder format
-            val outputFormat = MediaFormat.createAudioFormat(
-                MediaFormat.MIMETYPE_AUDIO_AAC,
-                TARGET_SAMPLE_RATE,
-                TARGET_CHANNEL_COUNT
-            ).apply {
-                setInteger(MediaFormat.KEY_BIT_RATE, TARGET_BITRATE)
-                setInteger(MediaFormat.KEY_AAC_PROFILE, MediaCodecInfo.CodecProfileLevel.AACObjectLC)
-                setInteger(MediaFormat.KEY_MAX_INPUT_SIZE, 16384)
-            }
+            // Get input properties (the decoder may correct them on its first format change)
+            var pcmSampleRate = inputFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE)
+            var pcmChannelCount = inputFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT)
+            Log.d(TAG, "Input: ${inputFormat.getString(MediaFormat.KEY_MIME)}, ${pcmSampleRate}Hz, $pcmChannelCount channels")
 
-            // Create encoder
-            encoder = MediaCodec.createEncoderByType(MediaFormat.MIMETYPE_AUDIO_AAC)
-            encoder.configure(outputFormat, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE)
-            encoder.start()
+            decoder = MediaCodec.createDecoderByType(inputFormat.getString(MediaFormat.KEY_MIME)!!)
+            decoder.configure(inputFormat, null, null, 0)
+            decoder.start()
 
-            // Create muxer
-            muxer = MediaMuxer(outputFile.absolutePath, MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4)
+            val mp4Muxer = MediaMuxer(outputFile.absolutePath, MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4)
+            muxer = mp4Muxer
             var muxerTrackIndex = -1
-            var muxerStarted = false
 
-            val inputBufferInfo = MediaCodec.BufferInfo()
+            var decimation = 1
+            var encoderSampleRate = TARGET_SAMPLE_RATE
+            var samplesQueued = 0L
+            val decoderInfo = MediaCodec.BufferInfo()
+            val encoderInfo = MediaCodec.BufferInfo()
             var isInputEOS = false
+            var isDecoderEOS = false
             var isOutputEOS = false
 
+            fun drainEncoder(codec: MediaCodec, timeoutUs: Long) {
+                while (!isOutputEOS) {
+                    val index = codec.dequeueOutputBuffer(encoderInfo, timeoutUs)
+                    when {
+                        index == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED -> {
+                            if (!muxerStarted) {
+                                muxerTrackIndex = mp4Muxer.addTrack(codec.outputFormat)
+                                mp4Muxer.start()
+                                muxerStarted = true
+                                Log.d(TAG, "Muxer started")
+                            }
+                        }
+                        index >= 0 -> {
+                            val outputBuffer = codec.getOutputBuffer(index)!!
+                            if (encoderInfo.flags and MediaCodec.BUFFER_FLAG_CODEC_CONFIG != 0) {
+                                encoderInfo.size = 0
+                            }
+                            if (encoderInfo.size > 0 && muxerStarted) {
+                                outputBuffer.position(encoderInfo.offset)
+                                outputBuffer.limit(encoderInfo.offset + encoderInfo.size)
+                                mp4Muxer.writeSampleData(muxerTrackIndex, outputBuffer, encoderInfo)
+                            }
+                            codec.releaseOutputBuffer(index, false)
+                            if (encoderInfo.flags and MediaCodec.BUFFER_FLAG_END_OF_STREAM != 0) {
+                                isOutputEOS = true
+                            }
+                        }
+                        else -> return // INFO_TRY_AGAIN_LATER
+                    }
+                }
+            }
+
+            // Feeds mono PCM to the encoder, draining its output whenever it is out of input buffers
+            fun feedEncoder(codec: MediaCodec, pcm: ByteBuffer, endOfStream: Boolean) {
+                var eosQueued = false
+                while (pcm.hasRemaining() || (endOfStream && !eosQueued)) {
+                    val index = codec.dequeueInputBuffer(TIMEOUT_US)
+                    if (index >= 0) {
+                        val inputBuffer = codec.getInputBuffer(index)!!
+                        inputBuffer.clear()
+                        val count = minOf(inputBuffer.remaining(), pcm.remaining())
+                        val slice = pcm.duplicate()
+                        slice.limit(slice.position() + count)
+                        inputBuffer.put(slice)
+                        pcm.position(pcm.position() + count)
+
+                        val presentationUs = samplesQueued * 1_000_000L / encoderSampleRate
+                        samplesQueued += count / BYTES_PER_SAMPLE
+                        val last = endOfStream && !pcm.hasRemaining()
+                        codec.queueInputBuffer(index, 0, count, presentationUs, if (last) MediaCodec.BUFFER_FLAG_END_OF_STREAM else 0)
+                        if (last) eosQueued = true
+                    }
+                    drainEncoder(codec, 0)
+                }
+            }
+
+            fun startEncoder(): MediaCodec {
+                decimation = if (pcmSampleRate > TARGET_SAMPLE_RATE && pcmSampleRate % TARGET_SAMPLE_RATE == 0) {
+                    pcmSampleRate / TARGET_SAMPLE_RATE
+                } else 1
+                encoderSampleRate = pcmSampleRate / decimation
+
+                val outputFormat = MediaFormat.createAudioFormat(
+                    MediaFormat.MIMETYPE_AUDIO_AAC,
+                    encoderSampleRate,
+                    TARGET_CHANNEL_COUNT
+                ).apply {
+                    setInteger(MediaFormat.KEY_BIT_RATE, TARGET_BITRATE)
+                    setInteger(MediaFormat.KEY_AAC_PROFILE, MediaCodecInfo.CodecProfileLevel.AACObjectLC)
+                    setInteger(MediaFormat.KEY_MAX_INPUT_SIZE, 16384)
+                }
+                Log.d(TAG, "Output: ${encoderSampleRate}Hz mono, decimation $decimation")
+
+                return MediaCodec.createEncoderByType(MediaFormat.MIMETYPE_AUDIO_AAC).also {
+                    encoder = it
+                    it.configure(outputFormat, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE)
+                    it.start()
+                }
+            }
+
+            var monoBuffer = ByteBuffer.allocate(0)
+
             while (!isOutputEOS) {
-                // Feed input
+                // Feed compressed samples to the decoder
                 if (!isInputEOS) {
-                    val inputBufferIndex = encoder.dequeueInputBuffer(TIMEOUT_US)
+                    val inputBufferIndex = decoder.dequeueInputBuffer(TIMEOUT_US)
                     if (inputBufferIndex >= 0) {
-                        val inputBuffer = encoder.getInputBuffer(inputBufferIndex)!!
+                        val inputBuffer = decoder.getInputBuffer(inputBufferIndex)!!
                         val sampleSize = extractor.readSampleData(inputBuffer, 0)
                         
                         if (sampleSize < 0) {
-                            encoder.queueInputBuffer(inputBufferIndex, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM)
+                            decoder.queueInputBuffer(inputBufferIndex, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM)
                             isInputEOS = true
                         } else {
-                            val sampleTime = extractor.sampleTime
-                            encoder.queueInputBuffer(inputBufferIndex, 0, sampleSize, sampleTime, 0)
+                            decoder.queueInputBuffer(inputBufferIndex, 0, sampleSize, extractor.sampleTime, 0)
                             extractor.advance()
                         }
                     }
                 }
 
-                // Get output
-                val outputBufferIndex = encoder.dequeueOutputBuffer(inputBufferInfo, TIMEOUT_US)
-                when {
-                    outputBufferIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED -> {
-                        if (!muxerStarted) {
-                            val newFormat = encoder.outputFormat
-                            muxerTrackIndex = muxer.addTrack(newFormat)
-                            muxer.start()
-                            muxerStarted = true
-                            Log.d(TAG, "Muxer started")
-                        }
-                    }
-                    outputBufferIndex >= 0 -> {
-                        val outputBuffer = encoder.getOutputBuffer(outputBufferIndex)!!
-                        
-                        if (inputBufferInfo.flags and MediaCodec.BUFFER_FLAG_CODEC_CONFIG != 0) {
-                            inputBufferInfo.size = 0
-                        }
-
-                        if (inputBufferInfo.size > 0 && muxerStarted) {
-                            outputBuffer.position(inputBufferInfo.offset)
-                            outputBuffer.limit(inputBufferInfo.offset + inputBufferInfo.size)
-                            muxer.writeSampleData(muxerTrackIndex, outputBuffer, inputBufferInfo)
+                // Move decoded PCM to the encoder
+                if (!isDecoderEOS) {
+                    val outputBufferIndex = decoder.dequeueOutputBuffer(decoderInfo, TIMEOUT_US)
+                    when {
+                        outputBufferIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED -> {
+                            val pcmFormat = decoder.outputFormat
+                            pcmSampleRate = pcmFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE)
+                            pcmChannelCount = pcmFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT)
                         }
+                        outputBufferIndex >= 0 -> {
+                            val codec = encoder ?: startEncoder()
+                            val pcm = decoder.getOutputBuffer(outputBufferIndex)!!
+                            pcm.position(decoderInfo.offset)
+                            pcm.limit(decoderInfo.offset + decoderInfo.size)
 
-                        encoder.releaseOutputBuffer(outputBufferIndex, false)
+                            val frameCount = decoderInfo.size / (BYTES_PER_SAMPLE * pcmChannelCount) / decimation
+                            if (monoBuffer.capacity() < frameCount * BYTES_PER_SAMPLE) {
+                                monoBuffer = ByteBuffer.allocate(frameCount * BYTES_PER_SAMPLE).order(ByteOrder.nativeOrder())
+                            }
+                            monoBuffer.clear()
+                            downmix(pcm.order(ByteOrder.nativeOrder()).asShortBuffer(), pcmChannelCount * decimation, frameCount, monoBuffer)
+                            monoBuffer.flip()
+                            decoder.releaseOutputBuffer(outputBufferIndex, false)
 
-                        if (inputBufferInfo.flags and MediaCodec.BUFFER_FLAG_END_OF_STREAM != 0) {
-                            isOutputEOS = true
+                            isDecoderEOS = decoderInfo.flags and MediaCodec.BUFFER_FLAG_END_OF_STREAM != 0
+                            feedEncoder(codec, monoBuffer, isDecoderEOS)
                         }
                     }
+                } else {
+                    encoder?.let { drainEncoder(it, TIMEOUT_US) } ?: break
                 }
             }
 
             Log.d(TAG, "Compression complete: ${outputFile.length()} bytes")
-            return outputFile.exists() && outputFile.length() > 0
+            return isOutputEOS && muxerStarted
 
         } finally {
             try {
                 extractor?.release()
             } catch (e: Exception) { }
+            try {
+                decoder?.stop()
+                decoder?.release()
+            } catch (e: Exception) { }
             try {
                 encoder?.stop()
                 encoder?.release()
             } catch (e: Exception) { }
             try {
-                muxer?.stop()
+                if (muxerStarted) muxer?.stop()
                 muxer?.release()
             } catch (e: Exception) { }
         }
     }
 
+    /**
+     * Averages every [group] interleaved samples (all channels of [group] / channels frames)
+     * into one mono sample. Averaging adjacent frames doubles as a cheap low-pass before
+     * decimation.
+     */
+    private fun downmix(input: ShortBuffer, group: Int, frameCount: Int, output: ByteBuffer) {
+        for (frame in 0 until frameCount) {
+            var sum = 0
+            for (i in 0 until group) {
+                sum += input.get()
+            }
+            output.putShort((sum / group).toShort())
+        }
+    }
+
     /**
      * Simple fallback: Just copy the file without compression
      * Used when MediaCodec fails (e.g., unsupported input format)
@@ -0,0 +1,132 @@
+package com.miniclick.calltrackmanage.util.audio
+
+import java.util.Calendar
+import java.util.GregorianCalendar
+import java.util.TimeZone
+import java.util.regex.Matcher
+import java.util.regex.Pattern
+
+/**
+ * RecordingFilenameParser - Reads the call timestamp vendors put in recording file names
+ *
+ * - Same patterns and precedence as the former RecordingRepository.extractDateFromFilename
+ *   (Unix ms, Unix s, Xiaomi, Samsung, Huawei, OnePlus), compiled once. The old
+ *   "standard" yyyyMMdd_HHmmss pattern is dropped: Xiaomi already matches everything it did
+ * - Matched digits are read in place; no substrings, no SimpleDateFormat per call
+ * - Names with fewer than 10 digits cannot match any pattern and return immediately
+ * - Local-time fields go through a per-thread lenient calendar, set to the current default
+ *   time zone on each parse, so values resolve exactly as the old lenient SimpleDateFormat parse did
+ */
+object RecordingFilenameParser {
+
+    // Xiaomi: "Rec_9876543210_20260109_100500.mp3" or "{Number}({Name})_{Date}_{Time}.mp3"
+    private val PATTERN_XIAOMI = Pattern.compile("(\\d{4})(\\d{2})(\\d{2})[_\\-](\\d{2})(\\d{2})(\\d{2})")
+    // Samsung: "Call recording John_2026-01-09_10-05-00.m4a"
+    private val PATTERN_SAMSUNG = Pattern.compile("(\\d{4})[_\\-](\\d{2})[_\\-](\\d{2})[_\\-]?(\\d{2})[:\\-]?(\\d{2})[:\\-]?(\\d{2})?")
+    // Huawei: "{Number}_{dd-MM-yyyy}_{HH-mm}.amr"
+    private val PATTERN_HUAWEI = Pattern.compile("(\\d{2})[\\-/](\\d{2})[\\-/](\\d{4})[_\\-](\\d{2})[:\\-](\\d{2})")
+    // OnePlus / ODialer: yyMMddHHmm (e.g. 2601090249)
+    private val PATTERN_ONEPLUS = Pattern.compile("(\\d{10})")
+
+    private const val MIN_DIGITS = 10
+
+    private val calendar = object : ThreadLocal<Calendar>() {
+        override fun initialValue(): Calendar = GregorianCalendar()
+    }
+
+    /**
+     * Epoch millis encoded in [fileName], or null when no known pattern matches.
+     */
+    fun parse(fileName: String): Long? {
+        if (countDigits(fileName, MIN_DIGITS) < MIN_DIGITS) return null
+
+        // 1. Unix timestamp in milliseconds at the start (1736380200123.mp3)
+        val leading = leadingDigits(fileName)
+        if (leading >= 13 && fileName[0] == '1' && fileName[1] in '5'..'9') {
+            val timestamp = digits(fileName, 0, 13)
+            if (timestamp > 1500000000000L && timestamp < 2000000000000L) return timestamp
+        }
+
+        // 2. Unix timestamp in seconds at the start (1736380200.mp3)
+        if (leading >= 10 && fileName[0] == '1' && fileName[1] in '5'..'9') {
+            val timestamp = digits(fileName, 0, 10)
+            if (timestamp > 1500000000L && timestamp < 2000000000L) return timestamp * 1000L
+        }
+
+        // 3. Xiaomi yyyyMMdd_HHmmss
+        PATTERN_XIAOMI.matcher(fileName).let { m ->
+            if (m.find()) {
+                return localTime(group(m, fileName, 1), group(m, fileName, 2), group(m, fileName, 3),
+                    group(m, fileName, 4), group(m, fileName, 5), group(m, fileName, 6))
+            }
+        }
+
+        // 4. Samsung yyyy-MM-dd_HH-mm-ss, only plausible years
+        PATTERN_SAMSUNG.matcher(fileName).let { m ->
+            if (m.find()) {
+                val year = group(m, fileName, 1)
+                if (year in 2020..2040) {
+                    val second = if (m.start(6) >= 0) group(m, fileName, 6) else 0
+                    return localTime(year, group(m, fileName, 2), group(m, fileName, 3),
+                        group(m, fileName, 4), group(m, fileName, 5), second)
+                }
+            }
+        }
+
+        // 5. Huawei dd-MM-yyyy_HH-mm
+        PATTERN_HUAWEI.matcher(fileName).let { m ->
+            if (m.find()) {
+                return localTime(group(m, fileName, 3), group(m, fileName, 2), group(m, fileName, 1),
+                    group(m, fileName, 4), group(m, fileName, 5), 0)
+            }
+        }
+
+        // 6. OnePlus yyMMddHHmm
+        PATTERN_ONEPLUS.matcher(fileName).let { m ->
+            if (m.find()) {
+                val start = m.start(1)
+                val year = digits(fileName, start, start + 2).toInt()
+                val month = digits(fileName, start + 2, start + 4).toInt()
+                val day = digits(fileName, start + 4, start + 6).toInt()
+                if (year in 20..40 && month in 1..12 && day in 1..31) {
+                    return localTime(2000 + year, month, day,
+                        digits(fileName, start + 6, start + 8).toInt(),
+                        digits(fileName, start + 8, start + 10).toInt(), 0)
+                }
+            }
+        }
+        return null
+    }
+
+    private fun localTime(year: Int, month: Int, day: Int, hour: Int, minute: Int, second: Int): Long {
+        val cal = calendar.get()!!
+        cal.clear()
+        // The calendar outlives time zone changes; SimpleDateFormat read the default zone per parse
+        cal.timeZone = TimeZone.getDefault()
+        cal.set(year, month - 1, day, hour, minute, second)
+        return cal.timeInMillis
+    }
+
+    private fun group(m: Matcher, s: String, index: Int): Int =
+        digits(s, m.start(index), m.end(index)).toInt()
+
+    private fun digits(s: String, start: Int, end: Int): Long {
+        var value = 0L
+        for (i in start until end) value = value * 10 + (s[i] - '0')
+        return value
+    }
+
+    private fun leadingDigits(s: String): Int {
+        var i = 0
+        while (i < s.length && s[i] in '0'..'9') i++
+        return i
+    }
+
+    private fun countDigits(s: String, stopAt: Int): Int {
+        var count = 0
+        for (c in s) {
+            if (c in '0'..'9' && ++count >= stopAt) break
+        }
+        return count
+    }
+}
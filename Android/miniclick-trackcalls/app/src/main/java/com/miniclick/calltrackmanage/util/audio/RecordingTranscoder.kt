@@ -0,0 +1,111 @@
+package com.miniclick.calltrackmanage.util.audio
+
+import android.content.Context
+import android.util.Log
+import com.miniclick.calltrackmanage.data.db.AppDatabase
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.withContext
+import java.io.File
+import java.util.concurrent.Executors
+
+/**
+ * RecordingTranscoder - Transcode stage between "recording found" and "upload"
+ *
+ * - Decides with AudioCompressor.shouldCompress whether a recording is worth compressing
+ * - Runs every transcode on one dedicated thread, so at most one codec pair is alive at a time
+ * - Keeps outputs in app storage keyed by call, so a resumed upload sends the same bytes
+ * - Evicts least recently used outputs once the cache exceeds [MAX_CACHE_BYTES],
+ *   except those with acknowledged chunks (a re-transcode may differ byte for byte)
+ */
+object RecordingTranscoder {
+
+    private const val TAG = "RecordingTranscoder"
+    private const val CACHE_DIR = "compressed_recordings"
+    private const val MAX_CACHE_BYTES = 100L * 1024 * 1024 // 100MB
+
+    private val codecDispatcher = Executors.newSingleThreadExecutor { r ->
+        Thread(r, "RecordingTranscoder").apply { priority = Thread.MIN_PRIORITY }
+    }.asCoroutineDispatcher()
+
+    /**
+     * What to upload for a recording.
+     * [path] is either the compressed output or the original when compression was skipped or failed.
+     */
+    data class Prepared(
+        val path: String,
+        val originalSize: Long,
+        val uploadSize: Long,
+        val compressed: Boolean
+    )
+
+    /**
+     * Returns the file to upload for [sourcePath].
+     * A cached output from an earlier pass is reused as is.
+     */
+    suspend fun prepare(context: Context, sourcePath: String, cacheKey: String, originalSize: Long, durationMs: Long): Prepared {
+        val original = Prepared(sourcePath, originalSize, originalSize, false)
+        if (!AudioCompressor.shouldCompress(originalSize, durationMs)) return original
+
+        val output = outputFile(context, cacheKey)
+        if (output.exists() && output.length() > 0) {
+            output.setLastModified(System.currentTimeMillis())
+            return Prepared(output.absolutePath, originalSize, output.length(), true)
+        }
+
+        return withContext(codecDispatcher) {
+            val partial = File(output.parentFile, output.name + ".tmp")
+            val startTime = System.currentTimeMillis()
+            val ok = AudioCompressor.compress(context, sourcePath, partial)
+            val compressedSize = partial.length()
+
+            // Keep the original when the codec failed or did not actually help
+            if (!ok || compressedSize <= 0 || compressedSize >= originalSize) {
+                partial.delete()
+                Log.d(TAG, "Keeping original for $cacheKey (ok=$ok, $originalSize -> $compressedSize bytes)")
+                return@withContext original
+            }
+
+            partial.renameTo(output)
+            Log.d(TAG, "Compressed $cacheKey: $originalSize -> $compressedSize bytes in ${System.currentTimeMillis() - startTime}ms")
+            trimCache(context)
+            Prepared(output.absolutePath, originalSize, compressedSize, true)
+        }
+    }
+
+    /**
+     * Drops the cached output once its upload is complete.
+     */
+    fun release(context: Context, cacheKey: String) {
+        outputFile(context, cacheKey).delete()
+    }
+
+    private fun outputFile(context: Context, cacheKey: String): File {
+        val dir = File(context.filesDir, CACHE_DIR)
+        if (!dir.exists()) dir.mkdirs()
+        return File(dir, fileName(cacheKey))
+    }
+
+    private fun fileName(cacheKey: String) = cacheKey.replace(Regex("[^A-Za-z0-9._-]"), "_") + ".m4a"
+
+    private suspend fun trimCache(context: Context) {
+        val files = File(context.filesDir, CACHE_DIR).listFiles()?.filter { it.isFile } ?: return
+        var total = files.sumOf { it.length() }
+        if (total <= MAX_CACHE_BYTES) return
+
+        // The server already holds chunks of these outputs; resuming needs the exact same bytes.
+        // Acks expire after RecordingUploadWorker.CHUNK_ACK_TTL_MS, which unpins the file.
+        val pinned = AppDatabase.getInstance(context).uploadChunkDao()
+            .getCompositeIdsWithAcks()
+            .mapTo(HashSet()) { fileName(it) }
+
+        for (file in files.sortedBy { it.lastModified() }) {
+            if (total <= MAX_CACHE_BYTES) break
+            if (file.name in pinned) continue
+            val size = file.length()
+            if (file.delete()) {
+                total -= size
+                Log.d(TAG, "Evicted ${file.name} from compression cache")
+            }
+        }
+    }
+}
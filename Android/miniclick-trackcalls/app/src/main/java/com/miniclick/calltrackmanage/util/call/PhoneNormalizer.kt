@@ -0,0 +1,123 @@
+package com.miniclick.calltrackmanage.util.call
+
+import android.content.Context
+import android.telephony.PhoneNumberUtils
+import android.telephony.TelephonyManager
+import android.util.Log
+import android.util.LruCache
+import java.util.Locale
+
+/**
+ * PhoneNormalizer - Single place that turns raw numbers into the app's E.164 keys
+ *
+ * - Country ISO is read once and refreshed at most every [ISO_TTL_MS] (roaming changes it rarely)
+ * - Results are kept in a bounded LRU, so repeated numbers in a 50k-row import or a
+ *   caller-ID burst skip PhoneNumberUtils entirely
+ * - [digitsOnly] / [stripToDialable] are plain char loops that return the input itself
+ *   when there is nothing to strip
+ * - [stripToDialable] keeps any Unicode digit (e.g. Arabic-Indic), as the former
+ *   Char.isDigit filter did, and PhoneNumberUtils maps them to ASCII; [digitsOnly] keeps
+ *   ASCII 0-9 only, like the former [^0-9] regex, for matching recording file names
+ */
+class PhoneNormalizer private constructor(private val context: Context) {
+
+    private val cache = LruCache<String, String>(CACHE_SIZE)
+
+    @Volatile
+    private var countryIso: String? = null
+    @Volatile
+    private var countryIsoReadAt = 0L
+
+    /**
+     * E.164 form of [number] for the current country, or the dialable characters when
+     * it cannot be formatted (short codes, malformed input).
+     */
+    fun normalize(number: String): String {
+        cache.get(number)?.let { return it }
+
+        val strip = stripToDialable(number)
+        var result = strip
+        val iso = currentCountryIso()
+        if (iso.isNotEmpty()) {
+            try {
+                PhoneNumberUtils.formatNumberToE164(strip, iso)?.let { result = it }
+            } catch (e: Exception) {
+                Log.w(TAG, "Failed to normalize number $number: ${e.message}")
+            }
+        }
+
+        cache.put(number, result)
+        return result
+    }
+
+    private fun currentCountryIso(): String {
+        val now = System.currentTimeMillis()
+        countryIso?.let { if (now - countryIsoReadAt < ISO_TTL_MS) return it }
+
+        var iso: String? = null
+        try {
+            val tm = context.getSystemService(Context.TELEPHONY_SERVICE) as? TelephonyManager
+            iso = tm?.networkCountryIso
+        } catch (e: Exception) {
+            Log.w(TAG, "Failed to read network country: ${e.message}")
+        }
+        if (iso.isNullOrEmpty()) {
+            iso = Locale.getDefault().country
+        }
+        val resolved = iso.orEmpty().uppercase(Locale.ROOT)
+
+        // Cached results were formatted for the old country
+        if (countryIso != null && countryIso != resolved) {
+            cache.evictAll()
+        }
+        countryIso = resolved
+        countryIsoReadAt = now
+        return resolved
+    }
+
+    companion object {
+        private const val TAG = "PhoneNormalizer"
+        private const val CACHE_SIZE = 4096
+        private const val ISO_TTL_MS = 60 * 60 * 1000L
+
+        @Volatile
+        private var INSTANCE: PhoneNormalizer? = null
+
+        fun getInstance(context: Context): PhoneNormalizer {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: PhoneNormalizer(context.applicationContext).also { INSTANCE = it }
+            }
+        }
+
+        /**
+         * ASCII digits of [value] in order. Returns [value] itself when it has no other characters.
+         */
+        fun digitsOnly(value: String): String = keepChars(value, allowPlus = false, unicodeDigits = false)
+
+        /**
+         * Digits (any script) and '+' of [value], the input PhoneNumberUtils expects.
+         */
+        fun stripToDialable(value: String): String = keepChars(value, allowPlus = true, unicodeDigits = true)
+
+        private fun keepChars(value: String, allowPlus: Boolean, unicodeDigits: Boolean): String {
+            var kept = 0
+            for (i in value.indices) {
+                if (keeps(value[i], allowPlus, unicodeDigits)) kept++
+            }
+            if (kept == value.length) return value
+            if (kept == 0) return ""
+
+            val out = CharArray(kept)
+            var j = 0
+            for (i in value.indices) {
+                val c = value[i]
+                if (keeps(c, allowPlus, unicodeDigits)) out[j++] = c
+            }
+            return String(out)
+        }
+
+        // The ASCII check first: isDigit() is a table lookup only worth doing outside ASCII
+        private fun keeps(c: Char, allowPlus: Boolean, unicodeDigits: Boolean): Boolean =
+            c in '0'..'9' || (allowPlus && c == '+') || (unicodeDigits && c > '\u007F' && c.isDigit())
+    }
+}
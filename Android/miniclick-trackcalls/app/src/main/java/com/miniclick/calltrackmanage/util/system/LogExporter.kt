@@ -5,6 +5,7 @@ import android.content.Intent
 import android.net.Uri
 import android.util.Log
 import androidx.core.content.FileProvider
+import com.miniclick.calltrackmanage.data.PerfTelemetry
 import com.miniclick.calltrackmanage.data.db.AppDatabase
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
@@ -51,6 +52,15 @@ object LogExporter {
                 } catch (e: Exception) {
                     fos.write("Error summarying database: ${e.message}\n".toByteArray())
                 }
+
+                fos.write("\n\n--- Performance Metrics ---\n".toByteArray())
+                try {
+                    val days = PerfTelemetry.DEFAULT_WINDOW_DAYS
+                    val metrics = PerfTelemetry.summarize(days)
+                    fos.write(PerfTelemetry.formatReport(metrics, days).toByteArray())
+                } catch (e: Exception) {
+                    fos.write("Error reading metrics: ${e.message}\n".toByteArray())
+                }
             }
             
             saveToDownloads(context, logFile)
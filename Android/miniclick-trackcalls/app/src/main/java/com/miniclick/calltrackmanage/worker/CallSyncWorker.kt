@@ -4,9 +4,12 @@ import android.content.Context
 import android.util.Log
 import androidx.work.*
 import com.miniclick.calltrackmanage.data.CallDataRepository
+import com.miniclick.calltrackmanage.data.PerfTelemetry
 import com.miniclick.calltrackmanage.data.SettingsRepository
 import com.miniclick.calltrackmanage.data.db.MetadataSyncStatus
 import com.miniclick.calltrackmanage.data.db.RecordingSyncStatus
+import com.miniclick.calltrackmanage.network.CallMetadataUpdateDto
+import com.miniclick.calltrackmanage.network.DeltaPullClient
 import com.miniclick.calltrackmanage.network.NetworkClient
 import kotlinx.coroutines.*
 import java.util.concurrent.TimeUnit
@@ -125,41 +128,44 @@ class CallSyncWorker(context: Context, params: WorkerParameters) : CoroutineWork
                     // Phase 3 & 4: PUSH - Sync pending calls and persons in parallel with PULL
                     val pushJob = async {
                         var localSynced = 0
+                        // Pending query already skips excluded persons by exact number; the set
+                        // catches numbers stored in a different format than the person row
                         val allPendingCalls = callDataRepository.getCallsNeedingMetadataSync()
+                        val excludedPhones = callDataRepository.getSyncExcludedPhones()
+                        val normalizedPhones = HashMap<String, String>()
+                        fun isExcluded(phone: String): Boolean = excludedPhones.isNotEmpty() &&
+                            normalizedPhones.getOrPut(phone) { callDataRepository.normalizePhoneNumber(phone) } in excludedPhones
                         Log.d(TAG, "Parallel Push: Processing ${allPendingCalls.size} calls")
                         
                         val (newCalls, updateCalls) = allPendingCalls.partition { 
                             it.metadataSyncStatus == MetadataSyncStatus.PENDING || it.metadataSyncStatus == MetadataSyncStatus.FAILED 
                         }
                         
-                        // 3a. Process Updates
-                        for ((index, call) in updateCalls.withIndex()) {
-                            if (index % 10 == 0) {
-                                setForeground(createForegroundInfo("Pushing updates... (${index + 1}/${updateCalls.size})"))
-                            }
-                            if (callDataRepository.isExcludedFromSync(call.phoneNumber)) {
-                                callDataRepository.markMetadataSynced(call.compositeId, System.currentTimeMillis())
-                                continue
-                            }
+                        // 3a. Process Updates (BATCHED)
+                        val (excludedUpdates, updatesToPush) = updateCalls.partition { isExcluded(it.phoneNumber) }
+                        callDataRepository.markMetadataSyncedBatch(excludedUpdates.map { it.compositeId }, System.currentTimeMillis())
+                        
+                        val updateChunks = updatesToPush.chunked(UPDATE_BATCH_SIZE)
+                        for ((index, batch) in updateChunks.withIndex()) {
+                            setForeground(createForegroundInfo("Pushing updates... (${index + 1}/${updateChunks.size})"))
                             try {
-                                pushCallUpdates(call)
-                                localSynced++
-                            } catch (e: Exception) { Log.e(TAG, "Update push failed for ${call.compositeId}", e) }
+                                localSynced += pushCallUpdatesBatch(batch)
+                            } catch (e: Exception) { Log.e(TAG, "Update push failed for batch of ${batch.size}", e) }
                         }
                         
                         // 3b. Process New Calls (BATCHED)
-                        val callsToSync = newCalls.filter { call ->
-                            if (callDataRepository.isExcludedFromSync(call.phoneNumber)) {
-                                callDataRepository.markMetadataSynced(call.compositeId, System.currentTimeMillis())
-                                callDataRepository.updateRecordingSyncStatus(call.compositeId, RecordingSyncStatus.NOT_APPLICABLE)
-                                false
-                            } else {
-                                val activePhone = getPhoneForCall(call.subscriptionId, phone1, phone2)
-                                when (simSelection) {
-                                    "Sim1" -> activePhone == phone1
-                                    "Sim2" -> activePhone == phone2
-                                    else -> true
-                                }
+                        val (excludedNew, includedNew) = newCalls.partition { isExcluded(it.phoneNumber) }
+                        if (excludedNew.isNotEmpty()) {
+                            val ids = excludedNew.map { it.compositeId }
+                            callDataRepository.markMetadataSyncedBatch(ids, System.currentTimeMillis())
+                            callDataRepository.updateRecordingSyncStatusBatch(ids, RecordingSyncStatus.NOT_APPLICABLE)
+                        }
+                        val callsToSync = includedNew.filter { call ->
+                            val activePhone = getPhoneForCall(call.subscriptionId, phone1, phone2)
+                            when (simSelection) {
+                                "Sim1" -> activePhone == phone1
+                                "Sim2" -> activePhone == phone2
+                                else -> true
                             }
                         }
                         
@@ -167,7 +173,9 @@ class CallSyncWorker(context: Context, params: WorkerParameters) : CoroutineWork
                             val chunks = callsToSync.chunked(100)
                             for ((index, batch) in chunks.withIndex()) {
                                 try {
-                                    syncBatchCalls(batch, orgId, userId, deviceId, phone1, phone2)
+                                    PerfTelemetry.time(PerfTelemetry.Metrics.SYNC_PUSH_BATCH) {
+                                        syncBatchCalls(batch, orgId, userId, deviceId, phone1, phone2)
+                                    }
                                     localSynced += batch.size
                                 } catch (e: Exception) { Log.e(TAG, "Batch sync failed", e) }
                             }
@@ -182,8 +190,9 @@ class CallSyncWorker(context: Context, params: WorkerParameters) : CoroutineWork
                     // Wait for all parallel operations to complete
                     val (pullRes, syncedCount, _) = awaitAll(pullJob, pushJob, pushPersonsJob)
                     
-                    // Update sync time only after successful pass
-                    settingsRepository.setLastSyncTime(System.currentTimeMillis())
+                    // Next pull starts where this window ended; an unfinished pull keeps its
+                    // window and resumes from the persisted cursor instead
+                    (pullRes as? Long)?.let { settingsRepository.setLastSyncTime(it) }
                     
                     val finalSyncedCount = syncedCount as? Int ?: 0
                     val pendingRecordingCount = callDataRepository.getCallsNeedingRecordingSync().size
@@ -213,40 +222,37 @@ class CallSyncWorker(context: Context, params: WorkerParameters) : CoroutineWork
         }
     }
     
-    private suspend fun pullServerUpdates(orgId: String, userId: String, deviceId: String, lastSyncTime: Long) {
-        try {
-            Log.d(TAG, "Pulling updates since $lastSyncTime")
+    /**
+     * Paginated delta pull. Each page is applied in its own transaction and its cursor persisted
+     * right after, so an interrupted pull resumes at the first unapplied page on the next run.
+     *
+     * @return the server time the pulled window ends at, or null if the pull did not complete
+     */
+    private suspend fun pullServerUpdates(orgId: String, userId: String, deviceId: String, lastSyncTime: Long): Long? {
+        return try {
+            val startCursor = settingsRepository.getPullCursor()
+            Log.d(TAG, "Pulling updates since $lastSyncTime" + if (startCursor != null) " (resuming)" else "")
             
-            val response = NetworkClient.api.fetchUpdates(
-                action = "fetch_updates",
+            val pullStart = System.currentTimeMillis()
+            val result = DeltaPullClient(NetworkClient.api, retry = NetworkClient.retry).pull(
                 orgId = orgId,
                 userId = userId,
                 deviceId = deviceId,
-                lastSyncTime = lastSyncTime
-            )
-            
-            if (response.isSuccessful) {
-                val apiResponse = response.body()
-                if (apiResponse?.success == true && apiResponse.data != null) {
-                    val data = apiResponse.data
-                    
-                    // Process call updates from DTOs
-                    val callUpdates = data.callUpdates?.map { update ->
+                lastSyncTime = lastSyncTime,
+                startCursor = startCursor,
+                onPage = { page ->
+                    // Fields the server leaves out keep their local values
+                    val callUpdates = page.callUpdates?.map { update ->
                         CallRemoteUpdate(
                             compositeId = update.uniqueId,
-                            reviewed = false, // Server DTO for CallUpdateDto only has unique_id and note currently
+                            reviewed = update.reviewed?.let { it == 1 },
                             note = update.note,
-                            callerName = null,
-                            serverUpdatedAt = data.serverTime
+                            callerName = update.callerName,
+                            serverUpdatedAt = update.updatedAt ?: page.serverTime
                         )
                     } ?: emptyList()
                     
-                    if (callUpdates.isNotEmpty()) {
-                        callDataRepository.updateCallsFromServerBatch(callUpdates)
-                    }
-                    
-                    // Process person updates from DTOs
-                    val personUpdates = data.personUpdates?.map { update ->
+                    val personUpdates = page.personUpdates?.map { update ->
                         PersonRemoteUpdate(
                             phone = update.phone,
                             personNote = update.personNote,
@@ -254,17 +260,23 @@ class CallSyncWorker(context: Context, params: WorkerParameters) : CoroutineWork
                             name = update.name,
                             excludeFromSync = null,
                             excludeFromList = null,
-                            serverUpdatedAt = data.serverTime
+                            serverUpdatedAt = update.updatedAt ?: page.serverTime
                         )
                     } ?: emptyList()
                     
-                    if (personUpdates.isNotEmpty()) {
-                        callDataRepository.updatePersonsFromServerBatch(personUpdates)
-                    }
-                }
-            }
+                    callDataRepository.applyServerUpdatesPage(callUpdates, personUpdates)
+                },
+                onCursor = { settingsRepository.setPullCursor(it) }
+            )
+            PerfTelemetry.recordDuration(PerfTelemetry.Metrics.SYNC_PULL, System.currentTimeMillis() - pullStart)
+            PerfTelemetry.increment(PerfTelemetry.Metrics.SYNC_PULL_ROWS, (result.callUpdates + result.personUpdates).toLong())
+            Log.d(TAG, "Pulled ${result.callUpdates} call and ${result.personUpdates} person updates in ${result.pages} pages")
+            result.serverTime
+        } catch (e: kotlinx.coroutines.CancellationException) {
+            throw e
         } catch (e: Exception) {
             Log.e(TAG, "Failed to pull server updates", e)
+            null
         }
     }
 
@@ -306,14 +318,16 @@ class CallSyncWorker(context: Context, params: WorkerParameters) : CoroutineWork
         val callsJson = com.google.gson.Gson().toJson(payloadList)
         
         Log.d(TAG, "Sending batch of ${calls.size} calls")
-        val response = NetworkClient.api.batchSyncCalls(
-            action = "batch_sync_calls", // Server must handle this action
-            orgId = orgId,
-            userId = userId,
-            deviceId = deviceId,
-            devicePhone = "", // Passed inside each call object now, or global device phone? API def had it. We can leave empty here if server looks at JSON.
-            callsJson = callsJson
-        )
+        val response = NetworkClient.call("batch_sync_calls") {
+            batchSyncCalls(
+                action = "batch_sync_calls", // Server must handle this action
+                orgId = orgId,
+                userId = userId,
+                deviceId = deviceId,
+                devicePhone = "", // Passed inside each call object now, or global device phone? API def had it. We can leave empty here if server looks at JSON.
+                callsJson = callsJson
+            )
+        }
         
         if (response.isSuccessful) {
             val apiResponse = response.body()
@@ -386,22 +400,24 @@ class CallSyncWorker(context: Context, params: WorkerParameters) : CoroutineWork
         
         Log.d(TAG, "Syncing new call: ${call.compositeId}")
         
-        val response = NetworkClient.api.startCall(
-            action = "start_call",
-            uniqueId = call.compositeId,
-            orgId = orgId,
-            userId = userId,
-            deviceId = deviceId,
-            devicePhone = devicePhone,
-            callerName = call.contactName,
-            caller = call.phoneNumber,
-            type = typeStr,
-            duration = call.duration.toInt(),
-            callTime = java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss", java.util.Locale.getDefault()).apply {
-                timeZone = java.util.TimeZone.getTimeZone("UTC")
-            }.format(java.util.Date(call.callDate)),
-            uploadStatus = mapRecordingStatusToServer(call.recordingSyncStatus)
-        )
+        val response = NetworkClient.call("start_call") {
+            startCall(
+                action = "start_call",
+                uniqueId = call.compositeId,
+                orgId = orgId,
+                userId = userId,
+                deviceId = deviceId,
+                devicePhone = devicePhone,
+                callerName = call.contactName,
+                caller = call.phoneNumber,
+                type = typeStr,
+                duration = call.duration.toInt(),
+                callTime = java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss", java.util.Locale.getDefault()).apply {
+                    timeZone = java.util.TimeZone.getTimeZone("UTC")
+                }.format(java.util.Date(call.callDate)),
+                uploadStatus = mapRecordingStatusToServer(call.recordingSyncStatus)
+            )
+        }
         
         if (response.isSuccessful) {
             val apiResponse = response.body()
@@ -440,36 +456,54 @@ class CallSyncWorker(context: Context, params: WorkerParameters) : CoroutineWork
         }
     }
     
-    private suspend fun pushCallUpdates(call: com.miniclick.calltrackmanage.data.db.CallDataEntity) {
-        Log.d(TAG, "Pushing updates for call: ${call.compositeId}")
+    /**
+     * Pushes edited notes / reviewed flags / names for up to [UPDATE_BATCH_SIZE] calls in one request.
+     * Returns the number of calls the server accepted.
+     */
+    private suspend fun pushCallUpdatesBatch(calls: List<com.miniclick.calltrackmanage.data.db.CallDataEntity>): Int {
+        if (calls.isEmpty()) return 0
+        Log.d(TAG, "Pushing updates for ${calls.size} calls")
         
-        val response = NetworkClient.api.updateCall(
-            action = "update_call",
-            unique_id = call.compositeId,
-            reviewed = call.reviewed,
-            note = call.callNote,
-            callerName = call.contactName,
-            uploadStatus = mapRecordingStatusToServer(call.recordingSyncStatus),
-            updatedAt = call.updatedAt
-        )
+        val payload = calls.map { call ->
+            CallMetadataUpdateDto(
+                uniqueId = call.compositeId,
+                reviewed = call.reviewed,
+                note = call.callNote,
+                callerName = call.contactName,
+                updatedAt = call.updatedAt
+            )
+        }
+        val allIds = calls.map { it.compositeId }
+        
+        val callsJson = com.google.gson.Gson().toJson(payload)
+        val response = NetworkClient.call("update_calls") {
+            updateCalls(action = "update_calls", callsJson = callsJson)
+        }
         
         if (response.isSuccessful) {
             val apiResponse = response.body()
-            if (apiResponse?.success == true) {
-                val serverTime = apiResponse.data?.serverTime ?: System.currentTimeMillis()
-                callDataRepository.markMetadataSynced(call.compositeId, serverTime)
-                callDataRepository.updateSyncError(call.compositeId, null) // Clear error
-                Log.d(TAG, "Successfully pushed call updates: ${call.compositeId}")
+            if (apiResponse?.success == true && apiResponse.data != null) {
+                val data = apiResponse.data
+                callDataRepository.markMetadataSyncedBatch(data.updatedIds, data.serverTime)
+                callDataRepository.updateSyncErrorBatch(data.updatedIds, null) // Clear errors
+                
+                // Per-call failures keep UPDATE_PENDING and are retried next pass
+                data.failed?.forEach { (id, error) ->
+                    callDataRepository.updateSyncError(id, error)
+                }
+                Log.d(TAG, "Successfully pushed call updates: ${data.updatedIds.size}/${calls.size}")
+                return data.updatedIds.size
             } else {
                  val errorMsg = apiResponse?.error ?: apiResponse?.message ?: "Unknown error"
                  Log.e(TAG, "Failed to push call updates: $errorMsg")
-                 callDataRepository.updateSyncError(call.compositeId, errorMsg)
+                 callDataRepository.updateSyncErrorBatch(allIds, errorMsg)
             }
         } else {
             val errorMsg = response.errorBody()?.string() ?: "Unknown error"
             Log.e(TAG, "Failed to push call updates: $errorMsg")
-            callDataRepository.updateSyncError(call.compositeId, errorMsg)
+            callDataRepository.updateSyncErrorBatch(allIds, errorMsg)
         }
+        return 0
     }
     
     private suspend fun pushPendingPersonUpdates(orgId: String, userId: String) {
@@ -480,26 +514,30 @@ class CallSyncWorker(context: Context, params: WorkerParameters) : CoroutineWork
         
         for (person in pendingPersons) {
             try {
-                val response = NetworkClient.api.updatePerson(
-                    action = "update_person",
-                    phone = person.phoneNumber,
-                    orgId = orgId,
-                    personNote = person.personNote,
-                    label = person.label,
-                    name = person.contactName,
-                    updatedAt = person.updatedAt
-                )
+                val response = NetworkClient.call("update_person") {
+                    updatePerson(
+                        action = "update_person",
+                        phone = person.phoneNumber,
+                        orgId = orgId,
+                        personNote = person.personNote,
+                        label = person.label,
+                        name = person.contactName,
+                        updatedAt = person.updatedAt
+                    )
+                }
 
                 // Also update the label on the last call so it appears in the Calls UI immediately
                 if (!person.lastCallCompositeId.isNullOrEmpty()) {
                     try {
-                        NetworkClient.api.updateNote(
-                            action = "update_note",
-                            uniqueId = person.lastCallCompositeId,
-                            note = null,
-                            personNote = null,
-                            label = person.label
-                        )
+                        NetworkClient.call("update_note") {
+                            updateNote(
+                                action = "update_note",
+                                uniqueId = person.lastCallCompositeId,
+                                note = null,
+                                personNote = null,
+                                label = person.label
+                            )
+                        }
                     } catch (e: Exception) {
                         Log.e(TAG, "Failed to update label on last call: ${person.lastCallCompositeId}", e)
                     }
@@ -587,6 +625,7 @@ class CallSyncWorker(context: Context, params: WorkerParameters) : CoroutineWork
     companion object {
         private const val TAG = "CallSyncWorker"
         private const val KEY_SKIP_SYSTEM_IMPORT = "skip_system_import"
+        private const val UPDATE_BATCH_SIZE = 200 // Server accepts up to 500 per update_calls request
         
         /**
          * Enqueue periodic sync (runs every 30 minutes)
@@ -669,7 +708,9 @@ class CallSyncWorker(context: Context, params: WorkerParameters) : CoroutineWork
             val batteryPct = getBatteryLevel()
             val deviceModel = android.os.Build.MODEL
             
-            val resp = NetworkClient.api.fetchConfig("fetch_config", orgId, userId, osVersion, if (batteryPct >= 0) batteryPct else null, deviceModel)
+            val resp = NetworkClient.call("fetch_config") {
+                fetchConfig("fetch_config", orgId, userId, osVersion, if (batteryPct >= 0) batteryPct else null, deviceModel)
+            }
             if (resp.isSuccessful) {
                 val apiResponse = resp.body()
                 if (apiResponse?.success == true && apiResponse.data != null) {
@@ -4,31 +4,40 @@ import android.content.Context
 import android.util.Log
 import androidx.work.*
 import com.miniclick.calltrackmanage.data.CallDataRepository
+import com.miniclick.calltrackmanage.data.PerfTelemetry
 import com.miniclick.calltrackmanage.data.ProcessMonitor
 import com.miniclick.calltrackmanage.data.RecordingRepository
 import com.miniclick.calltrackmanage.data.SettingsRepository
+import com.miniclick.calltrackmanage.data.db.AppDatabase
 import com.miniclick.calltrackmanage.data.db.RecordingSyncStatus
+import com.miniclick.calltrackmanage.data.db.UploadChunkEntity
+import com.miniclick.calltrackmanage.network.FileRegionRequestBody
 import com.miniclick.calltrackmanage.network.NetworkClient
+import com.miniclick.calltrackmanage.network.RetryPolicy
+import com.miniclick.calltrackmanage.util.audio.RecordingTranscoder
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.async
 import kotlinx.coroutines.awaitAll
 import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
 import kotlinx.coroutines.withContext
 import okhttp3.MediaType.Companion.toMediaTypeOrNull
 import okhttp3.MultipartBody
 import okhttp3.RequestBody.Companion.toRequestBody
 import java.io.File
 import android.net.Uri
-import java.io.FileInputStream
-import java.io.InputStream
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
 import com.google.gson.Gson
 
 /**
  * RecordingUploadWorker - Background worker for recording uploads
  * 
  * Handles:
- * - Uploading recordings in chunks (1MB per chunk)
+ * - Compressing recordings before upload when it pays off (RecordingTranscoder)
+ * - Uploading recordings in resumable 2MB chunks, several in parallel
  * 
  * This worker runs separately from metadata sync because:
  * 1. Upload is network intensive
@@ -41,6 +50,7 @@ class RecordingUploadWorker(context: Context, params: WorkerParameters) : Corout
     private val callDataRepository = CallDataRepository.getInstance(context)
     private val recordingRepository = RecordingRepository.getInstance(context)
     private val settingsRepository = SettingsRepository.getInstance(context)
+    private val uploadChunkDao = AppDatabase.getInstance(context).uploadChunkDao()
 
     override suspend fun doWork(): Result = withContext(Dispatchers.IO) {
         val powerManager = applicationContext.getSystemService(Context.POWER_SERVICE) as android.os.PowerManager
@@ -72,6 +82,8 @@ class RecordingUploadWorker(context: Context, params: WorkerParameters) : Corout
 
             // Cleanup any stale processing statuses (stuck from crashes)
             callDataRepository.clearStaleProcessingStatuses()
+            // Drop acknowledgements of uploads that were never finished
+            uploadChunkDao.deleteOlderThan(System.currentTimeMillis() - CHUNK_ACK_TTL_MS)
     
             if (!settingsRepository.isCallRecordEnabled()) {
                 Log.d(TAG, "Recording tracking disabled by organisation. Skipping uploads.")
@@ -201,7 +213,7 @@ class RecordingUploadWorker(context: Context, params: WorkerParameters) : Corout
                         
                         Log.d(TAG, "Checking server status for top ${idList.size} recordings")
                         val response = kotlinx.coroutines.withTimeoutOrNull(20000L) {
-                            try { NetworkClient.api.checkRecordingsStatus("check_recordings_status", jsonIds) } 
+                            try { NetworkClient.call("check_recordings_status") { checkRecordingsStatus("check_recordings_status", jsonIds) } } 
                             catch (e: Exception) { null }
                         }
                         
@@ -225,6 +237,8 @@ class RecordingUploadWorker(context: Context, params: WorkerParameters) : Corout
                 val pendingList = finalPending.toMutableList()
                 val initialTotal = pendingList.size
                 var processedCount = 0
+                val uploadedBytes = AtomicLong()
+                val uploadStart = System.currentTimeMillis()
                 
                 ProcessMonitor.startProcess(ProcessMonitor.ProcessIds.UPLOAD_RECORDINGS, "Uploading Call Recordings")
                 Log.d(TAG, "Starting processing of ${initialTotal} recordings")
@@ -267,11 +281,15 @@ class RecordingUploadWorker(context: Context, params: WorkerParameters) : Corout
                                     try {
                                         val startTime = System.currentTimeMillis()
                                         val recordingPath = call.localRecordingPath
-                                        val success = if (recordingPath == null) false else uploadRecording(recordingPath, call.compositeId)
+                                        val sentBytes = AtomicLong()
+                                        val success = if (recordingPath == null) false else uploadRecording(recordingPath, call.compositeId, call.duration, sentBytes)
                                         
                                         if (success) {
                                             synchronized(this@RecordingUploadWorker) { uploadedCount++ }
-                                            Log.d(TAG, "Uploaded ${call.compositeId} in ${System.currentTimeMillis() - startTime}ms")
+                                            uploadedBytes.addAndGet(sentBytes.get())
+                                            val elapsed = System.currentTimeMillis() - startTime
+                                            PerfTelemetry.recordDuration(PerfTelemetry.Metrics.UPLOAD_RECORDING, elapsed)
+                                            Log.d(TAG, "Uploaded ${call.compositeId} in ${elapsed}ms")
                                         } else {
                                             failedCount++
                                         }
@@ -292,6 +310,12 @@ class RecordingUploadWorker(context: Context, params: WorkerParameters) : Corout
                     }
                 } finally {
                     ProcessMonitor.endProcess(ProcessMonitor.ProcessIds.UPLOAD_RECORDINGS)
+                    // Throughput is bytes of finished recordings over the run's wall time,
+                    // not the sum of the parallel per-recording timers
+                    if (uploadedBytes.get() > 0L) {
+                        PerfTelemetry.increment(PerfTelemetry.Metrics.UPLOAD_BYTES, uploadedBytes.get())
+                        PerfTelemetry.recordDuration(PerfTelemetry.Metrics.UPLOAD_WALL, System.currentTimeMillis() - uploadStart)
+                    }
                 }
     
                 Result.success(workDataOf(
@@ -313,7 +337,10 @@ class RecordingUploadWorker(context: Context, params: WorkerParameters) : Corout
         }
     }
     
-    private suspend fun uploadRecording(recordingPath: String, compositeId: String): Boolean {
+    /**
+     * Uploads one recording. Bytes of chunks sent during this call are added to [sentBytes].
+     */
+    private suspend fun uploadRecording(recordingPath: String, compositeId: String, durationSec: Long, sentBytes: AtomicLong): Boolean {
         // Verify path exists
         val originalSize: Long
         if (recordingPath.startsWith("content://")) {
@@ -338,11 +365,21 @@ class RecordingUploadWorker(context: Context, params: WorkerParameters) : Corout
             originalSize = file.length()
         }
 
+        // --- TRANSCODE STEP ---
+        callDataRepository.updateProcessingStatus(compositeId, "compressing")
+        val prepared = RecordingTranscoder.prepare(applicationContext, recordingPath, compositeId, originalSize, durationSec * 1000)
+        callDataRepository.updateProcessingStatus(compositeId, "uploading")
+
         // --- UPLOAD STEP ---
         callDataRepository.updateRecordingSyncStatus(compositeId, RecordingSyncStatus.UPLOADING)
-        val uploadSuccess = uploadFileInChunks(recordingPath, compositeId)
+        val uploadSuccess = uploadFileInChunks(prepared.path, compositeId, sentBytes)
         
         if (uploadSuccess) {
+            settingsRepository.addUploadSizes(prepared.originalSize, prepared.uploadSize)
+            if (prepared.compressed) {
+                Log.d(TAG, "Saved ${prepared.originalSize - prepared.uploadSize} bytes uploading $compositeId")
+                RecordingTranscoder.release(applicationContext, compositeId)
+            }
             callDataRepository.updateRecordingSyncStatus(compositeId, RecordingSyncStatus.COMPLETED)
             callDataRepository.updateSyncError(compositeId, null)
             return true
@@ -353,8 +390,13 @@ class RecordingUploadWorker(context: Context, params: WorkerParameters) : Corout
         }
     }
 
-    private suspend fun uploadFileInChunks(recordingPath: String, uniqueId: String): Boolean {
-        val chunkSize = 2 * 1024 * 1024 // 2MB chunks (reduced request overhead)
+    /**
+     * Uploads the chunks that the server has not acknowledged yet, [PARALLEL_CHUNKS] at a time.
+     * Each accepted chunk is recorded in upload_chunks, so a failed pass resumes where it
+     * stopped instead of starting again from chunk 0.
+     */
+    private suspend fun uploadFileInChunks(recordingPath: String, uniqueId: String, sentBytes: AtomicLong): Boolean {
+        val chunkSize = CHUNK_SIZE
         val totalSize = getFileLength(recordingPath)
         val totalChunks = if (totalSize > 0) ((totalSize + chunkSize - 1) / chunkSize).toInt() else 0
         
@@ -363,64 +405,91 @@ class RecordingUploadWorker(context: Context, params: WorkerParameters) : Corout
             return false
         }
 
-        // Use 'use' block to ensure InputStream is always closed properly
-        val uploadSuccess = try {
-            getFileStream(recordingPath)?.use { inputStream ->
-                val buffer = ByteArray(chunkSize)
-                
-                for (i in 0 until totalChunks) {
-                    val bytesRead = withContext(Dispatchers.IO) { inputStream.read(buffer) }
-                    if (bytesRead == -1) break
-
-                    val chunkData = if (bytesRead < chunkSize) buffer.copyOf(bytesRead) else buffer
-                    val requestFile = chunkData.toRequestBody("audio/*".toMediaTypeOrNull(), 0, bytesRead)
-                    val body = MultipartBody.Part.createFormData("chunk", "$i", requestFile)
-
-                    val actionPart = "upload_chunk".toRequestBody("text/plain".toMediaTypeOrNull())
-                    val uidPart = uniqueId.toRequestBody("text/plain".toMediaTypeOrNull())
-                    val indexPart = i.toString().toRequestBody("text/plain".toMediaTypeOrNull())
-
-                    val resp = try {
-                        NetworkClient.api.uploadChunk(actionPart, uidPart, indexPart, body)
-                    } catch (e: Exception) {
-                        Log.e(TAG, "Network error uploading chunk $i for $uniqueId", e)
-                        return@use false
-                    }
-                    
-                    if (!resp.isSuccessful) {
-                        val errorBody = resp.errorBody()?.string() ?: "Unknown error"
-                        
-                        // If server says it's already completed or not expected, treat as success
-                        if (errorBody.contains("No recording expected") || errorBody.contains("already completed")) {
-                            Log.i(TAG, "Server indicated recording is already complete for $uniqueId. Skipping remaining chunks.")
-                            return@use true
+        uploadChunkDao.deleteStale(uniqueId, totalSize, chunkSize)
+        val acknowledged = uploadChunkDao.getUploadedIndices(uniqueId, totalSize, chunkSize).toSet()
+        val missing = (0 until totalChunks).filter { it !in acknowledged }
+        if (acknowledged.isNotEmpty()) {
+            Log.d(TAG, "Resuming $uniqueId: ${acknowledged.size}/$totalChunks chunks already uploaded")
+        }
+
+        val mediaType = "audio/*".toMediaTypeOrNull()
+        val textType = "text/plain".toMediaTypeOrNull()
+        val alreadyComplete = AtomicBoolean(false)
+        val permits = Semaphore(PARALLEL_CHUNKS)
+
+        val uploadSuccess = coroutineScope {
+            missing.map { i ->
+                async {
+                    permits.withPermit {
+                        if (alreadyComplete.get() || isStopped) return@withPermit false
+
+                        val offset = i.toLong() * chunkSize
+                        val length = minOf(chunkSize.toLong(), totalSize - offset)
+                        val requestFile = FileRegionRequestBody(applicationContext, recordingPath, offset, length, mediaType)
+                        val body = MultipartBody.Part.createFormData("chunk", "$i", requestFile)
+
+                        val actionPart = "upload_chunk".toRequestBody(textType)
+                        val uidPart = uniqueId.toRequestBody(textType)
+                        val indexPart = i.toString().toRequestBody(textType)
+
+                        val resp = try {
+                            NetworkClient.call("upload_chunk", RetryPolicy.UPLOAD) {
+                                uploadChunk(actionPart, uidPart, indexPart, body)
+                            }
+                        } catch (e: kotlinx.coroutines.CancellationException) {
+                            throw e
+                        } catch (e: Exception) {
+                            Log.e(TAG, "Network error uploading chunk $i for $uniqueId", e)
+                            return@withPermit false
                         }
-                        
-                        Log.e(TAG, "Chunk $i upload failed for $uniqueId: $errorBody")
-                        return@use false
+
+                        if (!resp.isSuccessful) {
+                            val errorBody = resp.errorBody()?.string() ?: "Unknown error"
+
+                            // If server says it's already completed or not expected, treat as success
+                            if (errorBody.contains("No recording expected") || errorBody.contains("already completed")) {
+                                Log.i(TAG, "Server indicated recording is already complete for $uniqueId. Skipping remaining chunks.")
+                                alreadyComplete.set(true)
+                                return@withPermit true
+                            }
+
+                            Log.e(TAG, "Chunk $i upload failed for $uniqueId: $errorBody")
+                            return@withPermit false
+                        }
+
+                        uploadChunkDao.insert(UploadChunkEntity(uniqueId, i, totalSize, chunkSize))
+                        sentBytes.addAndGet(length)
+                        Log.d(TAG, "Uploaded chunk ${i + 1}/$totalChunks for $uniqueId")
+                        true
                     }
-                    
-                    Log.d(TAG, "Uploaded chunk ${i + 1}/$totalChunks for $uniqueId")
                 }
-                true // All chunks uploaded successfully
-            } ?: false
-        } catch (e: Exception) {
-            Log.e(TAG, "Error reading file for upload: $uniqueId", e)
-            false
+            }.awaitAll().all { it }
+        }
+
+        if (alreadyComplete.get()) {
+            uploadChunkDao.deleteForCall(uniqueId)
+            return true
         }
-        
         if (!uploadSuccess) return false
 
         // Finalize
         return try {
-            val finalResp = NetworkClient.api.finalizeUpload(
-                action = "finalize_upload",
-                uniqueId = uniqueId,
-                totalChunks = totalChunks
-            )
+            val finalResp = NetworkClient.call("finalize_upload", RetryPolicy.UPLOAD) {
+                finalizeUpload(
+                    action = "finalize_upload",
+                    uniqueId = uniqueId,
+                    totalChunks = totalChunks
+                )
+            }
             
             val success = finalResp.isSuccessful && finalResp.body()?.success == true
             Log.d(TAG, "Finalize upload for $uniqueId: success=$success")
+            if (success) {
+                uploadChunkDao.deleteForCall(uniqueId)
+            } else if (finalResp.errorBody()?.string()?.contains("Missing chunk") == true) {
+                // Server lost its chunk folder, so our acknowledgements are worthless
+                uploadChunkDao.deleteForCall(uniqueId)
+            }
             success
         } catch (e: Exception) {
             Log.e(TAG, "Error finalizing upload: $uniqueId", e)
@@ -428,19 +497,6 @@ class RecordingUploadWorker(context: Context, params: WorkerParameters) : Corout
         }
     }
 
-    private fun getFileStream(path: String): InputStream? {
-        return try {
-            if (path.startsWith("content://")) {
-                applicationContext.contentResolver.openInputStream(Uri.parse(path))
-            } else {
-                FileInputStream(path)
-            }
-        } catch (e: Exception) {
-            Log.e(TAG, "Failed to open stream for: $path", e)
-            null
-        }
-    }
-
     private fun getFileLength(path: String): Long {
         return try {
             if (path.startsWith("content://")) {
@@ -503,6 +559,9 @@ class RecordingUploadWorker(context: Context, params: WorkerParameters) : Corout
 
     companion object {
         private const val TAG = "RecordingUploadWorker"
+        private const val CHUNK_SIZE = 2 * 1024 * 1024 // 2MB chunks (reduced request overhead)
+        private const val PARALLEL_CHUNKS = 3 // Per file; two files upload at once, within OkHttp's 5 per host
+        private const val CHUNK_ACK_TTL_MS = 7 * 24 * 60 * 60 * 1000L
         
         /**
          * Enqueue periodic recording upload (runs every 30 minutes)
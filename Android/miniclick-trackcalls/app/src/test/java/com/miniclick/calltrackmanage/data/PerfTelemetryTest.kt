@@ -0,0 +1,120 @@
+package com.miniclick.calltrackmanage.data
+
+import com.miniclick.calltrackmanage.data.db.PerfMetricEntity
+import org.junit.Assert.*
+import org.junit.Test
+
+class PerfTelemetryTest {
+
+    private val bucketCount = PerfTelemetry.BUCKET_BOUNDS_MS.size + 1
+
+    private fun timer(vararg millis: Long) = PerfTelemetry.Delta(PerfTelemetry.KIND_TIMER).apply { millis.forEach { add(it) } }
+
+    private fun buckets(vararg counts: Pair<Int, Long>) = LongArray(bucketCount).apply { counts.forEach { (i, c) -> this[i] = c } }
+
+    @Test
+    fun percentileIsTheUpperBoundOfTheBucketHoldingTheRank() {
+        // 5 samples <= 10ms, 4 samples in (250, 500], 1 sample in (1000, 2500]
+        val histogram = buckets(0 to 5L, 4 to 4L, 6 to 1L)
+
+        assertEquals(10L, PerfTelemetry.percentile(histogram, 0.5, max = 2_000L))
+        assertEquals(500L, PerfTelemetry.percentile(histogram, 0.9, max = 2_000L))
+        assertEquals(2_000L, PerfTelemetry.percentile(histogram, 1.0, max = 2_000L))
+    }
+
+    @Test
+    fun percentileNeverExceedsTheObservedMax() {
+        val histogram = buckets(4 to 10L)
+
+        assertEquals(320L, PerfTelemetry.percentile(histogram, 0.5, max = 320L))
+    }
+
+    @Test
+    fun percentileOfOverflowBucketIsTheMax() {
+        val histogram = buckets(0 to 1L, bucketCount - 1 to 9L)
+
+        assertEquals(900_000L, PerfTelemetry.percentile(histogram, 0.5, max = 900_000L))
+        assertEquals(0L, PerfTelemetry.percentile(LongArray(bucketCount), 0.9, max = 0L))
+    }
+
+    @Test
+    fun mergeIntoEmptyDayTakesTheDelta() {
+        val row = PerfTelemetry.merge(null, "sync.pull", "2026-10-17", timer(5L, 60L, 60L))
+
+        assertEquals(PerfTelemetry.KIND_TIMER, row.kind)
+        assertEquals(3L, row.count)
+        assertEquals(125L, row.total)
+        assertEquals(5L, row.min)
+        assertEquals(60L, row.max)
+        assertEquals(buckets(0 to 1L, 2 to 2L).joinToString(","), row.buckets)
+    }
+
+    @Test
+    fun mergeAddsToTheStoredDay() {
+        val existing = PerfMetricEntity(
+            name = "sync.pull",
+            day = "2026-10-17",
+            kind = PerfTelemetry.KIND_TIMER,
+            count = 2L,
+            total = 1_020L,
+            min = 20L,
+            max = 1_000L,
+            buckets = buckets(1 to 1L, 5 to 1L).joinToString(",")
+        )
+
+        val row = PerfTelemetry.merge(existing, "sync.pull", "2026-10-17", timer(3L, 70_000L))
+
+        assertEquals(4L, row.count)
+        assertEquals(71_023L, row.total)
+        assertEquals(3L, row.min)
+        assertEquals(70_000L, row.max)
+        assertEquals(buckets(0 to 1L, 1 to 1L, 5 to 1L, 11 to 1L).joinToString(","), row.buckets)
+    }
+
+    @Test
+    fun mergeCountersKeepsNoHistogram() {
+        val delta = PerfTelemetry.Delta(PerfTelemetry.KIND_COUNTER).apply { add(4_096L); add(1_024L) }
+        val existing = PerfMetricEntity("upload.bytes", "2026-10-17", PerfTelemetry.KIND_COUNTER, count = 1L, total = 100L, min = 100L, max = 100L)
+
+        val row = PerfTelemetry.merge(existing, "upload.bytes", "2026-10-17", delta)
+
+        assertEquals(3L, row.count)
+        assertEquals(5_220L, row.total)
+        assertEquals("", row.buckets)
+    }
+
+    @Test
+    fun summaryCombinesDaysBeforeTakingPercentiles() {
+        val monday = PerfTelemetry.merge(null, "sync.pull", "2026-10-12", timer(5L, 5L, 5L, 5L))
+        val tuesday = PerfTelemetry.merge(null, "sync.pull", "2026-10-13", timer(400L, 400L, 400L, 400L, 400L, 3_000L))
+        val bytes = PerfTelemetry.merge(null, PerfTelemetry.Metrics.UPLOAD_BYTES, "2026-10-13",
+            PerfTelemetry.Delta(PerfTelemetry.KIND_COUNTER).apply { add(2_000_000L) })
+        val wall = PerfTelemetry.merge(null, PerfTelemetry.Metrics.UPLOAD_WALL, "2026-10-13", timer(4_000L))
+
+        val summaries = PerfTelemetry.summarizeRows(listOf(tuesday, bytes, monday, wall))
+
+        assertEquals(listOf("sync.pull", PerfTelemetry.Metrics.UPLOAD_BYTES, PerfTelemetry.Metrics.UPLOAD_WALL), summaries.map { it.name })
+        val pull = summaries.first()
+        assertEquals(10L, pull.count)
+        assertEquals(5_020L, pull.total)
+        assertEquals(502L, pull.average)
+        assertEquals(5L, pull.min)
+        assertEquals(3_000L, pull.max)
+        // Monday alone has p90 <= 10ms and Tuesday alone 3s; together 9 of 10 samples are <= 500ms
+        assertEquals(10L, pull.p50)
+        assertEquals(500L, pull.p90)
+        assertEquals(0L, summaries[1].p50)
+
+        assertEquals(500_000L, PerfTelemetry.uploadBytesPerSecond(summaries))
+    }
+
+    @Test
+    fun throughputNeedsBothBytesAndWallTime() {
+        val bytes = PerfTelemetry.merge(null, PerfTelemetry.Metrics.UPLOAD_BYTES, "2026-10-13",
+            PerfTelemetry.Delta(PerfTelemetry.KIND_COUNTER).apply { add(1_000L) })
+        // Per-recording timers overlap when uploads run in parallel and are not used
+        val perRecording = PerfTelemetry.merge(null, PerfTelemetry.Metrics.UPLOAD_RECORDING, "2026-10-13", timer(500L, 500L))
+
+        assertNull(PerfTelemetry.uploadBytesPerSecond(PerfTelemetry.summarizeRows(listOf(bytes, perRecording))))
+    }
+}
@@ -0,0 +1,74 @@
+package com.miniclick.calltrackmanage.data.db
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class SearchIndexTest {
+
+    @Test
+    fun everyWordBecomesAPrefixTerm() {
+        assertEquals("asha*", SearchIndex.toMatchExpression("Asha"))
+        assertEquals("asha* rao*", SearchIndex.toMatchExpression("  Asha   Rao "))
+        assertEquals("zoë* józef*", SearchIndex.toMatchExpression("Zoë Józef"))
+    }
+
+    @Test
+    fun nothingSearchableGivesNull() {
+        assertNull(SearchIndex.toMatchExpression(""))
+        assertNull(SearchIndex.toMatchExpression("   "))
+        assertNull(SearchIndex.toMatchExpression("* - \" ( ) :"))
+    }
+
+    @Test
+    fun ftsSyntaxIsStripped() {
+        // An unbalanced quote or a bare operator would make MATCH throw
+        assertEquals("asha* rao*", SearchIndex.toMatchExpression("\"asha rao"))
+        assertEquals("ash*", SearchIndex.toMatchExpression("ash*"))
+        assertEquals("ash*", SearchIndex.toMatchExpression("a*sh"))
+        assertEquals("asha*", SearchIndex.toMatchExpression("-asha"))
+        assertEquals("note*", SearchIndex.toMatchExpression("note:"))
+        assertEquals("asha* near2*", SearchIndex.toMatchExpression("asha NEAR/2"))
+    }
+
+    @Test
+    fun operatorsAreSearchedAsWords() {
+        // FTS operators are upper case only; the query is lowercased first
+        assertEquals("asha* or* rao*", SearchIndex.toMatchExpression("asha OR rao"))
+        assertEquals("not* and*", SearchIndex.toMatchExpression("NOT AND"))
+    }
+
+    @Test
+    fun separatorsInsideANumberAreJoined() {
+        assertEquals("9876543210*", SearchIndex.toMatchExpression("98765-43210"))
+        assertEquals("919876543210*", SearchIndex.toMatchExpression("+91.98765.43210"))
+        assertEquals("91* 98765* 43210*", SearchIndex.toMatchExpression("+91 98765 43210"))
+    }
+
+    @Test
+    fun phoneSuffixesAreTheTrailingRunsOf3To10Digits() {
+        assertEquals(
+            "210 3210 43210 543210 6543210 76543210 876543210 9876543210",
+            SearchIndex.phoneSuffixes("+91 98765-43210")
+        )
+        assertEquals(
+            SearchIndex.phoneSuffixes("+919876543210"),
+            SearchIndex.phoneSuffixes("+91.98765.43210")
+        )
+    }
+
+    @Test
+    fun shortNumbersRepeatTheWholeNumber() {
+        assertEquals("121 121 121 121 121 121 121 121", SearchIndex.phoneSuffixes("121"))
+        assertEquals("12 12 12 12 12 12 12 12", SearchIndex.phoneSuffixes("1-2"))
+    }
+
+    @Test
+    fun digitQueriesMatchASuffixToken() {
+        // "ends with" search: the query is a prefix of one of the stored suffixes
+        val suffixes = SearchIndex.phoneSuffixes("+91 98765-43210").split(" ")
+        for (query in listOf("43210", "543-210", "6543", "9876543210", "98765 43210")) {
+            val terms = SearchIndex.toMatchExpression(query)!!.split(" ").map { it.removeSuffix("*") }
+            assertTrue(query, terms.all { term -> suffixes.any { it.startsWith(term) } })
+        }
+    }
+}
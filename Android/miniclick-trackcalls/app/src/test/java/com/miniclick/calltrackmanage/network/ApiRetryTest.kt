@@ -0,0 +1,182 @@
+package com.miniclick.calltrackmanage.network
+
+import kotlinx.coroutines.runBlocking
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.ResponseBody.Companion.toResponseBody
+import org.junit.Assert.*
+import org.junit.Test
+import retrofit2.Response
+import java.io.IOException
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
+import java.util.TimeZone
+import kotlin.random.Random
+
+class ApiRetryTest {
+
+    // Records the jitter range of every backoff and always picks 0, so retries don't sleep
+    private class RecordingRandom : Random() {
+        val bounds = mutableListOf<Long>()
+        override fun nextBits(bitCount: Int): Int = 0
+        override fun nextLong(until: Long): Long {
+            bounds.add(until)
+            return 0L
+        }
+    }
+
+    private var now = 1_700_000_000_000L
+    private val random = RecordingRandom()
+
+    private fun retry(failureThreshold: Int = 100, openMillis: Long = 60_000L) =
+        ApiRetry(failureThreshold, openMillis, clock = { now }, random = random)
+
+    private fun ok(): Response<String> = Response.success("ok")
+
+    private fun error(code: Int, retryAfter: String? = null): Response<String> {
+        val raw = okhttp3.Response.Builder()
+            .request(Request.Builder().url("http://localhost/").build())
+            .protocol(Protocol.HTTP_1_1)
+            .code(code)
+            .message("Error")
+            .apply { if (retryAfter != null) header("Retry-After", retryAfter) }
+            .build()
+        return Response.error("".toResponseBody(null), raw)
+    }
+
+    @Test
+    fun backoffIsFullJitterUpToTheCap() = runBlocking {
+        val policy = RetryPolicy(maxAttempts = 6, baseDelayMs = 100L, maxDelayMs = 1_000L)
+        var attempts = 0
+
+        try {
+            retry().execute("sync", policy) { attempts++; throw IOException("down") }
+            fail("Expected the last IOException")
+        } catch (e: IOException) {
+            assertEquals("down", e.message)
+        }
+
+        assertEquals(6, attempts)
+        // Uniform in [0, min(max, base * 2^(n-1))], the bound passed to nextLong is exclusive
+        assertEquals(listOf(101L, 201L, 401L, 801L, 1_001L), random.bounds)
+    }
+
+    @Test
+    fun retryAfterBeyondPolicyReturnsAndHoldsTheEndpoint() = runBlocking {
+        val api = retry()
+        var attempts = 0
+
+        val response = api.execute("config", RetryPolicy.SYNC) { attempts++; error(429, retryAfter = "120") }
+
+        // The server's wait is longer than the policy allows, so there is no retry
+        assertEquals(429, response.code())
+        assertEquals(1, attempts)
+        assertTrue(random.bounds.isEmpty())
+
+        // and every caller of the endpoint waits for it, not just this one
+        now += 119_999L
+        try {
+            api.execute("config", RetryPolicy.SYNC) { attempts++; ok() }
+            fail("Expected CircuitOpenException")
+        } catch (e: CircuitOpenException) {
+            assertEquals(now + 1L, e.retryAtMillis)
+        }
+        assertEquals(1, attempts)
+
+        now += 1L
+        assertEquals(200, api.execute("config", RetryPolicy.SYNC) { ok() }.code())
+    }
+
+    @Test
+    fun retryAfterHttpDateIsRelativeToTheClock() = runBlocking {
+        val format = SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).apply {
+            timeZone = TimeZone.getTimeZone("GMT")
+        }
+        val api = retry()
+
+        api.execute("batch", RetryPolicy.SYNC) { error(503, retryAfter = format.format(Date(now + 90_000L))) }
+
+        try {
+            api.execute("batch", RetryPolicy.SYNC) { ok() }
+            fail("Expected CircuitOpenException")
+        } catch (e: CircuitOpenException) {
+            assertEquals(now + 90_000L, e.retryAtMillis)
+        }
+    }
+
+    @Test
+    fun retryAfterWinsOverShorterBackoff() = runBlocking {
+        // Real monotonic clock: the breaker must see the Retry-After pass while the call waits
+        val api = ApiRetry(clock = { System.nanoTime() / 1_000_000 }, random = random)
+        val policy = RetryPolicy(maxAttempts = 2, baseDelayMs = 10L, maxDelayMs = 5_000L)
+        val responses = ArrayDeque(listOf(error(503, retryAfter = "1"), ok()))
+
+        val started = System.nanoTime()
+        val response = api.execute("persons", policy) { responses.removeFirst() }
+        val waitedMs = (System.nanoTime() - started) / 1_000_000
+
+        assertEquals(200, response.code())
+        assertEquals(listOf(11L), random.bounds)
+        assertTrue("Waited only $waitedMs ms", waitedMs >= 1_000L)
+    }
+
+    @Test
+    fun breakerOpensThenHalfOpensAndCloses() = runBlocking {
+        val api = retry(failureThreshold = 2, openMillis = 1_000L)
+        var attempts = 0
+        val failing: suspend () -> Response<String> = { attempts++; throw IOException("down") }
+
+        repeat(2) {
+            try {
+                api.execute("chunk", RetryPolicy.NONE, failing)
+                fail("Expected IOException")
+            } catch (e: CircuitOpenException) {
+                fail("Opened too early")
+            } catch (e: IOException) {
+            }
+        }
+        assertEquals(2, attempts)
+
+        // Open: fails fast without calling the endpoint
+        try {
+            api.execute("chunk", RetryPolicy.NONE, failing)
+            fail("Expected CircuitOpenException")
+        } catch (e: CircuitOpenException) {
+            assertEquals("chunk", e.endpoint)
+            assertEquals(now + 1_000L, e.retryAtMillis)
+        }
+        assertEquals(2, attempts)
+
+        // Other endpoints are not affected
+        assertEquals(200, api.execute("config", RetryPolicy.NONE) { ok() }.code())
+
+        // Half-open: one trial call; its failure re-opens the breaker straight away
+        now += 1_000L
+        try {
+            api.execute("chunk", RetryPolicy.NONE, failing)
+            fail("Expected IOException")
+        } catch (e: CircuitOpenException) {
+            fail("Trial call was not let through")
+        } catch (e: IOException) {
+        }
+        assertEquals(3, attempts)
+        try {
+            api.execute("chunk", RetryPolicy.NONE, failing)
+            fail("Expected CircuitOpenException")
+        } catch (e: CircuitOpenException) {
+            assertEquals(now + 1_000L, e.retryAtMillis)
+        }
+
+        // An answered trial call closes it, and a single failure no longer opens it
+        now += 1_000L
+        assertEquals(200, api.execute("chunk", RetryPolicy.NONE) { ok() }.code())
+        try {
+            api.execute("chunk", RetryPolicy.NONE, failing)
+        } catch (e: CircuitOpenException) {
+            fail("Breaker did not close")
+        } catch (e: IOException) {
+        }
+        assertEquals(200, api.execute("chunk", RetryPolicy.NONE) { ok() }.code())
+    }
+}
@@ -0,0 +1,138 @@
+package com.miniclick.calltrackmanage.network
+
+import kotlinx.coroutines.runBlocking
+import okhttp3.OkHttpClient
+import org.junit.After
+import org.junit.Assert.*
+import org.junit.Before
+import org.junit.Test
+import retrofit2.Retrofit
+import retrofit2.converter.gson.GsonConverterFactory
+import java.io.IOException
+
+class DeltaPullClientTest {
+
+    private val calls = (1..7).map { CallUpdateDto(uniqueId = "call-$it", note = "note $it", reviewed = it % 2) }
+    private val persons = (1..3).map { PersonUpdateDto(phone = "98765000$it", name = "Person $it", personNote = null, label = null) }
+
+    private lateinit var mock: MockSyncServer
+    private lateinit var client: DeltaPullClient
+
+    @Before
+    fun setUp() {
+        mock = MockSyncServer(calls, persons)
+        val api = Retrofit.Builder()
+            .baseUrl(mock.url())
+            .client(OkHttpClient())
+            .addConverterFactory(GsonConverterFactory.create())
+            .build()
+            .create(CallCloudApi::class.java)
+        client = DeltaPullClient(api, pageSize = 3)
+    }
+
+    @After
+    fun tearDown() {
+        mock.shutdown()
+    }
+
+    private class Recorder {
+        val callIds = mutableListOf<String>()
+        val phones = mutableListOf<String>()
+        val cursors = mutableListOf<String?>()
+        var savedCursor: String? = null
+
+        fun onPage(page: SyncPageResponse) {
+            page.callUpdates?.mapTo(callIds) { it.uniqueId }
+            page.personUpdates?.mapTo(phones) { it.phone }
+        }
+
+        fun onCursor(cursor: String?) {
+            cursors.add(cursor)
+            savedCursor = cursor
+        }
+    }
+
+    private fun pull(recorder: Recorder, startCursor: String?, onPage: (SyncPageResponse) -> Unit = recorder::onPage) =
+        runBlocking {
+            client.pull("ORG1", "1", "device", 0L, startCursor, { onPage(it) }, recorder::onCursor)
+        }
+
+    @Test
+    fun pull_walksAllPagesInOrder() {
+        val recorder = Recorder()
+        val result = pull(recorder, null)
+
+        assertEquals(calls.map { it.uniqueId }, recorder.callIds)
+        assertEquals(persons.map { it.phone }, recorder.phones)
+        // 3 + 3 + 1 calls, then 3 persons and an empty page closing the persons phase
+        assertEquals(5, result.pages)
+        assertEquals(7, result.callUpdates)
+        assertEquals(3, result.personUpdates)
+        assertEquals(1_700_000_000_000L, result.serverTime)
+        assertNull(recorder.savedCursor)
+    }
+
+    @Test
+    fun pull_requestsGzipAndPageLimit() {
+        pull(Recorder(), null)
+
+        val request = mock.server.takeRequest()
+        assertEquals("gzip", request.getHeader("Accept-Encoding"))
+        assertTrue(request.body.readUtf8().contains("limit=3"))
+    }
+
+    @Test
+    fun pull_resumesFromPersistedCursorAfterInterruption() {
+        val first = Recorder()
+        var pages = 0
+        try {
+            pull(first, null) { page ->
+                // Simulate the process dying while applying the third page
+                if (++pages == 3) throw IllegalStateException("killed")
+                first.onPage(page)
+            }
+            fail("Expected interruption")
+        } catch (e: IllegalStateException) {
+            // expected
+        }
+        assertEquals(listOf("call-1", "call-2", "call-3", "call-4", "call-5", "call-6"), first.callIds)
+        assertNotNull(first.savedCursor)
+
+        val second = Recorder()
+        pull(second, first.savedCursor)
+
+        assertEquals(listOf("call-7"), second.callIds)
+        assertEquals(persons.map { it.phone }, second.phones)
+        assertNull(second.savedCursor)
+    }
+
+    @Test
+    fun pull_serverErrorKeepsLastAppliedCursor() {
+        mock.failOnRequest = 2
+        val recorder = Recorder()
+
+        try {
+            pull(recorder, null)
+            fail("Expected IOException")
+        } catch (e: IOException) {
+            // expected
+        }
+        assertEquals(listOf("call-1", "call-2", "call-3"), recorder.callIds)
+        assertEquals(1, recorder.cursors.size)
+        assertNotNull(recorder.savedCursor)
+    }
+
+    @Test
+    fun pull_invalidCursorIsCleared() {
+        val recorder = Recorder()
+
+        try {
+            pull(recorder, "not-a-cursor")
+            fail("Expected IOException")
+        } catch (e: IOException) {
+            // expected
+        }
+        assertTrue(recorder.callIds.isEmpty())
+        assertEquals(listOf<String?>(null), recorder.cursors)
+    }
+}
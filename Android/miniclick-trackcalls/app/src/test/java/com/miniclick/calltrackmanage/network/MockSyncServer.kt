@@ -0,0 +1,103 @@
+package com.miniclick.calltrackmanage.network
+
+import com.google.gson.Gson
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import okio.Buffer
+import okio.GzipSink
+import okio.buffer
+import java.net.URLDecoder
+import java.util.Base64
+
+/**
+ * Local stand-in for sync_app.php's fetch_updates_page: calls first, then persons, a short
+ * page ends a phase, and every body is gzip-compressed like the real endpoint.
+ */
+class MockSyncServer(
+    private val calls: List<CallUpdateDto>,
+    private val persons: List<PersonUpdateDto>,
+    private val serverTime: Long = 1_700_000_000_000L
+) {
+    val server = MockWebServer()
+
+    /** 1-based request number that should fail with HTTP 500, or 0 for none */
+    @Volatile var failOnRequest = 0
+
+    private val gson = Gson()
+    private var requestCount = 0
+
+    init {
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse = handle(request)
+        }
+    }
+
+    fun url(): String = server.url("/").toString()
+
+    fun shutdown() = server.shutdown()
+
+    @Synchronized
+    private fun handle(request: RecordedRequest): MockResponse {
+        requestCount++
+        if (requestCount == failOnRequest) {
+            return MockResponse().setResponseCode(500)
+        }
+
+        val form = parseForm(request.body.clone().readUtf8())
+        if (form["action"] != "fetch_updates_page") return error(400, "Invalid action")
+        val limit = form["limit"]?.toIntOrNull() ?: 500
+
+        // Cursor is "<phase>:<offset>", base64 so the client treats it as opaque
+        val cursor = form["cursor"]
+        val (phase, offset) = if (cursor.isNullOrEmpty()) {
+            "calls" to 0
+        } else {
+            val decoded = runCatching { String(Base64.getDecoder().decode(cursor)) }.getOrNull()
+            val parts = decoded?.split(":")
+            val parsedOffset = parts?.getOrNull(1)?.toIntOrNull()
+            if (parts?.size != 2 || parts[0] !in setOf("calls", "persons") || parsedOffset == null) {
+                return error(400, "Invalid cursor")
+            }
+            parts[0] to parsedOffset
+        }
+
+        val source = if (phase == "calls") calls else persons
+        val page = source.drop(offset).take(limit)
+        val next = when {
+            page.size == limit -> "$phase:${offset + limit}"
+            phase == "calls" -> "persons:0"
+            else -> null
+        }
+
+        val data = SyncPageResponse(
+            personUpdates = if (phase == "persons") page.filterIsInstance<PersonUpdateDto>() else emptyList(),
+            callUpdates = if (phase == "calls") page.filterIsInstance<CallUpdateDto>() else emptyList(),
+            nextCursor = next?.let { Base64.getEncoder().encodeToString(it.toByteArray()) },
+            serverTime = serverTime
+        )
+        return gzipJson(200, gson.toJson(ApiResponse(success = true, message = "Updates retrieved", data = data)))
+    }
+
+    private fun error(code: Int, message: String): MockResponse =
+        gzipJson(code, gson.toJson(ApiResponse<Any>(success = false, message = message, error = message)))
+
+    private fun gzipJson(code: Int, json: String): MockResponse {
+        val body = Buffer()
+        GzipSink(body).buffer().use { it.writeUtf8(json) }
+        return MockResponse()
+            .setResponseCode(code)
+            .setHeader("Content-Type", "application/json")
+            .setHeader("Content-Encoding", "gzip")
+            .setBody(body)
+    }
+
+    private fun parseForm(body: String): Map<String, String> = body.split("&")
+        .filter { it.isNotEmpty() }
+        .associate { pair ->
+            val key = pair.substringBefore("=")
+            val value = pair.substringAfter("=", "")
+            URLDecoder.decode(key, "UTF-8") to URLDecoder.decode(value, "UTF-8")
+        }
+}
@@ -0,0 +1,109 @@
+package com.miniclick.calltrackmanage.ui.home.viewmodel
+
+import com.miniclick.calltrackmanage.benchmark.LegacyStatsManager
+import com.miniclick.calltrackmanage.data.db.CallDataEntity
+import com.miniclick.calltrackmanage.data.db.PersonDataEntity
+import org.junit.After
+import org.junit.Assert.*
+import org.junit.Before
+import org.junit.Test
+import java.util.Locale
+import java.util.TimeZone
+import kotlin.random.Random
+
+class ReportAggregatorTest {
+
+    private val defaultZone = TimeZone.getDefault()
+    private val defaultLocale = Locale.getDefault()
+
+    // Half-hour offset, so local hours and weekdays only match with the zone applied
+    @Before
+    fun setUp() {
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Kolkata"))
+        Locale.setDefault(Locale.US)
+    }
+
+    @After
+    fun tearDown() {
+        TimeZone.setDefault(defaultZone)
+        Locale.setDefault(defaultLocale)
+    }
+
+    private val numbers = List(12) { "+9198765000${it.toString().padStart(2, '0')}" }
+
+    // Every call type (including voicemail 4 and blocked 6) and the 3/4 second boundaries
+    private val calls: List<CallDataEntity> = Random(7).let { random ->
+        val start = 1_767_225_600_000L // 2026-01-01T00:00Z
+        List(400) { i ->
+            val number = numbers[random.nextInt(numbers.size)]
+            val duration = when (random.nextInt(4)) {
+                0 -> 0L
+                1 -> random.nextLong(1, 6)
+                else -> random.nextLong(0, 900)
+            }
+            CallDataEntity(
+                compositeId = "call-$i",
+                systemId = i.toString(),
+                phoneNumber = number,
+                contactName = if (random.nextInt(3) == 0) "Name ${number.takeLast(2)}" else null,
+                callType = random.nextInt(1, 7),
+                callDate = start + random.nextLong(0, 60L * 24 * 60 * 60 * 1000),
+                duration = duration,
+                callNote = if (random.nextInt(5) == 0) "Note $i" else null,
+                localRecordingPath = if (random.nextInt(4) == 0) "/rec/$i.m4a" else null,
+                reviewed = random.nextInt(6) == 0
+            )
+        }
+    }
+
+    private val persons = numbers.mapIndexed { i, number ->
+        PersonDataEntity(
+            phoneNumber = number,
+            personNote = if (i % 3 == 0) "Person note" else null,
+            label = listOf("Lead", "Lead, VIP", "", "Customer,Vendor", null)[i % 5],
+            totalCalls = i % 4,
+            totalDuration = if (i % 2 == 0) 0L else 120L
+        )
+    } + PersonDataEntity(phoneNumber = "+919999999999", totalCalls = 2)
+
+    @Test
+    fun aggregateMatchesLegacyTotals() {
+        val expected = LegacyStatsManager.calculateReportStats(calls, persons, allLogs = emptyList())
+        val actual = ReportAggregator.aggregate(calls, persons)
+
+        // Totals, unique counts, buckets and the weekday/hour activity are identical
+        assertEquals(expected.withoutRankings(), actual.withoutRankings())
+        assertEquals(expected.labelDistribution.toMap(), actual.labelDistribution.toMap())
+
+        // Ranked lists agree on the values; ties may be ordered differently
+        assertEquals(expected.topCallers.map { it.callCount }, actual.topCallers.map { it.callCount })
+        assertEquals(expected.mostTalked.map { it.totalDuration }, actual.mostTalked.map { it.totalDuration })
+        for (caller in actual.topCallers + actual.mostTalked) {
+            val own = calls.filter { it.phoneNumber == caller.phoneNumber }
+            assertEquals(own.size, caller.callCount)
+            assertEquals(own.sumOf { it.duration }, caller.totalDuration)
+        }
+    }
+
+    @Test
+    fun displayNameIsTheFirstSavedName() {
+        val calls = listOf(
+            CallDataEntity(compositeId = "a", systemId = "1", phoneNumber = "+15550100001", callType = 1, callDate = 1_000L, duration = 10L),
+            CallDataEntity(compositeId = "b", systemId = "2", phoneNumber = "+15550100001", contactName = "Asha", callType = 2, callDate = 2_000L, duration = 20L)
+        )
+
+        assertEquals("Asha", ReportAggregator.aggregate(calls, emptyList()).topCallers.single().displayName)
+    }
+
+    @Test
+    fun emptyLogsGiveEmptyStats() {
+        assertEquals(ReportStats(), ReportAggregator.aggregate(emptyList(), persons))
+    }
+
+    private fun ReportStats.withoutRankings() = copy(
+        comparisonAverages = emptyMap(),
+        topCallers = emptyList(),
+        mostTalked = emptyList(),
+        labelDistribution = emptyList()
+    )
+}
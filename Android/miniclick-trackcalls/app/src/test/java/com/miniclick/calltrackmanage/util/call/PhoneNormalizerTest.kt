@@ -0,0 +1,43 @@
+package com.miniclick.calltrackmanage.util.call
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class PhoneNormalizerTest {
+
+    @Test
+    fun dialableKeepsDigitsAndPlus() {
+        assertEquals("+919876543210", PhoneNormalizer.stripToDialable("+91 98765-43210"))
+        assertEquals("+15550100001", PhoneNormalizer.stripToDialable("+1 (555) 010.0001"))
+        assertEquals("", PhoneNormalizer.stripToDialable("Private"))
+    }
+
+    @Test
+    fun dialableKeepsDigitsOfAnyScript() {
+        // Arabic-Indic, Extended Arabic-Indic (Persian), Devanagari and fullwidth digits;
+        // PhoneNumberUtils maps them to ASCII when formatting
+        assertEquals("+٩٦٦٥٠١٢٣٤٥٦٧", PhoneNormalizer.stripToDialable("+٩٦٦ ٥٠ ١٢٣ ٤٥٦٧"))
+        assertEquals("۰۹۱۲۳۴۵۶۷۸۹", PhoneNormalizer.stripToDialable("۰۹۱۲-۳۴۵-۶۷۸۹"))
+        assertEquals("+९१९८७६५४३२१०", PhoneNormalizer.stripToDialable("+९१ ९८७६५ ४३२१०"))
+        assertEquals("１２３", PhoneNormalizer.stripToDialable("１２３"))
+        // Superscripts are numbers but not decimal digits
+        assertEquals("12", PhoneNormalizer.stripToDialable("1²2"))
+    }
+
+    @Test
+    fun digitsOnlyKeepsAsciiDigits() {
+        assertEquals("919876543210", PhoneNormalizer.digitsOnly("+91 98765-43210"))
+        assertEquals("", PhoneNormalizer.digitsOnly("٩٨٧٦٥"))
+        assertEquals("20240101", PhoneNormalizer.digitsOnly("Call_٩٨_20240101"))
+    }
+
+    @Test
+    fun cleanInputIsReturnedAsIs() {
+        val e164 = "+919876543210"
+        assertSame(e164, PhoneNormalizer.stripToDialable(e164))
+        val digits = "9876543210"
+        assertSame(digits, PhoneNormalizer.digitsOnly(digits))
+        val arabic = "٩٨٧٦٥"
+        assertSame(arabic, PhoneNormalizer.stripToDialable(arabic))
+    }
+}
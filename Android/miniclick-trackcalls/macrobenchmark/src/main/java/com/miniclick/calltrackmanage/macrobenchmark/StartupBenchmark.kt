@@ -0,0 +1,52 @@
+package com.miniclick.calltrackmanage.macrobenchmark
+
+import androidx.benchmark.macro.BaselineProfileMode
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.FrameTimingMetric
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.StartupTimingMetric
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.uiautomator.By
+import androidx.test.uiautomator.Until
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Cold start of MainActivity to the first frame of HomeScreen.
+ *
+ * Run on a device that has finished onboarding, otherwise the setup flow is measured instead:
+ * ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+ */
+@RunWith(AndroidJUnit4::class)
+class StartupBenchmark {
+
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+
+    @Test
+    fun coldStartNoCompilation() = coldStart(CompilationMode.None())
+
+    // The app ships no baseline profile yet; until one exists this measures partial AOT without it
+    @Test
+    fun coldStartBaselineProfile() = coldStart(CompilationMode.Partial(BaselineProfileMode.UseIfAvailable))
+
+    private fun coldStart(compilationMode: CompilationMode) = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(StartupTimingMetric(), FrameTimingMetric()),
+        compilationMode = compilationMode,
+        startupMode = StartupMode.COLD,
+        iterations = 10,
+        setupBlock = { pressHome() }
+    ) {
+        startActivityAndWait()
+        // First frame with call list content (or its empty state) instead of the splash screen
+        device.wait(Until.hasObject(By.pkg(TARGET_PACKAGE).depth(0)), 5_000)
+        device.waitForIdle()
+    }
+
+    companion object {
+        private const val TARGET_PACKAGE = "com.miniclick.calltrackmanage"
+    }
+}
@@ -22,3 +22,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "Call Cloud"
 include(":app")
+include(":macrobenchmark")